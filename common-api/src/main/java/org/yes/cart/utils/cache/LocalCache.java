@@ -0,0 +1,70 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.utils.cache;
+
+/**
+ * Node local cache that is not managed by the cache manager (e.g. caches that live in the search modules),
+ * but which should still be visible and manageable via cache director.
+ */
+public interface LocalCache {
+
+    /**
+     * @return cache name
+     */
+    String getName();
+
+    /**
+     * @return number of entries
+     */
+    long getSize();
+
+    /**
+     * @return current weight of all entries (e.g. approximate size in bytes)
+     */
+    long getWeight();
+
+    /**
+     * @return maximum weight, after which least recently used entries are evicted
+     */
+    long getMaxWeight();
+
+    /**
+     * @return number of cache hits
+     */
+    long getHits();
+
+    /**
+     * @return number of cache misses
+     */
+    long getMisses();
+
+    /**
+     * @return true if cache is disabled
+     */
+    boolean isDisabled();
+
+    /**
+     * @param disabled disable flag, disabling the cache also clears it
+     */
+    void setDisabled(boolean disabled);
+
+    /**
+     * Remove all entries.
+     */
+    void clear();
+
+}
@@ -21,6 +21,8 @@ import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.math.NumberUtils;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
@@ -29,6 +31,7 @@ import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.yes.cart.cluster.node.ContextRspMessage;
 import org.yes.cart.cluster.node.Message;
+import org.yes.cart.cluster.node.MessageCodec;
 import org.yes.cart.cluster.node.Node;
 import org.yes.cart.cluster.node.NodeService;
 import org.yes.cart.service.async.model.AsyncContext;
@@ -38,23 +41,36 @@ import org.yes.cart.web.service.rest.RestMessage;
 
 import java.net.ConnectException;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.*;
 
 /**
+ * Manager node service that broadcasts messages to storefront nodes over REST.
+ *
+ * Message is sent to all nodes concurrently and responses are collected until the timeout of the operation, which
+ * applies to the broadcast as a whole, so one slow node does not delay responses from others. Responses that did
+ * not arrive before the deadline are not included.
+ *
+ * Payload is encoded with codec negotiated with each node. Until node replies with codecs it accepts (or if node does
+ * not negotiate codecs) messages to it are Java serialized, so that nodes of different versions can be in the cluster.
+ *
  * User: denispavlov
  * Date: 24/05/2019
  * Time: 21:01
  */
 public class ManagerRestNodeServiceImpl extends AbstractRestNodeServiceImpl implements NodeService {
 
-    private final SimpleClientHttpRequestFactory clientHttpRequestFactory = new SimpleClientHttpRequestFactory();
-    private final RestTemplate restTemplate = new RestTemplate(clientHttpRequestFactory);
+    private static final int DEFAULT_TIMEOUT = 1000;
+
+    private final Map<Integer, RestTemplate> restTemplates = new ConcurrentHashMap<>();
+
+    private final Map<String, MessageCodec> nodeCodecs = new ConcurrentHashMap<>();
+    private MessageCodecNegotiator messageCodecNegotiator = new MessageCodecNegotiator();
 
     private Set<String> reloadClusterTopics = new HashSet<>();
 
+    private TaskExecutor broadcastExecutor;
+
     public ManagerRestNodeServiceImpl(final SystemService systemService) {
         super(systemService);
     }
@@ -85,73 +101,170 @@ public class ManagerRestNodeServiceImpl extends AbstractRestNodeServiceImpl impl
             cluster.removeIf(node -> !targets.contains(node.getId()));
         }
 
+        if (cluster.isEmpty()) {
+            return;
+        }
+
+        final int timeout = NumberUtils.toInt(getConfiguration().get(context.getAttribute(AsyncContext.TIMEOUT_KEY)), DEFAULT_TIMEOUT);
+        final RestTemplate restTemplate = getRestTemplate(timeout);
+        final HttpHeaders headers = getRestServiceInboundChannelHeaders(context);
+        final Map<String, HttpEntity<RestMessage>> msgByCodec = new HashMap<>();
 
-        final HttpHeaders headers = getRestServiceInboundChannelHeaders(context, context.getAttribute(AsyncContext.TIMEOUT_KEY));
+        final long deadline = System.currentTimeMillis() + timeout;
 
+        final List<FutureTask<Message>> calls = new ArrayList<>(cluster.size());
         for (final Node yesNode : cluster) {
+            final MessageCodec codec = getMessageCodec(yesNode);
+            final HttpEntity<RestMessage> msg = msgByCodec.computeIfAbsent(codec.getName(), name -> new HttpEntity<>(
+                    new RestMessage(restMessage, codec, messageCodecNegotiator.getAccepted()), headers));
+            final FutureTask<Message> call = new FutureTask<>(() -> send(restTemplate, yesNode, msg));
+            calls.add(call);
+            execute(call);
+        }
+
+        for (int i = 0; i < cluster.size(); i++) {
+
+            final Node yesNode = cluster.get(i);
+            final FutureTask<Message> call = calls.get(i);
+
             try {
 
-                final HttpEntity<RestMessage> msg = new HttpEntity<>(new RestMessage(restMessage), headers);
+                final Message rsp = call.get(Math.max(0L, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                if (rsp != null) {
+                    restMessage.addResponse(rsp);
+                }
 
-                final ResponseEntity<RestMessage> rsp = this.restTemplate.postForEntity(
-                        yesNode.getChannel(), msg, RestMessage.class);
+            } catch (TimeoutException te) {
 
-                if (rsp != null && rsp.getBody() != null) {
-                    restMessage.addResponse(
-                            new BasicMessageImpl(
-                                    rsp.getBody().getSource(),
-                                    rsp.getBody().getTargets(),
-                                    rsp.getBody().getSubject(),
-                                    rsp.getBody().getPayloadObject()
-                            ));
+                call.cancel(true);
+
+                if (log.isErrorEnabled()) {
+                    log.error(Markers.alert(), "Node message failure [" + message + "] to channel ["
+                            + yesNode.getId() + ":" + yesNode.getChannel() + "] . No response within " + timeout + "ms");
                 }
 
-            } catch (RestClientException rce) {
+            } catch (InterruptedException ie) {
 
-                if (rce.getCause() instanceof ConnectException) {
+                Thread.currentThread().interrupt();
+                calls.forEach(remaining -> remaining.cancel(true));
+                log.warn("Broadcasting of message {} interrupted", message.getSubject());
+                return;
 
-                    blacklist(yesNode.getId());
+            } catch (ExecutionException ee) {
 
-                    if (log.isErrorEnabled()) {
-                        log.error(Markers.alert(), "Node message failure [" + message + "] to channel ["
-                                + yesNode.getId() + ":" + yesNode.getChannel() + "] . Blacklisting this node due to connection exception.");
-                    }
+                onFailure(message, yesNode, ee.getCause());
 
-                } else if (rce.getCause() instanceof JsonParseException) {
+            }
+        }
+
+    }
+
+    private Message send(final RestTemplate restTemplate, final Node yesNode, final HttpEntity<RestMessage> msg) {
+
+        final long start = System.currentTimeMillis();
 
-                    blacklist(yesNode.getId());
+        final ResponseEntity<RestMessage> rsp = restTemplate.postForEntity(yesNode.getChannel(), msg, RestMessage.class);
 
-                    if (log.isErrorEnabled()) {
-                        log.error(Markers.alert(), "Node message failure [" + message + "] to channel ["
-                                + yesNode.getId() + ":" + yesNode.getChannel() + "] . Blacklisting this node due to malformed message.");
-                    }
+        final long latency = System.currentTimeMillis() - start;
 
-                } else {
+        log.debug("Node {} responded to {} in {}ms", yesNode.getId(), msg.getBody().getSubject(), latency);
+
+        if (rsp != null && rsp.getBody() != null) {
+            nodeCodecs.put(yesNode.getId(), messageCodecNegotiator.negotiate(rsp.getBody().getCodecs()));
+            return new TimedMessageImpl(
+                    rsp.getBody().getSource(),
+                    rsp.getBody().getTargets(),
+                    rsp.getBody().getSubject(),
+                    rsp.getBody().getPayloadObject(messageCodecNegotiator.getCodec(rsp.getBody().getCodec())),
+                    latency
+            );
+        }
+        return null;
+
+    }
 
-                    if (log.isErrorEnabled()) {
-                        log.error(Markers.alert(), "Node message failure [" + message + "] to channel ["
-                                        + yesNode.getId() + ":" + yesNode.getChannel() + "] . Exception occurred during ws call",
-                                rce);
-                    }
+    private MessageCodec getMessageCodec(final Node yesNode) {
 
+        final MessageCodec codec = nodeCodecs.get(yesNode.getId());
+        if (codec == null) {
+            return messageCodecNegotiator.negotiate(null);
+        }
+        return codec;
+
+    }
+
+    private void execute(final FutureTask<Message> call) {
+
+        if (broadcastExecutor == null) {
+            call.run();
+            return;
+        }
+        try {
+            broadcastExecutor.execute(call);
+        } catch (TaskRejectedException tre) {
+            call.run();
+        }
+
+    }
+
+    private void onFailure(final Message message, final Node yesNode, final Throwable exp) {
+
+        // node may have been redeployed with different version, so negotiate again
+        nodeCodecs.remove(yesNode.getId());
+
+        if (exp instanceof RestClientException) {
+
+            if (exp.getCause() instanceof ConnectException) {
+
+                blacklist(yesNode.getId());
+
+                if (log.isErrorEnabled()) {
+                    log.error(Markers.alert(), "Node message failure [" + message + "] to channel ["
+                            + yesNode.getId() + ":" + yesNode.getChannel() + "] . Blacklisting this node due to connection exception.");
                 }
 
-            } catch (Exception e) {
+                return;
+
+            } else if (exp.getCause() instanceof JsonParseException) {
+
+                blacklist(yesNode.getId());
 
                 if (log.isErrorEnabled()) {
                     log.error(Markers.alert(), "Node message failure [" + message + "] to channel ["
-                                    + yesNode.getId() + ":" + yesNode.getChannel() + "] . Exception occurred during ws call",
-                            e);
+                            + yesNode.getId() + ":" + yesNode.getChannel() + "] . Blacklisting this node due to malformed message.");
                 }
 
+                return;
+
             }
+
+        }
+
+        if (log.isErrorEnabled()) {
+            log.error(Markers.alert(), "Node message failure [" + message + "] to channel ["
+                            + yesNode.getId() + ":" + yesNode.getChannel() + "] . Exception occurred during ws call",
+                    exp);
         }
 
     }
 
+    /*
+     * Timeouts are set on request factory, so each timeout has its own template. Factory uses JDK keep-alive cache,
+     * so connections to nodes are reused as long as responses are fully read.
+     */
+    private RestTemplate getRestTemplate(final int timeout) {
+
+        return restTemplates.computeIfAbsent(timeout, t -> {
+            final SimpleClientHttpRequestFactory clientHttpRequestFactory = new SimpleClientHttpRequestFactory();
+            clientHttpRequestFactory.setConnectTimeout(t);
+            clientHttpRequestFactory.setReadTimeout(t);
+            return new RestTemplate(clientHttpRequestFactory);
+        });
+
+    }
+
 
-    private HttpHeaders getRestServiceInboundChannelHeaders(final AsyncContext context,
-                                                            final String timeoutKey) {
+    private HttpHeaders getRestServiceInboundChannelHeaders(final AsyncContext context) {
 
 
         final String userName = context.getAttribute(AsyncContext.USERNAME);
@@ -160,10 +273,6 @@ public class ManagerRestNodeServiceImpl extends AbstractRestNodeServiceImpl impl
         final boolean hashed = StringUtils.isNotBlank(passwordHash);
         final String pwd = hashed ? passwordHash : password;
 
-        final int timeout = NumberUtils.toInt(getConfiguration().get(timeoutKey), 1000);
-        clientHttpRequestFactory.setConnectTimeout(timeout);
-        clientHttpRequestFactory.setReadTimeout(timeout);
-
         final HttpHeaders headers = new HttpHeaders();
 
         final String basic = userName + ":" + pwd;
@@ -184,4 +293,23 @@ public class ManagerRestNodeServiceImpl extends AbstractRestNodeServiceImpl impl
     public void setReloadClusterTopics(final Set<String> reloadClusterTopics) {
         this.reloadClusterTopics = new HashSet<>(reloadClusterTopics);
     }
+
+    /**
+     * Spring IoC.
+     *
+     * @param broadcastExecutor executor for sending messages to nodes concurrently (if not set messages are
+     *                          sent one after another)
+     */
+    public void setBroadcastExecutor(final TaskExecutor broadcastExecutor) {
+        this.broadcastExecutor = broadcastExecutor;
+    }
+
+    /**
+     * Spring IoC.
+     *
+     * @param messageCodecNegotiator codecs accepted by this node
+     */
+    public void setMessageCodecNegotiator(final MessageCodecNegotiator messageCodecNegotiator) {
+        this.messageCodecNegotiator = messageCodecNegotiator;
+    }
 }
@@ -18,11 +18,19 @@ package org.yes.cart.web.service.rest;
 
 import org.springframework.util.SerializationUtils;
 import org.yes.cart.cluster.node.Message;
+import org.yes.cart.cluster.node.MessageCodec;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
+ * REST message.
+ *
+ * Payload is encoded with {@link #getCodec()}, which is not set by nodes that do not negotiate codecs, in which case
+ * payload is Java serialized. {@link #getCodecs()} are codecs accepted by the sender, so that recipient may reply
+ * using one of these.
+ *
  * User: denispavlov
  * Date: 24/05/2019
  * Time: 20:58
@@ -33,6 +41,8 @@ public class RestMessage {
     private ArrayList<String> targets;
     private String subject;
     private byte[] payload;
+    private String codec;
+    private ArrayList<String> codecs;
 
     public RestMessage() {
     }
@@ -46,6 +56,17 @@ public class RestMessage {
         this.payload = SerializationUtils.serialize(message.getPayload());
     }
 
+    public RestMessage(final Message message, final MessageCodec codec, final List<String> codecs) {
+        this.source = message.getSource();
+        this.subject = message.getSubject();
+        if (message.getTargets() != null) {
+            this.targets = new ArrayList<>(message.getTargets());
+        }
+        this.payload = codec.encode(message.getPayload());
+        this.codec = codec.getName();
+        this.codecs = new ArrayList<>(codecs);
+    }
+
     public String getSource() {
         return source;
     }
@@ -78,8 +99,28 @@ public class RestMessage {
         this.payload = payload;
     }
 
+    public String getCodec() {
+        return codec;
+    }
+
+    public void setCodec(final String codec) {
+        this.codec = codec;
+    }
+
+    public ArrayList<String> getCodecs() {
+        return codecs;
+    }
+
+    public void setCodecs(final ArrayList<String> codecs) {
+        this.codecs = codecs;
+    }
+
     public <T extends Serializable> T getPayloadObject() {
         return (T) SerializationUtils.deserialize(this.payload);
     }
 
+    public <T extends Serializable> T getPayloadObject(final MessageCodec codec) {
+        return codec.decode(this.payload);
+    }
+
 }
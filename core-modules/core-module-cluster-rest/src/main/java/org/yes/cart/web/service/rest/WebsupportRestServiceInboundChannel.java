@@ -25,8 +25,10 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.yes.cart.cluster.node.MessageCodec;
 import org.yes.cart.cluster.node.NodeService;
 import org.yes.cart.cluster.node.RspMessage;
+import org.yes.cart.cluster.node.impl.MessageCodecNegotiator;
 import org.yes.cart.cluster.node.impl.RspMessageImpl;
 
 /**
@@ -43,6 +45,8 @@ public class WebsupportRestServiceInboundChannel {
 
     private NodeService nodeService;
 
+    private MessageCodecNegotiator messageCodecNegotiator = new MessageCodecNegotiator();
+
     /**
      * {@inheritDoc}
      */
@@ -67,14 +71,16 @@ public class WebsupportRestServiceInboundChannel {
                 inbound.getSource(),
                 inbound.getTargets(),
                 inbound.getSubject(),
-                inbound.getPayloadObject()
+                inbound.getPayloadObject(messageCodecNegotiator.getCodec(inbound.getCodec()))
         );
 
         // broadcast to self
         nodeService.broadcast(wrapped);
 
         if (CollectionUtils.isNotEmpty(wrapped.getResponses())) {
-            return new RestMessage(wrapped.getResponses().get(0));
+            // reply with codec that sender accepts, senders that do not negotiate codecs only accept Java serialization
+            final MessageCodec codec = messageCodecNegotiator.negotiate(inbound.getCodecs());
+            return new RestMessage(wrapped.getResponses().get(0), codec, messageCodecNegotiator.getAccepted());
         }
         return null;
 
@@ -89,4 +95,13 @@ public class WebsupportRestServiceInboundChannel {
         this.nodeService = nodeService;
     }
 
+    /**
+     * Spring IoC.
+     *
+     * @param messageCodecNegotiator codecs accepted by this node
+     */
+    public void setMessageCodecNegotiator(final MessageCodecNegotiator messageCodecNegotiator) {
+        this.messageCodecNegotiator = messageCodecNegotiator;
+    }
+
 }
@@ -0,0 +1,542 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.cluster.node.impl;
+
+import org.springframework.util.SerializationUtils;
+import org.yes.cart.cluster.node.MessageCodec;
+import org.yes.cart.domain.dto.impl.CacheInfoDTO;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact binary codec. Payloads made up of common values (strings, numbers, dates, primitive and boxed
+ * long arrays, lists, maps and sets of these, cache information) are written as tagged values with variable
+ * length numbers, so that e.g. array of primary keys takes few bytes per key rather than full serialized
+ * {@link Long} object each. Any other payload is written using Java serialization.
+ *
+ * Payloads larger than compression threshold are deflated, unless deflated payload is not smaller.
+ *
+ * First byte of encoded payload is format, the rest is body.
+ */
+public class BinaryMessageCodecImpl implements MessageCodec {
+
+    public static final String NAME = "binary";
+
+    private static final int FORMAT_JAVA = 0;
+    private static final int FORMAT_BINARY = 1;
+    private static final int DEFLATED = 0x80;
+
+    private static final int NULL = 0;
+    private static final int TRUE = 1;
+    private static final int FALSE = 2;
+    private static final int STRING = 3;
+    private static final int INTEGER = 4;
+    private static final int LONG = 5;
+    private static final int DOUBLE = 6;
+    private static final int BIG_DECIMAL = 7;
+    private static final int DATE = 8;
+    private static final int INSTANT = 9;
+    private static final int LOCAL_DATE = 10;
+    private static final int LOCAL_DATE_TIME = 11;
+    private static final int BYTE_ARRAY = 12;
+    private static final int INT_ARRAY = 13;
+    private static final int LONG_ARRAY = 14;
+    private static final int BOXED_LONG_ARRAY = 15;
+    private static final int STRING_ARRAY = 16;
+    private static final int OBJECT_ARRAY = 17;
+    private static final int ARRAY_LIST = 18;
+    private static final int HASH_SET = 19;
+    private static final int HASH_MAP = 20;
+    private static final int LINKED_HASH_MAP = 21;
+    private static final int CACHE_INFO = 22;
+
+    private static final UnsupportedTypeException UNSUPPORTED = new UnsupportedTypeException();
+
+    private int compressThreshold = 1024;
+    private int compressLevel = Deflater.BEST_SPEED;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] encode(final Serializable payload) {
+
+        try {
+
+            byte[] body;
+            int format;
+            try {
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+                final DataOutputStream out = new DataOutputStream(bytes);
+                write(out, payload);
+                out.flush();
+                body = bytes.toByteArray();
+                format = FORMAT_BINARY;
+            } catch (UnsupportedTypeException ute) {
+                body = SerializationUtils.serialize(payload);
+                format = FORMAT_JAVA;
+            }
+
+            if (compressThreshold >= 0 && body.length >= compressThreshold) {
+                final byte[] deflated = deflate(body);
+                if (deflated.length < body.length) {
+                    body = deflated;
+                    format |= DEFLATED;
+                }
+            }
+
+            final byte[] encoded = new byte[body.length + 1];
+            encoded[0] = (byte) format;
+            System.arraycopy(body, 0, encoded, 1, body.length);
+            return encoded;
+
+        } catch (IOException ioe) {
+            throw new IllegalArgumentException("Failed to encode payload", ioe);
+        }
+
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T extends Serializable> T decode(final byte[] payload) {
+
+        if (payload == null || payload.length == 0) {
+            throw new IllegalArgumentException("Empty payload");
+        }
+
+        final int format = payload[0] & 0xFF;
+        InputStream in = new ByteArrayInputStream(payload, 1, payload.length - 1);
+        if ((format & DEFLATED) != 0) {
+            in = new InflaterInputStream(in);
+        }
+
+        try {
+            switch (format & ~DEFLATED) {
+                case FORMAT_BINARY:
+                    return (T) read(new DataInputStream(in));
+                case FORMAT_JAVA:
+                    try (ObjectInputStream ois = new ObjectInputStream(in)) {
+                        return (T) ois.readObject();
+                    }
+                default:
+                    throw new IllegalArgumentException("Unknown payload format " + format);
+            }
+        } catch (IOException | ClassNotFoundException exp) {
+            throw new IllegalArgumentException("Failed to decode payload", exp);
+        }
+
+    }
+
+    private byte[] deflate(final byte[] body) throws IOException {
+
+        final Deflater deflater = new Deflater(compressLevel);
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 2);
+            try (DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater)) {
+                out.write(body);
+            }
+            return bytes.toByteArray();
+        } finally {
+            deflater.end();
+        }
+
+    }
+
+    private static void write(final DataOutputStream out, final Object value) throws IOException {
+
+        if (value == null) {
+            out.writeByte(NULL);
+            return;
+        }
+
+        final Class<?> type = value.getClass();
+        if (type == String.class) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (type == Long.class) {
+            out.writeByte(LONG);
+            writeSigned(out, (Long) value);
+        } else if (type == Integer.class) {
+            out.writeByte(INTEGER);
+            writeSigned(out, (Integer) value);
+        } else if (type == Boolean.class) {
+            out.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (type == Double.class) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (type == BigDecimal.class) {
+            out.writeByte(BIG_DECIMAL);
+            writeString(out, value.toString());
+        } else if (type == Date.class) {
+            out.writeByte(DATE);
+            writeSigned(out, ((Date) value).getTime());
+        } else if (type == Instant.class) {
+            out.writeByte(INSTANT);
+            writeSigned(out, ((Instant) value).getEpochSecond());
+            writeUnsigned(out, ((Instant) value).getNano());
+        } else if (type == LocalDate.class) {
+            out.writeByte(LOCAL_DATE);
+            writeSigned(out, ((LocalDate) value).toEpochDay());
+        } else if (type == LocalDateTime.class) {
+            out.writeByte(LOCAL_DATE_TIME);
+            writeSigned(out, ((LocalDateTime) value).toLocalDate().toEpochDay());
+            writeUnsigned(out, ((LocalDateTime) value).toLocalTime().toNanoOfDay());
+        } else if (type == byte[].class) {
+            out.writeByte(BYTE_ARRAY);
+            writeUnsigned(out, ((byte[]) value).length);
+            out.write((byte[]) value);
+        } else if (type == int[].class) {
+            out.writeByte(INT_ARRAY);
+            writeUnsigned(out, ((int[]) value).length);
+            for (final int item : (int[]) value) {
+                writeSigned(out, item);
+            }
+        } else if (type == long[].class) {
+            out.writeByte(LONG_ARRAY);
+            writeUnsigned(out, ((long[]) value).length);
+            for (final long item : (long[]) value) {
+                writeSigned(out, item);
+            }
+        } else if (type == Long[].class) {
+            out.writeByte(BOXED_LONG_ARRAY);
+            writeBoxedLongs(out, (Long[]) value);
+        } else if (type == String[].class || type == Object[].class) {
+            out.writeByte(type == String[].class ? STRING_ARRAY : OBJECT_ARRAY);
+            writeUnsigned(out, ((Object[]) value).length);
+            for (final Object item : (Object[]) value) {
+                write(out, item);
+            }
+        } else if (type == ArrayList.class || type == HashSet.class) {
+            out.writeByte(type == ArrayList.class ? ARRAY_LIST : HASH_SET);
+            writeUnsigned(out, ((Collection) value).size());
+            for (final Object item : (Collection) value) {
+                write(out, item);
+            }
+        } else if (type == HashMap.class || type == LinkedHashMap.class) {
+            out.writeByte(type == HashMap.class ? HASH_MAP : LINKED_HASH_MAP);
+            writeUnsigned(out, ((Map) value).size());
+            for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                write(out, entry.getKey());
+                write(out, entry.getValue());
+            }
+        } else if (type == CacheInfoDTO.class) {
+            out.writeByte(CACHE_INFO);
+            writeCacheInfo(out, (CacheInfoDTO) value);
+        } else {
+            throw UNSUPPORTED;
+        }
+
+    }
+
+    private static Object read(final DataInputStream in) throws IOException {
+
+        final int tag = in.readUnsignedByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case STRING:
+                return readString(in);
+            case INTEGER:
+                return (int) readSigned(in);
+            case LONG:
+                return readSigned(in);
+            case DOUBLE:
+                return in.readDouble();
+            case BIG_DECIMAL:
+                return new BigDecimal(readString(in));
+            case DATE:
+                return new Date(readSigned(in));
+            case INSTANT:
+                return Instant.ofEpochSecond(readSigned(in), readUnsigned(in));
+            case LOCAL_DATE:
+                return LocalDate.ofEpochDay(readSigned(in));
+            case LOCAL_DATE_TIME:
+                return LocalDateTime.of(LocalDate.ofEpochDay(readSigned(in)), LocalTime.ofNanoOfDay(readUnsigned(in)));
+            case BYTE_ARRAY: {
+                final byte[] array = new byte[readLength(in)];
+                in.readFully(array);
+                return array;
+            }
+            case INT_ARRAY: {
+                final int[] array = new int[readLength(in)];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = (int) readSigned(in);
+                }
+                return array;
+            }
+            case LONG_ARRAY: {
+                final long[] array = new long[readLength(in)];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = readSigned(in);
+                }
+                return array;
+            }
+            case BOXED_LONG_ARRAY:
+                return readBoxedLongs(in);
+            case STRING_ARRAY: {
+                final String[] array = new String[readLength(in)];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = (String) read(in);
+                }
+                return array;
+            }
+            case OBJECT_ARRAY: {
+                final Object[] array = new Object[readLength(in)];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = read(in);
+                }
+                return array;
+            }
+            case ARRAY_LIST: {
+                final int size = readLength(in);
+                final List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(read(in));
+                }
+                return list;
+            }
+            case HASH_SET: {
+                final int size = readLength(in);
+                final Set<Object> set = new HashSet<>(size * 4 / 3 + 1);
+                for (int i = 0; i < size; i++) {
+                    set.add(read(in));
+                }
+                return set;
+            }
+            case HASH_MAP:
+            case LINKED_HASH_MAP: {
+                final int size = readLength(in);
+                final Map<Object, Object> map = tag == HASH_MAP ? new HashMap<>(size * 4 / 3 + 1) : new LinkedHashMap<>(size * 4 / 3 + 1);
+                for (int i = 0; i < size; i++) {
+                    map.put(read(in), read(in));
+                }
+                return map;
+            }
+            case CACHE_INFO:
+                return readCacheInfo(in);
+            default:
+                throw new IOException("Unknown value type " + tag);
+        }
+
+    }
+
+    /*
+     * Boxed arrays are mostly primary keys, which never have nulls, so presence of each item is only written
+     * when there are nulls.
+     */
+    private static void writeBoxedLongs(final DataOutputStream out, final Long[] value) throws IOException {
+
+        boolean nulls = false;
+        for (final Long item : value) {
+            if (item == null) {
+                nulls = true;
+                break;
+            }
+        }
+        writeUnsigned(out, value.length);
+        out.writeBoolean(nulls);
+        for (final Long item : value) {
+            if (nulls) {
+                out.writeBoolean(item != null);
+            }
+            if (item != null) {
+                writeSigned(out, item);
+            }
+        }
+
+    }
+
+    private static Long[] readBoxedLongs(final DataInputStream in) throws IOException {
+
+        final Long[] array = new Long[readLength(in)];
+        final boolean nulls = in.readBoolean();
+        for (int i = 0; i < array.length; i++) {
+            if (!nulls || in.readBoolean()) {
+                array[i] = readSigned(in);
+            }
+        }
+        return array;
+
+    }
+
+    private static void writeCacheInfo(final DataOutputStream out, final CacheInfoDTO value) throws IOException {
+
+        writeNullableString(out, value.getCacheName());
+        writeSigned(out, value.getCacheSize());
+        writeSigned(out, value.getInMemorySize());
+        writeSigned(out, value.getInMemorySizeMax());
+        writeSigned(out, value.getTimeToLiveSeconds());
+        writeSigned(out, value.getTimeToIdleSeconds());
+        out.writeBoolean(value.isEternal());
+        writeNullableString(out, value.getMemoryStoreEvictionPolicy());
+        out.writeBoolean(value.isOverflowToDisk());
+        writeSigned(out, value.getDiskStoreSize());
+        writeSigned(out, value.getCalculateInMemorySize());
+        writeSigned(out, value.getCalculateOnDiskSize());
+        writeSigned(out, value.getHits());
+        writeSigned(out, value.getMisses());
+        out.writeBoolean(value.isDisabled());
+        writeNullableString(out, value.getNodeId());
+        writeNullableString(out, value.getNodeUri());
+
+    }
+
+    private static CacheInfoDTO readCacheInfo(final DataInputStream in) throws IOException {
+
+        final CacheInfoDTO value = new CacheInfoDTO();
+        value.setCacheName(readNullableString(in));
+        value.setCacheSize(readSigned(in));
+        value.setInMemorySize(readSigned(in));
+        value.setInMemorySizeMax(readSigned(in));
+        value.setTimeToLiveSeconds(readSigned(in));
+        value.setTimeToIdleSeconds(readSigned(in));
+        value.setEternal(in.readBoolean());
+        value.setMemoryStoreEvictionPolicy(readNullableString(in));
+        value.setOverflowToDisk(in.readBoolean());
+        value.setDiskStoreSize(readSigned(in));
+        value.setCalculateInMemorySize(readSigned(in));
+        value.setCalculateOnDiskSize(readSigned(in));
+        value.setHits(readSigned(in));
+        value.setMisses(readSigned(in));
+        value.setDisabled(in.readBoolean());
+        value.setNodeId(readNullableString(in));
+        value.setNodeUri(readNullableString(in));
+        return value;
+
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        final byte[] utf = value.getBytes(StandardCharsets.UTF_8);
+        writeUnsigned(out, utf.length);
+        out.write(utf);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final byte[] utf = new byte[readLength(in)];
+        in.readFully(utf);
+        return new String(utf, StandardCharsets.UTF_8);
+    }
+
+    private static void writeNullableString(final DataOutputStream out, final String value) throws IOException {
+        if (value == null) {
+            out.writeBoolean(false);
+        } else {
+            out.writeBoolean(true);
+            writeString(out, value);
+        }
+    }
+
+    private static String readNullableString(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? readString(in) : null;
+    }
+
+    /*
+     * Zig-zag encoding, so that small negative numbers take as few bytes as small positive ones.
+     */
+    private static void writeSigned(final DataOutputStream out, final long value) throws IOException {
+        writeUnsigned(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static long readSigned(final DataInputStream in) throws IOException {
+        final long value = readUnsigned(in);
+        return (value >>> 1) ^ -(value & 1L);
+    }
+
+    /*
+     * Variable length encoding, 7 bits per byte with high bit set on all but last byte.
+     */
+    private static void writeUnsigned(final DataOutputStream out, final long value) throws IOException {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0L) {
+            out.writeByte((int) ((remaining & 0x7FL) | 0x80L));
+            remaining >>>= 7;
+        }
+        out.writeByte((int) remaining);
+    }
+
+    private static long readUnsigned(final DataInputStream in) throws IOException {
+        long value = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable length number");
+    }
+
+    private static int readLength(final DataInputStream in) throws IOException {
+        final long length = readUnsigned(in);
+        if (length < 0L || length > Integer.MAX_VALUE) {
+            throw new IOException("Malformed length " + length);
+        }
+        return (int) length;
+    }
+
+    /**
+     * Spring IoC.
+     *
+     * @param compressThreshold min size in bytes of payload that is deflated (negative value disables compression)
+     */
+    public void setCompressThreshold(final int compressThreshold) {
+        this.compressThreshold = compressThreshold;
+    }
+
+    /**
+     * Spring IoC.
+     *
+     * @param compressLevel deflate level (0-9)
+     */
+    public void setCompressLevel(final int compressLevel) {
+        this.compressLevel = compressLevel;
+    }
+
+    private static final class UnsupportedTypeException extends RuntimeException {
+
+        private UnsupportedTypeException() {
+            super("Unsupported type", null, false, false);
+        }
+
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.cluster.node.impl;
+
+import org.springframework.util.SerializationUtils;
+import org.yes.cart.cluster.node.MessageCodec;
+
+import java.io.Serializable;
+
+/**
+ * Java serialization codec. This is the codec that all nodes accept, including nodes that do not
+ * negotiate codecs.
+ */
+public class JavaMessageCodecImpl implements MessageCodec {
+
+    public static final String NAME = "java";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] encode(final Serializable payload) {
+        return SerializationUtils.serialize(payload);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T extends Serializable> T decode(final byte[] payload) {
+        return (T) SerializationUtils.deserialize(payload);
+    }
+
+}
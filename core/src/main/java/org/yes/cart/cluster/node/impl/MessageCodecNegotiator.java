@@ -0,0 +1,95 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.cluster.node.impl;
+
+import org.yes.cart.cluster.node.MessageCodec;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Codecs that this node accepts in order of preference. Java serialization codec is always accepted (as least
+ * preferred unless configured explicitly), since this is what nodes that do not negotiate codecs use.
+ *
+ * Sender encodes payload with codec negotiated with recipient, which is the most preferred codec of sender that
+ * recipient accepts, and recipient replies using the same rule.
+ */
+public class MessageCodecNegotiator {
+
+    private final Map<String, MessageCodec> codecs = new LinkedHashMap<>();
+    private final MessageCodec java;
+
+    public MessageCodecNegotiator() {
+        this(new ArrayList<>());
+    }
+
+    /**
+     * @param codecs accepted codecs in order of preference
+     */
+    public MessageCodecNegotiator(final List<MessageCodec> codecs) {
+        for (final MessageCodec codec : codecs) {
+            this.codecs.put(codec.getName(), codec);
+        }
+        this.codecs.putIfAbsent(JavaMessageCodecImpl.NAME, new JavaMessageCodecImpl());
+        this.java = this.codecs.get(JavaMessageCodecImpl.NAME);
+    }
+
+    /**
+     * @return names of accepted codecs in order of preference
+     */
+    public ArrayList<String> getAccepted() {
+        return new ArrayList<>(codecs.keySet());
+    }
+
+    /**
+     * @param name codec name (null for nodes that do not negotiate codecs)
+     *
+     * @return codec
+     *
+     * @throws IllegalArgumentException if codec is not accepted by this node
+     */
+    public MessageCodec getCodec(final String name) {
+        if (name == null) {
+            return java;
+        }
+        final MessageCodec codec = codecs.get(name);
+        if (codec == null) {
+            throw new IllegalArgumentException("Unsupported message codec " + name);
+        }
+        return codec;
+    }
+
+    /**
+     * @param accepted codecs accepted by the other node (null for nodes that do not negotiate codecs)
+     *
+     * @return most preferred codec that the other node accepts
+     */
+    public MessageCodec negotiate(final List<String> accepted) {
+        if (accepted != null) {
+            for (final MessageCodec codec : codecs.values()) {
+                if (accepted.contains(codec.getName())) {
+                    return codec;
+                }
+            }
+        }
+        return java;
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.cluster.node.impl;
+
+import org.yes.cart.cluster.node.TimedMessage;
+
+import java.io.Serializable;
+import java.util.List;
+
+public class TimedMessageImpl extends BasicMessageImpl implements TimedMessage {
+
+    private final long latency;
+
+    public TimedMessageImpl(final String source,
+                            final List<String> targets,
+                            final String subject,
+                            final Serializable payload,
+                            final long latency) {
+        super(source, targets, subject, payload);
+        this.latency = latency;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLatency() {
+        return latency;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "TimedMessageImpl{" +
+                "source='" + getSource() + '\'' +
+                ", targets=" + getTargets() +
+                ", subject='" + getSubject() + '\'' +
+                ", payload=" + getPayload() +
+                ", latency=" + latency +
+                '}';
+    }
+}
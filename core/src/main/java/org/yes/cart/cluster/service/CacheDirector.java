@@ -84,7 +84,9 @@ public interface CacheDirector {
      *
      * @param entityOperation operation type
      * @param entityName entity type
-     * @param pkValues primary keys
+     * @param pkValues primary keys, or null (or keys that contain null, which is what cluster messages carry
+     *                 for changes without primary key) if any instance could have changed, in which case all
+     *                 caches of the entity operation are evicted regardless of strategy
      */
     int onCacheableBulkChange(String entityOperation, String entityName, Long[] pkValues);
 
@@ -55,6 +55,12 @@ public interface CacheEvictionQueue {
 
         Collection<Long> getPKs();
 
+        /**
+         * @return true if all instances of the entity should be evicted (e.g. too many changes), in which case
+         *         {@link #getPKs()} is empty
+         */
+        boolean isAll();
+
     }
 
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.cluster.service;
+
+import org.yes.cart.domain.dto.impl.SearchStatisticsDTO;
+import org.yes.cart.domain.dto.impl.SlowSearchQueryDTO;
+
+import java.util.List;
+
+/**
+ * Search latency statistics and slow query log of full text indexes on this node.
+ */
+public interface SearchStatisticsDirector {
+
+    /**
+     * Get latency statistics per index, search operation and query shape.
+     *
+     * @return statistics
+     */
+    List<SearchStatisticsDTO> getSearchStatistics();
+
+    /**
+     * Get most recent searches that took longer than slow query threshold.
+     *
+     * @return slow searches (most recent first)
+     */
+    List<SlowSearchQueryDTO> getSlowQueries();
+
+    /**
+     * Remove all recorded statistics and slow searches.
+     */
+    void resetSearchStatistics();
+
+    /**
+     * Change slow query threshold of all indexes.
+     *
+     * @param millis threshold in milliseconds, zero disables slow query log
+     */
+    void setSlowQueryThreshold(long millis);
+
+}
@@ -24,7 +24,10 @@ import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.yes.cart.cluster.service.CacheDirector;
 import org.yes.cart.domain.dto.impl.CacheInfoDTO;
+import org.yes.cart.domain.entity.cache.HibernateEntityCacheInvalidator;
 import org.yes.cart.domain.misc.Pair;
+import org.yes.cart.service.domain.cache.impl.TaggedCache;
+import org.yes.cart.utils.cache.LocalCache;
 import org.yes.cart.utils.spring.LinkedHashMapBean;
 
 import java.util.*;
@@ -46,6 +49,10 @@ public class CacheDirectorImpl implements CacheDirector {
 
     private Set<String> skipEvictAll = Collections.emptySet();
 
+    private List<LocalCache> localCaches = Collections.emptyList();
+
+    private HibernateEntityCacheInvalidator entityCacheInvalidator;
+
     /**
      * {@inheritDoc}
      */
@@ -87,10 +94,34 @@ public class CacheDirectorImpl implements CacheDirector {
                     )
             );
 
+        }
+        for (final LocalCache localCache : localCaches) {
+
+            final CacheInfoDTO info = new CacheInfoDTO();
+            info.setCacheName(localCache.getName());
+            info.setCacheSize(localCache.getSize());
+            info.setInMemorySize(localCache.getSize());
+            info.setEternal(true);
+            info.setMemoryStoreEvictionPolicy("LRU");
+            info.setCalculateInMemorySize(localCache.getWeight());
+            info.setHits(localCache.getHits());
+            info.setMisses(localCache.getMisses());
+            info.setDisabled(localCache.isDisabled());
+            rez.add(info);
+
         }
         return rez;
     }
 
+    LocalCache getLocalCache(final String cacheName) {
+        for (final LocalCache localCache : localCaches) {
+            if (localCache.getName().equals(cacheName)) {
+                return localCache;
+            }
+        }
+        return null;
+    }
+
     Set<String> getSkipEvictAll() {
         return skipEvictAll;
     }
@@ -111,6 +142,11 @@ public class CacheDirectorImpl implements CacheDirector {
                 cache.clear();
             }
         }
+        for (final LocalCache localCache : localCaches) {
+            if (force || !this.skipEvictAll.contains(localCache.getName())) {
+                localCache.clear();
+            }
+        }
     }
 
     /**
@@ -122,6 +158,11 @@ public class CacheDirectorImpl implements CacheDirector {
         final Cache cache = cm.getCache(cacheName);
         if (cache != null) {
             cache.clear();
+        } else {
+            final LocalCache localCache = getLocalCache(cacheName);
+            if (localCache != null) {
+                localCache.clear();
+            }
         }
     }
 
@@ -135,6 +176,11 @@ public class CacheDirectorImpl implements CacheDirector {
         if (cache != null) {
             final net.sf.ehcache.Cache nativeCache = (net.sf.ehcache.Cache) cache.getNativeCache();
             nativeCache.setDisabled(false);
+        } else {
+            final LocalCache localCache = getLocalCache(cacheName);
+            if (localCache != null) {
+                localCache.setDisabled(false);
+            }
         }
     }
 
@@ -145,6 +191,11 @@ public class CacheDirectorImpl implements CacheDirector {
         if (cache != null) {
             final net.sf.ehcache.Cache nativeCache = (net.sf.ehcache.Cache) cache.getNativeCache();
             nativeCache.setDisabled(true);
+        } else {
+            final LocalCache localCache = getLocalCache(cacheName);
+            if (localCache != null) {
+                localCache.setDisabled(true);
+            }
         }
     }
 
@@ -180,6 +231,12 @@ public class CacheDirectorImpl implements CacheDirector {
 
                         cnt ++;
 
+                    } else if("tag".equals(cacheStrategy.getSecond())) {
+
+                        evictTagged(cache, entityName, pkValue);
+
+                        cnt ++;
+
                     } else {
 
                         LOG.warn("The [{}] cache eviction strategy not supported", cacheStrategy.getSecond());
@@ -192,6 +249,10 @@ public class CacheDirectorImpl implements CacheDirector {
 
         }
 
+        if (entityCacheInvalidator != null) {
+            cnt += entityCacheInvalidator.invalidate(entityName, pkValue != null ? new Long[] { pkValue } : null);
+        }
+
         return cnt;
     }
 
@@ -199,7 +260,10 @@ public class CacheDirectorImpl implements CacheDirector {
      * {@inheritDoc}
      */
     @Override
-    public int onCacheableBulkChange(final String entityOperation, final String entityName, final Long[] pkValues) {
+    public int onCacheableBulkChange(final String entityOperation, final String entityName, final Long[] keys) {
+
+        // changes without primary key are sent as [ null ], which nodes before coalescing queue also accept
+        final Long[] pkValues = keys == null || Arrays.asList(keys).contains(null) ? null : keys;
 
         int cnt = 0;
 
@@ -215,7 +279,13 @@ public class CacheDirectorImpl implements CacheDirector {
 
                 if (cache != null) {
 
-                    if("all".equals(cacheStrategy.getSecond())) {
+                    if (pkValues == null) {
+
+                        cache.clear();
+
+                        cnt ++;
+
+                    } else if("all".equals(cacheStrategy.getSecond())) {
 
                         cache.clear();
 
@@ -231,6 +301,16 @@ public class CacheDirectorImpl implements CacheDirector {
 
                         }
 
+                    } else if("tag".equals(cacheStrategy.getSecond())) {
+
+                        for (final Long pkValue : pkValues) {
+
+                            evictTagged(cache, entityName, pkValue);
+
+                            cnt++;
+
+                        }
+
                     } else {
 
                         LOG.warn("The [{}] cache eviction strategy not supported", cacheStrategy.getSecond());
@@ -243,9 +323,30 @@ public class CacheDirectorImpl implements CacheDirector {
 
         }
 
+        if (entityCacheInvalidator != null) {
+            cnt += entityCacheInvalidator.invalidate(entityName, pkValues);
+        }
+
         return cnt;
     }
 
+    /**
+     * Evict entries derived from given entity, caches that do not support tags are cleared.
+     *
+     * @param cache      cache
+     * @param entityName entity name
+     * @param pkValue    entity primary key
+     */
+    void evictTagged(final Cache cache, final String entityName, final Long pkValue) {
+
+        if (cache instanceof TaggedCache) {
+            ((TaggedCache) cache).evictTagged(entityName, pkValue);
+        } else {
+            cache.clear();
+        }
+
+    }
+
     /**
      * Resolve caches names for invalidation for given entity and operation.
      * @param entityOperation given operation
@@ -274,6 +375,16 @@ public class CacheDirectorImpl implements CacheDirector {
         this.cacheManager = cacheManager;
     }
 
+    /** IoC. Set caches that are not managed by cache manager.  */
+    public void setLocalCaches(final List<LocalCache> localCaches) {
+        this.localCaches = localCaches;
+    }
+
+    /** IoC. Set invalidator of second level cache, so that changed entities are also evicted from Hibernate regions.  */
+    public void setEntityCacheInvalidator(final HibernateEntityCacheInvalidator entityCacheInvalidator) {
+        this.entityCacheInvalidator = entityCacheInvalidator;
+    }
+
     /** IoC. Set cachecs that should not be evicted during evict all.  */
     public void setSkipEvictAll(final Set<String> skipEvictAll) {
         this.skipEvictAll = skipEvictAll;
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.domain.dto.impl;
+
+import java.io.Serializable;
+
+/**
+ * Latency statistics of searches of the same shape on single node.
+ */
+public class SearchStatisticsDTO implements Serializable {
+
+    private static final long serialVersionUID = 20261017L;
+
+    private String nodeId;
+
+    private String nodeUri;
+
+    private String index;
+
+    private String operation;
+
+    private String fields;
+
+    private long count;
+
+    private long meanMicros;
+
+    private long p50Micros;
+
+    private long p90Micros;
+
+    private long p99Micros;
+
+    private long maxMicros;
+
+    private long hits;
+
+    private long facets;
+
+    /**
+     * @return node id
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * @param nodeId node id
+     */
+    public void setNodeId(final String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * @return node URI
+     */
+    public String getNodeUri() {
+        return nodeUri;
+    }
+
+    /**
+     * @param nodeUri node URI
+     */
+    public void setNodeUri(final String nodeUri) {
+        this.nodeUri = nodeUri;
+    }
+
+    /**
+     * @return index name (e.g. product)
+     */
+    public String getIndex() {
+        return index;
+    }
+
+    /**
+     * @param index index name (e.g. product)
+     */
+    public void setIndex(final String index) {
+        this.index = index;
+    }
+
+    /**
+     * @return search operation (e.g. count, navigation)
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * @param operation search operation (e.g. count, navigation)
+     */
+    public void setOperation(final String operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * @return fields of the query separated by "+"
+     */
+    public String getFields() {
+        return fields;
+    }
+
+    /**
+     * @param fields fields of the query separated by "+"
+     */
+    public void setFields(final String fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * @return number of searches
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @param count number of searches
+     */
+    public void setCount(final long count) {
+        this.count = count;
+    }
+
+    /**
+     * @return mean latency in microseconds
+     */
+    public long getMeanMicros() {
+        return meanMicros;
+    }
+
+    /**
+     * @param meanMicros mean latency in microseconds
+     */
+    public void setMeanMicros(final long meanMicros) {
+        this.meanMicros = meanMicros;
+    }
+
+    /**
+     * @return median latency in microseconds
+     */
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    /**
+     * @param p50Micros median latency in microseconds
+     */
+    public void setP50Micros(final long p50Micros) {
+        this.p50Micros = p50Micros;
+    }
+
+    /**
+     * @return 90th percentile latency in microseconds
+     */
+    public long getP90Micros() {
+        return p90Micros;
+    }
+
+    /**
+     * @param p90Micros 90th percentile latency in microseconds
+     */
+    public void setP90Micros(final long p90Micros) {
+        this.p90Micros = p90Micros;
+    }
+
+    /**
+     * @return 99th percentile latency in microseconds
+     */
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    /**
+     * @param p99Micros 99th percentile latency in microseconds
+     */
+    public void setP99Micros(final long p99Micros) {
+        this.p99Micros = p99Micros;
+    }
+
+    /**
+     * @return max latency in microseconds
+     */
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    /**
+     * @param maxMicros max latency in microseconds
+     */
+    public void setMaxMicros(final long maxMicros) {
+        this.maxMicros = maxMicros;
+    }
+
+    /**
+     * @return total number of hits of all searches
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @param hits total number of hits of all searches
+     */
+    public void setHits(final long hits) {
+        this.hits = hits;
+    }
+
+    /**
+     * @return total number of facet values of all searches
+     */
+    public long getFacets() {
+        return facets;
+    }
+
+    /**
+     * @param facets total number of facet values of all searches
+     */
+    public void setFacets(final long facets) {
+        this.facets = facets;
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.domain.dto.impl;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Search that took longer than slow query threshold.
+ */
+public class SlowSearchQueryDTO implements Serializable {
+
+    private static final long serialVersionUID = 20261017L;
+
+    private String nodeId;
+
+    private String nodeUri;
+
+    private String index;
+
+    private String operation;
+
+    private String fields;
+
+    private LocalDateTime timestamp;
+
+    private String query;
+
+    private long millis;
+
+    private long hits;
+
+    private String explanation;
+
+    /**
+     * @return node id
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * @param nodeId node id
+     */
+    public void setNodeId(final String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * @return node URI
+     */
+    public String getNodeUri() {
+        return nodeUri;
+    }
+
+    /**
+     * @param nodeUri node URI
+     */
+    public void setNodeUri(final String nodeUri) {
+        this.nodeUri = nodeUri;
+    }
+
+    /**
+     * @return index name (e.g. product)
+     */
+    public String getIndex() {
+        return index;
+    }
+
+    /**
+     * @param index index name (e.g. product)
+     */
+    public void setIndex(final String index) {
+        this.index = index;
+    }
+
+    /**
+     * @return search operation (e.g. count, navigation)
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * @param operation search operation (e.g. count, navigation)
+     */
+    public void setOperation(final String operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * @return fields of the query separated by "+"
+     */
+    public String getFields() {
+        return fields;
+    }
+
+    /**
+     * @param fields fields of the query separated by "+"
+     */
+    public void setFields(final String fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * @return time when search was run
+     */
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @param timestamp time when search was run
+     */
+    public void setTimestamp(final LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @return full query
+     */
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * @param query full query
+     */
+    public void setQuery(final String query) {
+        this.query = query;
+    }
+
+    /**
+     * @return time taken in milliseconds
+     */
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * @param millis time taken in milliseconds
+     */
+    public void setMillis(final long millis) {
+        this.millis = millis;
+    }
+
+    /**
+     * @return total hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @param hits total hits
+     */
+    public void setHits(final long hits) {
+        this.hits = hits;
+    }
+
+    /**
+     * @return explanation of the top hit
+     */
+    public String getExplanation() {
+        return explanation;
+    }
+
+    /**
+     * @param explanation explanation of the top hit
+     */
+    public void setExplanation(final String explanation) {
+        this.explanation = explanation;
+    }
+
+}
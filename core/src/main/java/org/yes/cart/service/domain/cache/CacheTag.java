@@ -0,0 +1,46 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.service.domain.cache;
+
+import java.lang.annotation.*;
+
+/**
+ * Declares entity that value cached by the method is derived from, so that change of this entity only evicts
+ * entries tagged with its primary key rather than whole cache (see "tag" eviction strategy in cache-config.xml).
+ *
+ * Tags must cover every entity that is configured with "tag" strategy for the cache, changes of other entities
+ * should use "all" strategy.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Repeatable(CacheTags.class)
+public @interface CacheTag {
+
+    /**
+     * @return entity name as used by cache director (e.g. "ProductEntity")
+     */
+    String entity();
+
+    /**
+     * @return SpEL expression over method arguments that evaluates to primary key or collection of primary keys
+     *         (e.g. "#productId")
+     */
+    String pk();
+
+}
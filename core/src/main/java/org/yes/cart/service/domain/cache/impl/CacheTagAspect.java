@@ -0,0 +1,130 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.service.domain.cache.impl;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.Ordered;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.Order;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.yes.cart.service.domain.cache.CacheTag;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Evaluates {@link CacheTag}s of the invoked method and makes them current for the duration of invocation, so that
+ * {@link TaggedCache} can record keys of the values put by cache interceptor under the tags.
+ *
+ * Aspect must wrap cache interceptor, hence highest precedence.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CacheTagAspect {
+
+    private final ExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+
+    private final Map<Method, List<Tag>> methodTags = new ConcurrentHashMap<>();
+
+    /**
+     * Make tags of the method current.
+     *
+     * @param pjp join point
+     *
+     * @return result of the method
+     *
+     * @throws Throwable exception of the method
+     */
+    @Around("@annotation(org.yes.cart.service.domain.cache.CacheTag) || @annotation(org.yes.cart.service.domain.cache.CacheTags)")
+    public Object doTag(final ProceedingJoinPoint pjp) throws Throwable {
+
+        final Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        final Method specificMethod = pjp.getTarget() != null ?
+                AopUtils.getMostSpecificMethod(method, AopUtils.getTargetClass(pjp.getTarget())) : method;
+
+        final Collection<String> tags = evaluate(specificMethod, pjp.getArgs());
+
+        final Collection<String> previous = TaggedCache.getCurrentTags();
+        TaggedCache.setCurrentTags(tags);
+        try {
+            return pjp.proceed();
+        } finally {
+            TaggedCache.setCurrentTags(previous);
+        }
+
+    }
+
+    Collection<String> evaluate(final Method method, final Object[] args) {
+
+        final List<Tag> tags = methodTags.computeIfAbsent(method, this::parse);
+        final EvaluationContext context = new MethodBasedEvaluationContext(null, method, args, parameterNameDiscoverer);
+
+        final Set<String> current = new HashSet<>();
+        for (final Tag tag : tags) {
+            final Object pk = tag.pk.getValue(context);
+            if (pk instanceof Collection) {
+                for (final Object item : (Collection) pk) {
+                    if (item != null) {
+                        current.add(TaggedCache.tag(tag.entity, item));
+                    }
+                }
+            } else if (pk instanceof Object[]) {
+                for (final Object item : (Object[]) pk) {
+                    if (item != null) {
+                        current.add(TaggedCache.tag(tag.entity, item));
+                    }
+                }
+            } else if (pk != null) {
+                current.add(TaggedCache.tag(tag.entity, pk));
+            }
+        }
+        return current;
+
+    }
+
+    private List<Tag> parse(final Method method) {
+        final List<Tag> tags = new ArrayList<>();
+        for (final CacheTag cacheTag : method.getAnnotationsByType(CacheTag.class)) {
+            tags.add(new Tag(cacheTag.entity(), parser.parseExpression(cacheTag.pk())));
+        }
+        return tags;
+    }
+
+    private static final class Tag {
+
+        private final String entity;
+        private final Expression pk;
+
+        private Tag(final String entity, final Expression pk) {
+            this.entity = entity;
+            this.pk = pk;
+        }
+    }
+
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.service.domain.cache.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache decorator that records keys of entries under tags of the entities that cached values are derived from.
+ * Tags are taken from {@link CacheTagAspect}, which declares them for the duration of {@link org.yes.cart.service.domain.cache.CacheTag}
+ * annotated method invocation.
+ *
+ * Index is not updated when underlying cache expires entries, so number of tags is bounded and whole cache is
+ * cleared once the limit is reached. Entries put without tags (e.g. method is not annotated or is invoked without
+ * proxy) cannot be evicted by tag, so if cache has any, eviction by tag clears whole cache.
+ */
+public class TaggedCache implements Cache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TaggedCache.class);
+
+    private static final ThreadLocal<Collection<String>> TAGS = new ThreadLocal<>();
+
+    private final Cache cache;
+    private final int maxTags;
+
+    private final Map<String, Set<Object>> index = new ConcurrentHashMap<>();
+    private volatile boolean untagged = false;
+
+    /**
+     * @param cache   underlying cache
+     * @param maxTags max number of tags in the index
+     */
+    public TaggedCache(final Cache cache, final int maxTags) {
+        this.cache = cache;
+        this.maxTags = maxTags;
+    }
+
+    /**
+     * @param entity entity name
+     * @param pk     primary key
+     *
+     * @return tag
+     */
+    static String tag(final String entity, final Object pk) {
+        return entity + ':' + pk;
+    }
+
+    /**
+     * @return tags for values put into cache by current thread
+     */
+    static Collection<String> getCurrentTags() {
+        return TAGS.get();
+    }
+
+    /**
+     * @param tags tags for values put into cache by current thread (or null)
+     */
+    static void setCurrentTags(final Collection<String> tags) {
+        if (tags == null) {
+            TAGS.remove();
+        } else {
+            TAGS.set(tags);
+        }
+    }
+
+    /**
+     * Evict all entries derived from given entity.
+     *
+     * @param entity entity name
+     * @param pk     primary key
+     *
+     * @return number of evicted entries (zero if whole cache is cleared)
+     */
+    public int evictTagged(final String entity, final Object pk) {
+        if (untagged) {
+            clear();
+            return 0;
+        }
+        final Set<Object> keys = index.remove(tag(entity, pk));
+        if (keys == null) {
+            return 0;
+        }
+        for (final Object key : keys) {
+            cache.evict(key);
+        }
+        return keys.size();
+    }
+
+    /**
+     * @return number of tags in the index
+     */
+    public int getTagCount() {
+        return index.size();
+    }
+
+    private void tagCurrent(final Object key) {
+        final Collection<String> tags = TAGS.get();
+        if (tags == null || tags.isEmpty()) {
+            untagged = true;
+            return;
+        }
+        if (index.size() + tags.size() > maxTags) {
+            LOG.debug("Tag index of {} is full, clearing cache", getName());
+            clear();
+            return;
+        }
+        for (final String tag : tags) {
+            index.compute(tag, (t, keys) -> {
+                final Set<Object> tagged = keys != null ? keys : ConcurrentHashMap.newKeySet();
+                tagged.add(key);
+                return tagged;
+            });
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getName() {
+        return cache.getName();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Object getNativeCache() {
+        return cache.getNativeCache();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ValueWrapper get(final Object key) {
+        return cache.get(key);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public <T> T get(final Object key, final Class<T> type) {
+        return cache.get(key, type);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public <T> T get(final Object key, final Callable<T> valueLoader) {
+        return cache.get(key, valueLoader);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void put(final Object key, final Object value) {
+        cache.put(key, value);
+        tagCurrent(key);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ValueWrapper putIfAbsent(final Object key, final Object value) {
+        final ValueWrapper existing = cache.putIfAbsent(key, value);
+        if (existing == null) {
+            tagCurrent(key);
+        }
+        return existing;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void evict(final Object key) {
+        cache.evict(key);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void clear() {
+        untagged = false;
+        index.clear();
+        cache.clear();
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.service.domain.cache.impl;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache manager decorator that provides {@link TaggedCache}s, so that entries can be evicted by entity primary key
+ * regardless of the cache keys.
+ */
+public class TaggedCacheManager implements CacheManager {
+
+    private final CacheManager cacheManager;
+
+    private final Map<String, TaggedCache> caches = new ConcurrentHashMap<>();
+
+    private int maxTags = 50000;
+
+    /**
+     * @param cacheManager underlying cache manager
+     */
+    public TaggedCacheManager(final CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Cache getCache(final String name) {
+        final TaggedCache tagged = caches.get(name);
+        if (tagged != null) {
+            return tagged;
+        }
+        final Cache cache = cacheManager.getCache(name);
+        if (cache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, k -> new TaggedCache(cache, maxTags));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Collection<String> getCacheNames() {
+        return cacheManager.getCacheNames();
+    }
+
+    /**
+     * Spring IoC.
+     *
+     * @param maxTags max number of tags per cache
+     */
+    public void setMaxTags(final int maxTags) {
+        this.maxTags = maxTags;
+    }
+
+}
@@ -31,6 +31,7 @@ import org.yes.cart.search.dao.IndexBuilder;
 import org.yes.cart.search.dto.FilteredNavigationRecordRequest;
 import org.yes.cart.search.dto.NavigationContext;
 import org.yes.cart.service.domain.ProductService;
+import org.yes.cart.service.domain.cache.CacheTag;
 
 import java.util.Collection;
 import java.util.List;
@@ -58,6 +59,7 @@ public class ProductServiceCachedImpl implements ProductService {
     /** {@inheritDoc} */
     @Override
     @Cacheable(value = "productService-skuById")
+    @CacheTag(entity = "ProductSkuEntity", pk = "#skuId")
     public ProductSku getSkuById(final Long skuId, final boolean withAttributes) {
         return productService.getSkuById(skuId, withAttributes);
     }
@@ -71,6 +73,7 @@ public class ProductServiceCachedImpl implements ProductService {
      */
     @Override
     @Cacheable(value = "productService-defaultImage")
+    @CacheTag(entity = "ProductEntity", pk = "#productId")
     public String getDefaultImage(final Long productId) {
         return productService.getDefaultImage(productId);
     }
@@ -82,6 +85,8 @@ public class ProductServiceCachedImpl implements ProductService {
      */
     @Override
     @Cacheable(value = "productService-productAttributes")
+    @CacheTag(entity = "ProductEntity", pk = "#productId")
+    @CacheTag(entity = "ProductSkuEntity", pk = "#skuId")
     public ProductAttributesModel getProductAttributes(final long productId, final long skuId, final long productTypeId) {
         return productService.getProductAttributes(productId, skuId, productTypeId);
     }
@@ -138,6 +143,7 @@ public class ProductServiceCachedImpl implements ProductService {
      */
     @Override
     @Cacheable(value = "productService-productById")
+    @CacheTag(entity = "ProductEntity", pk = "#productId")
     public Product getProductById(final Long productId, final boolean withAttribute) {
         return productService.getProductById(productId, withAttribute);
     }
@@ -146,11 +152,18 @@ public class ProductServiceCachedImpl implements ProductService {
      * {@inheritDoc}
      */
     @Override
-    @Cacheable(value = "productService-productSearchResultDTOByQuery")
     public ProductSearchResultPageDTO getProductSearchResultDTOByQuery(final NavigationContext navigationContext, final int firstResult, final int maxResults, final String sortFieldName, final boolean reverse) {
         return productService.getProductSearchResultDTOByQuery(navigationContext, firstResult, maxResults, sortFieldName, reverse);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ProductSearchResultPageDTO getProductSearchResultDTOByQuery(final NavigationContext navigationContext, final String cursor, final int firstResult, final int maxResults, final String sortFieldName, final boolean reverse) {
+        return productService.getProductSearchResultDTOByQuery(navigationContext, cursor, firstResult, maxResults, sortFieldName, reverse);
+    }
+
 
     /**
      * {@inheritDoc}
@@ -164,11 +177,26 @@ public class ProductServiceCachedImpl implements ProductService {
      * {@inheritDoc}
      */
     @Override
-    @Cacheable(value = "productService-productQtyByQuery")
     public int getProductQty(final NavigationContext navigationContext) {
         return productService.getProductQty(navigationContext);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> getSuggestions(final long shopId, final String language, final String prefix, final int maxResults) {
+        return productService.getSuggestions(shopId, language, prefix, maxResults);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int findFirstNavigationContextWithProducts(final List<NavigationContext> navigationContexts) {
+        return productService.findFirstNavigationContextWithProducts(navigationContexts);
+    }
+
 
     /**
      * {@inheritDoc}
@@ -184,6 +212,7 @@ public class ProductServiceCachedImpl implements ProductService {
      */
     @Override
     @Cacheable(value = "productService-productByIdList")
+    @CacheTag(entity = "ProductEntity", pk = "#idList")
     public List<Product> getProductByIdList(final List idList) {
         return productService.getProductByIdList(idList);
     }
@@ -384,6 +413,14 @@ public class ProductServiceCachedImpl implements ProductService {
         productService.reindexProductSku(code);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reindexProductSkus(final Collection<String> codes) {
+        productService.reindexProductSkus(codes);
+    }
+
 
     /**
      * {@inheritDoc}
@@ -463,8 +500,6 @@ public class ProductServiceCachedImpl implements ProductService {
     @Override
     @CacheEvict(value ={
             "productService-productByQuery",
-            "productService-productSearchResultDTOByQuery",
-            "productService-productQtyByQuery",
             "productService-productByIdList"
 
     }, allEntries = true)
@@ -488,8 +523,6 @@ public class ProductServiceCachedImpl implements ProductService {
             "productService-productBySkuCode",
             "productService-productById",
             "productService-productByQuery",
-            "productService-productSearchResultDTOByQuery",
-            "productService-productQtyByQuery",
             "productService-productByIdList"
 
     }, allEntries = true)
@@ -513,8 +546,6 @@ public class ProductServiceCachedImpl implements ProductService {
             "productService-productBySkuCode",
             "productService-productById",
             "productService-productByQuery",
-            "productService-productSearchResultDTOByQuery",
-            "productService-productQtyByQuery",
             "productService-productByIdList"
 
     }, allEntries = true)
@@ -37,7 +37,6 @@ import org.yes.cart.domain.i18n.impl.FailoverStringI18NModel;
 import org.yes.cart.domain.i18n.impl.NonI18NModel;
 import org.yes.cart.domain.misc.Pair;
 import org.yes.cart.search.dao.IndexBuilder;
-import org.yes.cart.search.dao.entity.AdapterUtils;
 import org.yes.cart.search.dao.support.ShopCategoryRelationshipSupport;
 import org.yes.cart.search.dto.FilteredNavigationRecordRequest;
 import org.yes.cart.search.dto.NavigationContext;
@@ -57,6 +56,8 @@ import java.util.stream.Collectors;
  */
 public class ProductServiceImpl extends BaseGenericServiceImpl<Product> implements ProductService {
 
+    private static final int SKU_CODES_BATCH = 500;
+
     private final GenericFTSCapableDAO<Product, Long, Object> productDao;
     private final GenericFTSCapableDAO<ProductSku, Long, Object> productSkuDao;
     private final ProductSkuService productSkuService;
@@ -405,33 +406,54 @@ public class ProductServiceImpl extends BaseGenericServiceImpl<Product> implemen
                                                                        final String sortFieldName,
                                                                        final boolean reverse) {
 
-        final Pair<List<Object[]>, Integer> searchRez = productDao.fullTextSearch(
+        final Pair<List<ProductSearchResultDTOImpl>, Integer> searchRez = productDao(navigationContext).fullTextSearchStoredObjects(
                 navigationContext.getProductQuery(),
                 firstResult,
                 maxResults,
                 sortFieldName,
                 reverse,
-                AdapterUtils.FIELD_PK,
-                AdapterUtils.FIELD_CLASS,
-                AdapterUtils.FIELD_OBJECT
+                ProductSearchResultDTOImpl.class
         );
 
-        final List<ProductSearchResultDTO> rez = new ArrayList<>(searchRez.getFirst().size());
-        for (Object[] obj : searchRez.getFirst()) {
-            final ProductSearchResultDTO dto = AdapterUtils.readObjectFieldValue((String) obj[2], ProductSearchResultDTOImpl.class);
-            rez.add(dto);
-        }
+        final List<ProductSearchResultDTO> rez = new ArrayList<>(searchRez.getFirst());
 
         return new ProductSearchResultPageDTOImpl(rez, firstResult, maxResults, searchRez.getSecond(), sortFieldName, reverse);
 
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ProductSearchResultPageDTO getProductSearchResultDTOByQuery(final NavigationContext navigationContext,
+                                                                       final String cursor,
+                                                                       final int firstResult,
+                                                                       final int maxResults,
+                                                                       final String sortFieldName,
+                                                                       final boolean reverse) {
+
+        final Pair<Pair<List<ProductSearchResultDTOImpl>, Integer>, String> searchRez = productDao(navigationContext).fullTextSearchStoredObjects(
+                navigationContext.getProductQuery(),
+                cursor,
+                firstResult,
+                maxResults,
+                sortFieldName,
+                reverse,
+                ProductSearchResultDTOImpl.class
+        );
+
+        final List<ProductSearchResultDTO> rez = new ArrayList<>(searchRez.getFirst().getFirst());
+
+        return new ProductSearchResultPageDTOImpl(rez, firstResult, maxResults, searchRez.getFirst().getSecond(), sortFieldName, reverse, searchRez.getSecond());
+
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public ProductSearchResultNavDTO findFilteredNavigationRecords(final NavigationContext baseNavigationContext, final List<FilteredNavigationRecordRequest> request) {
-        return new ProductSearchResultNavDTOImpl(productDao.fullTextSearchNavigation(baseNavigationContext.getProductQuery(), request));
+        return new ProductSearchResultNavDTOImpl(productDao(baseNavigationContext).fullTextSearchNavigation(baseNavigationContext.getProductQuery(), request));
     }
 
     /**
@@ -439,7 +461,42 @@ public class ProductServiceImpl extends BaseGenericServiceImpl<Product> implemen
      */
     @Override
     public int getProductQty(final NavigationContext navigationContext) {
-        return productDao.fullTextSearchCount(navigationContext.getProductQuery());
+        return productDao(navigationContext).fullTextSearchCount(navigationContext.getProductQuery());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> getSuggestions(final long shopId, final String language, final String prefix, final int maxResults) {
+        return productDao.suggest(shopId, language, prefix, maxResults);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int findFirstNavigationContextWithProducts(final List<NavigationContext> navigationContexts) {
+        if (navigationContexts.isEmpty()) {
+            return -1;
+        }
+        final List<Object> queries = new ArrayList<>(navigationContexts.size());
+        for (final NavigationContext navigationContext : navigationContexts) {
+            queries.add(navigationContext.getProductQuery());
+        }
+        return productDao(navigationContexts.get(0)).fullTextSearchFirstMatch(queries);
+    }
+
+    /**
+     * Storefront searches only need documents of the context shop, so if product index is partitioned
+     * by shop they are run against the shop partition.
+     *
+     * @param navigationContext navigation context
+     *
+     * @return DAO for the context shop
+     */
+    private GenericFTSCapableDAO<Product, Long, Object> productDao(final NavigationContext navigationContext) {
+        return productDao.getShopPartition(navigationContext.getShopId());
     }
 
 
@@ -688,8 +745,7 @@ public class ProductServiceImpl extends BaseGenericServiceImpl<Product> implemen
      */
     @Override
     public void reindexProducts(final Long shopId, final int batchSize) {
-        final Set<Long> categories = shopCategoryRelationshipSupport.getShopCategoriesIds(shopId);
-        productDao.fullTextSearchReindex(true, batchSize);
+        productDao.fullTextSearchReindexShop(shopId, true, batchSize);
     }
 
 
@@ -744,6 +800,34 @@ public class ProductServiceImpl extends BaseGenericServiceImpl<Product> implemen
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reindexProductSkus(final Collection<String> codes) {
+
+        if (CollectionUtils.isEmpty(codes)) {
+            return;
+        }
+
+        final List<String> all = new ArrayList<>(new LinkedHashSet<>(codes));
+        final Set<Long> skuIds = new LinkedHashSet<>(all.size());
+        final Set<Long> productIds = new LinkedHashSet<>(all.size());
+        for (int i = 0; i < all.size(); i += SKU_CODES_BATCH) {
+            final List<String> chunk = all.subList(i, Math.min(all.size(), i + SKU_CODES_BATCH));
+            for (final Object row : productSkuDao.findQueryObjectByNamedQuery("PRODUCT.SKU.AND.PRODUCT.IDS.BY.SKU.CODES", chunk)) {
+                final Object[] ids = (Object[]) row;
+                skuIds.add((Long) ids[0]);
+                productIds.add((Long) ids[1]);
+            }
+        }
+
+        if (!skuIds.isEmpty()) {
+            productSkuDao.fullTextSearchReindex(skuIds);
+            productDao.fullTextSearchReindex(productIds);
+        }
+    }
+
     private Pair<String, Object[]> findProductQuery(final boolean count,
                                                     final String sort,
                                                     final boolean sortDescending,
@@ -29,7 +29,6 @@ import org.yes.cart.domain.entity.ProductSku;
 import org.yes.cart.domain.entity.SkuPrice;
 import org.yes.cart.domain.entity.SkuWarehouse;
 import org.yes.cart.domain.misc.Pair;
-import org.yes.cart.search.dao.entity.AdapterUtils;
 import org.yes.cart.search.dto.NavigationContext;
 import org.yes.cart.service.domain.ProductSkuService;
 import org.yes.cart.utils.HQLUtils;
@@ -165,22 +164,16 @@ public class ProductSkuServiceImpl extends BaseGenericServiceImpl<ProductSku> im
     @Override
     public ProductSkuSearchResultPageDTO getProductSkuSearchResultDTOByQuery(final NavigationContext context) {
 
-        final Pair<List<Object[]>, Integer> searchRez = ((GenericFTSCapableDAO) getGenericDao()).fullTextSearch(
+        final Pair<List<ProductSkuSearchResultDTOImpl>, Integer> searchRez = ((GenericFTSCapableDAO<ProductSku, Long, Object>) getGenericDao()).fullTextSearchStoredObjects(
                 context.getProductSkuQuery(),
                 0,
                 -1, /* no limit */
                 null,
                 false,
-                AdapterUtils.FIELD_PK,
-                AdapterUtils.FIELD_CLASS,
-                AdapterUtils.FIELD_OBJECT
+                ProductSkuSearchResultDTOImpl.class
         );
 
-        final List<ProductSkuSearchResultDTO> rez = new ArrayList<>(searchRez.getFirst().size());
-        for (Object[] obj : searchRez.getFirst()) {
-            final ProductSkuSearchResultDTO dto = AdapterUtils.readObjectFieldValue((String) obj[2], ProductSkuSearchResultDTOImpl.class);
-            rez.add(dto);
-        }
+        final List<ProductSkuSearchResultDTO> rez = new ArrayList<>(searchRez.getFirst());
 
         return new ProductSkuSearchResultPageDTOImpl(rez, searchRez.getSecond());
 
@@ -22,6 +22,7 @@ import org.yes.cart.dao.GenericDAO;
 import org.yes.cart.dao.ResultsIteratorCallback;
 import org.yes.cart.domain.entity.SkuWarehouse;
 import org.yes.cart.domain.entity.Warehouse;
+import org.yes.cart.domain.misc.Pair;
 import org.yes.cart.service.domain.SkuWarehouseService;
 
 import java.math.BigDecimal;
@@ -137,6 +138,36 @@ public class SkuWarehouseServiceCachedImpl implements SkuWarehouseService {
         return skuWarehouseService.findProductSkuForWhichInventoryChangedAfter(lastUpdate);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Pair<Long, List<String>> findProductSkuForWhichInventoryChangedAfter(final long lastChangeId, final int max) {
+        return skuWarehouseService.findProductSkuForWhichInventoryChangedAfter(lastChangeId, max);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long findLastInventoryChangeId() {
+        return skuWarehouseService.findLastInventoryChangeId();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long findLastInventoryChangeIdBefore(final Instant before) {
+        return skuWarehouseService.findLastInventoryChangeIdBefore(before);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long findLastVisibleInventoryChangeId(final long afterChangeId, final long upToChangeId, final Instant gapsClosedBefore, final int max) {
+        return skuWarehouseService.findLastVisibleInventoryChangeId(afterChangeId, upToChangeId, gapsClosedBefore, max);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int removeInventoryChangesBefore(final Instant before) {
+        return skuWarehouseService.removeInventoryChangesBefore(before);
+    }
+
     /** {@inheritDoc} */
     @Override
     public List<String> findProductSkuByUnavailableBefore(final LocalDateTime before) {
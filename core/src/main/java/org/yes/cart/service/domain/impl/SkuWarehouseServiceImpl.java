@@ -45,6 +45,8 @@ public class SkuWarehouseServiceImpl extends BaseGenericServiceImpl<SkuWarehouse
 
     private static final BigDecimal ZERO = MoneyUtils.ZERO;
 
+    private static final String CHANGE_LOG_TYPE = "SkuWarehouseEntity";
+
     private ProductService productService;
 
     /**
@@ -248,6 +250,79 @@ public class SkuWarehouseServiceImpl extends BaseGenericServiceImpl<SkuWarehouse
         return (List) getGenericDao().findQueryObjectByNamedQuery("SKUCODE.FOR.SKUWAREHOUSE.CHANGED.SINCE", lastUpdate);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Pair<Long, List<String>> findProductSkuForWhichInventoryChangedAfter(final long lastChangeId, final int max) {
+
+        final List<Object> changes = getGenericDao().findQueryObjectRangeByNamedQuery(
+                "ENTITYCODE.FOR.ENTITYCHANGE.AFTER.ID", 0, max, CHANGE_LOG_TYPE, lastChangeId);
+
+        long last = lastChangeId;
+        final Set<String> skus = new LinkedHashSet<>();
+        for (final Object change : changes) {
+            final Object[] idAndCode = (Object[]) change;
+            last = (Long) idAndCode[0];
+            skus.add((String) idAndCode[1]);
+        }
+        return new Pair<>(last, new ArrayList<>(skus));
+
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long findLastInventoryChangeId() {
+        final List<Object> max = getGenericDao().findQueryObjectByNamedQuery("ENTITYCHANGE.MAX.ID");
+        if (max.isEmpty() || max.get(0) == null) {
+            return 0L;
+        }
+        return (Long) max.get(0);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long findLastInventoryChangeIdBefore(final Instant before) {
+        final List<Object> max = getGenericDao().findQueryObjectByNamedQuery("ENTITYCHANGE.MAX.ID.BEFORE", CHANGE_LOG_TYPE, before);
+        if (max.isEmpty() || max.get(0) == null) {
+            return 0L;
+        }
+        return (Long) max.get(0);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long findLastVisibleInventoryChangeId(final long afterChangeId, final long upToChangeId, final Instant gapsClosedBefore, final int max) {
+
+        long last = afterChangeId;
+        while (last < upToChangeId) {
+
+            // ids are shared by all entity types, so gaps are checked across the whole log
+            final List<Object> changes = getGenericDao().findQueryObjectRangeByNamedQuery(
+                    "ENTITYCHANGE.ID.CREATED.AFTER.ID", 0, max, last, upToChangeId);
+            if (changes.isEmpty()) {
+                break;
+            }
+
+            for (final Object change : changes) {
+                final Object[] idAndCreated = (Object[]) change;
+                final long id = (Long) idAndCreated[0];
+                if (id != last + 1L && !((Instant) idAndCreated[1]).isBefore(gapsClosedBefore)) {
+                    // missing ids before this record may still be uncommitted
+                    return last;
+                }
+                last = id;
+            }
+
+        }
+        return last;
+
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int removeInventoryChangesBefore(final Instant before) {
+        return getGenericDao().executeUpdate("REMOVE.ENTITYCHANGE.BEFORE", CHANGE_LOG_TYPE, before);
+    }
+
     /** {@inheritDoc} */
     @Override
     public List<String> findProductSkuByUnavailableBefore(final LocalDateTime before) {
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.cluster.node.impl;
+
+import org.junit.Test;
+import org.yes.cart.domain.dto.impl.CacheInfoDTO;
+import org.yes.cart.domain.misc.Pair;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BinaryMessageCodecImplTest {
+
+    private final BinaryMessageCodecImpl codec = new BinaryMessageCodecImpl();
+
+    @Test
+    public void testCacheBulkChange() throws Exception {
+
+        final Long[] pks = new Long[500];
+        for (int i = 0; i < pks.length; i++) {
+            pks[i] = 100000L + i * 7L;
+        }
+        final HashMap<String, Object> payload = new HashMap<>();
+        payload.put("entityOperation", "Update");
+        payload.put("entityName", "ProductEntity");
+        payload.put("pkValues", pks);
+
+        final byte[] encoded = codec.encode(payload);
+        final byte[] java = new JavaMessageCodecImpl().encode(payload);
+        assertTrue(encoded.length * 4 < java.length);
+
+        final Map<String, Object> decoded = codec.decode(encoded);
+        assertEquals("Update", decoded.get("entityOperation"));
+        assertEquals("ProductEntity", decoded.get("entityName"));
+        assertArrayEquals(pks, (Long[]) decoded.get("pkValues"));
+
+    }
+
+    @Test
+    public void testValues() throws Exception {
+
+        final CacheInfoDTO info = new CacheInfoDTO();
+        info.setCacheName("productService-productById");
+        info.setCacheSize(10L);
+        info.setHits(-1L);
+        info.setDisabled(true);
+
+        final ArrayList<Object> payload = new ArrayList<>();
+        payload.add(null);
+        payload.add(Boolean.TRUE);
+        payload.add("тест");
+        payload.add(Integer.MIN_VALUE);
+        payload.add(Long.MAX_VALUE);
+        payload.add(1.5d);
+        payload.add(new BigDecimal("99.99"));
+        payload.add(new Date(1000L));
+        payload.add(Instant.ofEpochSecond(-10L, 5));
+        payload.add(LocalDate.of(2026, 10, 17));
+        payload.add(LocalDateTime.of(2026, 10, 17, 23, 50, 1, 2));
+        payload.add(new long[] { -1L, 0L, Long.MIN_VALUE });
+        payload.add(new Long[] { 1L, null, 3L });
+        payload.add(new String[] { "a", null });
+        payload.add(new Object[] { "a", 1L });
+        payload.add(new LinkedHashMap<>(Collections.singletonMap("k", new HashSet<>(Arrays.asList("x", "y")))));
+        payload.add(info);
+
+        final List<Object> decoded = codec.decode(codec.encode(payload));
+        assertEquals(payload.size(), decoded.size());
+        assertNull(decoded.get(0));
+        for (int i = 1; i < 11; i++) {
+            assertEquals(payload.get(i), decoded.get(i));
+        }
+        assertArrayEquals((long[]) payload.get(11), (long[]) decoded.get(11));
+        assertArrayEquals((Long[]) payload.get(12), (Long[]) decoded.get(12));
+        assertArrayEquals((String[]) payload.get(13), (String[]) decoded.get(13));
+        assertArrayEquals((Object[]) payload.get(14), (Object[]) decoded.get(14));
+        assertEquals(LinkedHashMap.class, decoded.get(15).getClass());
+        assertEquals(payload.get(15), decoded.get(15));
+
+        final CacheInfoDTO decodedInfo = (CacheInfoDTO) decoded.get(16);
+        assertEquals("productService-productById", decodedInfo.getCacheName());
+        assertEquals(10L, decodedInfo.getCacheSize());
+        assertEquals(-1L, decodedInfo.getHits());
+        assertTrue(decodedInfo.isDisabled());
+        assertNull(decodedInfo.getNodeId());
+
+    }
+
+    @Test
+    public void testOtherTypesAndCompression() throws Exception {
+
+        final ArrayList<Serializable> payload = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            payload.add(new Pair<>("key", i));
+        }
+
+        final byte[] encoded = codec.encode(payload);
+        assertTrue(encoded.length < new JavaMessageCodecImpl().encode(payload).length);
+        final List<Pair<String, Integer>> decoded = codec.decode(encoded);
+        assertEquals(payload, decoded);
+
+        codec.setCompressThreshold(-1);
+        assertEquals(payload, codec.decode(codec.encode(payload)));
+
+        assertEquals(Collections.singletonList("a"), codec.decode(codec.encode((Serializable) Collections.singletonList("a"))));
+
+    }
+
+    @Test
+    public void testNegotiate() throws Exception {
+
+        final MessageCodecNegotiator negotiator = new MessageCodecNegotiator(Collections.singletonList(codec));
+        assertEquals(Arrays.asList(BinaryMessageCodecImpl.NAME, JavaMessageCodecImpl.NAME), negotiator.getAccepted());
+
+        assertEquals(JavaMessageCodecImpl.NAME, negotiator.negotiate(null).getName());
+        assertEquals(JavaMessageCodecImpl.NAME, negotiator.negotiate(Arrays.asList("lz4", JavaMessageCodecImpl.NAME)).getName());
+        assertEquals(BinaryMessageCodecImpl.NAME, negotiator.negotiate(Arrays.asList(JavaMessageCodecImpl.NAME, BinaryMessageCodecImpl.NAME)).getName());
+
+        assertEquals(JavaMessageCodecImpl.NAME, negotiator.getCodec(null).getName());
+        try {
+            negotiator.getCodec("lz4");
+            fail();
+        } catch (IllegalArgumentException iae) {
+            // expected
+        }
+
+    }
+
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.service.domain.cache.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.cache.annotation.AnnotationCacheOperationSource;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.interceptor.CacheInterceptor;
+import org.yes.cart.cluster.service.CacheDirector;
+import org.yes.cart.cluster.service.impl.CacheDirectorImpl;
+import org.yes.cart.domain.misc.Pair;
+import org.yes.cart.service.domain.cache.CacheTag;
+import org.yes.cart.utils.spring.LinkedHashMapBeanImpl;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class TaggedCacheManagerTest {
+
+    private TaggedCacheManager cacheManager;
+    private SampleServiceImpl target;
+    private SampleService service;
+
+    @Before
+    public void setUp() {
+
+        cacheManager = new TaggedCacheManager(new ConcurrentMapCacheManager("products", "lists"));
+
+        final CacheInterceptor interceptor = new CacheInterceptor();
+        interceptor.setCacheOperationSources(new AnnotationCacheOperationSource());
+        interceptor.setCacheManager(cacheManager);
+        interceptor.afterPropertiesSet();
+        interceptor.afterSingletonsInstantiated();
+
+        target = new SampleServiceImpl();
+        final AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addInterface(SampleService.class);
+        factory.addAspect(new CacheTagAspect());
+        factory.addAdvice(interceptor);
+        service = factory.getProxy();
+
+    }
+
+    @Test
+    public void testEvictTagged() {
+
+        service.getProduct(1L, true);
+        service.getProduct(1L, false);
+        service.getProduct(2L, true);
+        service.getProducts(Arrays.asList(1L, 3L));
+        service.getProducts(Arrays.asList(2L, 3L));
+        assertEquals(5, target.invocations);
+
+        final TaggedCache products = (TaggedCache) cacheManager.getCache("products");
+        final TaggedCache lists = (TaggedCache) cacheManager.getCache("lists");
+        assertEquals(2, products.getTagCount());
+        assertEquals(3, lists.getTagCount());
+
+        assertEquals(2, products.evictTagged("ProductEntity", 1L));
+        assertEquals(1, lists.evictTagged("ProductEntity", 1L));
+        assertEquals(0, products.evictTagged("ProductEntity", 4L));
+
+        service.getProduct(1L, true);
+        service.getProduct(2L, true);
+        service.getProducts(Arrays.asList(1L, 3L));
+        service.getProducts(Arrays.asList(2L, 3L));
+        assertEquals(7, target.invocations);
+
+        assertNull(TaggedCache.getCurrentTags());
+
+    }
+
+    @Test
+    public void testUntaggedEntriesFallBackToClear() {
+
+        service.getProduct(1L, true);
+        service.getProduct(2L, true);
+        service.getProductByCode("A");
+        assertEquals(3, target.invocations);
+
+        final TaggedCache products = (TaggedCache) cacheManager.getCache("products");
+        assertEquals(0, products.evictTagged("ProductEntity", 1L));
+
+        service.getProduct(2L, true);
+        assertEquals(4, target.invocations);
+
+        // no untagged entries after clear
+        service.getProduct(1L, true);
+        assertEquals(1, products.evictTagged("ProductEntity", 1L));
+        service.getProduct(2L, true);
+        assertEquals(5, target.invocations);
+
+    }
+
+    @Test
+    public void testIndexLimit() {
+
+        cacheManager = new TaggedCacheManager(new ConcurrentMapCacheManager("products"));
+        cacheManager.setMaxTags(2);
+        final TaggedCache products = (TaggedCache) cacheManager.getCache("products");
+
+        TaggedCache.setCurrentTags(Collections.singleton(TaggedCache.tag("ProductEntity", 1L)));
+        products.put("1", "1");
+        TaggedCache.setCurrentTags(Collections.singleton(TaggedCache.tag("ProductEntity", 2L)));
+        products.put("2", "2");
+        assertEquals(2, products.getTagCount());
+        TaggedCache.setCurrentTags(Collections.singleton(TaggedCache.tag("ProductEntity", 3L)));
+        products.put("3", "3");
+        TaggedCache.setCurrentTags(null);
+
+        assertEquals(0, products.getTagCount());
+        assertNull(products.get("1"));
+        assertNull(products.get("3"));
+
+    }
+
+    @Test
+    public void testCacheDirectorTagStrategy() {
+
+        final Map<String, Map<String, Set<Pair<String, String>>>> config = new HashMap<>();
+        config.put("ProductEntity", Collections.singletonMap(CacheDirector.EntityOperation.UPDATE,
+                new HashSet<>(Arrays.asList(new Pair<>("products", "tag"), new Pair<>("lists", "all")))));
+
+        final CacheDirectorImpl cacheDirector = new CacheDirectorImpl();
+        cacheDirector.setCacheManager(cacheManager);
+        cacheDirector.setEntityOperationCache(new LinkedHashMapBeanImpl<>(config));
+
+        service.getProduct(1L, true);
+        service.getProduct(2L, true);
+        service.getProducts(Arrays.asList(2L, 3L));
+        assertEquals(3, target.invocations);
+
+        assertEquals(2, cacheDirector.onCacheableChange(CacheDirector.EntityOperation.UPDATE, "ProductEntity", 1L));
+
+        service.getProduct(1L, true);
+        service.getProduct(2L, true);
+        service.getProducts(Arrays.asList(2L, 3L));
+        assertEquals(5, target.invocations);
+
+        assertEquals(2, cacheDirector.onCacheableBulkChange(CacheDirector.EntityOperation.UPDATE, "ProductEntity", new Long[] { 2L }));
+
+        service.getProduct(1L, true);
+        service.getProduct(2L, true);
+        assertEquals(6, target.invocations);
+
+        // any instance could have changed
+        assertEquals(2, cacheDirector.onCacheableBulkChange(CacheDirector.EntityOperation.UPDATE, "ProductEntity", null));
+
+        service.getProduct(1L, true);
+        service.getProduct(2L, true);
+        assertEquals(8, target.invocations);
+
+        // change without primary key as sent by cache eviction queue
+        assertEquals(2, cacheDirector.onCacheableBulkChange(CacheDirector.EntityOperation.UPDATE, "ProductEntity", new Long[] { null }));
+
+        service.getProduct(1L, true);
+        service.getProduct(2L, true);
+        assertEquals(10, target.invocations);
+
+    }
+
+    public interface SampleService {
+
+        String getProduct(Long productId, boolean withAttributes);
+
+        String getProductByCode(String code);
+
+        List<String> getProducts(List<Long> productIds);
+
+    }
+
+    public static class SampleServiceImpl implements SampleService {
+
+        private int invocations = 0;
+
+        @Override
+        @Cacheable("products")
+        @CacheTag(entity = "ProductEntity", pk = "#productId")
+        public String getProduct(final Long productId, final boolean withAttributes) {
+            invocations++;
+            return productId + ":" + withAttributes;
+        }
+
+        @Override
+        @Cacheable("products")
+        public String getProductByCode(final String code) {
+            invocations++;
+            return code;
+        }
+
+        @Override
+        @Cacheable("lists")
+        @CacheTag(entity = "ProductEntity", pk = "#productIds")
+        public List<String> getProducts(final List<Long> productIds) {
+            invocations++;
+            final List<String> products = new ArrayList<>();
+            for (final Long productId : productIds) {
+                products.add(String.valueOf(productId));
+            }
+            return products;
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.cluster.node;
+
+import java.io.Serializable;
+
+/**
+ * Codec for message payloads sent between nodes. Nodes advertise codecs they accept by name, so that
+ * payloads are only encoded with codec that recipient is able to decode.
+ */
+public interface MessageCodec {
+
+    /**
+     * @return codec name (e.g. "java")
+     */
+    String getName();
+
+    /**
+     * @param payload message payload
+     *
+     * @return encoded payload
+     */
+    byte[] encode(Serializable payload);
+
+    /**
+     * @param payload encoded payload
+     *
+     * @return message payload
+     *
+     * @throws IllegalArgumentException if payload cannot be decoded
+     */
+    <T extends Serializable> T decode(byte[] payload);
+
+}
@@ -65,6 +65,16 @@ public interface GenericDAO<T, PK extends Serializable> {
      */
     T findById(PK id);
 
+    /**
+     * Find entities by Id's using batched lookup instead of query per entity. Entities that are
+     * already loaded in current session are not looked up again.
+     *
+     * @param ids primary keys
+     *
+     * @return found entities in the same order as given primary keys (missing entities are skipped)
+     */
+    List<T> findByIds(List<PK> ids);
+
     /**
      * Get all entities.
      *
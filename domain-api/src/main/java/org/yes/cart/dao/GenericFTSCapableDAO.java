@@ -22,6 +22,7 @@ import org.yes.cart.search.dao.IndexBuilder;
 import org.yes.cart.search.dto.FilteredNavigationRecordRequest;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -47,6 +48,25 @@ public interface GenericFTSCapableDAO<T, PK extends Serializable, FTQ> extends G
      */
     void fullTextSearchReindex(boolean async, int batchSize);
 
+    /**
+     * Force reindex of all entities in given master shop.
+     *
+     * @param shopId master shop PK
+     * @param async true if async required
+     * @param batchSize batch size for re-indexing
+     */
+    void fullTextSearchReindexShop(long shopId, boolean async, int batchSize);
+
+    /**
+     * Get DAO which full text searches only documents of given master shop. If index is not
+     * partitioned by shop this instance is returned.
+     *
+     * @param shopId master shop PK
+     *
+     * @return DAO for shop partition
+     */
+    GenericFTSCapableDAO<T, PK, FTQ> getShopPartition(long shopId);
+
     /**
      * Force reindex given entity.
      *
@@ -62,6 +82,14 @@ public interface GenericFTSCapableDAO<T, PK extends Serializable, FTQ> extends G
      */
     void fullTextSearchReindex(PK primaryKey, boolean purgeOnly);
 
+    /**
+     * Force reindex given entities as single unit of work (i.e. single lookup, single index update and
+     * single refresh). Entities that no longer exist are purged from the index.
+     *
+     * @param primaryKeys to reindex.
+     */
+    void fullTextSearchReindex(Collection<PK> primaryKeys);
+
 
     /**
      * Get the full text search result.
@@ -99,6 +127,35 @@ public interface GenericFTSCapableDAO<T, PK extends Serializable, FTQ> extends G
                            String sortFieldName,
                            boolean reverse);
 
+    /**
+     * Get primary keys of all entities that match the query in index order. Use this
+     * instead of {@link #fullTextSearch(Object)} when only id's are required, as it does not
+     * rank results or load entities.
+     *
+     * @param query full text search query
+     *
+     * @return primary keys of found entities
+     */
+    long[] fullTextSearchPrimaryKeys(FTQ query);
+
+    /**
+     * Get primary keys of the page of entities that match the query. This method is intended for cases
+     * when only the id's are required as it does not retrieve any stored data.
+     *
+     * @param query         full text search query
+     * @param firstResult   first row of result
+     * @param maxResults    size of result set
+     * @param sortFieldName optional  sort field name (if not specified results are in order of relevance)
+     * @param reverse       reverse the search result
+     *
+     * @return primary keys of found entities
+     */
+    long[] fullTextSearchPrimaryKeys(FTQ query,
+                                     int firstResult,
+                                     int maxResults,
+                                     String sortFieldName,
+                                     boolean reverse);
+
     /**
      * Get the full text search result.
      *
@@ -118,6 +175,52 @@ public interface GenericFTSCapableDAO<T, PK extends Serializable, FTQ> extends G
                                                  boolean reverse,
                                                  String ... fields);
 
+    /**
+     * Get objects stored in the default object field of the matching documents. Decoded objects may be
+     * cached by the implementation and shared between callers, so they must be treated as read only.
+     *
+     * @param query         full text search query
+     * @param firstResult   first row of result
+     * @param maxResults    size of result set
+     * @param sortFieldName optional  sort field name
+     * @param reverse       reverse the search result
+     * @param type          stored object type
+     * @param <O>           stored object type
+     *
+     * @return list of stored objects and total number of hits
+     */
+    <O> Pair<List<O>, Integer> fullTextSearchStoredObjects(FTQ query,
+                                                           int firstResult,
+                                                           int maxResults,
+                                                           String sortFieldName,
+                                                           boolean reverse,
+                                                           Class<O> type);
+
+    /**
+     * Get objects stored in the default object field of the matching documents, continuing from the last hit of
+     * the previous page. Cursor is bound to the index generation, query and sort it was created for and to the offset
+     * of the page it leads to. If cursor is not usable (e.g. index has been updated since) the page is resolved
+     * by offset as in {@link #fullTextSearchStoredObjects(Object, int, int, String, boolean, Class)}.
+     *
+     * @param query         full text search query
+     * @param cursor        cursor returned with previous page (optional)
+     * @param firstResult   first row of result
+     * @param maxResults    size of result set
+     * @param sortFieldName optional  sort field name
+     * @param reverse       reverse the search result
+     * @param type          stored object type
+     * @param <O>           stored object type
+     *
+     * @return list of stored objects and total number of hits, and cursor for the next page (or null if there are no more pages)
+     */
+    <O> Pair<Pair<List<O>, Integer>, String> fullTextSearchStoredObjects(FTQ query,
+                                                                         String cursor,
+                                                                         int firstResult,
+                                                                         int maxResults,
+                                                                         String sortFieldName,
+                                                                         boolean reverse,
+                                                                         Class<O> type);
+
     /**
      * Get the full text search result. The map returned by this method should be a single use only.
      * i.e. DO NOT CACHE this method. There are no benefits to this as final FilterNavigationRecord's are already
@@ -142,4 +245,25 @@ public interface GenericFTSCapableDAO<T, PK extends Serializable, FTQ> extends G
      */
     int fullTextSearchCount(FTQ query);
 
+    /**
+     * Find first query that matches at least one document, all queries are evaluated in single pass.
+     *
+     * @param queries full text search queries ordered by strictness (strictest first)
+     *
+     * @return index of the first query in the list that has matches, or -1 if none match
+     */
+    int fullTextSearchFirstMatch(List<FTQ> queries);
+
+    /**
+     * Type-ahead suggestions for text typed into search box.
+     *
+     * @param shopId     shop PK
+     * @param language   language
+     * @param prefix     text typed so far
+     * @param maxResults max number of suggestions
+     *
+     * @return suggestions, best first
+     */
+    List<String> suggest(long shopId, String language, String prefix, int maxResults);
+
 }
@@ -68,6 +68,14 @@ public interface ProductSearchResultPageDTO extends Serializable {
      */
     boolean isSortDesc();
 
+    /**
+     * Opaque cursor that allows to fetch next page without re-reading all preceding results. Cursor
+     * is only valid for the next page (i.e. first = current first + page size) of the same search.
+     *
+     * @return cursor for next page or null if there are no more results
+     */
+    String getCursor();
+
     /**
      * Creates copy of this object
      *
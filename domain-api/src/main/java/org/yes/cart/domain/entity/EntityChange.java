@@ -0,0 +1,68 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.domain.entity;
+
+import java.time.Instant;
+
+/**
+ * Change log record, which is written in the same transaction as the change of the entity itself.
+ * Change log is consumed by incremental processes (e.g. inventory delta indexing) in order of
+ * {@link #getEntityChangeId()}.
+ */
+public interface EntityChange extends Identifiable {
+
+    /**
+     * @return primary key (monotonically increasing)
+     */
+    long getEntityChangeId();
+
+    /**
+     * @param entityChangeId primary key
+     */
+    void setEntityChangeId(long entityChangeId);
+
+    /**
+     * @return entity type (e.g. SkuWarehouseEntity)
+     */
+    String getEntityType();
+
+    /**
+     * @param entityType entity type
+     */
+    void setEntityType(String entityType);
+
+    /**
+     * @return business code of the entity (e.g. SKU code)
+     */
+    String getEntityCode();
+
+    /**
+     * @param entityCode business code of the entity
+     */
+    void setEntityCode(String entityCode);
+
+    /**
+     * @return time of change
+     */
+    Instant getCreatedTimestamp();
+
+    /**
+     * @param createdTimestamp time of change
+     */
+    void setCreatedTimestamp(Instant createdTimestamp);
+
+}
@@ -149,4 +149,15 @@ public interface Job extends Auditable {
      */
     void setCheckpoint(Instant checkpoint);
 
+    /**
+     * @return checkpoint position (e.g. last consumed record of a log) for jobs that track progress by
+     *         sequence rather than by time, null if not set
+     */
+    Long getCheckpointPosition();
+
+    /**
+     * @param checkpointPosition checkpoint position
+     */
+    void setCheckpointPosition(Long checkpointPosition);
+
 }
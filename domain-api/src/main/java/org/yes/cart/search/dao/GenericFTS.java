@@ -33,6 +33,16 @@ import java.util.Map;
  */
 public interface GenericFTS<PK extends Serializable, FTQ> {
 
+    /**
+     * Get FTS that only searches documents of given master shop. Indexes that keep a partition
+     * per master shop return FTS for that partition, all other indexes return this instance.
+     *
+     * @param shopId master shop PK
+     *
+     * @return FTS for shop partition
+     */
+    GenericFTS<PK, FTQ> getShopPartition(long shopId);
+
     /**
      * Get the full text search result.
      *
@@ -44,7 +54,7 @@ public interface GenericFTS<PK extends Serializable, FTQ> {
 
 
     /**
-     * Get the full text search result.
+     * Get the full text search result in order of relevance.
      *
      * @param query lucene search query
      *
@@ -52,6 +62,34 @@ public interface GenericFTS<PK extends Serializable, FTQ> {
      */
     List<PK> fullTextSearch(FTQ query);
 
+    /**
+     * Get primary keys of all entities that match the query in index order. This method is intended
+     * for cases when only the id's are required as it does not retrieve any stored data or compute scores.
+     *
+     * @param query lucene search query
+     *
+     * @return primary keys of found entities
+     */
+    long[] fullTextSearchPrimaryKeys(FTQ query);
+
+    /**
+     * Get primary keys of the page of entities that match the query. This method is intended for cases
+     * when only the id's are required as it does not retrieve any stored data.
+     *
+     * @param query         lucene search query
+     * @param firstResult   first row of result
+     * @param maxResults    size of result set
+     * @param sortFieldName optional  sort field name (if not specified results are in order of relevance)
+     * @param reverse       reverse the search result
+     *
+     * @return primary keys of found entities
+     */
+    long[] fullTextSearchPrimaryKeys(FTQ query,
+                                     int firstResult,
+                                     int maxResults,
+                                     String sortFieldName,
+                                     boolean reverse);
+
     /**
      * Get the full text search result.
      *
@@ -88,6 +126,52 @@ public interface GenericFTS<PK extends Serializable, FTQ> {
                                                  boolean reverse,
                                                  String... fields);
 
+    /**
+     * Get objects stored in the default object field of the matching documents. Decoded objects may be
+     * cached by the implementation and shared between callers, so they must be treated as read only.
+     *
+     * @param query         lucene search query
+     * @param firstResult   first row of result
+     * @param maxResults    size of result set
+     * @param sortFieldName optional  sort field name
+     * @param reverse       reverse the search result
+     * @param type          stored object type
+     * @param <O>           stored object type
+     *
+     * @return list of stored objects and total number of hits
+     */
+    <O> Pair<List<O>, Integer> fullTextSearchStoredObjects(FTQ query,
+                                                           int firstResult,
+                                                           int maxResults,
+                                                           String sortFieldName,
+                                                           boolean reverse,
+                                                           Class<O> type);
+
+    /**
+     * Get objects stored in the default object field of the matching documents, continuing from the last hit of
+     * the previous page. Cursor is bound to the index generation, query and sort it was created for and to the offset
+     * of the page it leads to. If cursor is not usable (e.g. index has been updated since) the page is resolved
+     * by offset as in {@link #fullTextSearchStoredObjects(Object, int, int, String, boolean, Class)}.
+     *
+     * @param query         lucene search query
+     * @param cursor        cursor returned with previous page (optional)
+     * @param firstResult   first row of result
+     * @param maxResults    size of result set
+     * @param sortFieldName optional  sort field name
+     * @param reverse       reverse the search result
+     * @param type          stored object type
+     * @param <O>           stored object type
+     *
+     * @return list of stored objects and total number of hits, and cursor for the next page (or null if there are no more pages)
+     */
+    <O> Pair<Pair<List<O>, Integer>, String> fullTextSearchStoredObjects(FTQ query,
+                                                                         String cursor,
+                                                                         int firstResult,
+                                                                         int maxResults,
+                                                                         String sortFieldName,
+                                                                         boolean reverse,
+                                                                         Class<O> type);
+
     /**
      * Get the full text search result. The map returned by this method should be a single use only.
      * i.e. DO NOT CACHE this method. There are no benefits to this as final FilterNavigationRecord's are already
@@ -112,4 +196,28 @@ public interface GenericFTS<PK extends Serializable, FTQ> {
      */
     int fullTextSearchCount(FTQ query);
 
+    /**
+     * Find first query that matches at least one document. All queries are evaluated in single pass over
+     * the index, which allows to determine best strictness level out of several relaxed versions of the
+     * same query without running count query for each of them.
+     *
+     * @param queries queries ordered by strictness (strictest first)
+     *
+     * @return index of the first query in the list that has matches, or -1 if none match
+     */
+    int fullTextSearchFirstMatch(List<FTQ> queries);
+
+    /**
+     * Type-ahead suggestions for text typed into search box. Suggestions are answered from in memory
+     * structures built from the index, so this method does not run any search queries.
+     *
+     * @param shopId     shop PK
+     * @param language   language
+     * @param prefix     text typed so far
+     * @param maxResults max number of suggestions
+     *
+     * @return suggestions, best first
+     */
+    List<String> suggest(long shopId, String language, String prefix, int maxResults);
+
 }
@@ -17,6 +17,7 @@
 package org.yes.cart.search.dao;
 
 import java.io.Serializable;
+import java.util.Collection;
 
 /**
  * Index builder uses {@link GenericFTS} and {@link org.yes.cart.dao.GenericDAO} to mediate data and store it in
@@ -73,6 +74,16 @@ public interface IndexBuilder<T, PK extends Serializable> {
      */
     void fullTextSearchReindex(boolean async, int batchSize);
 
+    /**
+     * Force reindex of all entities in given master shop. If index keeps a partition per master shop
+     * only partition of this shop is rebuilt, otherwise this is the same as full reindex.
+     *
+     * @param shopId master shop PK
+     * @param async true if async required
+     * @param batchSize batch size for re-indexing
+     */
+    void fullTextSearchReindexShop(long shopId, boolean async, int batchSize);
+
     /**
      * Force reindex given entity.
      *
@@ -88,4 +99,12 @@ public interface IndexBuilder<T, PK extends Serializable> {
      */
     void fullTextSearchReindex(PK primaryKey, boolean purgeOnly);
 
+    /**
+     * Force reindex given entities as single unit of work (i.e. single lookup, single index update and
+     * single refresh). Entities that no longer exist are purged from the index.
+     *
+     * @param primaryKeys to reindex.
+     */
+    void fullTextSearchReindex(Collection<PK> primaryKeys);
+
 }
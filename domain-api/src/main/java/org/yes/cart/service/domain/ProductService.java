@@ -192,6 +192,25 @@ public interface ProductService extends GenericService<Product> {
                                                                 String sortFieldName,
                                                                 boolean reverse);
 
+    /**
+     * Get the all products , that match the given query continuing from the previous page.
+     *
+     * @param navigationContext navigation context
+     * @param cursor            cursor from previous page {@link ProductSearchResultPageDTO#getCursor()} (optional)
+     * @param firstResult       index of first result
+     * @param maxResults        quantity results to return
+     * @param sortFieldName     sort field name
+     * @param reverse           reverse the search result if true
+     *
+     * @return list of products
+     */
+    ProductSearchResultPageDTO getProductSearchResultDTOByQuery(NavigationContext navigationContext,
+                                                                String cursor,
+                                                                int firstResult,
+                                                                int maxResults,
+                                                                String sortFieldName,
+                                                                boolean reverse);
+
     /**
      * Create filter navigation records counts.
      *
@@ -212,6 +231,28 @@ public interface ProductService extends GenericService<Product> {
      */
     int getProductQty(NavigationContext navigationContext);
 
+    /**
+     * Type-ahead suggestions (product names, brands and categories) for text typed into search box.
+     *
+     * @param shopId     shop PK (customer shop)
+     * @param language   language
+     * @param prefix     text typed so far
+     * @param maxResults max number of suggestions
+     *
+     * @return suggestions, best first
+     */
+    List<String> getSuggestions(long shopId, String language, String prefix, int maxResults);
+
+    /**
+     * Find the strictest of several navigation contexts that has at least one product. All contexts
+     * are evaluated in a single search.
+     *
+     * @param navigationContexts navigation contexts ordered by strictness (strictest first)
+     *
+     * @return index of the first context in the list that has products, or -1 if none do
+     */
+    int findFirstNavigationContextWithProducts(List<NavigationContext> navigationContexts);
+
     /**
      * Full count of products on the system.
      *
@@ -297,6 +338,14 @@ public interface ProductService extends GenericService<Product> {
      */
     void reindexProductSku(String code);
 
+    /**
+     * Reindex the products as single unit of work. All affected SKU and products are reindexed
+     * using single lookup and single index update.
+     *
+     * @param codes the product SKU codes
+     */
+    void reindexProductSkus(Collection<String> codes);
+
 
     /**
      * Get product sku by code.
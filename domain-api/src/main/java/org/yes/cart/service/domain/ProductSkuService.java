@@ -113,7 +113,8 @@ public interface ProductSkuService extends GenericService<ProductSku> {
     void removeAllPrices(final ProductSku sku);
 
     /**
-     * Remove all items for warehouse for given sku
+     * Remove all items for warehouse for given sku. This is a bulk delete so it is not captured in the
+     * inventory change log, callers must reindex the SKU.
      *
      * @param sku  given sku.
      */
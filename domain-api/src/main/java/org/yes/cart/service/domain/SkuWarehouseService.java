@@ -18,6 +18,7 @@ package org.yes.cart.service.domain;
 
 import org.yes.cart.domain.entity.SkuWarehouse;
 import org.yes.cart.domain.entity.Warehouse;
+import org.yes.cart.domain.misc.Pair;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -130,6 +131,57 @@ public interface SkuWarehouseService extends GenericService<SkuWarehouse> {
      */
     List<String> findProductSkuForWhichInventoryChangedAfter(Instant lastUpdate);
 
+    /**
+     * Find SKU codes of inventory records that were changed after given position in the entity change log.
+     *
+     * @param lastChangeId last consumed change (exclusive)
+     * @param max          max number of change records to read
+     *
+     * @return last read change id (or lastChangeId if there are no new changes) and unique SKU codes
+     */
+    Pair<Long, List<String>> findProductSkuForWhichInventoryChangedAfter(long lastChangeId, int max);
+
+    /**
+     * Latest position in the entity change log.
+     *
+     * @return id of the latest change record, or 0 if change log is empty
+     */
+    long findLastInventoryChangeId();
+
+    /**
+     * Latest position in the entity change log for inventory changes recorded before given time.
+     *
+     * @param before record creation time (exclusive)
+     *
+     * @return id of the latest change record, or 0 if there are no such records
+     */
+    long findLastInventoryChangeIdBefore(Instant before);
+
+    /**
+     * Latest position in the entity change log up to which all change records are visible. Change log ids are
+     * allocated before transactions commit, so a missing id may belong to a transaction that is still in progress
+     * and its record may become visible later. Position stops before the first missing id, unless the record that
+     * follows it was recorded before given time, in which case the transaction that allocated the missing id is
+     * considered finished (i.e. rolled back).
+     *
+     * @param afterChangeId    position to start from (exclusive)
+     * @param upToChangeId     position to stop at (inclusive)
+     * @param gapsClosedBefore missing ids followed by records recorded before this time are skipped
+     * @param max              number of records to read at once
+     *
+     * @return id of the latest change record up to which there are no open gaps, or afterChangeId
+     */
+    long findLastVisibleInventoryChangeId(long afterChangeId, long upToChangeId, Instant gapsClosedBefore, int max);
+
+    /**
+     * Purge inventory change log records recorded before given time.
+     *
+     * @param before record creation time (exclusive)
+     *
+     * @return number of removed records
+     */
+    int removeInventoryChangesBefore(Instant before);
+
     /**
      * Get product SKU for products with availableto < before
      *
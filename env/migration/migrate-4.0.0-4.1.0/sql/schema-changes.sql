@@ -81,6 +81,7 @@ INSERT INTO TATTRIBUTE (ATTRIBUTE_ID, GUID, CODE, MANDATORY, VAL, NAME, DESCRIPT
         LAST_STATE varchar(45),
         LAST_DURATION_MS bigint default 0,
         CHECKPOINT  datetime,
+        CHECKPOINT_POSITION bigint,
         GUID varchar(36) not null unique,
         CREATED_TIMESTAMP datetime,
         UPDATED_TIMESTAMP datetime,
@@ -124,6 +125,7 @@ INSERT INTO TATTRIBUTE (ATTRIBUTE_ID, GUID, CODE, MANDATORY, VAL, NAME, DESCRIPT
 --         LAST_STATE varchar(45),
 --         LAST_DURATION_MS bigint default 0,
 --         CHECKPOINT  timestamp,
+--         CHECKPOINT_POSITION bigint,
 --         GUID varchar(36) not null unique,
 --         CREATED_TIMESTAMP timestamp,
 --         UPDATED_TIMESTAMP timestamp,
@@ -229,9 +231,9 @@ DELETE FROM TSYSTEMATTRVALUE WHERE CODE IN ('JOB_REINDEX_PRODUCT_BATCH_SIZE', 'J
 DELETE FROM TATTRIBUTE  WHERE CODE IN ('JOB_REINDEX_PRODUCT_BATCH_SIZE', 'JOB_PRODINVUP_DELTA', 'JOB_PRODINVUP_FULL', 'JOB_PRODINVUP_DELTA_S', 'JOB_PRODINVUP_PAUSE');
 INSERT INTO TJOBDEFINITION (JOBDEFINITION_ID, GUID, JOB_NAME, PROCESSOR, CONTEXT, HOST_REGEX, DEFAULT_CRON_KEY, DEFAULT_PAUSED)
   VALUES (1202, 'productInventoryChangedProcessorJob', 'Inventory Changes Product Indexing', 'productInventoryChangedProcessor', 'reindex-batch-size=100
-inventory-full-threshold=1000
-inventory-delta-seconds=15
-inventory-update-delta=100',
+change-batch-size=10000
+change-gap-timeout-seconds=600
+change-retention-hours=168',
     '^((API)|(SF[A-Z]))$', 'ws.cron.productInventoryChangedProcessorJob', 0);
 
 
@@ -420,4 +422,30 @@ INSERT INTO TATTRIBUTE (ATTRIBUTE_ID, GUID, CODE, MANDATORY, VAL, NAME, DESCRIPT
 --
 
 ALTER TABLE TSHOPPINGCARTSTATE RENAME COLUMN `EMPTY` TO IS_EMPTY;
--- ALTER TABLE TSHOPPINGCARTSTATE CHANGE   `EMPTY`    IS_EMPTY bit not null;
\ No newline at end of file
+-- ALTER TABLE TSHOPPINGCARTSTATE CHANGE   `EMPTY`    IS_EMPTY bit not null;
+
+--
+--  Entity change log for incremental inventory indexing
+--
+
+    create table TENTITYCHANGE (
+        ENTITYCHANGE_ID bigint not null auto_increment,
+        ENTITY_TYPE varchar(64) not null,
+        ENTITY_CODE varchar(255) not null,
+        CREATED_TIMESTAMP datetime not null,
+        primary key (ENTITYCHANGE_ID)
+    );
+
+    create index ENTITYCHANGE_TYPE on TENTITYCHANGE (ENTITY_TYPE, ENTITYCHANGE_ID);
+    create index ENTITYCHANGE_CREATED on TENTITYCHANGE (CREATED_TIMESTAMP);
+
+--     create table TENTITYCHANGE (
+--         ENTITYCHANGE_ID bigint not null GENERATED BY DEFAULT AS IDENTITY,
+--         ENTITY_TYPE varchar(64) not null,
+--         ENTITY_CODE varchar(255) not null,
+--         CREATED_TIMESTAMP timestamp not null,
+--         primary key (ENTITYCHANGE_ID)
+--     );
+--
+--     create index ENTITYCHANGE_TYPE on TENTITYCHANGE (ENTITY_TYPE, ENTITYCHANGE_ID);
+--     create index ENTITYCHANGE_CREATED on TENTITYCHANGE (CREATED_TIMESTAMP);
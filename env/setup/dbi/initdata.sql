@@ -2129,9 +2129,9 @@ INSERT INTO TJOBDEFINITION (JOBDEFINITION_ID, GUID, JOB_NAME, PROCESSOR, CONTEXT
 
 INSERT INTO TJOBDEFINITION (JOBDEFINITION_ID, GUID, JOB_NAME, PROCESSOR, CONTEXT, HOST_REGEX, DEFAULT_CRON_KEY, DEFAULT_PAUSED)
   VALUES (1202, 'productInventoryChangedProcessorJob', 'Inventory Changes Product Indexing', 'productInventoryChangedProcessor', 'reindex-batch-size=100
-inventory-full-threshold=1000
-inventory-delta-seconds=15
-inventory-update-delta=100',
+change-batch-size=10000
+change-gap-timeout-seconds=600
+change-retention-hours=168',
     '^((API)|(SF[A-Z]))$', 'ws.cron.productInventoryChangedProcessorJob', 0);
 
 INSERT INTO TJOBDEFINITION (JOBDEFINITION_ID, GUID, JOB_NAME, PROCESSOR, CONTEXT, HOST_REGEX, DEFAULT_CRON_KEY, DEFAULT_PAUSED)
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.domain.vo;
+
+import com.inspiresoftware.lib.dto.geda.annotations.Dto;
+import com.inspiresoftware.lib.dto.geda.annotations.DtoField;
+
+@Dto
+public class VoSearchStatistics {
+
+    @DtoField(readOnly = true)
+    private String nodeId;
+
+    @DtoField(readOnly = true)
+    private String nodeUri;
+
+    @DtoField(readOnly = true)
+    private String index;
+
+    @DtoField(readOnly = true)
+    private String operation;
+
+    @DtoField(readOnly = true)
+    private String fields;
+
+    @DtoField(readOnly = true)
+    private long count;
+
+    @DtoField(readOnly = true)
+    private long meanMicros;
+
+    @DtoField(readOnly = true)
+    private long p50Micros;
+
+    @DtoField(readOnly = true)
+    private long p90Micros;
+
+    @DtoField(readOnly = true)
+    private long p99Micros;
+
+    @DtoField(readOnly = true)
+    private long maxMicros;
+
+    @DtoField(readOnly = true)
+    private long hits;
+
+    @DtoField(readOnly = true)
+    private long facets;
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(final String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public String getNodeUri() {
+        return nodeUri;
+    }
+
+    public void setNodeUri(final String nodeUri) {
+        this.nodeUri = nodeUri;
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    public void setIndex(final String index) {
+        this.index = index;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(final String operation) {
+        this.operation = operation;
+    }
+
+    public String getFields() {
+        return fields;
+    }
+
+    public void setFields(final String fields) {
+        this.fields = fields;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(final long count) {
+        this.count = count;
+    }
+
+    public long getMeanMicros() {
+        return meanMicros;
+    }
+
+    public void setMeanMicros(final long meanMicros) {
+        this.meanMicros = meanMicros;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public void setP50Micros(final long p50Micros) {
+        this.p50Micros = p50Micros;
+    }
+
+    public long getP90Micros() {
+        return p90Micros;
+    }
+
+    public void setP90Micros(final long p90Micros) {
+        this.p90Micros = p90Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public void setP99Micros(final long p99Micros) {
+        this.p99Micros = p99Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    public void setMaxMicros(final long maxMicros) {
+        this.maxMicros = maxMicros;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(final long hits) {
+        this.hits = hits;
+    }
+
+    public long getFacets() {
+        return facets;
+    }
+
+    public void setFacets(final long facets) {
+        this.facets = facets;
+    }
+}
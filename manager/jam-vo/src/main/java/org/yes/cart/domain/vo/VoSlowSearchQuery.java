@@ -0,0 +1,136 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.domain.vo;
+
+import com.inspiresoftware.lib.dto.geda.annotations.Dto;
+import com.inspiresoftware.lib.dto.geda.annotations.DtoField;
+
+import java.time.LocalDateTime;
+
+@Dto
+public class VoSlowSearchQuery {
+
+    @DtoField(readOnly = true)
+    private String nodeId;
+
+    @DtoField(readOnly = true)
+    private String nodeUri;
+
+    @DtoField(readOnly = true)
+    private String index;
+
+    @DtoField(readOnly = true)
+    private String operation;
+
+    @DtoField(readOnly = true)
+    private String fields;
+
+    @DtoField(readOnly = true)
+    private LocalDateTime timestamp;
+
+    @DtoField(readOnly = true)
+    private String query;
+
+    @DtoField(readOnly = true)
+    private long millis;
+
+    @DtoField(readOnly = true)
+    private long hits;
+
+    @DtoField(readOnly = true)
+    private String explanation;
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(final String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public String getNodeUri() {
+        return nodeUri;
+    }
+
+    public void setNodeUri(final String nodeUri) {
+        this.nodeUri = nodeUri;
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    public void setIndex(final String index) {
+        this.index = index;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(final String operation) {
+        this.operation = operation;
+    }
+
+    public String getFields() {
+        return fields;
+    }
+
+    public void setFields(final String fields) {
+        this.fields = fields;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(final LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public void setQuery(final String query) {
+        this.query = query;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public void setMillis(final long millis) {
+        this.millis = millis;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(final long hits) {
+        this.hits = hits;
+    }
+
+    public String getExplanation() {
+        return explanation;
+    }
+
+    public void setExplanation(final String explanation) {
+        this.explanation = explanation;
+    }
+}
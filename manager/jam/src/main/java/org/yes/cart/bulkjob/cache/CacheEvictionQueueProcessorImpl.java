@@ -93,7 +93,8 @@ public class CacheEvictionQueueProcessorImpl extends AbstractCronJobProcessorImp
                     final HashMap<String, Object> payload = new HashMap<>();
                     payload.put("entityOperation", item.getOperation());
                     payload.put("entityName", item.getEntityName());
-                    payload.put("pkValues", item.getPKs().toArray(new Long[item.getPKs().size()]));
+                    // all instances are sent as [ null ], same as changes without primary key, so that all nodes can handle it
+                    payload.put("pkValues", item.isAll() ? new Long[] { null } : item.getPKs().toArray(new Long[item.getPKs().size()]));
 
                     final RspMessage message = new ContextRspMessageImpl(
                             nodeService.getCurrentNodeId(),
@@ -20,6 +20,8 @@ import org.yes.cart.cluster.node.Node;
 import org.yes.cart.domain.dto.impl.CacheInfoDTO;
 import org.yes.cart.domain.dto.impl.ConfigurationDTO;
 import org.yes.cart.domain.dto.impl.ModuleDTO;
+import org.yes.cart.domain.dto.impl.SearchStatisticsDTO;
+import org.yes.cart.domain.dto.impl.SlowSearchQueryDTO;
 import org.yes.cart.domain.misc.Pair;
 import org.yes.cart.service.async.model.AsyncContext;
 
@@ -218,6 +220,39 @@ public interface ClusterService {
      */
     Map<String, Boolean> disableCacheStats(AsyncContext context, String name);
 
+    /**
+     * Get search latency statistics per query shape.
+     *
+     * @param context web service context
+     *
+     * @return statistics per node
+     */
+    Map<String, List<SearchStatisticsDTO>> getSearchStatistics(AsyncContext context);
+
+    /**
+     * Get most recent searches that took longer than slow query threshold.
+     *
+     * @param context web service context
+     *
+     * @return slow searches per node
+     */
+    Map<String, List<SlowSearchQueryDTO>> getSlowSearchQueries(AsyncContext context);
+
+    /**
+     * Reset search latency statistics and slow query log.
+     *
+     * @param context web service context
+     */
+    Map<String, Boolean> resetSearchStatistics(AsyncContext context);
+
+    /**
+     * Change slow query threshold.
+     *
+     * @param context web service context
+     * @param millis threshold in milliseconds, zero disables slow query log
+     */
+    Map<String, Boolean> setSlowSearchQueryThreshold(AsyncContext context, long millis);
+
     /**
      * Get platform alerts
      *
@@ -25,17 +25,21 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.yes.cart.cluster.service.CacheEvictionQueue;
 import org.yes.cart.service.async.model.AsyncContext;
 import org.yes.cart.service.async.utils.ThreadLocalAsyncContextUtils;
-import org.yes.cart.utils.log.Markers;
 
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * Cache eviction queue that coalesces changes per user, operation and entity.
+ *
+ * Primary keys of the same operation and entity are accumulated in a single item until the item has at least
+ * {@link #setFlushSize(int)} keys or it is older than {@link #setFlushWindowMs(long)}, only then it is handed out
+ * by {@link #dequeue()}, so that bulk changes result in few large evictions rather than many small ones.
+ *
+ * Queue holds at most {@link #setMaxQueueSize(int)} keys, once the limit is reached the item that receives the change
+ * discards its keys and is escalated to eviction of all instances of the entity, so changes are never lost.
+ *
  * User: denispavlov
  * Date: 26/05/2018
  * Time: 08:42
@@ -44,18 +48,16 @@ public class CacheEvictionQueueImpl implements CacheEvictionQueue, DisposableBea
 
     private static final Logger LOG = LoggerFactory.getLogger(CacheEvictionQueueImpl.class);
 
-    private final Map<Key, Set<Long>> queue = new ConcurrentHashMap<>();
+    private final Map<Key, Bucket> queue = new ConcurrentHashMap<>();
+    private final AtomicInteger queueSize = new AtomicInteger();
 
     private int maxQueueSize = 1000;
+    private int flushSize = 100;
+    private long flushWindowMs = 5000L;
 
     @Override
     public void enqueue(final String entityOperation, final String entityName, final Long pkValue) {
 
-        if (this.queue.size() > maxQueueSize) {
-            LOG.error(Markers.alert(), "Cache eviction queue is full");
-            return;
-        }
-
         final Authentication auth = SecurityContextHolder.getContext() != null ? SecurityContextHolder.getContext().getAuthentication() : null;
         String username = auth != null && auth.isAuthenticated() ? auth.getName() : null;
         if (username == null) {
@@ -68,26 +70,56 @@ public class CacheEvictionQueueImpl implements CacheEvictionQueue, DisposableBea
             return;
         }
 
-        queue.compute(new Key(username, entityOperation, entityName), (k, v) ->
-                (v == null) ? Collections.singleton(pkValue) :
-                        (v.contains(pkValue) ? v :
-                        Stream.of(v, Collections.singleton(pkValue))
-                                .flatMap(Collection::stream)
-                                .collect(Collectors.toSet())));
+        queue.compute(new Key(username, entityOperation, entityName), (k, v) -> {
+            final Bucket bucket = v != null ? v : new Bucket(System.currentTimeMillis());
+            if (bucket.all) {
+                return bucket;
+            }
+            if (pkValue == null) {
+                // instance cannot be identified
+                escalate(k, bucket);
+            } else if (queueSize.get() >= maxQueueSize) {
+                LOG.warn("Cache eviction queue is full, escalating {} {} to all", k.entityName, k.entityOperation);
+                escalate(k, bucket);
+            } else if (bucket.pks.add(pkValue)) {
+                queueSize.incrementAndGet();
+            }
+            return bucket;
+        });
+
+    }
 
+    private void escalate(final Key key, final Bucket bucket) {
+        LOG.debug("Escalating cache eviction of {} {} to all", key.entityName, key.entityOperation);
+        queueSize.addAndGet(-bucket.pks.size());
+        bucket.pks = new LongHashSet();
+        bucket.all = true;
     }
 
     @Override
     public CacheEvictionItem dequeue() {
 
-        final Key key = this.queue.isEmpty() ? null : this.queue.keySet().iterator().next();
-        if (key == null) {
-            return null;
-        }
+        final long now = System.currentTimeMillis();
+
+        for (final Key key : this.queue.keySet()) {
+
+            final Bucket[] removed = new Bucket[1];
+            this.queue.computeIfPresent(key, (k, v) -> {
+                if (v.all || v.pks.size() >= flushSize || now - v.created >= flushWindowMs) {
+                    removed[0] = v;
+                    return null;
+                }
+                return v;
+            });
+
+            if (removed[0] != null) {
+                queueSize.addAndGet(-removed[0].pks.size());
+                return new Item(key, removed[0]);
+            }
 
-        final Set<Long> update = this.queue.remove(key);
+        }
 
-        return new Item(key, update);
+        return null;
 
     }
 
@@ -95,24 +127,43 @@ public class CacheEvictionQueueImpl implements CacheEvictionQueue, DisposableBea
     public void clear() {
 
         queue.clear();
+        queueSize.set(0);
 
     }
 
     @Override
     public void destroy() throws Exception {
         LOG.debug("Shutting down cache eviction queue");
-        this.queue.clear();
+        clear();
+    }
+
+    private static class Bucket {
+
+        private final long created;
+        private LongHashSet pks = new LongHashSet();
+        private boolean all;
+
+        private Bucket(final long created) {
+            this.created = created;
+        }
     }
 
     private static class Item implements CacheEvictionItem {
 
         private final Key key;
-        private final Set<Long> pks;
+        private final boolean all;
+        private final List<Long> pks;
 
 
-        private Item(final Key key, final Set<Long> pks) {
+        private Item(final Key key, final Bucket bucket) {
             this.key = key;
-            this.pks = pks;
+            this.all = bucket.all;
+            final long[] values = bucket.pks.toArray();
+            final List<Long> pks = new ArrayList<>(values.length);
+            for (final long value : values) {
+                pks.add(value);
+            }
+            this.pks = Collections.unmodifiableList(pks);
         }
 
         @Override
@@ -131,9 +182,14 @@ public class CacheEvictionQueueImpl implements CacheEvictionQueue, DisposableBea
         }
 
         @Override
-        public Set<Long> getPKs() {
+        public Collection<Long> getPKs() {
             return pks;
         }
+
+        @Override
+        public boolean isAll() {
+            return all;
+        }
     }
 
     private static class Key {
@@ -170,11 +226,30 @@ public class CacheEvictionQueueImpl implements CacheEvictionQueue, DisposableBea
     }
 
     /**
-     * Maximum cache eviction items in queue.
+     * Maximum number of primary keys in queue, changes beyond this limit are escalated to eviction of all
+     * instances of the entity.
      *
      * @param maxQueueSize max size
      */
     public void setMaxQueueSize(final int maxQueueSize) {
         this.maxQueueSize = maxQueueSize;
     }
+
+    /**
+     * Number of primary keys after which item is ready for eviction regardless of its age.
+     *
+     * @param flushSize number of keys
+     */
+    public void setFlushSize(final int flushSize) {
+        this.flushSize = flushSize;
+    }
+
+    /**
+     * Time during which changes are accumulated in item before it is ready for eviction.
+     *
+     * @param flushWindowMs time window in milliseconds (zero means items are always ready), default is 5000
+     */
+    public void setFlushWindowMs(final long flushWindowMs) {
+        this.flushWindowMs = flushWindowMs;
+    }
 }
@@ -29,6 +29,8 @@ import org.yes.cart.cluster.service.*;
 import org.yes.cart.domain.dto.impl.CacheInfoDTO;
 import org.yes.cart.domain.dto.impl.ConfigurationDTO;
 import org.yes.cart.domain.dto.impl.ModuleDTO;
+import org.yes.cart.domain.dto.impl.SearchStatisticsDTO;
+import org.yes.cart.domain.dto.impl.SlowSearchQueryDTO;
 import org.yes.cart.domain.misc.Pair;
 import org.yes.cart.service.async.model.AsyncContext;
 import org.yes.cart.service.async.model.JobContextKeys;
@@ -695,6 +697,132 @@ public class ClusterServiceImpl implements ClusterService {
 
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, List<SearchStatisticsDTO>> getSearchStatistics(final AsyncContext context) {
+
+        final RspMessage message = new ContextRspMessageImpl(
+                nodeService.getCurrentNodeId(),
+                determineAllSfTargets(),
+                "SearchStatisticsDirector.getSearchStatistics",
+                null,
+                context
+        );
+
+        nodeService.broadcast(message);
+
+        final Map<String, List<SearchStatisticsDTO>> info = new HashMap<>();
+        if (CollectionUtils.isNotEmpty(message.getResponses())) {
+
+            for (final Message response : message.getResponses()) {
+
+                if (response.getPayload() instanceof List) {
+                    info.put(response.getSource(), (List<SearchStatisticsDTO>) response.getPayload());
+                }
+
+            }
+
+        }
+
+        return info;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, List<SlowSearchQueryDTO>> getSlowSearchQueries(final AsyncContext context) {
+
+        final RspMessage message = new ContextRspMessageImpl(
+                nodeService.getCurrentNodeId(),
+                determineAllSfTargets(),
+                "SearchStatisticsDirector.getSlowQueries",
+                null,
+                context
+        );
+
+        nodeService.broadcast(message);
+
+        final Map<String, List<SlowSearchQueryDTO>> info = new HashMap<>();
+        if (CollectionUtils.isNotEmpty(message.getResponses())) {
+
+            for (final Message response : message.getResponses()) {
+
+                if (response.getPayload() instanceof List) {
+                    info.put(response.getSource(), (List<SlowSearchQueryDTO>) response.getPayload());
+                }
+
+            }
+
+        }
+
+        return info;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Boolean> resetSearchStatistics(final AsyncContext context) {
+
+        final RspMessage message = new ContextRspMessageImpl(
+                nodeService.getCurrentNodeId(),
+                determineAllSfTargets(),
+                "SearchStatisticsDirector.resetSearchStatistics",
+                null,
+                context
+        );
+
+        nodeService.broadcast(message);
+
+        final Map<String, Boolean> reset = new HashMap<>();
+        if (CollectionUtils.isNotEmpty(message.getResponses())) {
+
+            for (final Message response : message.getResponses()) {
+
+                reset.put(response.getSource(), Boolean.TRUE);
+
+            }
+
+        }
+
+        return reset;
+
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Boolean> setSlowSearchQueryThreshold(final AsyncContext context, final long millis) {
+
+        final RspMessage message = new ContextRspMessageImpl(
+                nodeService.getCurrentNodeId(),
+                determineAllSfTargets(),
+                "SearchStatisticsDirector.setSlowQueryThreshold",
+                millis,
+                context
+        );
+
+        nodeService.broadcast(message);
+
+        final Map<String, Boolean> updated = new HashMap<>();
+        if (CollectionUtils.isNotEmpty(message.getResponses())) {
+
+            for (final Message response : message.getResponses()) {
+
+                updated.put(response.getSource(), Boolean.TRUE);
+
+            }
+
+        }
+
+        return updated;
+
+    }
+
     @Override
     public List<Pair<String, String>> getAlerts(final AsyncContext context) {
 
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.service.cluster.impl;
+
+import java.util.Arrays;
+
+/**
+ * Minimal open addressing set of primitive longs, which is used to accumulate primary keys without boxing.
+ * Not thread safe.
+ */
+final class LongHashSet {
+
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private int size;
+    private boolean hasEmpty;
+
+    LongHashSet() {
+        this.keys = new long[16];
+    }
+
+    /**
+     * @param value value to add
+     *
+     * @return true if value was added, false if it is already in the set
+     */
+    boolean add(final long value) {
+        if (value == EMPTY) {
+            if (hasEmpty) {
+                return false;
+            }
+            hasEmpty = true;
+            size++;
+            return true;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        if (insert(keys, value)) {
+            size++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return number of values in the set
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return values in the set (unordered)
+     */
+    long[] toArray() {
+        final long[] values = new long[size];
+        int i = 0;
+        if (hasEmpty) {
+            values[i++] = EMPTY;
+        }
+        for (final long key : keys) {
+            if (key != EMPTY) {
+                values[i++] = key;
+            }
+        }
+        return values;
+    }
+
+    private void rehash(final int capacity) {
+        final long[] rehashed = new long[capacity];
+        for (final long key : keys) {
+            if (key != EMPTY) {
+                insert(rehashed, key);
+            }
+        }
+        this.keys = rehashed;
+    }
+
+    private static boolean insert(final long[] table, final long value) {
+        final int mask = table.length - 1;
+        int slot = mix(value) & mask;
+        while (table[slot] != EMPTY) {
+            if (table[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = value;
+        return true;
+    }
+
+    private static int mix(final long value) {
+        final long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
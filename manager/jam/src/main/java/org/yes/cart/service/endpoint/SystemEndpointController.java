@@ -159,6 +159,51 @@ public interface SystemEndpointController {
     List<VoCacheInfo> statusCache(@ApiParam(value = "Cache (all nodes)", required = true) @PathVariable("name") String name, @ApiParam(value = "Status", name = "vo", required = true) @RequestBody VoCacheStatus status) throws Exception;
 
 
+    /**
+     * Get search latency statistics.
+     *
+     * @return statistics per query shape per node.
+     */
+    @ApiOperation(value = "Retrieve search latency statistics")
+    @Secured({"ROLE_SMADMIN","ROLE_SMSHOPADMIN"})
+    @RequestMapping(value = "/search/statistics", method = RequestMethod.GET, produces = { MediaType.APPLICATION_JSON_VALUE })
+    @ResponseBody
+    List<VoSearchStatistics> getSearchStatistics() throws Exception;
+
+    /**
+     * Reset search latency statistics and slow query log.
+     *
+     * @return statistics per query shape per node.
+     */
+    @ApiOperation(value = "Delete search latency statistics")
+    @Secured({"ROLE_SMADMIN"})
+    @RequestMapping(value = "/search/statistics", method = RequestMethod.DELETE, produces = { MediaType.APPLICATION_JSON_VALUE })
+    @ResponseBody
+    List<VoSearchStatistics> resetSearchStatistics() throws Exception;
+
+    /**
+     * Get most recent slow searches.
+     *
+     * @return slow searches of all nodes.
+     */
+    @ApiOperation(value = "Retrieve slow search queries")
+    @Secured({"ROLE_SMADMIN","ROLE_SMSHOPADMIN"})
+    @RequestMapping(value = "/search/slowqueries", method = RequestMethod.GET, produces = { MediaType.APPLICATION_JSON_VALUE })
+    @ResponseBody
+    List<VoSlowSearchQuery> getSlowSearchQueries() throws Exception;
+
+    /**
+     * Change slow query threshold.
+     *
+     * @param millis threshold in milliseconds, zero disables slow query log
+     */
+    @ApiOperation(value = "Update slow search query threshold")
+    @Secured({"ROLE_SMADMIN"})
+    @RequestMapping(value = "/search/slowqueries/threshold/{millis}", method = RequestMethod.PUT, produces = { MediaType.APPLICATION_JSON_VALUE })
+    @ResponseBody
+    void setSlowSearchQueryThreshold(@ApiParam(value = "Threshold in milliseconds (all nodes)", required = true) @PathVariable("millis") long millis) throws Exception;
+
+
     /**
      * Warm up all storefront servers.
      */
@@ -26,6 +26,8 @@ import org.yes.cart.constants.AttributeNamesKeys;
 import org.yes.cart.domain.dto.impl.CacheInfoDTO;
 import org.yes.cart.domain.dto.impl.ConfigurationDTO;
 import org.yes.cart.domain.dto.impl.ModuleDTO;
+import org.yes.cart.domain.dto.impl.SearchStatisticsDTO;
+import org.yes.cart.domain.dto.impl.SlowSearchQueryDTO;
 import org.yes.cart.domain.misc.MutablePair;
 import org.yes.cart.domain.vo.*;
 import org.yes.cart.service.async.AsyncContextFactory;
@@ -182,6 +184,53 @@ public class SystemEndpointControllerImpl implements SystemEndpointController {
         return getCacheInfo();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public @ResponseBody
+    List<VoSearchStatistics> getSearchStatistics() throws Exception {
+        final Map<String, Object> param = new HashMap<>();
+        param.put(AsyncContext.TIMEOUT_KEY, AttributeNamesKeys.System.SYSTEM_CONNECTOR_CACHE_TIMEOUT_MS);
+        final Map<String, List<SearchStatisticsDTO>> stats = clusterService.getSearchStatistics(createCtx(param));
+        final List<VoSearchStatistics> vos = new ArrayList<>(stats.size() * 50);
+        for (final List<SearchStatisticsDTO> nodeStats : stats.values()) {
+            vos.addAll(voAssemblySupport.assembleVos(VoSearchStatistics.class, SearchStatisticsDTO.class, nodeStats));
+        }
+        return vos;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public @ResponseBody
+    List<VoSearchStatistics> resetSearchStatistics() throws Exception {
+        final Map<String, Object> param = new HashMap<>();
+        param.put(AsyncContext.TIMEOUT_KEY, AttributeNamesKeys.System.SYSTEM_CONNECTOR_CACHE_TIMEOUT_MS);
+        clusterService.resetSearchStatistics(createCtx(param));
+        return getSearchStatistics();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public @ResponseBody
+    List<VoSlowSearchQuery> getSlowSearchQueries() throws Exception {
+        final Map<String, Object> param = new HashMap<>();
+        param.put(AsyncContext.TIMEOUT_KEY, AttributeNamesKeys.System.SYSTEM_CONNECTOR_CACHE_TIMEOUT_MS);
+        final Map<String, List<SlowSearchQueryDTO>> slow = clusterService.getSlowSearchQueries(createCtx(param));
+        final List<VoSlowSearchQuery> vos = new ArrayList<>(slow.size() * 50);
+        for (final List<SlowSearchQueryDTO> nodeSlow : slow.values()) {
+            vos.addAll(voAssemblySupport.assembleVos(VoSlowSearchQuery.class, SlowSearchQueryDTO.class, nodeSlow));
+        }
+        return vos;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public @ResponseBody
+    void setSlowSearchQueryThreshold(@PathVariable("millis") final long millis) throws Exception {
+        final Map<String, Object> param = new HashMap<>();
+        param.put(AsyncContext.TIMEOUT_KEY, AttributeNamesKeys.System.SYSTEM_CONNECTOR_CACHE_TIMEOUT_MS);
+        clusterService.setSlowSearchQueryThreshold(createCtx(param), millis);
+    }
+
     /** {@inheritDoc} */
     @Override
     public @ResponseBody
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.service.cluster.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.yes.cart.cluster.service.CacheEvictionQueue;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class CacheEvictionQueueImplTest {
+
+    private CacheEvictionQueueImpl queue;
+
+    @Before
+    public void setUp() throws Exception {
+        queue = new CacheEvictionQueueImpl();
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("admin", "", Collections.emptyList()));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        SecurityContextHolder.clearContext();
+        queue.destroy();
+    }
+
+    @Test
+    public void testCoalesceWithinWindow() throws Exception {
+
+        queue.setFlushWindowMs(60000L);
+
+        queue.enqueue("Update", "ProductEntity", 1L);
+        queue.enqueue("Update", "ProductEntity", 2L);
+        queue.enqueue("Update", "ProductEntity", 1L);
+        queue.enqueue("Update", "BrandEntity", 3L);
+
+        // not ready until window has passed
+        assertNull(queue.dequeue());
+
+        queue.setFlushWindowMs(0L);
+
+        final Map<String, CacheEvictionQueue.CacheEvictionItem> items = dequeueAll();
+        assertEquals(2, items.size());
+
+        final CacheEvictionQueue.CacheEvictionItem products = items.get("ProductEntity");
+        assertEquals("admin", products.getUser());
+        assertEquals("Update", products.getOperation());
+        assertFalse(products.isAll());
+        assertEquals(new HashSet<>(Arrays.asList(1L, 2L)), new HashSet<>(products.getPKs()));
+        assertEquals(2, products.getPKs().size());
+
+        assertEquals(Collections.singletonList(3L), new ArrayList<>(items.get("BrandEntity").getPKs()));
+
+    }
+
+    @Test
+    public void testFlushOnSize() throws Exception {
+
+        queue.setFlushWindowMs(60000L);
+        queue.setFlushSize(3);
+
+        queue.enqueue("Update", "ProductEntity", 1L);
+        queue.enqueue("Update", "ProductEntity", 2L);
+        queue.enqueue("Update", "ProductEntity", 2L);
+        assertNull(queue.dequeue());
+
+        queue.enqueue("Update", "ProductEntity", 3L);
+
+        final CacheEvictionQueue.CacheEvictionItem item = queue.dequeue();
+        assertNotNull(item);
+        assertEquals(new HashSet<>(Arrays.asList(1L, 2L, 3L)), new HashSet<>(item.getPKs()));
+        assertNull(queue.dequeue());
+
+    }
+
+    @Test
+    public void testOverflowEscalatesToAll() throws Exception {
+
+        queue.setFlushWindowMs(60000L);
+        queue.setMaxQueueSize(2);
+
+        queue.enqueue("Update", "ProductEntity", 1L);
+        queue.enqueue("Update", "ProductEntity", 2L);
+        queue.enqueue("Update", "ProductEntity", 3L);
+        queue.enqueue("Update", "ProductEntity", 4L);
+
+        // escalated item is ready straight away
+        final CacheEvictionQueue.CacheEvictionItem item = queue.dequeue();
+        assertNotNull(item);
+        assertTrue(item.isAll());
+        assertTrue(item.getPKs().isEmpty());
+        assertNull(queue.dequeue());
+
+        // escalation releases queued keys
+        queue.enqueue("Update", "ProductEntity", 5L);
+        queue.enqueue("Update", "ProductEntity", 6L);
+        assertNull(queue.dequeue());
+
+    }
+
+    @Test
+    public void testNoPrimaryKeyEscalatesToAll() throws Exception {
+
+        queue.setFlushWindowMs(60000L);
+
+        queue.enqueue("Update", "ProductEntity", 1L);
+        queue.enqueue("Update", "ProductEntity", null);
+
+        final CacheEvictionQueue.CacheEvictionItem item = queue.dequeue();
+        assertNotNull(item);
+        assertTrue(item.isAll());
+        assertNull(queue.dequeue());
+
+    }
+
+    @Test
+    public void testNoUser() throws Exception {
+
+        queue.setFlushWindowMs(0L);
+        SecurityContextHolder.clearContext();
+
+        queue.enqueue("Update", "ProductEntity", 1L);
+
+        assertNull(queue.dequeue());
+
+    }
+
+    private Map<String, CacheEvictionQueue.CacheEvictionItem> dequeueAll() {
+        final Map<String, CacheEvictionQueue.CacheEvictionItem> items = new HashMap<>();
+        CacheEvictionQueue.CacheEvictionItem item;
+        while ((item = queue.dequeue()) != null) {
+            assertNull(items.put(item.getEntityName(), item));
+        }
+        return items;
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.service.cluster.impl;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class LongHashSetTest {
+
+    @Test
+    public void testAddDuplicates() throws Exception {
+
+        final LongHashSet set = new LongHashSet();
+
+        assertTrue(set.add(10L));
+        assertFalse(set.add(10L));
+        assertTrue(set.add(-10L));
+        assertEquals(2, set.size());
+
+        // zero is the empty slot marker, so it is kept separately
+        assertTrue(set.add(0L));
+        assertFalse(set.add(0L));
+        assertEquals(3, set.size());
+
+        final long[] values = set.toArray();
+        Arrays.sort(values);
+        assertArrayEquals(new long[] { -10L, 0L, 10L }, values);
+
+    }
+
+    @Test
+    public void testGrow() throws Exception {
+
+        final LongHashSet set = new LongHashSet();
+
+        for (long value = 0L; value < 10000L; value++) {
+            assertTrue(set.add(value * 16L));
+        }
+        for (long value = 0L; value < 10000L; value++) {
+            assertFalse(set.add(value * 16L));
+        }
+        assertEquals(10000, set.size());
+
+        final long[] values = set.toArray();
+        assertEquals(10000, values.length);
+        Arrays.sort(values);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(i * 16L, values[i]);
+        }
+
+    }
+
+}
@@ -21,6 +21,8 @@ import org.yes.cart.cluster.node.impl.NodeImpl;
 import org.yes.cart.domain.dto.impl.CacheInfoDTO;
 import org.yes.cart.domain.dto.impl.ConfigurationDTO;
 import org.yes.cart.domain.dto.impl.ModuleDTO;
+import org.yes.cart.domain.dto.impl.SearchStatisticsDTO;
+import org.yes.cart.domain.dto.impl.SlowSearchQueryDTO;
 import org.yes.cart.domain.misc.Pair;
 import org.yes.cart.service.async.model.AsyncContext;
 import org.yes.cart.service.cluster.ClusterService;
@@ -146,6 +148,26 @@ public class NoopClusterServiceImpl implements ClusterService {
         return Collections.emptyMap();
     }
 
+    @Override
+    public Map<String, List<SearchStatisticsDTO>> getSearchStatistics(final AsyncContext context) {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public Map<String, List<SlowSearchQueryDTO>> getSlowSearchQueries(final AsyncContext context) {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public Map<String, Boolean> resetSearchStatistics(final AsyncContext context) {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public Map<String, Boolean> setSlowSearchQueryThreshold(final AsyncContext context, final long millis) {
+        return Collections.emptyMap();
+    }
+
     @Override
     public List<Pair<String, String>> getAlerts(final AsyncContext context) {
         return Collections.emptyList();
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.domain.entity.cache;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.EntityType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Invalidates second level cache regions of changed entities, so that each node can keep entities in its
+ * local regions for long time and only drop entries that were changed elsewhere in the cluster (e.g. by admin).
+ *
+ * Entities are identified the same way as in cache eviction messages, i.e. by simple class name. For changed
+ * entity its own entries and entries of collections that it owns are evicted by primary key, collections that
+ * contain changed entity are evicted completely since owner is not known. Query results regions are evicted
+ * as well because local update timestamps do not know about changes made on other nodes.
+ */
+public class HibernateEntityCacheInvalidator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HibernateEntityCacheInvalidator.class);
+
+    private final Cache cache;
+    private final boolean queryCacheEnabled;
+
+    private final Map<String, Regions> regions = new HashMap<>();
+
+    public HibernateEntityCacheInvalidator(final SessionFactory sessionFactory) {
+
+        final SessionFactoryImplementor sfi = (SessionFactoryImplementor) sessionFactory;
+        this.cache = sfi.getCache();
+        this.queryCacheEnabled = sfi.getSessionFactoryOptions().isQueryCacheEnabled();
+
+        if (!sfi.getSessionFactoryOptions().isSecondLevelCacheEnabled()) {
+            return;
+        }
+
+        for (final EntityPersister persister : sfi.getMetamodel().entityPersisters().values()) {
+            if (persister.canReadFromCache() || persister.canWriteToCache()) {
+                regionsOf(persister.getEntityName()).entityName = persister.getEntityName();
+            }
+        }
+        for (final CollectionPersister persister : sfi.getMetamodel().collectionPersisters().values()) {
+            if (persister.hasCache()) {
+                regionsOf(persister.getOwnerEntityPersister().getEntityName()).ownedRoles.add(persister.getRole());
+                if (persister.getElementType() instanceof EntityType) {
+                    final String element = ((EntityType) persister.getElementType()).getAssociatedEntityName();
+                    regionsOf(element).elementRoles.add(persister.getRole());
+                }
+            }
+        }
+
+        LOG.info("Second level cache invalidation is configured for {}", regions.keySet());
+
+    }
+
+    private Regions regionsOf(final String entityName) {
+        return regions.computeIfAbsent(entityName.substring(entityName.lastIndexOf('.') + 1), k -> new Regions());
+    }
+
+    /**
+     * @param entityName entity name (simple class name)
+     *
+     * @return true if there are cached regions for this entity
+     */
+    public boolean isCached(final String entityName) {
+        return regions.containsKey(entityName);
+    }
+
+    /**
+     * Invalidate cached entities.
+     *
+     * @param entityName entity name (simple class name)
+     * @param pkValues   primary keys of changed entities, null if all entities of this type should be invalidated
+     *
+     * @return number of evicted regions or keys
+     */
+    public int invalidate(final String entityName, final Serializable[] pkValues) {
+
+        final Regions entity = regions.get(entityName);
+        if (entity == null) {
+            return 0;
+        }
+
+        int cnt = 0;
+
+        if (entity.entityName != null) {
+            if (pkValues == null) {
+                cache.evictEntityData(entity.entityName);
+                cnt++;
+            } else {
+                for (final Serializable pkValue : pkValues) {
+                    cache.evictEntityData(entity.entityName, pkValue);
+                    cnt++;
+                }
+            }
+        }
+
+        for (final String role : entity.ownedRoles) {
+            if (pkValues == null) {
+                cache.evictCollectionData(role);
+                cnt++;
+            } else {
+                for (final Serializable pkValue : pkValues) {
+                    cache.evictCollectionData(role, pkValue);
+                    cnt++;
+                }
+            }
+        }
+
+        for (final String role : entity.elementRoles) {
+            cache.evictCollectionData(role);
+            cnt++;
+        }
+
+        if (queryCacheEnabled) {
+            cache.evictQueryRegions();
+            cnt++;
+        }
+
+        LOG.debug("Invalidated {} second level cache entries of {}", cnt, entityName);
+
+        return cnt;
+
+    }
+
+    private static final class Regions {
+
+        private String entityName;
+        private final List<String> ownedRoles = new ArrayList<>(2);
+        private final List<String> elementRoles = new ArrayList<>(2);
+
+    }
+
+}
@@ -71,6 +71,14 @@ public class DelegateDAOImpl<T, PK extends Serializable> implements GenericDAO<T
         return delegate.findById(id);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<T> findByIds(final List<PK> ids) {
+        return delegate.findByIds(ids);
+    }
+
     /**
      * {@inheritDoc}
      */
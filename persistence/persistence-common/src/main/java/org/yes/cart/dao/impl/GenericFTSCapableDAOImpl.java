@@ -29,8 +29,10 @@ import org.yes.cart.search.dto.FilteredNavigationRecordRequest;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -45,6 +47,8 @@ public class GenericFTSCapableDAOImpl<T, PK extends Serializable>
     private final GenericFTS<PK, Object> genericFTS;
     private final IndexBuilder<T, PK> indexBuilder;
 
+    private final Map<Long, GenericFTSCapableDAO<T, PK, Object>> shopPartitions = new ConcurrentHashMap<>();
+
 
     /**
      * Default constructor.
@@ -94,6 +98,14 @@ public class GenericFTSCapableDAOImpl<T, PK extends Serializable>
         return genericDAO.findById(id);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<T> findByIds(final List<PK> ids) {
+        return genericDAO.findByIds(ids);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -429,10 +441,26 @@ public class GenericFTSCapableDAOImpl<T, PK extends Serializable>
      */
     @Override
     public List<T> fullTextSearch(final Object query, final int firstResult, final int maxResults, final String sortFieldName, final boolean reverse) {
-        final List<PK> pks = genericFTS.fullTextSearch(query, firstResult, maxResults, sortFieldName, reverse);
+        final long[] pks = genericFTS.fullTextSearchPrimaryKeys(query, firstResult, maxResults, sortFieldName, reverse);
         return getEntitiesByPks(pks);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long[] fullTextSearchPrimaryKeys(final Object query) {
+        return genericFTS.fullTextSearchPrimaryKeys(query);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long[] fullTextSearchPrimaryKeys(final Object query, final int firstResult, final int maxResults, final String sortFieldName, final boolean reverse) {
+        return genericFTS.fullTextSearchPrimaryKeys(query, firstResult, maxResults, sortFieldName, reverse);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -441,6 +469,22 @@ public class GenericFTSCapableDAOImpl<T, PK extends Serializable>
         return genericFTS.fullTextSearch(query, firstResult, maxResults, sortFieldName, reverse, fields);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <O> Pair<List<O>, Integer> fullTextSearchStoredObjects(final Object query, final int firstResult, final int maxResults, final String sortFieldName, final boolean reverse, final Class<O> type) {
+        return genericFTS.fullTextSearchStoredObjects(query, firstResult, maxResults, sortFieldName, reverse, type);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <O> Pair<Pair<List<O>, Integer>, String> fullTextSearchStoredObjects(final Object query, final String cursor, final int firstResult, final int maxResults, final String sortFieldName, final boolean reverse, final Class<O> type) {
+        return genericFTS.fullTextSearchStoredObjects(query, cursor, firstResult, maxResults, sortFieldName, reverse, type);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -457,6 +501,22 @@ public class GenericFTSCapableDAOImpl<T, PK extends Serializable>
         return genericFTS.fullTextSearchCount(query);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int fullTextSearchFirstMatch(final List<Object> queries) {
+        return genericFTS.fullTextSearchFirstMatch(queries);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> suggest(final long shopId, final String language, final String prefix, final int maxResults) {
+        return genericFTS.suggest(shopId, language, prefix, maxResults);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -473,6 +533,26 @@ public class GenericFTSCapableDAOImpl<T, PK extends Serializable>
         indexBuilder.fullTextSearchReindex(async, batchSize);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void fullTextSearchReindexShop(final long shopId, final boolean async, final int batchSize) {
+        indexBuilder.fullTextSearchReindexShop(shopId, async, batchSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public GenericFTSCapableDAO<T, PK, Object> getShopPartition(final long shopId) {
+        final GenericFTS<PK, Object> partition = genericFTS.getShopPartition(shopId);
+        if (partition == genericFTS) {
+            return this;
+        }
+        return shopPartitions.computeIfAbsent(shopId, key -> new GenericFTSCapableDAOImpl<>(genericDAO, partition, indexBuilder));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -489,17 +569,28 @@ public class GenericFTSCapableDAOImpl<T, PK extends Serializable>
         indexBuilder.fullTextSearchReindex(primaryKey, purgeOnly);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void fullTextSearchReindex(final Collection<PK> primaryKeys) {
+        indexBuilder.fullTextSearchReindex(primaryKeys);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> getEntitiesByPks(final long[] pks) {
+        final List<PK> boxed = new ArrayList<>(pks.length);
+        for (final long pk : pks) {
+            boxed.add((PK) Long.valueOf(pk));
+        }
+        return getEntitiesByPks(boxed);
+    }
+
     private List<T> getEntitiesByPks(final List<PK> pks) {
-        final List<T> entities = new ArrayList<>();
         if (CollectionUtils.isNotEmpty(pks)) {
-            for (final PK pk : pks) {
-                final T entity = genericDAO.findById(pk);
-                if (entity != null) {
-                    entities.add(entity);
-                }
-            }
+            return genericDAO.findByIds(pks);
         }
-        return entities;
+        return new ArrayList<>();
     }
 
 
@@ -33,6 +33,11 @@ import java.util.Map;
  */
 public class NoopGenericFTSImpl<PK extends Serializable, FTQ> implements GenericFTS<PK, FTQ> {
 
+    @Override
+    public GenericFTS<PK, FTQ> getShopPartition(final long shopId) {
+        return this;
+    }
+
     @Override
     public List<PK> fullTextSearchRaw(final String query) {
         return Collections.emptyList();
@@ -43,6 +48,16 @@ public class NoopGenericFTSImpl<PK extends Serializable, FTQ> implements Generic
         return Collections.emptyList();
     }
 
+    @Override
+    public long[] fullTextSearchPrimaryKeys(final FTQ query) {
+        return new long[0];
+    }
+
+    @Override
+    public long[] fullTextSearchPrimaryKeys(final FTQ query, final int firstResult, final int maxResults, final String sortFieldName, final boolean reverse) {
+        return new long[0];
+    }
+
     @Override
     public List<PK> fullTextSearch(final FTQ query, final int firstResult, final int maxResults, final String sortFieldName, final boolean reverse) {
         return Collections.emptyList();
@@ -53,6 +68,16 @@ public class NoopGenericFTSImpl<PK extends Serializable, FTQ> implements Generic
         return new Pair<>(Collections.emptyList(), 0);
     }
 
+    @Override
+    public <O> Pair<List<O>, Integer> fullTextSearchStoredObjects(final FTQ query, final int firstResult, final int maxResults, final String sortFieldName, final boolean reverse, final Class<O> type) {
+        return new Pair<>(Collections.emptyList(), 0);
+    }
+
+    @Override
+    public <O> Pair<Pair<List<O>, Integer>, String> fullTextSearchStoredObjects(final FTQ query, final String cursor, final int firstResult, final int maxResults, final String sortFieldName, final boolean reverse, final Class<O> type) {
+        return new Pair<>(new Pair<>(Collections.emptyList(), 0), null);
+    }
+
     @Override
     public Map<String, List<Pair<Pair<String, I18NModel>, Integer>>> fullTextSearchNavigation(final FTQ query, final List<FilteredNavigationRecordRequest> facetingRequest) {
         return Collections.emptyMap();
@@ -62,4 +87,14 @@ public class NoopGenericFTSImpl<PK extends Serializable, FTQ> implements Generic
     public int fullTextSearchCount(final FTQ query) {
         return 0;
     }
+
+    @Override
+    public int fullTextSearchFirstMatch(final List<FTQ> queries) {
+        return -1;
+    }
+
+    @Override
+    public List<String> suggest(final long shopId, final String language, final String prefix, final int maxResults) {
+        return Collections.emptyList();
+    }
 }
@@ -19,6 +19,7 @@ package org.yes.cart.search.dao.impl;
 import org.yes.cart.search.dao.IndexBuilder;
 
 import java.io.Serializable;
+import java.util.Collection;
 
 /**
  * User: denispavlov
@@ -57,6 +58,11 @@ public class NoopIndexBuilderImpl<T, PK extends Serializable> implements IndexBu
         // noop
     }
 
+    @Override
+    public void fullTextSearchReindexShop(final long shopId, final boolean async, final int batchSize) {
+        // noop
+    }
+
     @Override
     public void fullTextSearchReindex(final PK primaryKey) {
         // noop
@@ -66,4 +72,9 @@ public class NoopIndexBuilderImpl<T, PK extends Serializable> implements IndexBu
     public void fullTextSearchReindex(final PK primaryKey, final boolean purgeOnly) {
         // noop
     }
+
+    @Override
+    public void fullTextSearchReindex(final Collection<PK> primaryKeys) {
+        // noop
+    }
 }
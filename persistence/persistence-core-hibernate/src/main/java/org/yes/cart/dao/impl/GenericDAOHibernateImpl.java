@@ -29,6 +29,7 @@ import org.yes.cart.dao.ResultsIterator;
 import org.yes.cart.domain.entity.Identifiable;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -128,6 +129,24 @@ public class GenericDAOHibernateImpl<T, PK extends Serializable> implements Gene
         return entity;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<T> findByIds(final List<PK> ids) {
+        final List<T> found = sessionFactory.getCurrentSession()
+                .byMultipleIds(getPersistentClass())
+                .enableSessionCheck(true)
+                .multiLoad(ids);
+        final List<T> entities = new ArrayList<>(found.size());
+        for (final T entity : found) {
+            if (entity != null) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+
     /**
      * {@inheritDoc}
      */
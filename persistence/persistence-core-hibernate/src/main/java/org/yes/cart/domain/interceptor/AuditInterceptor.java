@@ -19,6 +19,7 @@ package org.yes.cart.domain.interceptor;
 import org.apache.commons.lang.StringUtils;
 import org.hibernate.EmptyInterceptor;
 import org.hibernate.Hibernate;
+import org.hibernate.Transaction;
 import org.hibernate.type.Type;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,14 +29,12 @@ import org.yes.cart.domain.entity.Auditable;
 import org.yes.cart.domain.entity.Codable;
 import org.yes.cart.domain.entity.Guidable;
 import org.yes.cart.domain.entity.Identifiable;
+import org.yes.cart.domain.misc.Pair;
 import org.yes.cart.utils.spring.LinkedHashMapBean;
 
 import java.io.Serializable;
 import java.time.Instant;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -51,6 +50,10 @@ public class AuditInterceptor extends EmptyInterceptor {
 
     private final Map<String, Set<String>> prohibitedFields = new HashMap<>();
 
+    private final Map<String, String> changeCaptureFields = new HashMap<>();
+    private final ThreadLocal<Set<Pair<String, String>>> capturedChanges = ThreadLocal.withInitial(LinkedHashSet::new);
+    private EntityChangeLog changeLog;
+
     private String getUserName() {
 
         if (SecurityContextHolder.getContext() != null) {
@@ -102,6 +105,8 @@ public class AuditInterceptor extends EmptyInterceptor {
             logOperation("SAVE", (Auditable) entity, userName, id, state, propertyNames, types);
         }
 
+        captureChange(entity, state, propertyNames);
+
         return super.onSave(entity, id, state, propertyNames, types);
     }
 
@@ -116,6 +121,7 @@ public class AuditInterceptor extends EmptyInterceptor {
             final String userName = getUserName();
             logOperation("DELETE", (Auditable) entity, userName, id, state, propertyNames, types);
         }
+        captureChange(entity, state, propertyNames);
         super.onDelete(entity, id, state, propertyNames, types);
 
     }
@@ -159,10 +165,58 @@ public class AuditInterceptor extends EmptyInterceptor {
             logOperation("FLUSH-CURR", (Auditable) entity, userName, id, currentState, propertyNames, types);
         }
 
+        captureChange(entity, currentState, propertyNames);
+
         return super.onFlushDirty(entity, id, currentState, previousState, propertyNames, types);
 
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void postFlush(final Iterator entities) {
+
+        final Set<Pair<String, String>> changes = capturedChanges.get();
+        if (!changes.isEmpty()) {
+            try {
+                changeLog.log(changes);
+            } finally {
+                capturedChanges.remove();
+            }
+        }
+        super.postFlush(entities);
+
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void afterTransactionCompletion(final Transaction tx) {
+
+        capturedChanges.remove(); // failed flush
+        super.afterTransactionCompletion(tx);
+
+    }
+
+    private void captureChange(final Object entity, final Object[] state, final String[] propertyNames) {
+
+        if (changeLog == null || state == null) {
+            return;
+        }
+
+        final String className = entity.getClass().getSimpleName();
+        final String codeProperty = changeCaptureFields.get(className);
+        if (codeProperty != null) {
+            final int index = Arrays.asList(propertyNames).indexOf(codeProperty);
+            if (index > -1 && state[index] != null) {
+                capturedChanges.get().add(new Pair<>(className, String.valueOf(state[index])));
+            }
+        }
+
+    }
+
     private void logOperation(final String operation, final Auditable entity, final String user,
                               final Serializable id, final Object[] state, final String[] propertyNames, final Type[] types) {
 
@@ -265,5 +319,25 @@ public class AuditInterceptor extends EmptyInterceptor {
         }
     }
 
+    /**
+     * Set entities which changes should be written to change log, with property that holds business code.
+     *
+     * @param changeCaptureFields class to code property map
+     */
+    public void setChangeCaptureFields(final LinkedHashMapBean<String, String> changeCaptureFields) {
+        if (changeCaptureFields != null) {
+            this.changeCaptureFields.putAll(changeCaptureFields);
+        }
+    }
+
+    /**
+     * Set change log writer, no changes are captured if it is not set.
+     *
+     * @param changeLog change log
+     */
+    public void setChangeLog(final EntityChangeLog changeLog) {
+        this.changeLog = changeLog;
+    }
+
 
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.domain.interceptor;
+
+import org.yes.cart.domain.misc.Pair;
+
+import java.util.Collection;
+
+/**
+ * Writer for {@link org.yes.cart.domain.entity.EntityChange} records, used by {@link AuditInterceptor}
+ * to capture changes of entities in the same transaction as the change itself.
+ */
+public interface EntityChangeLog {
+
+    /**
+     * Write changes to the change log as part of current transaction.
+     *
+     * @param changes pairs of entity type and entity code
+     */
+    void log(Collection<Pair<String, String>> changes);
+
+}
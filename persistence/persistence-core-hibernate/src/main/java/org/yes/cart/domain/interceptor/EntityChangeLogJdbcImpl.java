@@ -0,0 +1,60 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.domain.interceptor;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.yes.cart.domain.misc.Pair;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Change log writer that uses plain JDBC on the same data source as the session factory, so that when
+ * called during flush the records are written using transaction bound connection.
+ */
+public class EntityChangeLogJdbcImpl implements EntityChangeLog {
+
+    private static final String INSERT = "insert into TENTITYCHANGE (ENTITY_TYPE, ENTITY_CODE, CREATED_TIMESTAMP) values (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EntityChangeLogJdbcImpl(final DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void log(final Collection<Pair<String, String>> changes) {
+
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        final Timestamp now = Timestamp.from(Instant.now());
+        final List<Object[]> rows = new ArrayList<>(changes.size());
+        for (final Pair<String, String> change : changes) {
+            rows.add(new Object[] { change.getFirst(), change.getSecond(), now });
+        }
+        jdbcTemplate.batchUpdate(INSERT, rows);
+
+    }
+
+}
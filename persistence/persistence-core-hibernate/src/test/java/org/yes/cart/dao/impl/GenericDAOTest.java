@@ -25,8 +25,11 @@ import org.yes.cart.dao.GenericDAO;
 import org.yes.cart.dao.constants.DaoServiceBeanKeys;
 import org.yes.cart.domain.entity.Brand;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertNull;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
 
 /**
  * User: Igor Azarny iazarny@yahoo.com
@@ -106,4 +109,27 @@ public class GenericDAOTest extends AbstractTestDAO {
 
 
     }
+
+    @Test
+    public void testFindByIds() {
+
+        getTx().execute(new TransactionCallbackWithoutResult() {
+            @Override
+            public void doInTransactionWithoutResult(TransactionStatus status) {
+
+                final Brand loaded = brandDao.findById(101L);
+
+                final List<Brand> brands = brandDao.findByIds(Arrays.asList(102L, 999999L, 101L));
+                assertEquals(2, brands.size());
+                assertEquals(102L, brands.get(0).getBrandId());
+                assertSame(loaded, brands.get(1));
+
+                assertTrue(brandDao.findByIds(Collections.singletonList(999999L)).isEmpty());
+
+                status.setRollbackOnly();
+
+            }
+        });
+
+    }
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.domain.entity.cache;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.yes.cart.domain.entity.impl.BrandEntity;
+
+import static org.junit.Assert.*;
+
+/**
+ * User: denispavlov
+ * Date: 18/10/2026
+ * Time: 00:10
+ */
+public class HibernateEntityCacheInvalidatorTest {
+
+    private static ClassPathXmlApplicationContext ctx;
+    private static SessionFactory sessionFactory;
+
+    @BeforeClass
+    public static void setUp() {
+        ctx = new ClassPathXmlApplicationContext("testL2ApplicationContext.xml");
+        sessionFactory = ctx.getBean("sessionFactory", SessionFactory.class);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        ctx.close();
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+
+        final HibernateEntityCacheInvalidator invalidator = new HibernateEntityCacheInvalidator(sessionFactory);
+
+        assertTrue(invalidator.isCached("BrandEntity"));
+        assertTrue(invalidator.isCached("ProductTypeEntity"));
+        assertTrue(invalidator.isCached("ProductTypeAttrEntity"));
+        assertFalse(invalidator.isCached("ProductEntity"));
+        assertEquals(0, invalidator.invalidate("ProductEntity", new Long[] { 1L }));
+
+        final long brand1 = createBrand("L2-1");
+        final long brand2 = createBrand("L2-2");
+
+        loadBrand(brand1);
+        loadBrand(brand2);
+        assertTrue(sessionFactory.getCache().containsEntity(BrandEntity.class, brand1));
+        assertTrue(sessionFactory.getCache().containsEntity(BrandEntity.class, brand2));
+
+        // entity itself, its attributes collection is not cached, query results region
+        assertEquals(2, invalidator.invalidate("BrandEntity", new Long[] { brand1 }));
+        assertFalse(sessionFactory.getCache().containsEntity(BrandEntity.class, brand1));
+        assertTrue(sessionFactory.getCache().containsEntity(BrandEntity.class, brand2));
+
+        loadBrand(brand1);
+        assertTrue(sessionFactory.getCache().containsEntity(BrandEntity.class, brand1));
+
+        invalidator.invalidate("BrandEntity", null);
+        assertFalse(sessionFactory.getCache().containsEntity(BrandEntity.class, brand1));
+        assertFalse(sessionFactory.getCache().containsEntity(BrandEntity.class, brand2));
+
+    }
+
+    private long createBrand(final String name) {
+        try (Session session = sessionFactory.openSession()) {
+            final Transaction tx = session.beginTransaction();
+            final BrandEntity brand = new BrandEntity();
+            brand.setName(name);
+            brand.setGuid(name);
+            session.save(brand);
+            tx.commit();
+            return brand.getBrandId();
+        }
+    }
+
+    private void loadBrand(final long brandId) {
+        try (Session session = sessionFactory.openSession()) {
+            assertNotNull(session.get(BrandEntity.class, brandId));
+        }
+    }
+
+}
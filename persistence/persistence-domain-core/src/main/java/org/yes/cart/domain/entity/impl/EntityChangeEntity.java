@@ -0,0 +1,86 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.domain.entity.impl;
+
+import org.yes.cart.domain.entity.EntityChange;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+public class EntityChangeEntity implements EntityChange, Serializable {
+
+    private long entityChangeId;
+
+    private String entityType;
+    private String entityCode;
+    private Instant createdTimestamp;
+
+    @Override
+    public long getId() {
+        return entityChangeId;
+    }
+
+    @Override
+    public long getEntityChangeId() {
+        return entityChangeId;
+    }
+
+    @Override
+    public void setEntityChangeId(final long entityChangeId) {
+        this.entityChangeId = entityChangeId;
+    }
+
+    @Override
+    public String getEntityType() {
+        return entityType;
+    }
+
+    @Override
+    public void setEntityType(final String entityType) {
+        this.entityType = entityType;
+    }
+
+    @Override
+    public String getEntityCode() {
+        return entityCode;
+    }
+
+    @Override
+    public void setEntityCode(final String entityCode) {
+        this.entityCode = entityCode;
+    }
+
+    @Override
+    public Instant getCreatedTimestamp() {
+        return createdTimestamp;
+    }
+
+    @Override
+    public void setCreatedTimestamp(final Instant createdTimestamp) {
+        this.createdTimestamp = createdTimestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "EntityChangeEntity{" +
+                "entityChangeId=" + entityChangeId +
+                ", entityType='" + entityType + '\'' +
+                ", entityCode='" + entityCode + '\'' +
+                ", createdTimestamp=" + createdTimestamp +
+                '}';
+    }
+}
@@ -42,6 +42,7 @@ public class JobEntity implements Job, Serializable {
     private String lastState;
     private long lastDurationMs;
     private Instant checkpoint;
+    private Long checkpointPosition;
 
     private Instant createdTimestamp;
     private Instant updatedTimestamp;
@@ -183,6 +184,16 @@ public class JobEntity implements Job, Serializable {
         this.checkpoint = checkpoint;
     }
 
+    @Override
+    public Long getCheckpointPosition() {
+        return checkpointPosition;
+    }
+
+    @Override
+    public void setCheckpointPosition(final Long checkpointPosition) {
+        this.checkpointPosition = checkpointPosition;
+    }
+
     @Override
     public Instant getCreatedTimestamp() {
         return createdTimestamp;
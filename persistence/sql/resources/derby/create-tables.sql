@@ -1380,6 +1380,7 @@
         LAST_STATE varchar(45),
         LAST_DURATION_MS bigint default 0,
         CHECKPOINT  timestamp,
+        CHECKPOINT_POSITION bigint,
         GUID varchar(36) not null unique,
         CREATED_TIMESTAMP timestamp,
         UPDATED_TIMESTAMP timestamp,
@@ -1388,6 +1389,14 @@
         primary key (JOB_ID)
     );
 
+    create table TENTITYCHANGE (
+        ENTITYCHANGE_ID bigint not null GENERATED BY DEFAULT AS IDENTITY,
+        ENTITY_TYPE varchar(64) not null,
+        ENTITY_CODE varchar(255) not null,
+        CREATED_TIMESTAMP timestamp not null,
+        primary key (ENTITYCHANGE_ID)
+    );
+
     alter table TADDRESS
         add constraint FKADDRCUSTOMER
         foreign key (CUSTOMER_ID) 
@@ -1795,6 +1804,8 @@
 
     create index JOBDEFINITION_GUID on TJOBDEFINITION (GUID);
     create index JOB_JD_CODE on TJOB (JOB_DEFINITION_CODE);
+    create index ENTITYCHANGE_TYPE on TENTITYCHANGE (ENTITY_TYPE, ENTITYCHANGE_ID);
+    create index ENTITYCHANGE_CREATED on TENTITYCHANGE (CREATED_TIMESTAMP);
 
     create table HIBERNATE_UNIQUE_KEYS (
          value integer 
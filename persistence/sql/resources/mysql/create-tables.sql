@@ -1380,6 +1380,7 @@
         LAST_STATE varchar(45),
         LAST_DURATION_MS bigint default 0,
         CHECKPOINT  datetime,
+        CHECKPOINT_POSITION bigint,
         GUID varchar(36) not null unique,
         CREATED_TIMESTAMP datetime,
         UPDATED_TIMESTAMP datetime,
@@ -1388,6 +1389,14 @@
         primary key (JOB_ID)
     );
 
+    create table TENTITYCHANGE (
+        ENTITYCHANGE_ID bigint not null auto_increment,
+        ENTITY_TYPE varchar(64) not null,
+        ENTITY_CODE varchar(255) not null,
+        CREATED_TIMESTAMP datetime not null,
+        primary key (ENTITYCHANGE_ID)
+    );
+
 
     alter table TADDRESS
         add index FKADDRCUSTOMER (CUSTOMER_ID), 
@@ -1852,6 +1861,8 @@
 
     create index JOBDEFINITION_GUID on TJOBDEFINITION (GUID);
     create index JOB_JD_CODE on TJOB (JOB_DEFINITION_CODE);
+    create index ENTITYCHANGE_TYPE on TENTITYCHANGE (ENTITY_TYPE, ENTITYCHANGE_ID);
+    create index ENTITYCHANGE_CREATED on TENTITYCHANGE (CREATED_TIMESTAMP);
 
     create table HIBERNATE_UNIQUE_KEYS (
          value integer
@@ -35,6 +35,7 @@ public class ProductSearchResultPageDTOImpl implements ProductSearchResultPageDT
     private final int totalHits;
     private final String sortField;
     private final boolean sortDesc;
+    private final String cursor;
 
     public ProductSearchResultPageDTOImpl(final List<ProductSearchResultDTO> results,
                                           final int first,
@@ -42,12 +43,23 @@ public class ProductSearchResultPageDTOImpl implements ProductSearchResultPageDT
                                           final int totalHits,
                                           final String sortField,
                                           final boolean sortDesc) {
+        this(results, first, pageSize, totalHits, sortField, sortDesc, null);
+    }
+
+    public ProductSearchResultPageDTOImpl(final List<ProductSearchResultDTO> results,
+                                          final int first,
+                                          final int pageSize,
+                                          final int totalHits,
+                                          final String sortField,
+                                          final boolean sortDesc,
+                                          final String cursor) {
         this.results = results;
         this.first = first;
         this.pageSize = pageSize;
         this.totalHits = totalHits;
         this.sortField = sortField;
         this.sortDesc = sortDesc;
+        this.cursor = cursor;
     }
 
     /** {@inheritDoc} */
@@ -86,6 +98,12 @@ public class ProductSearchResultPageDTOImpl implements ProductSearchResultPageDT
         return sortDesc;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public String getCursor() {
+        return cursor;
+    }
+
     /** {@inheritDoc} */
     @Override
     public ProductSearchResultPageDTO copy() {
@@ -95,6 +113,6 @@ public class ProductSearchResultPageDTOImpl implements ProductSearchResultPageDT
                 copyResults.add(result.copy());
             }
         }
-        return new ProductSearchResultPageDTOImpl(copyResults, first, pageSize, totalHits, sortField, sortDesc);
+        return new ProductSearchResultPageDTOImpl(copyResults, first, pageSize, totalHits, sortField, sortDesc, cursor);
     }
 }
@@ -54,8 +54,12 @@ public class AdapterUtils {
     public static final String FIELD_CLASS = "_CLASS";
     public static final String FIELD_OBJECT = "_OBJECT";
     public static final String FIELD_INDEXTIME = "_IDXTIME";
+    public static final String FIELD_PARTITION = "_PARTITION";
 
-    private static final ObjectMapper MAPPER = new ObjectMapper();
+    static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final ObjectFieldCodec JSON_CODEC = new JsonObjectFieldCodec();
+    private static final ObjectFieldCodec BINARY_CODEC = new BinaryObjectFieldCodec();
 
     static {
 
@@ -84,6 +88,51 @@ public class AdapterUtils {
         // no instance
     }
 
+    /**
+     * Default codec for writing object fields. Reading always detects the codec from the stored value, so
+     * indexes written with other codec remain readable until full reindex.
+     *
+     * @return binary codec
+     */
+    public static ObjectFieldCodec defaultObjectFieldCodec() {
+        return BINARY_CODEC;
+    }
+
+    /**
+     * Reads object from stored field.
+     *
+     * @param serialized field value (either JSON string or encoded bytes)
+     * @param clazz      object type
+     */
+    public static <T> T readObjectFieldValue(final Object serialized, final Class<T> clazz) {
+
+        if (serialized instanceof byte[]) {
+            return readObjectFieldValue((byte[]) serialized, clazz);
+        } else if (serialized instanceof String) {
+            return readObjectFieldValue((String) serialized, clazz);
+        }
+        return null;
+    }
+
+    /**
+     * Reads object from stored binary field.
+     *
+     * @param serialized field value
+     * @param clazz      object type
+     */
+    public static <T> T readObjectFieldValue(final byte[] serialized, final Class<T> clazz) {
+
+        if (serialized != null && serialized.length > 0) {
+            try {
+                final ObjectFieldCodec codec = serialized[0] == BINARY_CODEC.getId() ? BINARY_CODEC : JSON_CODEC;
+                return codec.decode(serialized, clazz);
+            } catch (Exception exp) {
+                LOGFTQ.error("Unable to de-serialise the object in field: " + FIELD_OBJECT + ", object bytes: " + serialized.length, exp);
+            }
+        }
+        return null;
+    }
+
     /**
      * Reads object from stored field.
      *
@@ -120,6 +169,29 @@ public class AdapterUtils {
         return null;
     }
 
+    /**
+     * Write object using given codec. If codec does not support given object JSON is used.
+     *
+     * @param codec      codec
+     * @param object     object type
+     *
+     * @return encoded object, which is either {@link String} (text codec) or byte[] (binary codec)
+     */
+    static Object encodeObjectFieldValue(final ObjectFieldCodec codec, final Object object) {
+
+        if (object != null) {
+            if (codec.isBinary() && codec.supports(object.getClass())) {
+                try {
+                    return codec.encode(object);
+                } catch (Exception exp) {
+                    LOGFTQ.error("Unable to encode the object into field: " + FIELD_OBJECT + ", object: " + object + ", falling back to JSON", exp);
+                }
+            }
+            return writeObjectFieldValue(object);
+        }
+        return null;
+    }
+
     private static class JSInstantSerializer extends JsonSerializer<Instant> {
         @Override
         public void serialize(final Instant value, final JsonGenerator gen, final SerializerProvider serializers) throws IOException {
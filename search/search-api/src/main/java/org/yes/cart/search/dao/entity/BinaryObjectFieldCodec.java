@@ -0,0 +1,474 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.entity;
+
+import org.yes.cart.domain.dto.ProductSkuSearchResultDTO;
+import org.yes.cart.domain.dto.StoredAttributesDTO;
+import org.yes.cart.domain.dto.impl.ProductSearchResultDTOImpl;
+import org.yes.cart.domain.dto.impl.ProductSkuSearchResultDTOImpl;
+import org.yes.cart.domain.dto.impl.StoredAttributesDTOImpl;
+import org.yes.cart.domain.i18n.impl.StringI18NModel;
+import org.yes.cart.utils.DateUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact binary codec for search result DTO's ({@link ProductSearchResultDTOImpl} and
+ * {@link ProductSkuSearchResultDTOImpl}).
+ *
+ * Layout: [codec id][schema version][object type] followed by the object fields in fixed order. Field
+ * names are not written, numbers use variable length encoding and strings are length prefixed UTF-8.
+ * Nullable values are prefixed with presence flag. Field order is defined by the schema version, so any
+ * change to the fields must bump {@link #SCHEMA_VERSION} and keep reading of the previous versions.
+ *
+ * Date conversions are the same as for JSON in order to decode to the same values.
+ */
+public class BinaryObjectFieldCodec implements ObjectFieldCodec {
+
+    public static final byte ID = 0x01;
+
+    static final byte SCHEMA_VERSION = 1;
+
+    private static final byte TYPE_PRODUCT = 1;
+    private static final byte TYPE_SKU = 2;
+
+    /** {@inheritDoc} */
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isBinary() {
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean supports(final Class<?> type) {
+        return ProductSearchResultDTOImpl.class.equals(type) || ProductSkuSearchResultDTOImpl.class.equals(type);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public byte[] encode(final Object object) throws IOException {
+
+        final Out out = new Out();
+        out.writeByte(ID);
+        out.writeByte(SCHEMA_VERSION);
+        if (object instanceof ProductSearchResultDTOImpl) {
+            out.writeByte(TYPE_PRODUCT);
+            writeProduct(out, (ProductSearchResultDTOImpl) object);
+        } else if (object instanceof ProductSkuSearchResultDTOImpl) {
+            out.writeByte(TYPE_SKU);
+            writeSku(out, (ProductSkuSearchResultDTOImpl) object);
+        } else {
+            throw new IOException("Unsupported type " + (object != null ? object.getClass() : null));
+        }
+        return out.toByteArray();
+
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public <T> T decode(final byte[] encoded, final Class<T> type) throws IOException {
+
+        final In in = new In(encoded);
+        if (in.readByte() != ID) {
+            throw new IOException("Not a binary object field value");
+        }
+        final byte version = in.readByte();
+        if (version != SCHEMA_VERSION) {
+            throw new IOException("Unsupported schema version " + version);
+        }
+        final Object decoded;
+        final byte objectType = in.readByte();
+        switch (objectType) {
+            case TYPE_PRODUCT:
+                decoded = readProduct(in);
+                break;
+            case TYPE_SKU:
+                decoded = readSku(in);
+                break;
+            default:
+                throw new IOException("Unsupported object type " + objectType);
+        }
+        if (!type.isInstance(decoded)) {
+            throw new IOException("Encoded value of type " + decoded.getClass() + " is not " + type);
+        }
+        return type.cast(decoded);
+
+    }
+
+    private void writeProduct(final Out out, final ProductSearchResultDTOImpl product) throws IOException {
+
+        out.writeVarLong(product.getId());
+        out.writeString(product.getCode());
+        out.writeString(product.getManufacturerCode());
+        out.writeString(product.getFulfilmentCentreCode());
+        out.writeString(product.getName());
+        writeI18n(out, product.getDisplayName());
+        out.writeString(product.getDescription());
+        writeI18n(out, product.getDisplayDescription());
+        out.writeVarLong(product.getTypeId());
+        out.writeString(product.getType());
+        writeI18n(out, product.getDisplayType());
+        out.writeVarLong(product.getTypeMask());
+        out.writeString(product.getTag());
+        out.writeString(product.getBrand());
+        out.writeString(product.getDefaultImage());
+        writeAttributes(out, product.getAttributes());
+        writeInstant(out, product.getCreatedTimestamp());
+        writeInstant(out, product.getUpdatedTimestamp());
+
+        final Map<Long, ProductSkuSearchResultDTO> skus = product.getBaseSkus();
+        if (skus == null) {
+            out.writeVarLong(-1L);
+        } else {
+            out.writeVarLong(skus.size());
+            for (final Map.Entry<Long, ProductSkuSearchResultDTO> sku : skus.entrySet()) {
+                out.writeVarLong(sku.getKey());
+                writeSku(out, (ProductSkuSearchResultDTOImpl) sku.getValue());
+            }
+        }
+
+    }
+
+    private ProductSearchResultDTOImpl readProduct(final In in) throws IOException {
+
+        final ProductSearchResultDTOImpl product = new ProductSearchResultDTOImpl();
+
+        product.setId(in.readVarLong());
+        product.setCode(in.readString());
+        product.setManufacturerCode(in.readString());
+        product.setFulfilmentCentreCode(in.readString());
+        product.setName(in.readString());
+        product.setDisplayName(readI18n(in));
+        product.setDescription(in.readString());
+        product.setDisplayDescription(readI18n(in));
+        product.setTypeId(in.readVarLong());
+        product.setType(in.readString());
+        product.setDisplayType(readI18n(in));
+        product.setTypeMask((int) in.readVarLong());
+        product.setTag(in.readString());
+        product.setBrand(in.readString());
+        product.setDefaultImage(in.readString());
+        product.setAttributes(readAttributes(in));
+        product.setCreatedTimestamp(readInstant(in));
+        product.setUpdatedTimestamp(readInstant(in));
+
+        final int skuCount = (int) in.readVarLong();
+        if (skuCount >= 0) {
+            final Map<Long, ProductSkuSearchResultDTO> skus = new HashMap<>(skuCount * 2);
+            for (int i = 0; i < skuCount; i++) {
+                final long key = in.readVarLong();
+                skus.put(key, readSku(in));
+            }
+            product.setBaseSkus(skus);
+        }
+
+        return product;
+
+    }
+
+    private void writeSku(final Out out, final ProductSkuSearchResultDTOImpl sku) throws IOException {
+
+        out.writeVarLong(sku.getId());
+        out.writeVarLong(sku.getProductId());
+        out.writeString(sku.getCode());
+        out.writeString(sku.getManufacturerCode());
+        out.writeString(sku.getFulfilmentCentreCode());
+        out.writeString(sku.getName());
+        writeI18n(out, sku.getDisplayName());
+        out.writeString(sku.getDescription());
+        writeI18n(out, sku.getDisplayDescription());
+        out.writeString(sku.getDefaultImage());
+        writeAttributes(out, sku.getAttributes());
+        writeInstant(out, sku.getCreatedTimestamp());
+        writeInstant(out, sku.getUpdatedTimestamp());
+        writeLocalDateTime(out, sku.getAvailablefrom());
+        writeLocalDateTime(out, sku.getAvailableto());
+        writeLocalDateTime(out, sku.getReleaseDate());
+        out.writeVarLong(sku.getAvailability());
+
+        final Map<Long, BigDecimal> qty = sku.getQtyOnWarehouse();
+        if (qty == null) {
+            out.writeVarLong(-1L);
+        } else {
+            out.writeVarLong(qty.size());
+            for (final Map.Entry<Long, BigDecimal> entry : qty.entrySet()) {
+                out.writeVarLong(entry.getKey());
+                writeDecimal(out, entry.getValue());
+            }
+        }
+
+        writeLocalDateTime(out, sku.getRestockDate());
+        writeI18n(out, sku.getRestockNotes());
+        out.writeByte(sku.isFeatured() ? (byte) 1 : (byte) 0);
+        writeDecimal(out, sku.getMinOrderQuantity());
+        writeDecimal(out, sku.getMaxOrderQuantity());
+        writeDecimal(out, sku.getStepOrderQuantity());
+        out.writeString(sku.getTag());
+
+    }
+
+    private ProductSkuSearchResultDTOImpl readSku(final In in) throws IOException {
+
+        final ProductSkuSearchResultDTOImpl sku = new ProductSkuSearchResultDTOImpl();
+
+        sku.setId(in.readVarLong());
+        sku.setProductId(in.readVarLong());
+        sku.setCode(in.readString());
+        sku.setManufacturerCode(in.readString());
+        sku.setFulfilmentCentreCode(in.readString());
+        sku.setName(in.readString());
+        sku.setDisplayName(readI18n(in));
+        sku.setDescription(in.readString());
+        sku.setDisplayDescription(readI18n(in));
+        sku.setDefaultImage(in.readString());
+        sku.setAttributes(readAttributes(in));
+        sku.setCreatedTimestamp(readInstant(in));
+        sku.setUpdatedTimestamp(readInstant(in));
+        sku.setAvailablefrom(readLocalDateTime(in));
+        sku.setAvailableto(readLocalDateTime(in));
+        sku.setReleaseDate(readLocalDateTime(in));
+        sku.setAvailability((int) in.readVarLong());
+
+        final int qtyCount = (int) in.readVarLong();
+        if (qtyCount >= 0) {
+            final Map<Long, BigDecimal> qty = new HashMap<>(qtyCount * 2);
+            for (int i = 0; i < qtyCount; i++) {
+                final long key = in.readVarLong();
+                qty.put(key, readDecimal(in));
+            }
+            sku.setQtyOnWarehouse(qty);
+        }
+
+        sku.setRestockDate(readLocalDateTime(in));
+        sku.setRestockNotes(readI18n(in));
+        sku.setFeatured(in.readByte() == 1);
+        sku.setMinOrderQuantity(readDecimal(in));
+        sku.setMaxOrderQuantity(readDecimal(in));
+        sku.setStepOrderQuantity(readDecimal(in));
+        sku.setTag(in.readString());
+
+        return sku;
+
+    }
+
+    private void writeI18n(final Out out, final StringI18NModel model) throws IOException {
+        if (model == null) {
+            out.writeVarLong(-1L);
+        } else {
+            final Map<String, String> values = model.getAllValues();
+            out.writeVarLong(values.size());
+            for (final Map.Entry<String, String> entry : values.entrySet()) {
+                out.writeString(entry.getKey());
+                out.writeString(entry.getValue());
+            }
+        }
+    }
+
+    private StringI18NModel readI18n(final In in) throws IOException {
+        final int size = (int) in.readVarLong();
+        if (size < 0) {
+            return null;
+        }
+        final StringI18NModel model = new StringI18NModel();
+        for (int i = 0; i < size; i++) {
+            final String locale = in.readString();
+            model.putValue(locale, in.readString());
+        }
+        return model;
+    }
+
+    private void writeAttributes(final Out out, final StoredAttributesDTO attributes) throws IOException {
+        // stored attributes have own compact format
+        out.writeString(attributes != null ? attributes.toString() : null);
+    }
+
+    private StoredAttributesDTO readAttributes(final In in) throws IOException {
+        final String raw = in.readString();
+        return raw != null ? new StoredAttributesDTOImpl(raw) : null;
+    }
+
+    private void writeInstant(final Out out, final Instant instant) throws IOException {
+        if (instant == null) {
+            out.writeByte((byte) 0);
+        } else {
+            out.writeByte((byte) 1);
+            out.writeVarLong(instant.toEpochMilli());
+        }
+    }
+
+    private Instant readInstant(final In in) throws IOException {
+        return in.readByte() == 1 ? DateUtils.iFrom(in.readVarLong()) : null;
+    }
+
+    private void writeLocalDateTime(final Out out, final LocalDateTime dateTime) throws IOException {
+        if (dateTime == null) {
+            out.writeByte((byte) 0);
+        } else {
+            out.writeByte((byte) 1);
+            out.writeVarLong(DateUtils.millis(dateTime));
+        }
+    }
+
+    private LocalDateTime readLocalDateTime(final In in) throws IOException {
+        return in.readByte() == 1 ? DateUtils.ldtFrom(in.readVarLong()) : null;
+    }
+
+    private void writeDecimal(final Out out, final BigDecimal decimal) throws IOException {
+        if (decimal == null) {
+            out.writeVarLong(-1L);
+        } else {
+            final byte[] unscaled = decimal.unscaledValue().toByteArray();
+            out.writeVarLong(unscaled.length);
+            out.writeBytes(unscaled);
+            out.writeVarLong(decimal.scale());
+        }
+    }
+
+    private BigDecimal readDecimal(final In in) throws IOException {
+        final int length = (int) in.readVarLong();
+        if (length < 0) {
+            return null;
+        }
+        final BigInteger unscaled = new BigInteger(in.readBytes(length));
+        return new BigDecimal(unscaled, (int) in.readVarLong());
+    }
+
+    /**
+     * Growing byte buffer with variable length encoding of numbers.
+     */
+    private static class Out {
+
+        private byte[] buf = new byte[256];
+        private int pos = 0;
+
+        private void ensure(final int extra) {
+            if (pos + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length << 1, pos + extra));
+            }
+        }
+
+        void writeByte(final byte value) {
+            ensure(1);
+            buf[pos++] = value;
+        }
+
+        void writeBytes(final byte[] value) {
+            ensure(value.length);
+            System.arraycopy(value, 0, buf, pos, value.length);
+            pos += value.length;
+        }
+
+        /* zig-zag encoded, so that -1 (used as null marker) is one byte */
+        void writeVarLong(final long value) {
+            long zigzag = (value << 1) ^ (value >> 63);
+            ensure(10);
+            while ((zigzag & ~0x7FL) != 0L) {
+                buf[pos++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            buf[pos++] = (byte) zigzag;
+        }
+
+        void writeString(final String value) {
+            if (value == null) {
+                writeVarLong(-1L);
+            } else {
+                final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeVarLong(bytes.length);
+                writeBytes(bytes);
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+
+    }
+
+    /**
+     * Reader for {@link Out}.
+     */
+    private static class In {
+
+        private final byte[] buf;
+        private int pos = 0;
+
+        In(final byte[] buf) {
+            this.buf = buf;
+        }
+
+        byte readByte() throws IOException {
+            if (pos >= buf.length) {
+                throw new IOException("Unexpected end of binary object field value");
+            }
+            return buf[pos++];
+        }
+
+        byte[] readBytes(final int length) throws IOException {
+            if (length < 0 || pos + length > buf.length) {
+                throw new IOException("Unexpected end of binary object field value");
+            }
+            final byte[] value = Arrays.copyOfRange(buf, pos, pos + length);
+            pos += length;
+            return value;
+        }
+
+        long readVarLong() throws IOException {
+            long zigzag = 0L;
+            int shift = 0;
+            byte b;
+            do {
+                if (shift > 63) {
+                    throw new IOException("Malformed variable length number");
+                }
+                b = readByte();
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        String readString() throws IOException {
+            final int length = (int) readVarLong();
+            if (length < 0) {
+                return null;
+            }
+            if (pos + length > buf.length) {
+                throw new IOException("Unexpected end of binary object field value");
+            }
+            final String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.entity;
+
+import java.io.IOException;
+
+/**
+ * JSON codec, which is the original format of the object field. All objects are written as JSON objects,
+ * so the first byte is always '{'.
+ */
+public class JsonObjectFieldCodec implements ObjectFieldCodec {
+
+    public static final byte ID = '{';
+
+    /** {@inheritDoc} */
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isBinary() {
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean supports(final Class<?> type) {
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public byte[] encode(final Object object) throws IOException {
+        return AdapterUtils.MAPPER.writeValueAsBytes(object);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public <T> T decode(final byte[] encoded, final Class<T> type) throws IOException {
+        return AdapterUtils.MAPPER.readValue(encoded, type);
+    }
+
+    /**
+     * Decode JSON string.
+     *
+     * @param encoded encoded value
+     * @param type    object type
+     * @param <T>     type
+     *
+     * @return decoded object
+     *
+     * @throws IOException error
+     */
+    public <T> T decode(final String encoded, final Class<T> type) throws IOException {
+        return AdapterUtils.MAPPER.readValue(encoded, type);
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.entity;
+
+import java.io.IOException;
+
+/**
+ * Codec for objects stored in the search index (see {@link AdapterUtils#FIELD_OBJECT}).
+ *
+ * Encoded value must start with {@link #getId()} so that stored values can be decoded by the codec
+ * that produced them, irrespective of which codec is currently used for writing.
+ */
+public interface ObjectFieldCodec {
+
+    /**
+     * @return first byte of every value encoded by this codec
+     */
+    byte getId();
+
+    /**
+     * @return true if encoded value is binary, false if it is UTF-8 text
+     */
+    boolean isBinary();
+
+    /**
+     * @param type object type
+     *
+     * @return true if this codec can encode given type
+     */
+    boolean supports(Class<?> type);
+
+    /**
+     * Encode object.
+     *
+     * @param object object to encode
+     *
+     * @return encoded value
+     *
+     * @throws IOException error
+     */
+    byte[] encode(Object object) throws IOException;
+
+    /**
+     * Decode object.
+     *
+     * @param encoded encoded value
+     * @param type    object type
+     * @param <T>     type
+     *
+     * @return decoded object
+     *
+     * @throws IOException error
+     */
+    <T> T decode(byte[] encoded, Class<T> type) throws IOException;
+
+}
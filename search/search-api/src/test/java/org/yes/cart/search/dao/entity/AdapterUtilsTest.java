@@ -104,4 +104,68 @@ public class AdapterUtilsTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void encodeObjectFieldValueBinary() throws Exception {
+
+        final ProductSkuSearchResultDTOImpl dtoSKU = new ProductSkuSearchResultDTOImpl();
+        dtoSKU.setId(11L);
+        dtoSKU.setProductId(10L);
+        dtoSKU.setAttributes(new StoredAttributesDTOImpl());
+        dtoSKU.setDisplayName(new StringI18NModel("EN#~#DisplayName SKU"));
+        dtoSKU.setCode("CODE");
+        dtoSKU.setAvailability(2);
+        dtoSKU.setAvailablefrom(LocalDateTime.now());
+        dtoSKU.setMaxOrderQuantity(new BigDecimal("-10.005"));
+        dtoSKU.setQtyOnWarehouse(new HashMap<Long, BigDecimal>() {{
+            put(123L, BigDecimal.TEN);
+        }});
+        dtoSKU.setFeatured(true);
+        dtoSKU.getAttributes().putValue("attr1", "val1", "en#~#name1");
+
+        final ProductSearchResultDTOImpl dto = new ProductSearchResultDTOImpl();
+        dto.setId(10L);
+        dto.setAttributes(new StoredAttributesDTOImpl());
+        dto.setDisplayName(new StringI18NModel("EN#~#DisplayName"));
+        dto.setCode("CODE");
+        dto.setName("Name \u00e9\u4e2d");
+        dto.setShippable(true);
+        dto.setConfigurable(true);
+        dto.getAttributes().putValue("attr1", "val1", "en#~#name1");
+        dto.setBaseSkus(new HashMap<Long, ProductSkuSearchResultDTO>() {{
+            put(dtoSKU.getId(), dtoSKU);
+        }});
+
+        final Object encoded = AdapterUtils.encodeObjectFieldValue(AdapterUtils.defaultObjectFieldCodec(), dto);
+        assertTrue(encoded instanceof byte[]);
+        assertEquals(BinaryObjectFieldCodec.ID, ((byte[]) encoded)[0]);
+
+        final String json = AdapterUtils.writeObjectFieldValue(dto);
+        assertTrue(((byte[]) encoded).length < json.length());
+
+        final ProductSearchResultDTO dtoCopy = AdapterUtils.readObjectFieldValue(encoded, ProductSearchResultDTOImpl.class);
+
+        assertNotNull(dtoCopy);
+        assertEquals(json, AdapterUtils.writeObjectFieldValue(dtoCopy));
+        assertEquals("Name \u00e9\u4e2d", dtoCopy.getName());
+        assertTrue(dtoCopy.isShippable());
+        assertTrue(dtoCopy.isConfigurable());
+
+        final ProductSkuSearchResultDTO dtoSkuCopy = dtoCopy.getBaseSku(dtoSKU.getId());
+        assertNotNull(dtoSkuCopy);
+        assertEquals(dtoSKU.getAvailablefrom().withNano(0).withSecond(0), dtoSkuCopy.getAvailablefrom().withNano(0).withSecond(0));
+        assertEquals(new BigDecimal("-10.005"), dtoSkuCopy.getMaxOrderQuantity());
+        assertTrue(dtoSkuCopy.isFeatured());
+        assertEquals("name1", dtoSkuCopy.getAttributes().getValue("attr1").getSecond().getValue("en"));
+
+        // legacy JSON values are still readable either as string or as bytes
+        assertEquals("CODE", AdapterUtils.readObjectFieldValue((Object) json, ProductSearchResultDTOImpl.class).getCode());
+        assertEquals("CODE", AdapterUtils.readObjectFieldValue(json.getBytes("UTF-8"), ProductSearchResultDTOImpl.class).getCode());
+
+        // objects not supported by binary codec fallback to JSON
+        assertEquals("{\"a\":\"b\"}", AdapterUtils.encodeObjectFieldValue(AdapterUtils.defaultObjectFieldCodec(), Collections.singletonMap("a", "b")));
+
+        assertEquals(json, AdapterUtils.encodeObjectFieldValue(new JsonObjectFieldCodec(), dto));
+
+    }
+
+}
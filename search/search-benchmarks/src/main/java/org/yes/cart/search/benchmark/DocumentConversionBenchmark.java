@@ -0,0 +1,68 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.benchmark;
+
+import org.apache.lucene.document.Document;
+import org.openjdk.jmh.annotations.*;
+import org.yes.cart.domain.entity.Product;
+import org.yes.cart.domain.misc.Pair;
+import org.yes.cart.search.dao.entity.ProductLuceneDocumentAdapter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Document conversion throughput of {@link ProductLuceneDocumentAdapter}, which dominates full reindex
+ * time once entities are loaded.
+ *
+ * Does not depend on index state, hence has its own catalogue.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentConversionBenchmark {
+
+    /**
+     * Number of products in synthetic catalogue.
+     */
+    @Param({ "1000" })
+    public int products;
+
+    private ProductLuceneDocumentAdapter adapter;
+    private List<Product> catalog;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        final SyntheticCatalog synthetic = new SyntheticCatalog(products, 20170407L);
+        adapter = synthetic.createProductDocumentAdapter();
+        catalog = synthetic.getProducts();
+
+    }
+
+    @Benchmark
+    public Pair<Long, Document[]> productToDocument() {
+        final Product product = catalog.get(next);
+        next = (next + 1) % catalog.size();
+        return adapter.toDocument(product);
+    }
+
+}
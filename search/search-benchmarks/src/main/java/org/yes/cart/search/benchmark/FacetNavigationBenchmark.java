@@ -0,0 +1,96 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.benchmark;
+
+import org.apache.lucene.search.Query;
+import org.openjdk.jmh.annotations.*;
+import org.yes.cart.domain.i18n.I18NModel;
+import org.yes.cart.domain.misc.Pair;
+import org.yes.cart.search.dto.FilteredNavigationRecordRequest;
+import org.yes.cart.search.dto.impl.FilteredNavigationRecordRequestImpl;
+import org.yes.cart.search.query.ProductSearchQueryBuilder;
+import org.yes.cart.search.utils.SearchUtil;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtered navigation throughput of {@link org.yes.cart.search.dao.impl.GenericFTSLuceneImpl#fullTextSearchNavigation}
+ * with the same kind of requests as storefront filtered navigation: brand, product type, single and multi
+ * value attributes and price tiers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FacetNavigationBenchmark {
+
+    private static final long SHOP_ID = SyntheticCatalog.SHOP_IDS[1];
+
+    private Query categoryQuery;
+    private Query shopQuery;
+    private List<FilteredNavigationRecordRequest> attributeRequests;
+    private List<FilteredNavigationRecordRequest> allRequests;
+
+    @Setup(Level.Trial)
+    public void setUp(final SearchIndexState index) {
+
+        shopQuery = index.queryFactory.getFilteredNavigationQueryChain(
+                SHOP_ID, SHOP_ID, "en", null, false, null).getProductQuery();
+        categoryQuery = index.queryFactory.getFilteredNavigationQueryChain(
+                SHOP_ID, SHOP_ID, "en", Collections.singletonList(SyntheticCatalog.ROOT_CATEGORY_ID + 1L), false, null).getProductQuery();
+
+        attributeRequests = Arrays.asList(
+                new FilteredNavigationRecordRequestImpl(SyntheticCatalog.ATTR_COLOR, "facet_" + SyntheticCatalog.ATTR_COLOR, true),
+                new FilteredNavigationRecordRequestImpl(SyntheticCatalog.ATTR_SIZE, "facet_" + SyntheticCatalog.ATTR_SIZE, false)
+        );
+
+        final List<Pair<String, String>> priceTiers = new ArrayList<>();
+        final int[] tiers = new int[] { 0, 100, 250, 500, 1000, 2500 };
+        for (int i = 0; i < tiers.length - 1; i++) {
+            priceTiers.add(new Pair<>(
+                    String.valueOf(SearchUtil.priceToLong(new BigDecimal(tiers[i]))),
+                    String.valueOf(SearchUtil.priceToLong(new BigDecimal(tiers[i + 1])))
+            ));
+        }
+
+        allRequests = new ArrayList<>(attributeRequests);
+        allRequests.add(new FilteredNavigationRecordRequestImpl("brandFacet", "facet_" + ProductSearchQueryBuilder.BRAND_FIELD));
+        allRequests.add(new FilteredNavigationRecordRequestImpl("productTypeFacet", "facet_" + ProductSearchQueryBuilder.PRODUCT_TYPE_FIELD));
+        allRequests.add(new FilteredNavigationRecordRequestImpl("priceFacet", SearchUtil.priceFacetName(SHOP_ID, SyntheticCatalog.CURRENCIES[0]), priceTiers));
+
+    }
+
+    @Benchmark
+    public Map<String, List<Pair<Pair<String, I18NModel>, Integer>>> categoryAttributes(final SearchIndexState index) {
+        return index.fts.fullTextSearchNavigation(categoryQuery, attributeRequests);
+    }
+
+    @Benchmark
+    public Map<String, List<Pair<Pair<String, I18NModel>, Integer>>> categoryAll(final SearchIndexState index) {
+        return index.fts.fullTextSearchNavigation(categoryQuery, allRequests);
+    }
+
+    @Benchmark
+    public Map<String, List<Pair<Pair<String, I18NModel>, Integer>>> shopAll(final SearchIndexState index) {
+        return index.fts.fullTextSearchNavigation(shopQuery, allRequests);
+    }
+
+}
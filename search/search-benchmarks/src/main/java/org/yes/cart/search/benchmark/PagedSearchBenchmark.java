@@ -0,0 +1,111 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.benchmark;
+
+import org.apache.lucene.search.Query;
+import org.openjdk.jmh.annotations.*;
+import org.yes.cart.domain.dto.impl.ProductSearchResultDTOImpl;
+import org.yes.cart.domain.misc.Pair;
+import org.yes.cart.search.query.ProductSearchQueryBuilder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paged search throughput of {@link org.yes.cart.search.dao.impl.GenericFTSLuceneImpl#fullTextSearchStoredObjects}
+ * as used for storefront product lists, with and without decoded object cache, and with search after cursor
+ * for deep pages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PagedSearchBenchmark {
+
+    private static final long SHOP_ID = SyntheticCatalog.SHOP_IDS[1];
+
+    /**
+     * First result of the page, first page or deep page.
+     */
+    @Param({ "0", "480" })
+    public int firstResult;
+
+    /**
+     * Page size.
+     */
+    @Param({ "20" })
+    public int pageSize;
+
+    private Query shopQuery;
+    private Query keywordQuery;
+    private String shopCursorByName;
+
+    @Setup(Level.Trial)
+    public void setUp(final SearchIndexState index) {
+
+        shopQuery = index.queryFactory.getFilteredNavigationQueryChain(
+                SHOP_ID, SHOP_ID, "en", null, false, null).getProductQuery();
+        keywordQuery = index.queryFactory.getFilteredNavigationQueryChain(
+                SHOP_ID, SHOP_ID, "en", null, false,
+                Collections.singletonMap(ProductSearchQueryBuilder.QUERY, Collections.singletonList(SyntheticCatalog.TYPES[0]))
+        ).getProductQuery();
+
+        if (firstResult >= pageSize) {
+            // cursor is what client gets with previous page
+            shopCursorByName = index.fts.fullTextSearchStoredObjects(shopQuery, null, firstResult - pageSize, pageSize,
+                    ProductSearchQueryBuilder.PRODUCT_NAME_SORT_FIELD, false, ProductSearchResultDTOImpl.class).getSecond();
+        }
+
+    }
+
+    @Benchmark
+    public Pair<List<ProductSearchResultDTOImpl>, Integer> shopPageByRelevance(final SearchIndexState index) {
+        return index.fts.fullTextSearchStoredObjects(shopQuery, firstResult, pageSize, null, false, ProductSearchResultDTOImpl.class);
+    }
+
+    @Benchmark
+    public Pair<List<ProductSearchResultDTOImpl>, Integer> shopPageByName(final SearchIndexState index) {
+        return index.fts.fullTextSearchStoredObjects(shopQuery, firstResult, pageSize,
+                ProductSearchQueryBuilder.PRODUCT_NAME_SORT_FIELD, false, ProductSearchResultDTOImpl.class);
+    }
+
+    @Benchmark
+    public Pair<Pair<List<ProductSearchResultDTOImpl>, Integer>, String> shopPageByNameCursor(final SearchIndexState index) {
+        return index.fts.fullTextSearchStoredObjects(shopQuery, shopCursorByName, firstResult, pageSize,
+                ProductSearchQueryBuilder.PRODUCT_NAME_SORT_FIELD, false, ProductSearchResultDTOImpl.class);
+    }
+
+    @Benchmark
+    public Pair<List<ProductSearchResultDTOImpl>, Integer> shopPageByNameNoObjectCache(final SearchIndexState index) {
+        return index.ftsNoObjectCache.fullTextSearchStoredObjects(shopQuery, firstResult, pageSize,
+                ProductSearchQueryBuilder.PRODUCT_NAME_SORT_FIELD, false, ProductSearchResultDTOImpl.class);
+    }
+
+    @Benchmark
+    public Pair<List<ProductSearchResultDTOImpl>, Integer> keywordPageByRelevance(final SearchIndexState index) {
+        return index.fts.fullTextSearchStoredObjects(keywordQuery, firstResult, pageSize, null, false, ProductSearchResultDTOImpl.class);
+    }
+
+    @Benchmark
+    public int shopCount(final SearchIndexState index) {
+        return index.fts.fullTextSearchCount(shopQuery);
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.benchmark;
+
+import org.apache.lucene.search.Query;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Primary key search throughput of {@link org.yes.cart.search.dao.impl.GenericFTSLuceneImpl}, which is
+ * used by services that resolve entities for search results (e.g. product by category, wishlists).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrimaryKeySearchBenchmark {
+
+    private static final long SHOP_ID = SyntheticCatalog.SHOP_IDS[1];
+
+    private Query shopQuery;
+    private Query categoryQuery;
+
+    @Setup(Level.Trial)
+    public void setUp(final SearchIndexState index) {
+
+        shopQuery = index.queryFactory.getFilteredNavigationQueryChain(
+                SHOP_ID, SHOP_ID, "en", null, false, null).getProductQuery();
+        categoryQuery = index.queryFactory.getFilteredNavigationQueryChain(
+                SHOP_ID, SHOP_ID, "en", Collections.singletonList(SyntheticCatalog.ROOT_CATEGORY_ID + 1L), false, null).getProductQuery();
+
+    }
+
+    @Benchmark
+    public long[] shopPrimaryKeys(final SearchIndexState index) {
+        return index.fts.fullTextSearchPrimaryKeys(shopQuery);
+    }
+
+    @Benchmark
+    public List<Long> shopPrimaryKeyList(final SearchIndexState index) {
+        return index.fts.fullTextSearch(shopQuery);
+    }
+
+    @Benchmark
+    public long[] categoryPrimaryKeys(final SearchIndexState index) {
+        return index.fts.fullTextSearchPrimaryKeys(categoryQuery);
+    }
+
+    @Benchmark
+    public List<Long> categoryPrimaryKeyPage(final SearchIndexState index) {
+        return index.fts.fullTextSearch(categoryQuery, 0, 20, null, false);
+    }
+
+    @Benchmark
+    public long[] categoryPrimaryKeyPageArray(final SearchIndexState index) {
+        return index.fts.fullTextSearchPrimaryKeys(categoryQuery, 0, 20, null, false);
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.benchmark;
+
+import org.apache.lucene.search.Query;
+import org.openjdk.jmh.annotations.*;
+import org.yes.cart.search.dto.NavigationContext;
+import org.yes.cart.search.dto.impl.NavigationContextImpl;
+import org.yes.cart.search.query.ProductSearchQueryBuilder;
+import org.yes.cart.search.query.impl.KeywordProductSearchQueryBuilder;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query construction throughput of {@link org.yes.cart.search.query.impl.SearchQueryFactoryImpl} and
+ * keyword query builder.
+ *
+ * Keyword navigation includes product count probes for each relaxation level, so it is sensitive to
+ * both query building and search performance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryConstructionBenchmark {
+
+    private static final long SHOP_ID = SyntheticCatalog.SHOP_IDS[0];
+
+    private final KeywordProductSearchQueryBuilder keywordBuilder = new KeywordProductSearchQueryBuilder();
+
+    private List<Long> categories;
+    private Map<String, List> attributeParameters;
+    private Map<String, List> keywordParameters;
+    private NavigationContext<Query> emptyContext;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        categories = Collections.singletonList(SyntheticCatalog.ROOT_CATEGORY_ID + 1L);
+
+        attributeParameters = new HashMap<>();
+        attributeParameters.put(SyntheticCatalog.ATTR_COLOR, Arrays.asList(SyntheticCatalog.COLORS[0], SyntheticCatalog.COLORS[1]));
+        attributeParameters.put(SyntheticCatalog.ATTR_SIZE, Collections.singletonList(SyntheticCatalog.SIZES[2]));
+
+        keywordParameters = new HashMap<>();
+        keywordParameters.put(ProductSearchQueryBuilder.QUERY, Collections.singletonList(
+                SyntheticCatalog.WORDS[0] + " " + SyntheticCatalog.WORDS[1] + " " + SyntheticCatalog.TYPES[0]));
+
+        emptyContext = new NavigationContextImpl<>(SHOP_ID, SHOP_ID, "en", null, false, Collections.emptyMap(), null, null);
+
+    }
+
+    @Benchmark
+    public NavigationContext<Query> categoryNavigation(final SearchIndexState index) {
+        return index.queryFactory.getFilteredNavigationQueryChain(SHOP_ID, SHOP_ID, "en", categories, false, null);
+    }
+
+    @Benchmark
+    public NavigationContext<Query> attributeNavigation(final SearchIndexState index) {
+        return index.queryFactory.getFilteredNavigationQueryChain(SHOP_ID, SHOP_ID, "en", categories, false, attributeParameters);
+    }
+
+    @Benchmark
+    public NavigationContext<Query> keywordNavigation(final SearchIndexState index) {
+        return index.queryFactory.getFilteredNavigationQueryChain(SHOP_ID, SHOP_ID, "en", null, false, keywordParameters);
+    }
+
+    @Benchmark
+    public List<Query> keywordQueryChain() {
+        return keywordBuilder.createQueryChain(emptyContext, ProductSearchQueryBuilder.QUERY,
+                keywordParameters.get(ProductSearchQueryBuilder.QUERY));
+    }
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.benchmark;
+
+import org.apache.lucene.search.Query;
+import org.openjdk.jmh.annotations.*;
+import org.yes.cart.search.dao.impl.GenericFTSLuceneImpl;
+import org.yes.cart.search.dao.impl.LuceneIndexProviderImpl;
+import org.yes.cart.search.dao.impl.StoredObjectCacheImpl;
+import org.yes.cart.search.dto.NavigationContext;
+import org.yes.cart.search.query.SearchQueryBuilder;
+import org.yes.cart.search.query.impl.*;
+import org.yes.cart.service.domain.AttributeService;
+import org.yes.cart.service.domain.ProductService;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shared benchmark state: synthetic catalogue indexed through {@link SyntheticProductIndexBuilder}
+ * into either RAM or memory mapped directory, full text search over that index and query factory
+ * wired with the same product/SKU builders as storefront configuration (core-index-sf.xml).
+ *
+ * Price and tag builders are not wired since they depend on price navigation and shop search support
+ * services, which are not available outside of application context.
+ */
+@State(Scope.Benchmark)
+public class SearchIndexState {
+
+    /**
+     * Directory type, "ram" or "mmap" (temporary directory on default file system).
+     */
+    @Param({ "ram", "mmap" })
+    public String directory;
+
+    /**
+     * Number of products in synthetic catalogue.
+     */
+    @Param({ "10000" })
+    public int products;
+
+    public SyntheticCatalog catalog;
+    public LuceneIndexProviderImpl indexProvider;
+    public GenericFTSLuceneImpl fts;
+    public GenericFTSLuceneImpl ftsNoObjectCache;
+    public SearchQueryFactoryImpl queryFactory;
+
+    private Path indexBase;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        catalog = new SyntheticCatalog(products, 20170407L);
+
+        indexProvider = new LuceneIndexProviderImpl("product");
+        if ("mmap".equals(directory)) {
+            indexBase = Files.createTempDirectory("yc-search-benchmark");
+            indexProvider.setUri("mmap://" + indexBase.toAbsolutePath());
+        } else {
+            indexProvider.setUri("ram");
+        }
+        indexProvider.afterPropertiesSet();
+
+        final SyntheticProductIndexBuilder indexBuilder = new SyntheticProductIndexBuilder(catalog, indexProvider);
+        indexBuilder.fullTextSearchReindex(false, 1000);
+
+        final StoredObjectCacheImpl objectCache = new StoredObjectCacheImpl("benchmark-storedObjects", 33554432L);
+        fts = new GenericFTSLuceneImpl();
+        fts.setLuceneIndexProvider(indexProvider);
+        fts.setObjectCache(objectCache);
+
+        ftsNoObjectCache = new GenericFTSLuceneImpl();
+        ftsNoObjectCache.setLuceneIndexProvider(indexProvider);
+
+        queryFactory = new SearchQueryFactoryImpl(attributeService(), productService(), productBuilders(), skuBuilders());
+
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+
+        indexProvider.destroy();
+
+        if (indexBase != null) {
+            Files.walkFileTree(indexBase, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                    Files.delete(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
+                    Files.delete(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+
+    }
+
+    private AttributeService attributeService() {
+        return (AttributeService) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class[] { AttributeService.class },
+                (proxy, method, args) -> {
+                    if ("getAllNavigatableAttributeCodes".equals(method.getName())) {
+                        return catalog.getAllNavigatableAttributeCodes();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private ProductService productService() {
+        // Keyword relaxation probes all strictness levels in single search, same as ProductServiceImpl
+        return (ProductService) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class[] { ProductService.class },
+                (proxy, method, args) -> {
+                    if ("getProductQty".equals(method.getName())) {
+                        return fts.fullTextSearchCount(((NavigationContext<Query>) args[0]).getProductQuery());
+                    }
+                    if ("findFirstNavigationContextWithProducts".equals(method.getName())) {
+                        final List<Query> queries = new ArrayList<>();
+                        for (final NavigationContext<Query> context : (List<NavigationContext<Query>>) args[0]) {
+                            queries.add(context.getProductQuery());
+                        }
+                        return fts.fullTextSearchFirstMatch(queries);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private Map<String, SearchQueryBuilder<Query>> productBuilders() {
+
+        final SearchQueryBuilder<Query> productSkuId = new ProductSkuIdSearchQueryBuilder();
+        final SearchQueryBuilder<Query> productId = new ProductIdSearchQueryBuilder();
+
+        final Map<String, SearchQueryBuilder<Query>> builders = new HashMap<>();
+        builders.put("sku", productSkuId);
+        builders.put("sku.skuId", productSkuId);
+        builders.put("sku.code", new ProductSkuCodeSearchQueryBuilder());
+        builders.put("product", productId);
+        builders.put("productId", productId);
+        builders.put("code", new ProductCodeSearchQueryBuilder());
+        builders.put("query", new KeywordProductSearchQueryBuilder());
+        builders.put("featured", new FeaturedProductSearchQueryBuilder());
+        builders.put("instock", new InStockProductSearchQueryBuilder());
+        builders.put("hasoffer", new HasOfferProductSearchQueryBuilder());
+        builders.put("attribute.attribute", new AttributeSearchQueryBuilder());
+        builders.put("productCategory.category", new ProductCategorySearchQueryBuilder());
+        builders.put("productCategory.category.inc.parents", new ProductCategoryIncludingParentsSearchQueryBuilder());
+        builders.put("productShopId", new ProductShopSearchQueryBuilder());
+        builders.put("productInStockShopId", new ProductShopInStockSearchQueryBuilder());
+        builders.put("productHasPriceShopId", new ProductShopHasPriceSearchQueryBuilder());
+        builders.put("notSoldSeparately", new NotSoldSeparatelyProductSearchQueryBuilder());
+        return builders;
+
+    }
+
+    private Map<String, SearchQueryBuilder<Query>> skuBuilders() {
+
+        final SearchQueryBuilder<Query> noop = new NoopProductSearchQueryBuilder();
+        final SearchQueryBuilder<Query> productId = new ProductIdSearchQueryBuilder();
+
+        final Map<String, SearchQueryBuilder<Query>> builders = new HashMap<>();
+        builders.put("sku", noop);
+        builders.put("sku.skuId", noop);
+        builders.put("sku.code", new ProductSkuCodeSearchQueryBuilder());
+        builders.put("product", productId);
+        builders.put("productId", productId);
+        builders.put("code", new ProductCodeSearchQueryBuilder());
+        builders.put("brand", noop);
+        builders.put("query", new KeywordProductSkuSearchQueryBuilder());
+        builders.put("tag", noop);
+        builders.put("featured", noop);
+        builders.put("instock", noop);
+        builders.put("hasoffer", noop);
+        builders.put("attribute.attribute", new AttributeSearchQueryBuilder());
+        builders.put("productCategory.category", noop);
+        builders.put("productShopId", noop);
+        builders.put("notSoldSeparately", new NotSoldSeparatelyProductSearchQueryBuilder());
+        return builders;
+
+    }
+
+}
@@ -0,0 +1,450 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.benchmark;
+
+import org.yes.cart.domain.dto.CategoryRelationDTO;
+import org.yes.cart.domain.dto.impl.CategoryRelationDTOImpl;
+import org.yes.cart.domain.entity.*;
+import org.yes.cart.domain.entity.impl.*;
+import org.yes.cart.domain.i18n.impl.StringI18NModel;
+import org.yes.cart.search.dao.entity.ProductLuceneDocumentAdapter;
+import org.yes.cart.search.dao.support.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Deterministic in memory catalogue that acts as all relationship supports required by
+ * {@link ProductLuceneDocumentAdapter}, so that benchmark indexes are built through the same
+ * document adapter as the real storefront index.
+ *
+ * Layout:
+ * - shops {@link #SHOP_IDS}, fulfilment centres {@link #WAREHOUSE_IDS} shared between shops
+ * - single catalog root category {@link #ROOT_CATEGORY_ID} with {@link #LEAF_CATEGORIES} leaf categories
+ * - products with 1 to 3 SKU, each with stock in one of the fulfilment centres and prices in
+ *   every shop in {@link #CURRENCIES}
+ * - navigatable attributes {@link #ATTR_COLOR}, {@link #ATTR_SIZE} and searchable {@link #ATTR_MATERIAL}
+ */
+public class SyntheticCatalog implements ShopWarehouseRelationshipSupport, SkuWarehouseRelationshipSupport,
+        ShopCategoryRelationshipSupport, SkuPriceRelationshipSupport, NavigatableAttributesSupport {
+
+    public static final long[] SHOP_IDS = new long[] { 10L, 20L, 30L };
+    public static final long[] WAREHOUSE_IDS = new long[] { 1L, 2L };
+    public static final long ROOT_CATEGORY_ID = 100L;
+    public static final int LEAF_CATEGORIES = 20;
+    public static final String[] CURRENCIES = new String[] { "EUR", "USD" };
+
+    public static final String ATTR_COLOR = "COLOR";
+    public static final String ATTR_SIZE = "SIZE";
+    public static final String ATTR_MATERIAL = "MATERIAL";
+
+    public static final String[] WORDS = new String[] {
+            "alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel", "india", "juliet",
+            "kilo", "lima", "mike", "november", "oscar", "papa", "quebec", "romeo", "sierra", "tango"
+    };
+    public static final String[] TYPES = new String[] { "laptop", "phone", "tablet", "camera", "monitor" };
+    public static final String[] BRANDS = new String[] {
+            "Acme", "Globex", "Initech", "Umbrella", "Hooli", "Stark", "Wayne", "Wonka", "Tyrell", "Cyberdyne"
+    };
+    public static final String[] COLORS = new String[] { "black", "white", "red", "green", "blue", "silver", "gold", "grey" };
+    public static final String[] SIZES = new String[] { "XS", "S", "M", "L", "XL", "XXL" };
+    public static final String[] MATERIALS = new String[] { "aluminium", "plastic", "glass", "carbon" };
+
+    private final List<Shop> shops = new ArrayList<>();
+    private final Map<Long, Set<Long>> shopsByFulfilment = new HashMap<>();
+    private final Map<Long, Warehouse> warehouses = new HashMap<>();
+    private final Map<Long, Set<Long>> shopCategories = new HashMap<>();
+    private final Map<Long, Category> categories = new HashMap<>();
+    private final Map<Long, CategoryRelationDTO> categoryRelations = new HashMap<>();
+    private final Map<Long, Set<Long>> categoryParents = new HashMap<>();
+
+    private final List<Product> products = new ArrayList<>();
+    private final Map<String, List<SkuWarehouse>> inventory = new HashMap<>();
+    private final Map<String, List<SkuPrice>> prices = new HashMap<>();
+
+    private final Set<String> navigatable = new HashSet<>(Arrays.asList(ATTR_COLOR, ATTR_SIZE));
+    private final Set<String> searchable = new HashSet<>(Collections.singletonList(ATTR_MATERIAL));
+
+    /**
+     * Generate catalogue.
+     *
+     * @param productCount number of products
+     * @param seed         random seed, same seed produces same catalogue
+     */
+    public SyntheticCatalog(final int productCount, final long seed) {
+
+        final Instant created = Instant.parse("2020-01-01T00:00:00Z");
+
+        for (final long shopId : SHOP_IDS) {
+            final ShopEntity shop = new ShopEntity();
+            shop.setShopId(shopId);
+            shop.setCode("SHOP" + shopId);
+            shop.setName("Shop " + shopId);
+            shops.add(shop);
+        }
+
+        for (final long warehouseId : WAREHOUSE_IDS) {
+            final WarehouseEntity warehouse = new WarehouseEntity();
+            warehouse.setWarehouseId(warehouseId);
+            warehouse.setCode("WH" + warehouseId);
+            warehouse.setName("Warehouse " + warehouseId);
+            warehouses.put(warehouseId, warehouse);
+        }
+        // first warehouse fulfils first two shops, second one fulfils last two
+        shopsByFulfilment.put(WAREHOUSE_IDS[0], new HashSet<>(Arrays.asList(SHOP_IDS[0], SHOP_IDS[1])));
+        shopsByFulfilment.put(WAREHOUSE_IDS[1], new HashSet<>(Arrays.asList(SHOP_IDS[1], SHOP_IDS[2])));
+
+        addCategory(ROOT_CATEGORY_ID, 0L, "catalog");
+        for (int i = 1; i <= LEAF_CATEGORIES; i++) {
+            addCategory(ROOT_CATEGORY_ID + i, ROOT_CATEGORY_ID, WORDS[i % WORDS.length] + " " + TYPES[i % TYPES.length]);
+        }
+        for (int s = 0; s < SHOP_IDS.length; s++) {
+            final Set<Long> assigned = new HashSet<>();
+            assigned.add(ROOT_CATEGORY_ID);
+            for (int i = 1; i <= LEAF_CATEGORIES; i++) {
+                // every shop sees two thirds of the categories
+                if (i % SHOP_IDS.length != s) {
+                    assigned.add(ROOT_CATEGORY_ID + i);
+                }
+            }
+            shopCategories.put(SHOP_IDS[s], assigned);
+        }
+
+        final List<BrandEntity> brands = new ArrayList<>();
+        for (int i = 0; i < BRANDS.length; i++) {
+            final BrandEntity brand = new BrandEntity();
+            brand.setBrandId(i + 1L);
+            brand.setName(BRANDS[i]);
+            brands.add(brand);
+        }
+
+        final List<ProductTypeEntity> types = new ArrayList<>();
+        for (int i = 0; i < TYPES.length; i++) {
+            final ProductTypeEntity type = new ProductTypeEntity();
+            type.setProducttypeId(i + 1L);
+            type.setName(TYPES[i]);
+            types.add(type);
+        }
+
+        final Random random = new Random(seed);
+
+        long skuId = 1L;
+        for (int p = 0; p < productCount; p++) {
+
+            final ProductEntity product = new ProductEntity();
+            product.setProductId(p + 1L);
+            product.setCode("P" + p);
+            product.setManufacturerCode("M" + p);
+            product.setName(word(random) + " " + word(random) + " " + TYPES[p % TYPES.length]);
+            product.setDisplayName(new StringI18NModel("en#~#" + product.getName() + "#~#de#~#" + product.getName() + " DE"));
+            product.setBrand(brands.get(random.nextInt(brands.size())));
+            product.setProducttype(types.get(p % types.size()));
+            product.setCreatedTimestamp(created.plusSeconds(p));
+            product.setUpdatedTimestamp(created.plusSeconds(p));
+
+            final ProductCategoryEntity productCategory = new ProductCategoryEntity();
+            productCategory.setProduct(product);
+            productCategory.setCategory(categories.get(ROOT_CATEGORY_ID + 1 + (p % LEAF_CATEGORIES)));
+            productCategory.setRank(random.nextInt(1000));
+            product.getProductCategory().add(productCategory);
+
+            product.getAttributes().add(attribute(product, ATTR_COLOR, COLORS[random.nextInt(COLORS.length)]));
+            product.getAttributes().add(attribute(product, ATTR_MATERIAL, MATERIALS[random.nextInt(MATERIALS.length)]));
+
+            final long warehouseId = WAREHOUSE_IDS[p % WAREHOUSE_IDS.length];
+            final int skuCount = 1 + random.nextInt(3);
+            for (int s = 0; s < skuCount; s++) {
+
+                final ProductSkuEntity sku = new ProductSkuEntity();
+                sku.setSkuId(skuId++);
+                sku.setCode(product.getCode() + "-" + s);
+                sku.setName(product.getName() + " " + SIZES[s % SIZES.length]);
+                sku.setRank(s);
+                sku.setProduct(product);
+                sku.setCreatedTimestamp(product.getCreatedTimestamp());
+                sku.setUpdatedTimestamp(product.getUpdatedTimestamp());
+                final AttrValueEntityProductSku size = new AttrValueEntityProductSku();
+                size.setAttributeCode(ATTR_SIZE);
+                size.setVal(SIZES[random.nextInt(SIZES.length)]);
+                size.setProductSku(sku);
+                sku.getAttributes().add(size);
+                product.getSku().add(sku);
+
+                final SkuWarehouseEntity stock = new SkuWarehouseEntity();
+                stock.setWarehouse(warehouses.get(warehouseId));
+                stock.setSkuCode(sku.getCode());
+                // roughly one in ten is out of stock
+                stock.setQuantity(random.nextInt(10) == 0 ? BigDecimal.ZERO : new BigDecimal(1 + random.nextInt(100)));
+                stock.setCreatedTimestamp(product.getCreatedTimestamp());
+                stock.setUpdatedTimestamp(product.getUpdatedTimestamp());
+                stock.setFeatured(random.nextInt(20) == 0);
+                inventory.put(sku.getCode(), Collections.singletonList(stock));
+
+                final List<SkuPrice> skuPrices = new ArrayList<>();
+                final BigDecimal regular = new BigDecimal(10 + random.nextInt(2000)).setScale(2, RoundingMode.HALF_UP);
+                for (final Shop shop : shops) {
+                    for (final String currency : CURRENCIES) {
+                        final SkuPriceEntity price = new SkuPriceEntity();
+                        price.setSkuCode(sku.getCode());
+                        price.setShop(shop);
+                        price.setCurrency(currency);
+                        price.setQuantity(BigDecimal.ONE);
+                        price.setRegularPrice(regular);
+                        if (random.nextInt(10) == 0) {
+                            price.setSalePrice(regular.multiply(new BigDecimal("0.8")).setScale(2, RoundingMode.HALF_UP));
+                        }
+                        skuPrices.add(price);
+                    }
+                }
+                prices.put(sku.getCode(), skuPrices);
+
+            }
+
+            products.add(product);
+
+        }
+
+    }
+
+    private void addCategory(final long categoryId, final long parentId, final String name) {
+        final CategoryEntity category = new CategoryEntity();
+        category.setCategoryId(categoryId);
+        category.setParentId(parentId);
+        category.setName(name);
+        categories.put(categoryId, category);
+        categoryRelations.put(categoryId, new CategoryRelationDTOImpl(
+                "C" + categoryId, categoryId, parentId, null, 0, name, null, false, null, null));
+        categoryParents.put(categoryId, parentId > 0L ? Collections.singleton(parentId) : Collections.emptySet());
+    }
+
+    private AttrValueProduct attribute(final Product product, final String code, final String value) {
+        final AttrValueEntityProduct av = new AttrValueEntityProduct();
+        av.setAttributeCode(code);
+        av.setVal(value);
+        av.setProduct(product);
+        return av;
+    }
+
+    private static String word(final Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    /**
+     * Create document adapter backed by this catalogue.
+     *
+     * @return product document adapter
+     */
+    public ProductLuceneDocumentAdapter createProductDocumentAdapter() {
+        final ProductLuceneDocumentAdapter adapter = new ProductLuceneDocumentAdapter();
+        adapter.setAttributesSupport(this);
+        adapter.setShopCategorySupport(this);
+        adapter.setShopWarehouseSupport(this);
+        adapter.setSkuPriceSupport(this);
+        adapter.setSkuWarehouseSupport(this);
+        return adapter;
+    }
+
+    /**
+     * @return all generated products
+     */
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    /**
+     * @param productId product PK
+     *
+     * @return product or null
+     */
+    public Product getProduct(final long productId) {
+        if (productId < 1L || productId > products.size()) {
+            return null;
+        }
+        return products.get((int) productId - 1);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Shop> getAll() {
+        return shops;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Map<Long, Set<Long>> getShopsByFulfilmentMap() {
+        return shopsByFulfilment;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<Long> getShopWarehouseIds(final long shopId, final boolean includeDisabled) {
+        final Set<Long> ids = new HashSet<>();
+        for (final Map.Entry<Long, Set<Long>> fc : shopsByFulfilment.entrySet()) {
+            if (fc.getValue().contains(shopId)) {
+                ids.add(fc.getKey());
+            }
+        }
+        return ids;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Warehouse> getShopWarehouses(final long shopId, final boolean includeDisabled) {
+        final List<Warehouse> shopWarehouses = new ArrayList<>();
+        for (final Long warehouseId : getShopWarehouseIds(shopId, includeDisabled)) {
+            shopWarehouses.add(warehouses.get(warehouseId));
+        }
+        return shopWarehouses;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getWarehouseCode(final SkuWarehouse skuWarehouse) {
+        return skuWarehouse.getWarehouse().getCode();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<SkuWarehouse> getQuantityOnWarehouse(final String sku) {
+        return inventory.getOrDefault(sku, Collections.emptyList());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<SkuWarehouse> getQuantityOnWarehouse(final String sku, final Warehouse warehouse) {
+        return getQuantityOnWarehouses(sku, Collections.singletonList(warehouse));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<SkuWarehouse> getQuantityOnWarehouses(final String sku, final Collection<Warehouse> warehouses) {
+        final List<SkuWarehouse> stock = new ArrayList<>();
+        for (final SkuWarehouse sw : getQuantityOnWarehouse(sku)) {
+            for (final Warehouse warehouse : warehouses) {
+                if (sw.getWarehouse().getWarehouseId() == warehouse.getWarehouseId()) {
+                    stock.add(sw);
+                }
+            }
+        }
+        return stock;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Map<Long, Set<Long>> getAllCategoriesIdsMap() {
+        return shopCategories;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<Long> getShopCategoriesIds(final long shopId) {
+        return shopCategories.getOrDefault(shopId, Collections.emptySet());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<Long> getCatalogCategoriesIds(final long branchId) {
+        final Set<Long> ids = new HashSet<>();
+        for (final Map.Entry<Long, Set<Long>> parents : categoryParents.entrySet()) {
+            if (parents.getValue().contains(branchId)) {
+                ids.add(parents.getKey());
+            }
+        }
+        return ids;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Category getCategoryById(final long categoryId) {
+        return categories.get(categoryId);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CategoryRelationDTO getCategoryRelationById(final long categoryId) {
+        return categoryRelations.get(categoryId);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<Long> getCategoryParentsIds(final long categoryId) {
+        return categoryParents.getOrDefault(categoryId, Collections.emptySet());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<Long> getCategoryLinkedIds(final long categoryId) {
+        return Collections.emptySet();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Map<Long, Set<Shop>> getAllShopsAndSubs() {
+        return Collections.emptyMap();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Shop> getAllNonSub() {
+        return shops;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Shop> getAllMastered(final long masterId) {
+        return Collections.emptyList();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<SkuPrice> getSkuPrices(final String sku) {
+        return prices.getOrDefault(sku, Collections.emptyList());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<String> getAllNavigatableAttributeCodes() {
+        return navigatable;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<String> getAllSearchableAttributeCodes() {
+        return searchable;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<String> getAllSearchablePrimaryAttributeCodes() {
+        return Collections.emptySet();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<String> getAllStorableAttributeCodes() {
+        return Collections.emptySet();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Attribute getByAttributeCode(final String attributeCode) {
+        return null;
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.benchmark;
+
+import org.yes.cart.domain.entity.Product;
+import org.yes.cart.search.dao.LuceneIndexProvider;
+import org.yes.cart.search.dao.impl.IndexBuilderLuceneImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Index builder that pages through {@link SyntheticCatalog} instead of persistence layer, so that
+ * full reindex in benchmarks follows exactly the same path as {@link IndexBuilderLuceneImpl} in
+ * the application.
+ */
+public class SyntheticProductIndexBuilder extends IndexBuilderLuceneImpl<Product, Long> {
+
+    private final SyntheticCatalog catalog;
+
+    public SyntheticProductIndexBuilder(final SyntheticCatalog catalog,
+                                        final LuceneIndexProvider indexProvider) {
+        super(catalog.createProductDocumentAdapter(), indexProvider);
+        this.catalog = catalog;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected Product findById(final Long primaryKey) {
+        return catalog.getProduct(primaryKey);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected Object startTx() {
+        return null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected List<Long> findPage(final int start, final int size) {
+        final List<Product> all = catalog.getProducts();
+        final List<Long> page = new ArrayList<>(size);
+        for (int i = start * size; i < all.size() && page.size() < size; i++) {
+            page.add(all.get(i).getProductId());
+        }
+        return page;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected Product unproxyEntity(final Long pk) {
+        return catalog.getProduct(pk);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void endBatch(final Object tx) {
+        // nothing to release
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void endTx(final Object tx) {
+        // no transactions
+    }
+
+}
@@ -16,10 +16,15 @@
 
 package org.yes.cart.search.dao;
 
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
 import org.apache.lucene.facet.taxonomy.SearcherTaxonomyManager;
 import org.apache.lucene.facet.taxonomy.directory.DirectoryTaxonomyWriter;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ReferenceManager;
+
+import java.io.IOException;
+import java.util.Collection;
 
 /**
  * User: denispavlov
@@ -28,6 +33,22 @@ import org.apache.lucene.search.IndexSearcher;
  */
 public interface LuceneIndexProvider {
 
+    /**
+     * Search that is replayed to warm up new searcher.
+     */
+    interface WarmUpQuery {
+
+        /**
+         * Run search.
+         *
+         * @param searcher searcher to warm up
+         *
+         * @throws Exception search error
+         */
+        void run(IndexSearcher searcher) throws Exception;
+
+    }
+
     /**
      * Index name.
      *
@@ -35,6 +56,24 @@ public interface LuceneIndexProvider {
      */
     String getName();
 
+    /**
+     * Partition of this index for given master shop. Partitioned index keeps all documents in the main
+     * index and additionally each document in the partition of every master shop it belongs to, so that
+     * storefront searches only need to look at documents of single shop.
+     *
+     * @param shopId master shop PK
+     *
+     * @return partition provider or this provider if index is not partitioned
+     */
+    LuceneIndexProvider provideShopPartition(long shopId);
+
+    /**
+     * All partitions of this index that currently exist.
+     *
+     * @return partitions (empty if index is not partitioned)
+     */
+    Collection<LuceneIndexProvider> provideShopPartitions();
+
     /**
      * Searcher for given index. Note that provided index searcher operated on cached
      * index, so changes in index will not be visible to this searcher unless
@@ -60,6 +99,38 @@ public interface LuceneIndexProvider {
      */
     IndexWriter provideIndexWriter();
 
+    /**
+     * Sorted set facets reader state for given field. State is expensive to build as it walks
+     * ordinals of the whole index, therefore it is built once per reader and reused by all requests
+     * until the reader is refreshed.
+     *
+     * @param searcher searcher acquired via {@link #provideIndexReader()}
+     * @param field    facet field
+     *
+     * @return reader state
+     *
+     * @throws IOException if state cannot be read
+     */
+    SortedSetDocValuesReaderState provideFacetsReaderState(IndexSearcher searcher, String field) throws IOException;
+
+    /**
+     * Record search that has just been run, so that it can be replayed on the new searcher before it is
+     * published after refresh. Provider keeps only a sample of recent searches, and does nothing if
+     * warm up is not enabled.
+     *
+     * @param key   search key (same search must have same key)
+     * @param query search to replay
+     */
+    void recordWarmUpQuery(Object key, WarmUpQuery query);
+
+    /**
+     * Register listener that is notified whenever index searcher is refreshed (e.g. to rebuild structures
+     * derived from the index).
+     *
+     * @param listener listener
+     */
+    void addRefreshListener(ReferenceManager.RefreshListener listener);
+
     /**
      * Refreshing the index is necessary do that readers can "see" the most up
      * to date version of index. If refresh is not called the readers only see
@@ -70,6 +141,26 @@ public interface LuceneIndexProvider {
      */
     void refreshIndexIfNecessary();
 
+    /**
+     * Notify provider that index has been changed by the writer. Provider decides when to refresh
+     * the readers (e.g. periodically in near real time mode), so this method does not block.
+     *
+     * @return generation of the changes, which can be used with {@link #waitForGeneration(long, long)},
+     *         or -1 for replica
+     */
+    long markDirty();
+
+    /**
+     * Wait until readers "see" all changes up to given generation. Use this only when caller needs
+     * its own changes to be visible.
+     *
+     * @param generation    generation returned by {@link #markDirty()}
+     * @param maxWaitMillis max time to wait
+     *
+     * @return true if changes are visible, false if wait has timed out
+     */
+    boolean waitForGeneration(long generation, long maxWaitMillis);
+
 
     /**
      * Searcher for given index. Note that provided index searcher operated on cached
@@ -111,5 +202,30 @@ public interface LuceneIndexProvider {
      */
     void refreshIfNecessary();
 
+    /**
+     * Replica is a read only copy of the index that is built on another node and received via
+     * {@link #replicateSnapshot()}. Replica has no writer.
+     *
+     * @return true if this index is a replica
+     */
+    boolean isReplica();
+
+    /**
+     * Publish last commit of this index (and its partitions) to the replication location, so that
+     * replicas can pick it up. Uncommitted changes are committed first. Only files that are not yet
+     * published are copied.
+     *
+     * @return generation of published commit or -1 if nothing was published
+     */
+    long publishSnapshot();
+
+    /**
+     * Copy last published commit to this replica (and its partitions) and make it visible to readers.
+     * Only files that are missing are copied.
+     *
+     * @return generation of replicated commit or -1 if nothing was replicated
+     */
+    long replicateSnapshot();
+
 
 }
@@ -17,9 +17,12 @@
 package org.yes.cart.search.dao.entity;
 
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
 import org.apache.lucene.document.*;
 import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetField;
 import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.util.BytesRef;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,6 +33,7 @@ import org.yes.cart.search.utils.SearchUtil;
 
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Map;
 
@@ -46,6 +50,17 @@ public class LuceneDocumentAdapterUtils {
 
     public static final int CHAR_THRESHOLD = 2;
 
+    /** Type-ahead suggestion source doc values, see {@link #addSuggestField(Document, String, I18NModel)}. */
+    public static final String FIELD_SUGGEST = "_SUGGEST";
+    /** Shop PKs doc values, where suggestions of the document are shown. */
+    public static final String FIELD_SUGGEST_SHOP = "_SUGGEST_SHOP";
+    /** Weight doc value of suggestions of the document. */
+    public static final String FIELD_SUGGEST_WEIGHT = "_SUGGEST_W";
+    /** Separates translations of the suggestion source. */
+    public static final char SUGGEST_LANGUAGE_SEPARATOR = '\u001E';
+    /** Separates language from translation of the suggestion source. */
+    public static final char SUGGEST_VALUE_SEPARATOR = '\u001F';
+
     private LuceneDocumentAdapterUtils() {
         // no instance
     }
@@ -71,9 +86,18 @@ public class LuceneDocumentAdapterUtils {
      */
     public static <T> T readObjectField(final Document document, final String name, final Class<T> clazz) {
 
-        final String serialized = document.get(name);
-        if (StringUtils.isNotBlank(serialized)) {
-            return readObjectFieldValue(serialized, clazz);
+        final IndexableField field = document.getField(name);
+        if (field != null) {
+            final BytesRef binary = field.binaryValue();
+            if (binary != null) {
+                // binary codec (or any codec writing bytes)
+                return readObjectFieldValue(BytesRef.deepCopyOf(binary).bytes, clazz);
+            }
+            final String serialized = field.stringValue();
+            if (StringUtils.isNotBlank(serialized)) {
+                // JSON, written by the text codec or by previous versions
+                return readObjectFieldValue(serialized, clazz);
+            }
         }
         return null;
     }
@@ -92,13 +116,110 @@ public class LuceneDocumentAdapterUtils {
 
 
     /**
-     * Adds serialised version of object into stored field.
+     * Adds master shop partitions to which this document belongs. See {@link AdapterUtils#FIELD_PARTITION}.
+     *
+     * @param document document
+     * @param shopIds  master shop PKs
+     */
+    public static void addPartitionFields(final Document document, final Collection<Long> shopIds) {
+        for (final Long shopId : shopIds) {
+            document.add(new StringField(FIELD_PARTITION, String.valueOf(shopId), Field.Store.NO));
+        }
+    }
+
+
+    /**
+     * Adds type-ahead suggestion source (e.g. product name or brand). Source is added as single doc value: default
+     * value followed by language and value pair for every translation, e.g. "Mouse[RS]en[US]Mouse[RS]uk[US]Миша",
+     * where [RS] and [US] are {@link #SUGGEST_LANGUAGE_SEPARATOR} and {@link #SUGGEST_VALUE_SEPARATOR}. Sources
+     * longer than max term length are skipped.
+     *
+     * @param document     document
+     * @param value        default value
+     * @param displayValue translations (optional)
+     */
+    public static void addSuggestField(final Document document, final String value, final I18NModel displayValue) {
+
+        if (StringUtils.isBlank(value)) {
+            return;
+        }
+
+        final StringBuilder source = new StringBuilder(clean(value));
+        if (displayValue != null) {
+            for (final Map.Entry<String, String> translation : displayValue.getAllValues().entrySet()) {
+                if (StringUtils.isNotBlank(translation.getValue())) {
+                    source.append(SUGGEST_LANGUAGE_SEPARATOR)
+                            .append(translation.getKey())
+                            .append(SUGGEST_VALUE_SEPARATOR)
+                            .append(clean(translation.getValue()));
+                }
+            }
+        }
+        final BytesRef bytes = new BytesRef(source);
+        if (bytes.length <= IndexWriter.MAX_TERM_LENGTH) {
+            document.add(new SortedSetDocValuesField(FIELD_SUGGEST, bytes));
+        }
+
+    }
+
+    private static String clean(final String value) {
+        return value.replace(SUGGEST_LANGUAGE_SEPARATOR, ' ').replace(SUGGEST_VALUE_SEPARATOR, ' ').trim();
+    }
+
+    /**
+     * Adds shops and weight of type-ahead suggestions of this document.
+     *
+     * @param document document
+     * @param shopIds  shop PKs where suggestions are shown
+     * @param weight   weight (more relevant documents have higher weight)
+     */
+    public static void addSuggestShopFields(final Document document, final Collection<Long> shopIds, final long weight) {
+        for (final Long shopId : shopIds) {
+            document.add(new SortedNumericDocValuesField(FIELD_SUGGEST_SHOP, shopId));
+        }
+        document.add(new NumericDocValuesField(FIELD_SUGGEST_WEIGHT, weight));
+    }
+
+
+    /**
+     * Reads master shop partitions from document that is about to be indexed. Partition field is
+     * not stored, so this does not work for documents loaded from the index.
+     *
+     * @param document document
+     *
+     * @return master shop PKs
+     */
+    public static long[] readPartitionFields(final Document document) {
+
+        final String[] values = document.getValues(FIELD_PARTITION);
+        final long[] shopIds = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            shopIds[i] = NumberUtils.toLong(values[i]);
+        }
+        return shopIds;
+
+    }
+
+
+    /**
+     * Adds serialised version of object into stored field using default codec.
      *
      * @param document document
      * @param object   object
      */
     public static void addObjectDefaultField(final Document document, final Object object) {
-        addObjectField(document, FIELD_OBJECT, object);
+        addObjectField(document, FIELD_OBJECT, object, defaultObjectFieldCodec());
+    }
+
+    /**
+     * Adds serialised version of object into stored field.
+     *
+     * @param document document
+     * @param object   object
+     * @param codec    codec to write object with
+     */
+    public static void addObjectDefaultField(final Document document, final Object object, final ObjectFieldCodec codec) {
+        addObjectField(document, FIELD_OBJECT, object, codec);
     }
 
     /** Indexed, not tokenized, omits norms, indexes
@@ -119,11 +240,17 @@ public class LuceneDocumentAdapterUtils {
      * @param document document
      * @param name     field name
      * @param object   object
+     * @param codec    codec to write object with
      */
-    public static void addObjectField(final Document document, final String name, final Object object) {
+    public static void addObjectField(final Document document, final String name, final Object object, final ObjectFieldCodec codec) {
         if (object != null) {
             try {
-                document.add(new Field(name, writeObjectFieldValue(object), TYPE_OBJECT));
+                final Object encoded = encodeObjectFieldValue(codec, object);
+                if (encoded instanceof byte[]) {
+                    document.add(new StoredField(name, (byte[]) encoded));
+                } else if (encoded != null) {
+                    document.add(new Field(name, (String) encoded, TYPE_OBJECT));
+                }
             } catch (Exception exp) {
                 LOGFTQ.error("Unable to serialise the object into field: " + name + ", object: " + object, exp);
             }
@@ -149,6 +276,13 @@ public class LuceneDocumentAdapterUtils {
              */
             // document.add(new SortedNumericDocValuesField(FIELD_PK, NumberUtils.toLong(value)));
 
+            /*
+                Numeric doc value allows to read PK's of all hits without loading stored fields
+             */
+            if (NumberUtils.isDigits(value)) {
+                document.add(new NumericDocValuesField(FIELD_PK, NumberUtils.toLong(value)));
+            }
+
             /*
                 Stored string is required for projections i.e. document.get('_PK')
              */
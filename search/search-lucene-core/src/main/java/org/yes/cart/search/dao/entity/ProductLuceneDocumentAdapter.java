@@ -19,6 +19,9 @@ package org.yes.cart.search.dao.entity;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.util.BytesRef;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yes.cart.constants.AttributeNamesKeys;
@@ -63,6 +66,7 @@ public class ProductLuceneDocumentAdapter implements LuceneDocumentAdapter<Produ
     private ShopCategoryRelationshipSupport shopCategorySupport;
     private SkuPriceRelationshipSupport skuPriceSupport;
     private NavigatableAttributesSupport attributesSupport;
+    private ObjectFieldCodec objectFieldCodec = AdapterUtils.defaultObjectFieldCodec();
 
     /**
      * Product search result is bound to supplier (fulfilment centre).
@@ -103,6 +107,7 @@ public class ProductLuceneDocumentAdapter implements LuceneDocumentAdapter<Produ
                     final Document document = new Document();
 
                     addPkField(document, Product.class, String.valueOf(entity.getProductId()));
+                    addPartitionFields(document, available);
 
                     addSimpleField(document, PRODUCT_ID_FIELD, String.valueOf(entity.getProductId()));
 
@@ -217,9 +222,12 @@ public class ProductLuceneDocumentAdapter implements LuceneDocumentAdapter<Produ
                     // Add attributes
                     addAttributeFields(document, entity, result);
 
+                    // Add type-ahead suggestions
+                    addSuggestionFields(document, entity);
+
                     // save the whole search object instead of individual fields, fields are only for searching
                     // must be last step so that we have fully modified object serialised to index
-                    addObjectDefaultField(document, result);
+                    addObjectDefaultField(document, result, objectFieldCodec);
 
                     documents[count++] = document;
 
@@ -608,6 +616,7 @@ public class ProductLuceneDocumentAdapter implements LuceneDocumentAdapter<Produ
                 }
                 addNumericField(document, PRODUCT_CATEGORY_FIELD, category.getCategoryId(), false);
                 addCategoryNameFields(document, category);
+                addSuggestField(document, category.getName(), new StringI18NModel(category.getDisplayName()));
 
                 addCategoryParentIdsFields(document, category);
 
@@ -653,6 +662,49 @@ public class ProductLuceneDocumentAdapter implements LuceneDocumentAdapter<Produ
 
     }
 
+    /**
+     * Add type-ahead suggestion sources for product name and brand (category names are added by
+     * {@link #addCategoryFields(Document, Product, Set, LocalDateTime)}). Suggestions are shown in shops where
+     * product is searchable and are weighted by the same boosts that rank search results, so must be added after
+     * category and inventory fields.
+     *
+     * @param document index document
+     * @param entity   entity
+     */
+    protected void addSuggestionFields(final Document document, final Product entity) {
+
+        final Set<Long> shops = new HashSet<>();
+        for (final IndexableField shop : document.getFields(PRODUCT_SHOP_FIELD)) {
+            final BytesRef point = shop.binaryValue();
+            shops.add(LongPoint.decodeDimension(point.bytes, point.offset));
+        }
+
+        if (shops.isEmpty()) {
+            return; // not searchable in any shop
+        }
+
+        addSuggestField(document, entity.getName(), new StringI18NModel(entity.getDisplayName()));
+        if (entity.getBrand() != null) {
+            addSuggestField(document, entity.getBrand().getName(), null);
+        }
+
+        final double boost = boostValue(document, "featured_boost")
+                * boostValue(document, PRODUCT_CATEGORY_FIELD + "_boost")
+                * boostValue(document, PRODUCT_SHOP_INSTOCK_FIELD + "_boost");
+
+        addSuggestShopFields(document, shops, Math.round(boost * 1000d));
+
+    }
+
+    private double boostValue(final Document document, final String field) {
+        final IndexableField boost = document.getField(field);
+        if (boost != null && boost.numericValue() != null) {
+            // doc values of double fields are raw long bits
+            return Double.longBitsToDouble(boost.numericValue().longValue());
+        }
+        return 1d;
+    }
+
     /**
      * This check should be done only at the lowest level. Catalog is independent of the shops and hence criteria for
      * category being unavailable is global through settings of availability dates.
@@ -1093,4 +1145,13 @@ public class ProductLuceneDocumentAdapter implements LuceneDocumentAdapter<Produ
         this.attributesSupport = attributesSupport;
     }
 
+    /**
+     * Spring IoC.
+     *
+     * @param objectFieldCodec codec for stored search result object
+     */
+    public void setObjectFieldCodec(final ObjectFieldCodec objectFieldCodec) {
+        this.objectFieldCodec = objectFieldCodec;
+    }
+
 }
@@ -60,6 +60,7 @@ public class ProductSkuLuceneDocumentAdapter implements LuceneDocumentAdapter<Pr
     private SkuWarehouseRelationshipSupport skuWarehouseSupport;
     private SkuPriceRelationshipSupport skuPriceSupport;
     private NavigatableAttributesSupport attributesSupport;
+    private ObjectFieldCodec objectFieldCodec = AdapterUtils.defaultObjectFieldCodec();
 
     /**
      * {@inheritDoc}
@@ -163,7 +164,7 @@ public class ProductSkuLuceneDocumentAdapter implements LuceneDocumentAdapter<Pr
 
                     // save the whole search object instead of individual fields, fields are only for searching
                     // must be last step so that we have fully modified object serialised to index
-                    addObjectDefaultField(document, result);
+                    addObjectDefaultField(document, result, objectFieldCodec);
 
                     documents[count++] = document;
 
@@ -765,4 +766,13 @@ public class ProductSkuLuceneDocumentAdapter implements LuceneDocumentAdapter<Pr
         this.attributesSupport = attributesSupport;
     }
 
+    /**
+     * Spring IoC.
+     *
+     * @param objectFieldCodec codec for stored search result object
+     */
+    public void setObjectFieldCodec(final ObjectFieldCodec objectFieldCodec) {
+        this.objectFieldCodec = objectFieldCodec;
+    }
+
 }
@@ -22,11 +22,13 @@ import org.apache.commons.lang.math.NumberUtils;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.facet.*;
 import org.apache.lucene.facet.range.LongRange;
-import org.apache.lucene.facet.range.LongRangeFacetCounts;
-import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
-import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.search.*;
+import org.apache.lucene.util.BytesRef;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yes.cart.constants.Constants;
@@ -35,11 +37,14 @@ import org.yes.cart.domain.i18n.impl.StringI18NModel;
 import org.yes.cart.domain.misc.Pair;
 import org.yes.cart.search.dao.GenericFTS;
 import org.yes.cart.search.dao.LuceneIndexProvider;
+import org.yes.cart.search.dao.entity.AdapterUtils;
 import org.yes.cart.search.dto.FilteredNavigationRecordRequest;
 import org.yes.cart.search.query.impl.AsIsAnalyzer;
 import org.yes.cart.utils.log.Markers;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * User: denispavlov
@@ -52,12 +57,45 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
 
     private static final Logger LOGFTQ = LoggerFactory.getLogger("FTQ");
 
-    private static final Set<String> PKS = Collections.singleton("_PK");
+    private static final Set<String> OBJECT = Collections.singleton(AdapterUtils.FIELD_OBJECT);
 
     private static final int MAX_FACETS = 100;
 
     private LuceneIndexProvider luceneIndexProvider;
 
+    private StoredObjectCacheImpl objectCache;
+
+    private QueryResultCacheImpl resultCache;
+
+    private SearchStatisticsImpl statistics;
+
+    private SuggestionIndexImpl suggestionIndex;
+
+    private final Map<Long, GenericFTSLuceneImpl> shopPartitions = new ConcurrentHashMap<>();
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public GenericFTS<Long, Query> getShopPartition(final long shopId) {
+
+        final LuceneIndexProvider partition = this.luceneIndexProvider.provideShopPartition(shopId);
+        if (partition == this.luceneIndexProvider) {
+            return this;
+        }
+
+        return this.shopPartitions.computeIfAbsent(shopId, key -> {
+            final GenericFTSLuceneImpl fts = new GenericFTSLuceneImpl();
+            fts.setLuceneIndexProvider(partition);
+            fts.setObjectCache(this.objectCache); // entries are keyed by segment, so cache can be shared
+            fts.setResultCache(this.resultCache); // entries are keyed by index provider, so cache can be shared
+            fts.setStatistics(this.statistics);
+            fts.setSuggestionIndex(this.suggestionIndex); // main index has documents of all shops
+            return fts;
+        });
+
+    }
 
     /**
      * {@inheritDoc}
@@ -91,18 +129,40 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
     @Override
     public List<Long> fullTextSearch(final Query query) {
 
+        final long[] found = fullTextSearchPrimaryKeys(query, true);
+
+        final List<Long> pks = new ArrayList<>(found.length);
+        for (final long pk : found) {
+            pks.add(pk);
+        }
+        return pks;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long[] fullTextSearchPrimaryKeys(final Query query) {
+        return fullTextSearchPrimaryKeys(query, false);
+    }
+
+    private long[] fullTextSearchPrimaryKeys(final Query query, final boolean ranked) {
+
         LOGFTQ.debug("Run query {}", query);
 
-        final List<Long> pks = new ArrayList<>();
+        long[] pks = new long[0];
 
+        final long start = System.nanoTime();
         IndexSearcher searcher = this.luceneIndexProvider.provideIndexReader();
         try {
-            final TopDocs topDocs = searcher.search(query, Integer.MAX_VALUE);
-            if (topDocs.totalHits.value > 0) {
-                for (final ScoreDoc hit : topDocs.scoreDocs) {
-                    final Document doc = searcher.doc(hit.doc, PKS);
-                    pks.add(Long.valueOf(doc.get("_PK")));
-                    logExplanation(searcher, query, null, hit.doc);
+            final PrimaryKeyCollector collector = new PrimaryKeyCollector(ranked);
+            searcher.search(query, collector);
+            pks = collector.getPrimaryKeys();
+            final int[] docs = collector.getDocs();
+            recordStatistics(ranked ? "search" : "primaryKeys", searcher, query, start, pks.length, 0, docs.length > 0 ? docs[0] : -1);
+            if (LOGFTQ.isTraceEnabled()) {
+                for (final int doc : docs) {
+                    logExplanation(searcher, query, null, doc);
                 }
             }
         } catch (IllegalStateException ise) {
@@ -113,7 +173,9 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
             this.luceneIndexProvider.releaseIndexReader(searcher);
         }
 
-        LOGFTQ.debug("Result is {} query {}", pks, query);
+        if (LOGFTQ.isDebugEnabled()) {
+            LOGFTQ.debug("Result is {} query {}", Arrays.toString(pks), query);
+        }
 
         return pks;
     }
@@ -124,10 +186,26 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
     @Override
     public List<Long> fullTextSearch(final Query query, final int firstResult, final int maxResults, final String sortFieldName, final boolean reverse) {
 
+        final long[] found = fullTextSearchPrimaryKeys(query, firstResult, maxResults, sortFieldName, reverse);
+
+        final List<Long> pks = new ArrayList<>(found.length);
+        for (final long pk : found) {
+            pks.add(pk);
+        }
+        return pks;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long[] fullTextSearchPrimaryKeys(final Query query, final int firstResult, final int maxResults, final String sortFieldName, final boolean reverse) {
+
         LOGFTQ.debug("Run query {}", query);
 
-        final List<Long> pks = new ArrayList<>();
+        long[] pks = new long[0];
 
+        final long start = System.nanoTime();
         IndexSearcher searcher = this.luceneIndexProvider.provideIndexReader();
         try {
             final TopDocs topDocs;
@@ -138,14 +216,18 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
             } else {
                 topDocs = searcher.search(query, firstResult + maxResults);
             }
-            if (topDocs.totalHits.value > 0) {
-                for (int i = firstResult; i < firstResult + maxResults; i++) {
+            final int end = Math.min(topDocs.scoreDocs.length, firstResult + maxResults);
+            if (end > firstResult) {
+                final List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+                pks = new long[end - firstResult];
+                for (int i = firstResult; i < end; i++) {
                     final ScoreDoc hit = topDocs.scoreDocs[i];
-                    final Document doc = searcher.doc(hit.doc, PKS);
-                    pks.add(Long.valueOf(doc.get("_PK")));
+                    final LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(hit.doc, leaves));
+                    pks[i - firstResult] = PrimaryKeyCollector.primaryKey(leaf, hit.doc - leaf.docBase);
                     logExplanation(searcher, query, sort, hit.doc);
                 }
             }
+            recordStatistics("search", searcher, query, start, topDocs.totalHits.value, 0, topDoc(topDocs));
         } catch (IllegalStateException ise) {
             LOG.warn("Failed to run query " + query + ", caused: " + ise.getMessage());
         } catch (Exception exp) {
@@ -154,7 +236,9 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
             this.luceneIndexProvider.releaseIndexReader(searcher);
         }
 
-        LOGFTQ.debug("Result is {} query {}", pks, query);
+        if (LOGFTQ.isDebugEnabled()) {
+            LOGFTQ.debug("Result is {} query {}", Arrays.toString(pks), query);
+        }
 
         return pks;
     }
@@ -172,6 +256,7 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
         Pair<List<Object[]>, Integer> result = EMPTY;
         int lastResult = maxResults < 0 ? Integer.MAX_VALUE : firstResult + maxResults;
 
+        final long start = System.nanoTime();
         IndexSearcher searcher = this.luceneIndexProvider.provideIndexReader();
         try {
             final Set<String> retrieve = new HashSet<>(Arrays.asList(fields));
@@ -183,6 +268,7 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
             } else {
                 topDocs = searcher.search(query, lastResult);
             }
+            recordStatistics("fields", searcher, query, start, topDocs.totalHits.value, 0, topDoc(topDocs));
             if (topDocs.totalHits.value > firstResult) {
 
                 lastResult = lastResult > topDocs.totalHits.value ? (int) topDocs.totalHits.value : lastResult;
@@ -194,7 +280,7 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
                     final Document doc = searcher.doc(hit.doc, retrieve);
                     final Object[] values = new Object[fields.length];
                     for (int ii = 0; ii < fields.length; ii++) {
-                        values[ii] = doc.get(fields[ii]);
+                        values[ii] = storedValue(doc, fields[ii]);
                     }
                     resItems.add(values);
                     logExplanation(searcher, query, sort, hit.doc);
@@ -215,6 +301,171 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
         return result;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <O> Pair<List<O>, Integer> fullTextSearchStoredObjects(final Query query, final int firstResult, final int maxResults, final String sortFieldName, final boolean reverse, final Class<O> type) {
+        return fullTextSearchStoredObjects(query, null, firstResult, maxResults, sortFieldName, reverse, type, false).getFirst();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <O> Pair<Pair<List<O>, Integer>, String> fullTextSearchStoredObjects(final Query query, final String cursor, final int firstResult, final int maxResults, final String sortFieldName, final boolean reverse, final Class<O> type) {
+        return fullTextSearchStoredObjects(query, cursor, firstResult, maxResults, sortFieldName, reverse, type, true);
+    }
+
+    private <O> Pair<Pair<List<O>, Integer>, String> fullTextSearchStoredObjects(final Query query, final String cursor, final int firstResult, final int maxResults, final String sortFieldName, final boolean reverse, final Class<O> type, final boolean nextCursor) {
+
+        LOGFTQ.debug("Run query {}", query);
+
+        final long start = System.nanoTime();
+        IndexSearcher searcher = this.luceneIndexProvider.provideIndexReader();
+        try {
+            final Sort sort = StringUtils.isNotBlank(sortFieldName) ? new Sort(new SortField(sortFieldName, SortField.Type.STRING_VAL, reverse)) : null;
+
+            final int[] topDoc = new int[] { -1 };
+            final Pair<Pair<List<O>, Integer>, String> result = cachedStoredObjects(searcher, query, sort, cursor, firstResult, maxResults, type, nextCursor, topDoc);
+            recordStatistics("storedObjects", searcher, query, start, result.getFirst().getSecond(), 0, topDoc[0]);
+
+            // replay without cursor, as cursor is bound to the current reader
+            this.luceneIndexProvider.recordWarmUpQuery(
+                    Arrays.asList(query, sort, firstResult, maxResults, type, nextCursor),
+                    warmUp -> cachedStoredObjects(warmUp, query, sort, null, firstResult, maxResults, type, nextCursor, null)
+            );
+
+            return result;
+
+        } catch (IllegalStateException ise) {
+            LOG.warn("Failed to run query " + query + ", caused: " + ise.getMessage());
+        } catch (Exception exp) {
+            LOG.error("Failed to run query " + query + ", caused: " + exp.getMessage(), exp);
+        } finally {
+            this.luceneIndexProvider.releaseIndexReader(searcher);
+        }
+
+        return new Pair<>(new Pair<>(Collections.emptyList(), 0), null);
+    }
+
+    private <O> Pair<Pair<List<O>, Integer>, String> cachedStoredObjects(final IndexSearcher searcher, final Query query, final Sort sort, final String cursor, final int firstResult, final int maxResults, final Class<O> type, final boolean nextCursor, final int[] topDoc) throws Exception {
+
+        final QueryResultCacheImpl cache = this.resultCache;
+        if (cache == null) {
+            return fullTextSearchStoredObjects(searcher, query, sort, cursor, firstResult, maxResults, type, nextCursor, topDoc);
+        }
+
+        final Object key = Arrays.asList(this.luceneIndexProvider, query, sort, cursor, firstResult, maxResults, type, nextCursor);
+        final CachedPage cached = (CachedPage) cache.get(key, searcher, query, sort == null);
+        if (cached != null) {
+            LOGFTQ.debug("Cached result for query {}", query);
+            return (Pair<Pair<List<O>, Integer>, String>) cached.resolve(searcher, query, sort, firstResult + maxResults);
+        }
+
+        final Pair<Pair<List<O>, Integer>, String> result = fullTextSearchStoredObjects(searcher, query, sort, cursor, firstResult, maxResults, type, nextCursor, topDoc);
+        cache.put(key, searcher, query, new CachedPage(searcher, query, sort, firstResult + maxResults, result), result.getFirst().getFirst().size() + 1);
+        return result;
+
+    }
+
+    /*
+     * Page of stored objects, top doc of the search is set into topDoc holder (optional), so that slow search
+     * can be explained without running it again.
+     */
+    private <O> Pair<Pair<List<O>, Integer>, String> fullTextSearchStoredObjects(final IndexSearcher searcher, final Query query, final Sort sort, final String cursor, final int firstResult, final int maxResults, final Class<O> type, final boolean nextCursor, final int[] topDoc) throws Exception {
+
+        int lastResult = maxResults < 0 ? Integer.MAX_VALUE : firstResult + maxResults;
+
+        final long version = SearchAfterCursor.version(searcher.getIndexReader());
+        final ScoreDoc after = maxResults > 0 ? SearchAfterCursor.decode(cursor, version, query, sort, firstResult) : null;
+
+        final TopDocs topDocs;
+        final int offset;
+        if (after != null) {
+            // continue from last hit of the previous page, so that deep pages cost the same as the first one
+            offset = 0;
+            topDocs = sort != null ? searcher.searchAfter(after, query, maxResults, sort) : searcher.searchAfter(after, query, maxResults);
+        } else {
+            offset = firstResult;
+            topDocs = sort != null ? searcher.search(query, lastResult, sort) : searcher.search(query, lastResult);
+        }
+        if (topDoc != null) {
+            topDoc[0] = topDoc(topDocs);
+        }
+        if (topDocs.totalHits.value > firstResult) {
+
+            lastResult = lastResult > topDocs.totalHits.value ? (int) topDocs.totalHits.value : lastResult;
+            final int pageEnd = Math.min(topDocs.scoreDocs.length, offset + lastResult - firstResult);
+
+            final List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+            final List<O> resItems = new ArrayList<>(pageEnd - offset);
+
+            for (int i = offset; i < pageEnd; i++) {
+                final ScoreDoc hit = topDocs.scoreDocs[i];
+                final O object = storedObject(searcher, leaves, hit.doc, type);
+                if (object != null) {
+                    resItems.add(object);
+                }
+                logExplanation(searcher, query, sort, hit.doc);
+            }
+
+            String next = null;
+            if (nextCursor && version >= 0L && pageEnd > offset && lastResult < topDocs.totalHits.value) {
+                next = SearchAfterCursor.encode(version, query, sort, lastResult, topDocs.scoreDocs[pageEnd - 1]);
+            }
+
+            return new Pair<>(new Pair<>(Collections.unmodifiableList(resItems), (int) topDocs.totalHits.value), next);
+        }
+
+        LOGFTQ.debug("Result is empty for query {}", query);
+
+        return new Pair<>(new Pair<>(Collections.emptyList(), 0), null);
+    }
+
+    /*
+     * Decoded stored object, which is looked up in object cache using segment core key and segment doc id.
+     */
+    private <O> O storedObject(final IndexSearcher searcher, final List<LeafReaderContext> leaves, final int doc, final Class<O> type) throws IOException {
+
+        final StoredObjectCacheImpl cache = this.objectCache;
+        final LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(doc, leaves));
+        final IndexReader.CacheHelper segment = cache != null ? leaf.reader().getCoreCacheHelper() : null;
+        final int segmentDoc = doc - leaf.docBase;
+
+        if (segment != null) {
+            final Object cached = cache.get(segment.getKey(), segmentDoc);
+            if (type.isInstance(cached)) {
+                return type.cast(cached);
+            }
+        }
+
+        final Object serialized = storedValue(searcher.doc(doc, OBJECT), AdapterUtils.FIELD_OBJECT);
+        final O object = AdapterUtils.readObjectFieldValue(serialized, type);
+        if (segment != null && object != null) {
+            final int weight = serialized instanceof byte[] ? ((byte[]) serialized).length : ((String) serialized).length() << 1;
+            cache.put(segment, segmentDoc, object, weight);
+        }
+        return object;
+
+    }
+
+    /*
+     * Stored value is either string or binary (e.g. object field written by binary codec).
+     */
+    private Object storedValue(final Document doc, final String field) {
+        final IndexableField value = doc.getField(field);
+        if (value == null) {
+            return null;
+        }
+        final String string = value.stringValue();
+        if (string != null) {
+            return string;
+        }
+        final BytesRef binary = value.binaryValue();
+        return binary != null ? BytesRef.deepCopyOf(binary).bytes : null;
+    }
+
     private void logExplanation(final IndexSearcher searcher, final Query query, final Sort sort, final int doc) throws Exception {
         if (LOGFTQ.isTraceEnabled()) {
 
@@ -236,6 +487,44 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
 
     }
 
+    /*
+     * Record latency of the search and capture the query with explanation of the top hit if search is slow.
+     */
+    private void recordStatistics(final String operation, final IndexSearcher searcher, final Query query, final long start, final long hits, final int facets) {
+        recordStatistics(operation, searcher, query, start, hits, facets, -1);
+    }
+
+    /*
+     * Slow search is explained for the top doc that it has already found (if any), so that it is not run again.
+     */
+    private void recordStatistics(final String operation, final IndexSearcher searcher, final Query query, final long start, final long hits, final int facets, final int topDoc) {
+
+        final SearchStatisticsImpl stats = this.statistics;
+        if (stats == null) {
+            return;
+        }
+
+        final long nanos = System.nanoTime() - start;
+        stats.record(operation, query, nanos, hits, facets);
+
+        if (stats.isSlow(nanos)) {
+            String explanation = null;
+            if (topDoc >= 0) {
+                try {
+                    explanation = searcher.explain(query, topDoc).toString();
+                } catch (Exception exp) {
+                    explanation = "Unable to explain, caused: " + exp.getMessage();
+                }
+            }
+            stats.recordSlow(operation, query, nanos, hits, explanation);
+        }
+
+    }
+
+    private static int topDoc(final TopDocs topDocs) {
+        return topDocs.scoreDocs.length > 0 ? topDocs.scoreDocs[0].doc : -1;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -250,117 +539,196 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
 
         final Map<String, List<Pair<Pair<String, I18NModel>, Integer>>> result = new LinkedHashMap<>();
 
-        final FacetsCollector fc = new FacetsCollector();
-
+        final long start = System.nanoTime();
         IndexSearcher searcher = this.luceneIndexProvider.provideIndexReader();
         try {
 
-            FacetsCollector.search(searcher, query, 0, fc);
+            final long hits = fullTextSearchNavigation(searcher, query, facetingRequest, result);
 
+            if (this.statistics != null) {
+                int facets = 0;
+                for (final List<Pair<Pair<String, I18NModel>, Integer>> values : result.values()) {
+                    facets += values.size();
+                }
+                recordStatistics("navigation", searcher, query, start, hits, facets);
+            }
+
+            final List<String> facetNames = new ArrayList<>(facetingRequest.size());
             for (final FilteredNavigationRecordRequest request : facetingRequest) {
+                facetNames.add(request.getFacetName());
+            }
+            this.luceneIndexProvider.recordWarmUpQuery(
+                    Arrays.asList(query, facetNames),
+                    warmUp -> fullTextSearchNavigation(warmUp, query, facetingRequest, new LinkedHashMap<>())
+            );
 
-                try {
-                    // always reset to empty first (could be multiple attribute mappings with invalid fields type in index, so hard reset)
-                    final List<Pair<Pair<String, I18NModel>, Integer>> values = new ArrayList<>();
-                    result.put(request.getFacetName(), values);
+        } catch (IllegalStateException ise) {
+            LOG.warn("Failed to run query " + query + ", caused: " + ise.getMessage());
+        } catch (Exception exp) {
+            LOG.error("Failed to run query " + query + ", caused: " + exp.getMessage(), exp);
+        } finally {
+            this.luceneIndexProvider.releaseIndexReader(searcher);
+        }
 
-                    final FacetsConfig facetsConfig = new FacetsConfig();
-                    facetsConfig.setIndexFieldName(request.getField(), request.getField());
-                    final boolean range = request.isRangeValue();
+        LOGFTQ.debug("Result is {} query {}", result, query);
 
-                    Facets facets = null;
+        return result;
+    }
 
-                    if (range) {
+    private long fullTextSearchNavigation(final IndexSearcher searcher,
+                                          final Query query,
+                                          final List<FilteredNavigationRecordRequest> facetingRequest,
+                                          final Map<String, List<Pair<Pair<String, I18NModel>, Integer>>> result) throws IOException {
 
-                        final List<Pair<String, String>> ranges = request.getRangeValues();
-                        if (CollectionUtils.isNotEmpty(ranges)) {
+        final FacetsCollector fc = new FacetsCollector();
 
-                            final LongRange[] longRanges = new LongRange[ranges.size()];
-                            for (int r = 0; r < longRanges.length; r++) {
-                                final Pair<String, String> rangeVals = ranges.get(r);
-                                final String compareValue = rangeVals.getFirst() + Constants.RANGE_NAVIGATION_DELIMITER + rangeVals.getSecond();
-                                longRanges[r] = new LongRange(compareValue, NumberUtils.toLong(rangeVals.getFirst()), true, NumberUtils.toLong(rangeVals.getSecond()), false);
-                            }
+        final TopDocs hits = FacetsCollector.search(searcher, query, 0, fc);
 
-                            facets = new LongRangeFacetCounts(request.getField(), fc, longRanges);
-                        }
+        // All dimensions are counted in a single pass over the hits
+        final MultiFacetCounts facets = new MultiFacetCounts();
+        final List<Pair<FilteredNavigationRecordRequest, MultiFacetCounts.Dim>> dims = new ArrayList<>(facetingRequest.size());
+        // last request for each facet name, which is the only one whose values are kept (same as counting one by one)
+        final Map<String, FilteredNavigationRecordRequest> lastRequest = new HashMap<>(facetingRequest.size() * 2);
 
-                    } else {
+        for (final FilteredNavigationRecordRequest request : facetingRequest) {
 
-                        facets = new SortedSetDocValuesFacetCounts(new DefaultSortedSetDocValuesReaderState(searcher.getIndexReader(), request.getField()), fc);
+            try {
+                // always reset to empty first (could be multiple attribute mappings with invalid fields type in index, so hard reset)
+                result.put(request.getFacetName(), new ArrayList<>());
+                lastRequest.put(request.getFacetName(), request);
 
-                    }
+                final boolean range = request.isRangeValue();
+
+                if (range) {
 
-                    if (facets != null) {
-
-                        final FacetResult topValues = facets.getTopChildren(MAX_FACETS, request.getField());
-
-                        if (topValues != null && topValues.value != null && topValues.value.intValue() > 0) {
-
-                            final Map<String, Pair<Pair<String, I18NModel>, Integer>> distinctFacetValues =
-                                    new LinkedHashMap<>(topValues.labelValues.length * 2);
-
-                            for (final LabelAndValue lav : topValues.labelValues) {
-
-                                final Pair<String, I18NModel> label;
-                                final int pos = lav.label.indexOf(Constants.FACET_NAVIGATION_DELIMITER);
-                                if (pos != -1) {
-                                    final String value = lav.label.substring(0, pos);
-                                    final String displayValue = lav.label.substring(pos + Constants.FACET_NAVIGATION_DELIMITER.length());
-                                    label = new Pair<>(
-                                            value,
-                                            new StringI18NModel(displayValue)
-                                    );
-                                } else {
-                                    label = new Pair<>(
-                                            lav.label,
-                                            null
-                                    );
-                                }
-
-                                Pair<Pair<String, I18NModel>, Integer> existing = distinctFacetValues.get(label.getFirst());
-                                if (existing != null) {
-                                    /*
-                                        if we have this value then need to de-duplicate
-                                        we choose more complete I18n model (assumed to be the one with most translations)
-                                     */
-
-                                    // if existing i18n model is not null and has more values we keep it
-                                    if (existing.getFirst().getSecond() != null &&
-                                            (label.getSecond() == null ||
-                                            existing.getFirst().getSecond().getAllValues().size() > label.getSecond().getAllValues().size())) {
-                                        distinctFacetValues.put(
-                                                label.getFirst(),
-                                                new Pair<>(existing.getFirst(), lav.value.intValue() + existing.getSecond())
-                                        );
-                                    } else { // otherwise swap it for new AV i18n model
-                                        distinctFacetValues.put(
-                                                label.getFirst(),
-                                                new Pair<>(label, lav.value.intValue() + existing.getSecond())
-                                        );
-                                    }
-                                } else {
-                                    distinctFacetValues.put(
-                                            label.getFirst(),
-                                            new Pair<>(label, lav.value.intValue())
-                                    );
-                                }
-
-                            }
-
-                            // populate with distinct facet values only
-                            values.addAll(distinctFacetValues.values());
+                    final List<Pair<String, String>> ranges = request.getRangeValues();
+                    if (CollectionUtils.isNotEmpty(ranges)) {
 
+                        final LongRange[] longRanges = new LongRange[ranges.size()];
+                        for (int r = 0; r < longRanges.length; r++) {
+                            final Pair<String, String> rangeVals = ranges.get(r);
+                            final String compareValue = rangeVals.getFirst() + Constants.RANGE_NAVIGATION_DELIMITER + rangeVals.getSecond();
+                            longRanges[r] = new LongRange(compareValue, NumberUtils.toLong(rangeVals.getFirst()), true, NumberUtils.toLong(rangeVals.getSecond()), false);
                         }
 
+                        dims.add(new Pair<>(request, facets.addRangeDim(request.getField(), longRanges)));
                     }
-                } catch (IllegalArgumentException | IllegalStateException iae) {
-                    LOG.debug(Markers.alert(), "Failed to create facet for request " + request + ", caused: " + iae.getMessage());
-                } catch (Exception exp) {
-                    LOG.error(Markers.alert(), "Failed to create facet for request " + request + ", caused: " + exp.getMessage(), exp);
+
+                } else {
+
+                    dims.add(new Pair<>(request, facets.addSortedSetDim(this.luceneIndexProvider.provideFacetsReaderState(searcher, request.getField()))));
+
+                }
+            } catch (IllegalArgumentException | IllegalStateException iae) {
+                LOG.debug(Markers.alert(), "Failed to create facet for request " + request + ", caused: " + iae.getMessage());
+            } catch (Exception exp) {
+                LOG.error(Markers.alert(), "Failed to create facet for request " + request + ", caused: " + exp.getMessage(), exp);
+            }
+        }
+
+        facets.count(fc);
+
+        for (final Pair<FilteredNavigationRecordRequest, MultiFacetCounts.Dim> dim : dims) {
+
+            final FilteredNavigationRecordRequest request = dim.getFirst();
+            if (lastRequest.get(request.getFacetName()) != request) {
+                continue; // values are reset by later request with same facet name
+            }
+            try {
+
+                final FacetResult topValues = dim.getSecond().getTopChildren(MAX_FACETS);
+
+                if (topValues != null && topValues.value != null && topValues.value.intValue() > 0) {
+
+                    // populate with distinct facet values only
+                    result.get(request.getFacetName()).addAll(distinctFacetValues(topValues));
+
+                }
+            } catch (IllegalArgumentException | IllegalStateException iae) {
+                LOG.debug(Markers.alert(), "Failed to create facet for request " + request + ", caused: " + iae.getMessage());
+            } catch (Exception exp) {
+                LOG.error(Markers.alert(), "Failed to create facet for request " + request + ", caused: " + exp.getMessage(), exp);
+            }
+        }
+
+        return hits.totalHits.value;
+
+    }
+
+    private Collection<Pair<Pair<String, I18NModel>, Integer>> distinctFacetValues(final FacetResult topValues) {
+
+        final Map<String, Pair<Pair<String, I18NModel>, Integer>> distinctFacetValues =
+                new LinkedHashMap<>(topValues.labelValues.length * 2);
+
+        for (final LabelAndValue lav : topValues.labelValues) {
+
+            final Pair<String, I18NModel> label;
+            final int pos = lav.label.indexOf(Constants.FACET_NAVIGATION_DELIMITER);
+            if (pos != -1) {
+                final String value = lav.label.substring(0, pos);
+                final String displayValue = lav.label.substring(pos + Constants.FACET_NAVIGATION_DELIMITER.length());
+                label = new Pair<>(
+                        value,
+                        new StringI18NModel(displayValue)
+                );
+            } else {
+                label = new Pair<>(
+                        lav.label,
+                        null
+                );
+            }
+
+            Pair<Pair<String, I18NModel>, Integer> existing = distinctFacetValues.get(label.getFirst());
+            if (existing != null) {
+                /*
+                    if we have this value then need to de-duplicate
+                    we choose more complete I18n model (assumed to be the one with most translations)
+                 */
+
+                // if existing i18n model is not null and has more values we keep it
+                if (existing.getFirst().getSecond() != null &&
+                        (label.getSecond() == null ||
+                        existing.getFirst().getSecond().getAllValues().size() > label.getSecond().getAllValues().size())) {
+                    distinctFacetValues.put(
+                            label.getFirst(),
+                            new Pair<>(existing.getFirst(), lav.value.intValue() + existing.getSecond())
+                    );
+                } else { // otherwise swap it for new AV i18n model
+                    distinctFacetValues.put(
+                            label.getFirst(),
+                            new Pair<>(label, lav.value.intValue() + existing.getSecond())
+                    );
                 }
+            } else {
+                distinctFacetValues.put(
+                        label.getFirst(),
+                        new Pair<>(label, lav.value.intValue())
+                );
             }
 
+        }
+
+        return distinctFacetValues.values();
+
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int fullTextSearchCount(final Query query) {
+
+        LOGFTQ.debug("Run count query {}", query);
+
+        int count = 0;
+
+        final long start = System.nanoTime();
+        IndexSearcher searcher = this.luceneIndexProvider.provideIndexReader();
+
+        try {
+            count = cachedCount(searcher, query);
+            recordStatistics("count", searcher, query, start, count, 0);
+            this.luceneIndexProvider.recordWarmUpQuery(Arrays.asList(query), warmUp -> cachedCount(warmUp, query));
         } catch (IllegalStateException ise) {
             LOG.warn("Failed to run query " + query + ", caused: " + ise.getMessage());
         } catch (Exception exp) {
@@ -369,25 +737,54 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
             this.luceneIndexProvider.releaseIndexReader(searcher);
         }
 
-        LOGFTQ.debug("Result is {} query {}", result, query);
+        LOGFTQ.debug("Count is {} query {}", count, query);
+
+        return count;
+    }
+
+    private int cachedCount(final IndexSearcher searcher, final Query query) throws IOException {
+
+        final QueryResultCacheImpl cache = this.resultCache;
+        if (cache == null) {
+            return searcher.count(query);
+        }
+
+        final Object key = Arrays.asList(this.luceneIndexProvider, query);
+        final Object cached = cache.get(key, searcher, query, false);
+        if (cached != null) {
+            return (Integer) cached;
+        }
+
+        final int count = searcher.count(query);
+        cache.put(key, searcher, query, count, 1);
+        return count;
 
-        return result;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public int fullTextSearchCount(final Query query) {
+    public int fullTextSearchFirstMatch(final List<Query> queries) {
 
-        LOGFTQ.debug("Run count query {}", query);
+        if (CollectionUtils.isEmpty(queries)) {
+            return -1;
+        }
 
-        int count = 0;
+        final Query query = StrictnessLevelCollector.disjunction(queries);
+
+        LOGFTQ.debug("Run first match query {}", query);
+
+        int level = -1;
 
+        final long start = System.nanoTime();
         IndexSearcher searcher = this.luceneIndexProvider.provideIndexReader();
 
         try {
-            count = searcher.count(query);
+            final StrictnessLevelCollector collector = new StrictnessLevelCollector(searcher, queries);
+            searcher.search(query, collector);
+            level = collector.getStrictestLevel();
+            recordStatistics("firstMatch", searcher, query, start, level < 0 ? 0 : 1, 0);
         } catch (IllegalStateException ise) {
             LOG.warn("Failed to run query " + query + ", caused: " + ise.getMessage());
         } catch (Exception exp) {
@@ -396,9 +793,26 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
             this.luceneIndexProvider.releaseIndexReader(searcher);
         }
 
-        LOGFTQ.debug("Count is {} query {}", count, query);
+        LOGFTQ.debug("First match is {} query {}", level, query);
 
-        return count;
+        return level;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> suggest(final long shopId, final String language, final String prefix, final int maxResults) {
+
+        if (this.suggestionIndex == null) {
+            return Collections.emptyList();
+        }
+
+        final List<String> suggestions = this.suggestionIndex.suggest(shopId, language, prefix, maxResults);
+
+        LOGFTQ.debug("Suggestions for {} in shop {}: {}", prefix, shopId, suggestions);
+
+        return suggestions;
     }
 
 
@@ -411,4 +825,100 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
         this.luceneIndexProvider = luceneIndexProvider;
     }
 
+    /**
+     * Spring IoC.
+     *
+     * @param objectCache cache for decoded stored objects (optional)
+     */
+    public void setObjectCache(final StoredObjectCacheImpl objectCache) {
+        this.objectCache = objectCache;
+    }
+
+    /**
+     * Spring IoC.
+     *
+     * @param resultCache cache for search results (optional)
+     */
+    public void setResultCache(final QueryResultCacheImpl resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Spring IoC.
+     *
+     * @param statistics search latency statistics and slow query log (optional)
+     */
+    public void setStatistics(final SearchStatisticsImpl statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Spring IoC.
+     *
+     * @param suggestionIndex type-ahead suggestions (optional)
+     */
+    public void setSuggestionIndex(final SuggestionIndexImpl suggestionIndex) {
+        this.suggestionIndex = suggestionIndex;
+    }
+
+    /*
+     * Cached page of stored objects. Next page cursor is bound to the reader version and top level document id of
+     * the last hit, so when page is served from cache after refresh the cursor is moved to the current reader using
+     * segment of the last hit, or dropped if it cannot be (next page is then found by offset).
+     */
+    private static final class CachedPage {
+
+        private final Pair<? extends Pair<? extends List<?>, Integer>, String> result;
+        private final long version;
+        private final IndexReader.CacheKey lastSegment;
+        private final int lastSegmentDoc;
+        private final ScoreDoc last;
+
+        private CachedPage(final IndexSearcher searcher,
+                           final Query query,
+                           final Sort sort,
+                           final int nextFirst,
+                           final Pair<? extends Pair<? extends List<?>, Integer>, String> result) {
+            this.result = result;
+            this.version = SearchAfterCursor.version(searcher.getIndexReader());
+            this.last = SearchAfterCursor.decode(result.getSecond(), this.version, query, sort, nextFirst);
+            if (this.last != null) {
+                final List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+                final LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(this.last.doc, leaves));
+                final IndexReader.CacheHelper core = leaf.reader().getCoreCacheHelper();
+                this.lastSegment = core != null ? core.getKey() : null;
+                this.lastSegmentDoc = this.last.doc - leaf.docBase;
+            } else {
+                this.lastSegment = null;
+                this.lastSegmentDoc = -1;
+            }
+        }
+
+        private Pair<? extends Pair<? extends List<?>, Integer>, String> resolve(final IndexSearcher searcher,
+                                                                                 final Query query,
+                                                                                 final Sort sort,
+                                                                                 final int nextFirst) throws IOException {
+
+            final long current = SearchAfterCursor.version(searcher.getIndexReader());
+            if (result.getSecond() == null || current == this.version) {
+                return result;
+            }
+
+            // relevance scores depend on statistics of the whole index, so last score may not match any more
+            if (sort != null && current >= 0L && this.lastSegment != null) {
+                for (final LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+                    final IndexReader.CacheHelper core = leaf.reader().getCoreCacheHelper();
+                    if (core != null && core.getKey() == this.lastSegment) {
+                        final ScoreDoc moved = new FieldDoc(leaf.docBase + this.lastSegmentDoc, this.last.score, ((FieldDoc) this.last).fields);
+                        return new Pair<>(result.getFirst(), SearchAfterCursor.encode(current, query, sort, nextFirst, moved));
+                    }
+                }
+            }
+
+            return new Pair<>(result.getFirst(), null);
+
+        }
+
+    }
+
 }
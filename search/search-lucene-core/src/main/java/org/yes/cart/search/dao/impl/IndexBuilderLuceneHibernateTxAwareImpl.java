@@ -28,6 +28,8 @@ import org.yes.cart.search.dao.LuceneDocumentAdapter;
 import org.yes.cart.search.dao.LuceneIndexProvider;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -42,6 +44,8 @@ public class IndexBuilderLuceneHibernateTxAwareImpl<T, PK extends Serializable>
     protected PlatformTransactionManager platformTransactionManager;
     protected String findAllNamedQuery;
     protected String findOneNamedQuery;
+    protected String findManyNamedQuery;
+    protected int findManyBatchSize = 500;
 
     public IndexBuilderLuceneHibernateTxAwareImpl(final LuceneDocumentAdapter<T, PK> documentAdapter,
                                                   final LuceneIndexProvider indexProvider,
@@ -56,6 +60,21 @@ public class IndexBuilderLuceneHibernateTxAwareImpl<T, PK extends Serializable>
         return genericDao.findById(primaryKey);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected List<T> findByIds(final Collection<PK> primaryKeys) {
+        if (StringUtils.isBlank(this.findManyNamedQuery)) {
+            return super.findByIds(primaryKeys);
+        }
+        final List<PK> all = new ArrayList<>(primaryKeys);
+        final List<T> entities = new ArrayList<>(all.size());
+        for (int i = 0; i < all.size(); i += this.findManyBatchSize) {
+            final List<PK> chunk = all.subList(i, Math.min(all.size(), i + this.findManyBatchSize));
+            entities.addAll(genericDao.findByNamedQuery(this.findManyNamedQuery, chunk));
+        }
+        return entities;
+    }
+
     @Override
     protected List<PK> findPage(final int start, final int size) {
         return (List) genericDao.findQueryObjectRangeByNamedQuery(this.findAllNamedQuery, start * size, size);
@@ -127,4 +146,22 @@ public class IndexBuilderLuceneHibernateTxAwareImpl<T, PK extends Serializable>
     public void setFindOneNamedQuery(final String findOneNamedQuery) {
         this.findOneNamedQuery = findOneNamedQuery;
     }
+
+    /**
+     * Sprig IoC.
+     *
+     * @param findManyNamedQuery named query to find entities by collection of PKs (single parameter)
+     */
+    public void setFindManyNamedQuery(final String findManyNamedQuery) {
+        this.findManyNamedQuery = findManyNamedQuery;
+    }
+
+    /**
+     * Sprig IoC.
+     *
+     * @param findManyBatchSize max number of PKs passed to single find many query
+     */
+    public void setFindManyBatchSize(final int findManyBatchSize) {
+        this.findManyBatchSize = findManyBatchSize;
+    }
 }
@@ -17,6 +17,7 @@
 package org.yes.cart.search.dao.impl;
 
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang.ArrayUtils;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.facet.FacetsConfig;
@@ -38,9 +39,13 @@ import org.yes.cart.utils.TimeContext;
 
 import java.io.IOException;
 import java.io.Serializable;
-import java.util.List;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
 
 /**
  * User: denispavlov
@@ -60,6 +65,11 @@ public abstract class IndexBuilderLuceneImpl<T, PK extends Serializable> impleme
 
     private TaskExecutor indexExecutor;
 
+    private int reindexWorkers = 1;
+    private int commitEveryDocuments = 10000;
+    private long commitEveryMillis = 60000L;
+    private long waitForRefreshMillis = 0L;
+
     public IndexBuilderLuceneImpl(final LuceneDocumentAdapter<T, PK> documentAdapter,
                                   final LuceneIndexProvider indexProvider) {
         this.documentAdapter = documentAdapter;
@@ -75,6 +85,46 @@ public abstract class IndexBuilderLuceneImpl<T, PK extends Serializable> impleme
         this.indexExecutor = indexExecutor;
     }
 
+    /**
+     * Number of worker threads that load and convert entities during full reindex. Default is 1, which
+     * indexes all entities sequentially on the indexing thread. With more than one worker full reindex
+     * is pipelined: indexing thread pages primary keys, workers load and convert entities in their own
+     * transactions and single writer thread adds documents to the index.
+     *
+     * @param reindexWorkers number of workers
+     */
+    public void setReindexWorkers(final int reindexWorkers) {
+        this.reindexWorkers = reindexWorkers;
+    }
+
+    /**
+     * Pipelined full reindex commits the index after this many documents have been written.
+     *
+     * @param commitEveryDocuments number of documents between commits
+     */
+    public void setCommitEveryDocuments(final int commitEveryDocuments) {
+        this.commitEveryDocuments = commitEveryDocuments;
+    }
+
+    /**
+     * Pipelined full reindex commits the index if this much time has passed since last commit.
+     *
+     * @param commitEveryMillis max time between commits in millis
+     */
+    public void setCommitEveryMillis(final long commitEveryMillis) {
+        this.commitEveryMillis = commitEveryMillis;
+    }
+
+    /**
+     * Single entity reindex waits this long for the change to become visible to readers. Default is 0,
+     * which does not wait, so changes become visible when index provider refreshes the readers.
+     *
+     * @param waitForRefreshMillis max time to wait for change to be visible
+     */
+    public void setWaitForRefreshMillis(final long waitForRefreshMillis) {
+        this.waitForRefreshMillis = waitForRefreshMillis;
+    }
+
     /**
      * Extension hook for persistence layer.
      *
@@ -90,6 +140,10 @@ public abstract class IndexBuilderLuceneImpl<T, PK extends Serializable> impleme
     @Override
     public void fullTextSearchReindex(final PK primaryKey, final boolean purgeOnly) {
 
+        if (isReplica()) {
+            return;
+        }
+
         boolean remove = purgeOnly;
 
         Pair<PK, Document[]> documents = null;
@@ -112,8 +166,12 @@ public abstract class IndexBuilderLuceneImpl<T, PK extends Serializable> impleme
                         name, primaryKey, counts[0], counts[1], counts[2]);
             }
 
-            // Refresh ensures we use an updated index
-            indexProvider.refreshIfNecessary();
+            // Readers are refreshed by provider, wait only if we must see own changes
+            final long generation = indexProvider.markDirty();
+            if (waitForRefreshMillis > 0L && !indexProvider.waitForGeneration(generation, waitForRefreshMillis)) {
+                LOGFTQ.debug("Change of {} with PK {} is not visible after {}ms", name, primaryKey, waitForRefreshMillis);
+            }
+            markPartitionsDirty();
 
         } catch (Exception exp) {
             LOGFTQ.error("Unable to remove " + name + " document with _PK:" + primaryKey, exp);
@@ -121,6 +179,87 @@ public abstract class IndexBuilderLuceneImpl<T, PK extends Serializable> impleme
 
     }
 
+    /**
+     * Extension hook for persistence layer. Default implementation looks up entities one by one, persistence
+     * layer should override this to retrieve all entities in a single query.
+     *
+     * @param primaryKeys PKs (unique)
+     *
+     * @return entities to index, entities that do not exist are skipped
+     */
+    protected List<T> findByIds(final Collection<PK> primaryKeys) {
+        final List<T> entities = new ArrayList<>(primaryKeys.size());
+        for (final PK primaryKey : primaryKeys) {
+            final T entity = this.findById(primaryKey);
+            if (entity != null) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void fullTextSearchReindex(final Collection<PK> primaryKeys) {
+
+        if (CollectionUtils.isEmpty(primaryKeys) || isReplica()) {
+            return;
+        }
+
+        final Set<PK> unique = new LinkedHashSet<>(primaryKeys);
+
+        final long indexTime = now();
+        final String name = indexProvider.getName();
+
+        // counts[3] = { added, removed, failed }
+        final AtomicLongArray counts = new AtomicLongArray(3);
+        final IndexBatch batch = new IndexBatch(unique.size());
+        final FacetsConfig facetsConfig = new FacetsConfig();
+
+        // Remove all, so that entities that no longer exist are purged
+        for (final PK primaryKey : unique) {
+            batch.remove.add(new Term(AdapterUtils.FIELD_PK, String.valueOf(primaryKey)));
+        }
+
+        try {
+
+            for (final T entity : this.findByIds(unique)) {
+                final Pair<PK, Document[]> documents = this.documentAdapter.toDocument(entity);
+                if (documents != null && documents.getSecond() != null) {
+                    for (final Document document : documents.getSecond()) {
+                        try {
+                            batch.add.add(prepareDocument(facetsConfig, document, indexTime));
+                        } catch (Exception sde) {
+                            LOGFTQ.error("Updating {} document _PK:{} failed ... cause: {}", name, documents.getFirst(), sde.getMessage());
+                            counts.incrementAndGet(2);
+                        }
+                    }
+                }
+            }
+
+            final IndexWriter iw = indexProvider.provideIndexWriter();
+            writeBatch(iw, name, batch, counts);
+
+            if (LOGFTQ.isDebugEnabled()) {
+                LOGFTQ.debug("Processed index entities {} with {} PKs, added: {}, removed: {}, failed: {}",
+                        name, unique.size(), counts.get(0), counts.get(1), counts.get(2));
+            }
+
+            // Readers are refreshed by provider, wait only if we must see own changes
+            final long generation = indexProvider.markDirty();
+            if (waitForRefreshMillis > 0L && !indexProvider.waitForGeneration(generation, waitForRefreshMillis)) {
+                LOGFTQ.debug("Change of {} with {} PKs is not visible after {}ms", name, unique.size(), waitForRefreshMillis);
+            }
+            markPartitionsDirty();
+
+        } catch (Exception exp) {
+            LOGFTQ.error("Unable to reindex " + name + " documents with " + unique.size() + " PKs", exp);
+        }
+
+    }
+
     /**
      * Process single entity update in the FT index.
      *
@@ -143,24 +282,20 @@ public abstract class IndexBuilderLuceneImpl<T, PK extends Serializable> impleme
         final PK primaryKey = documents.getFirst();
 
         // Remove all documents with primary key (could be multiple)
-        iw.deleteDocuments(new Term(AdapterUtils.FIELD_PK, String.valueOf(primaryKey)));
+        final Term pkTerm = new Term(AdapterUtils.FIELD_PK, String.valueOf(primaryKey));
+        iw.deleteDocuments(pkTerm);
         counts[1]++;
         LOGFTQ.trace("Removing {} document _PK:{}", indexName, primaryKey);
 
+        final List<Document> added = new ArrayList<>();
         if (!remove) {
             // Add documents
             final FacetsConfig facetsConfig = new FacetsConfig();
             for (final Document document : documents.getSecond()) {
                 try {
-                    LuceneDocumentAdapterUtils.addNumericField(document, AdapterUtils.FIELD_INDEXTIME, indexTime, false);
-                    for (final IndexableField ixf : document) {
-                        if (ixf.fieldType() == SortedSetDocValuesFacetField.TYPE) {
-                            SortedSetDocValuesFacetField facetField = (SortedSetDocValuesFacetField) ixf;
-                            facetsConfig.setIndexFieldName(facetField.dim, facetField.dim);
-                            facetsConfig.setMultiValued(facetField.dim, true); // TODO: revisit this but for now all fields assumed to have multivalue
-                        }
-                    }
-                    iw.addDocument(facetsConfig.build(document));
+                    final Document prepared = prepareDocument(facetsConfig, document, indexTime);
+                    iw.addDocument(prepared);
+                    added.add(prepared);
                     counts[0]++;
                 } catch (Exception sde) {
                     LOGFTQ.error("Updating {} document _PK:{} failed ... cause: {}", indexName, documents.getFirst(), sde.getMessage());
@@ -170,6 +305,35 @@ public abstract class IndexBuilderLuceneImpl<T, PK extends Serializable> impleme
             LOGFTQ.trace("Updating {} document _PK:{}", indexName, primaryKey);
         }
 
+        writePartitions(Collections.singletonList(pkTerm), added);
+
+    }
+
+    /**
+     * Add index time to the document and build facets.
+     *
+     * @param facetsConfig facets configuration
+     * @param document     document generated by adapter
+     * @param indexTime    time of this index (added as field to added documents)
+     *
+     * @return document ready to be added to the index
+     *
+     * @throws IOException error
+     */
+    private Document prepareDocument(final FacetsConfig facetsConfig,
+                                     final Document document,
+                                     final long indexTime) throws IOException {
+
+        LuceneDocumentAdapterUtils.addNumericField(document, AdapterUtils.FIELD_INDEXTIME, indexTime, false);
+        for (final IndexableField ixf : document) {
+            if (ixf.fieldType() == SortedSetDocValuesFacetField.TYPE) {
+                SortedSetDocValuesFacetField facetField = (SortedSetDocValuesFacetField) ixf;
+                facetsConfig.setIndexFieldName(facetField.dim, facetField.dim);
+                facetsConfig.setMultiValued(facetField.dim, true); // TODO: revisit this but for now all fields assumed to have multivalue
+            }
+        }
+        return facetsConfig.build(document);
+
     }
 
     /**
@@ -215,6 +379,33 @@ public abstract class IndexBuilderLuceneImpl<T, PK extends Serializable> impleme
     @Override
     public void fullTextSearchReindex(final boolean async, final int batchSize) {
 
+        reindex(async, runAsync -> createIndexingRunnable(runAsync, batchSize));
+
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void fullTextSearchReindexShop(final long shopId, final boolean async, final int batchSize) {
+
+        final LuceneIndexProvider partition = indexProvider.provideShopPartition(shopId);
+        if (partition == indexProvider) {
+            // Not partitioned, documents of all shops are in the same index
+            fullTextSearchReindex(async, batchSize);
+            return;
+        }
+
+        reindex(async, runAsync -> createShopIndexingRunnable(runAsync, batchSize, shopId, partition));
+
+    }
+
+    private void reindex(final boolean async, final Function<Boolean, Runnable> indexingRunnable) {
+
+        if (isReplica()) {
+            return;
+        }
+
         final boolean runAsync = async && this.indexExecutor != null;
 
         asyncRunningState.compareAndSet(COMPLETED, IDLE); // Completed tasks must restart
@@ -222,9 +413,9 @@ public abstract class IndexBuilderLuceneImpl<T, PK extends Serializable> impleme
         if (asyncRunningState.compareAndSet(IDLE, RUNNING)) {  // If we are idle we can start
 
             if (runAsync) {
-                this.indexExecutor.execute(createIndexingRunnable(true, batchSize)); // async
+                this.indexExecutor.execute(indexingRunnable.apply(true)); // async
             } else {
-                createIndexingRunnable(false, batchSize).run(); // sync
+                indexingRunnable.apply(false).run(); // sync
             }
 
         } else if (!runAsync) {
@@ -241,6 +432,20 @@ public abstract class IndexBuilderLuceneImpl<T, PK extends Serializable> impleme
 
     }
 
+    /**
+     * Replica index is only updated by replication from the node that builds the index, so all local
+     * changes are skipped.
+     *
+     * @return true if index is a replica
+     */
+    private boolean isReplica() {
+        if (indexProvider.isReplica()) {
+            LOGFTQ.debug("Index {} is a replica, skipping reindex", indexProvider.getName());
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Extension hook for persistence layer.
      *
@@ -279,6 +484,9 @@ public abstract class IndexBuilderLuceneImpl<T, PK extends Serializable> impleme
     protected abstract void endTx(Object tx);
 
     private Runnable createIndexingRunnable(final boolean async, final int batchSize) {
+        if (this.reindexWorkers > 1) {
+            return createPipelinedIndexingRunnable(async, batchSize);
+        }
         return () -> {
             long index = 0;
             long counts[] = new long[] { 0L, 0L, 0L };
@@ -339,7 +547,8 @@ public abstract class IndexBuilderLuceneImpl<T, PK extends Serializable> impleme
                     index += indexed != null ? indexed : 0;
 
                     iw.commit();  //apply changes to indexes
-                    indexProvider.refreshIfNecessary(); // make changes visible
+                    indexProvider.markDirty(); // make changes visible
+                    commitPartitions();
                     if (log.isInfoEnabled()) {
                         log.info("Indexed {} items of {} class", index, indexProvider.getName());
                     }
@@ -361,6 +570,7 @@ public abstract class IndexBuilderLuceneImpl<T, PK extends Serializable> impleme
                     log.info("Indexed {} items of {} class, added: {}, removed: {}, failed: {}", index, indexProvider.getName(), counts[0], counts[1], counts[2]);
                 }
                 iw.forceMerge(1, true); // optimise the index
+                completePartitions(indexTime);
             } catch (Exception exp) {
                 LOGFTQ.error("Error during indexing", exp);
             } finally {
@@ -376,6 +586,452 @@ public abstract class IndexBuilderLuceneImpl<T, PK extends Serializable> impleme
         };
     }
 
+    private Runnable createShopIndexingRunnable(final boolean async,
+                                               final int batchSize,
+                                               final long shopId,
+                                               final LuceneIndexProvider partition) {
+        return () -> {
+            long index = 0;
+            long counts[] = new long[] { 0L, 0L, 0L };
+
+            final Logger log = LOGFTQ;
+
+            final String name = partition.getName();
+
+            try {
+                TimeContext.setNow(); // TODO: Time Machine
+                currentIndexingCount.set(0);
+
+                if (log.isInfoEnabled()) {
+                    log.info("Full reindex for {} class", name);
+                }
+
+                final long indexTime = now();
+                final IndexWriter iw = partition.provideIndexWriter();
+                final FacetsConfig facetsConfig = new FacetsConfig();
+
+                int start = 0;
+
+                List<PK> batch = new WithTxImpl<List<PK>>(async, RETRY).withTx(() -> findPage(0, batchSize));
+
+                while (CollectionUtils.isNotEmpty(batch)) {
+
+                    final List<PK> callbackBatch = batch;
+
+                    Integer indexed = new WithTxImpl<Integer>(async, RETRY).withTx(() -> {
+
+                        int idx = 0;
+
+                        for (final PK pk : callbackBatch) {
+
+                            try {
+                                final T entity = unproxyEntity(pk);
+
+                                final Pair<PK, Document[]> documents = documentAdapter.toDocument(entity);
+
+                                iw.deleteDocuments(new Term(AdapterUtils.FIELD_PK, String.valueOf(pk)));
+                                counts[1]++;
+
+                                if (documents != null && documents.getSecond() != null) {
+                                    for (final Document document : documents.getSecond()) {
+                                        // Only documents of this shop go to its partition
+                                        if (ArrayUtils.contains(LuceneDocumentAdapterUtils.readPartitionFields(document), shopId)) {
+                                            iw.addDocument(prepareDocument(facetsConfig, document, indexTime));
+                                            counts[0]++;
+                                        }
+                                    }
+                                }
+
+                                idx++;
+
+                            } catch (Exception ex) {
+                                counts[2]++;
+                                LOGFTQ.error("Error during indexing ... " + pk, ex);
+                            }
+
+                        }
+
+                        return idx;
+
+                    });
+
+                    index += indexed != null ? indexed : 0;
+                    currentIndexingCount.set(index);
+
+                    iw.commit();  //apply changes to indexes
+                    partition.markDirty(); // make changes visible
+                    if (log.isInfoEnabled()) {
+                        log.info("Indexed {} items of {} class", index, name);
+                    }
+
+                    start++;
+
+                    final int nextPage = start;
+                    batch = new WithTxImpl<List<PK>>(async, RETRY).withTx(() -> findPage(nextPage, batchSize));
+
+                }
+
+                // Remove unindexed values
+                iw.deleteDocuments(LongPoint.newRangeQuery(AdapterUtils.FIELD_INDEXTIME, 0, indexTime - 1));
+
+                iw.commit();  //apply changes to indexes
+                partition.refreshIfNecessary(); // make changes visible
+
+                if (log.isInfoEnabled()) {
+                    log.info("Indexed {} items of {} class, added: {}, removed: {}, failed: {}", index, name, counts[0], counts[1], counts[2]);
+                }
+                iw.forceMerge(1, true); // optimise the index
+            } catch (Exception exp) {
+                LOGFTQ.error("Error during indexing", exp);
+            } finally {
+                asyncRunningState.set(COMPLETED);
+                if (async) {
+                    LuceneSearchUtil.destroy(); // ensure analysers are unloaded
+                }
+                if (log.isInfoEnabled()) {
+                    log.info("Full reindex for {} class ... COMPLETED", name);
+                }
+                TimeContext.destroy();
+            }
+        };
+    }
+
+    private Runnable createPipelinedIndexingRunnable(final boolean async, final int batchSize) {
+        return () -> {
+
+            final Logger log = LOGFTQ;
+
+            final String name = indexProvider.getName();
+            final ExecutorService workers = Executors.newFixedThreadPool(this.reindexWorkers, new ReindexThreadFactory(name, "worker"));
+            final ExecutorService writer = Executors.newSingleThreadExecutor(new ReindexThreadFactory(name, "writer"));
+
+            try {
+                TimeContext.setNow(); // TODO: Time Machine
+                currentIndexingCount.set(0);
+
+                if (log.isInfoEnabled()) {
+                    log.info("Full reindex for {} class using {} workers", name, this.reindexWorkers);
+                }
+
+                final long indexTime = now();
+                final IndexWriter iw = indexProvider.provideIndexWriter();
+
+                // counts[3] = { added, removed, failed }
+                final AtomicLongArray counts = new AtomicLongArray(3);
+                // limit number of pages in flight, so that we do not read the whole DB into memory
+                final Semaphore inFlight = new Semaphore(this.reindexWorkers * 2);
+                final BlockingQueue<IndexBatch> writeQueue = new LinkedBlockingQueue<>();
+
+                final Future<?> writerTask = writer.submit(
+                        createIndexWriterRunnable(iw, name, writeQueue, inFlight, counts)
+                );
+
+                int start = 0;
+
+                List<PK> batch = new WithTxImpl<List<PK>>(async, RETRY).withTx(() -> findPage(0, batchSize));
+
+                while (CollectionUtils.isNotEmpty(batch)) {
+
+                    while (!inFlight.tryAcquire(1L, TimeUnit.SECONDS)) {
+                        if (writerTask.isDone()) {
+                            writerTask.get(); // propagate writer failure
+                            throw new IllegalStateException("Reindex writer for " + name + " terminated unexpectedly");
+                        }
+                    }
+
+                    final List<PK> callbackBatch = batch;
+                    workers.execute(() -> {
+                        TimeContext.setTime(Instant.ofEpochMilli(indexTime));
+                        IndexBatch converted = null;
+                        try {
+                            converted = new WithTxImpl<IndexBatch>(true, RETRY).withTx(() -> {
+
+                                final IndexBatch indexBatch = new IndexBatch(callbackBatch.size());
+                                final FacetsConfig facetsConfig = new FacetsConfig();
+
+                                for (final PK pk : callbackBatch) {
+
+                                    try {
+                                        final T entity = unproxyEntity(pk);
+
+                                        final Pair<PK, Document[]> documents = documentAdapter.toDocument(entity);
+
+                                        indexBatch.remove.add(new Term(AdapterUtils.FIELD_PK, String.valueOf(pk)));
+                                        if (documents != null && documents.getSecond() != null) {
+                                            for (final Document document : documents.getSecond()) {
+                                                try {
+                                                    indexBatch.add.add(prepareDocument(facetsConfig, document, indexTime));
+                                                } catch (Exception sde) {
+                                                    LOGFTQ.error("Updating {} document _PK:{} failed ... cause: {}", name, pk, sde.getMessage());
+                                                    counts.incrementAndGet(2);
+                                                }
+                                            }
+                                        }
+
+                                    } catch (Exception ex) {
+                                        counts.incrementAndGet(2);
+                                        LOGFTQ.error("Error during indexing ... " + pk, ex);
+                                    }
+
+                                }
+
+                                return indexBatch;
+
+                            });
+
+                        } finally {
+                            // always pass on the batch so that writer releases the page permit
+                            writeQueue.add(converted != null ? converted : new IndexBatch(0));
+                        }
+                    });
+
+                    start++;
+
+                    final int nextPage = start;
+                    batch = new WithTxImpl<List<PK>>(async, RETRY).withTx(() -> findPage(nextPage, batchSize));
+
+                }
+
+                workers.shutdown();
+                while (!workers.awaitTermination(1L, TimeUnit.SECONDS)) {
+                    LOGFTQ.debug("Waiting for {} reindex workers to complete", name);
+                }
+
+                writeQueue.add(IndexBatch.LAST);
+                writerTask.get();
+
+                // Remove unindexed values
+                iw.deleteDocuments(LongPoint.newRangeQuery(AdapterUtils.FIELD_INDEXTIME, 0, indexTime - 1));
+
+                iw.commit();  //apply changes to indexes
+                indexProvider.refreshIfNecessary(); // make changes visible
+
+                if (log.isInfoEnabled()) {
+                    log.info("Indexed {} items of {} class, added: {}, removed: {}, failed: {}",
+                            currentIndexingCount.get(), name, counts.get(0), counts.get(1), counts.get(2));
+                }
+                iw.forceMerge(1, true); // optimise the index
+                completePartitions(indexTime);
+            } catch (Exception exp) {
+                LOGFTQ.error("Error during indexing", exp);
+            } finally {
+                workers.shutdownNow();
+                writer.shutdownNow();
+                asyncRunningState.set(COMPLETED);
+                if (async) {
+                    LuceneSearchUtil.destroy(); // ensure analysers are unloaded
+                }
+                if (log.isInfoEnabled()) {
+                    log.info("Full reindex for {} class ... COMPLETED", name);
+                }
+                TimeContext.destroy();
+            }
+        };
+    }
+
+    private Runnable createIndexWriterRunnable(final IndexWriter iw,
+                                               final String name,
+                                               final BlockingQueue<IndexBatch> writeQueue,
+                                               final Semaphore inFlight,
+                                               final AtomicLongArray counts) {
+        return () -> {
+
+            long lastCommit = System.currentTimeMillis();
+            long uncommitted = 0L;
+
+            try {
+                while (true) {
+
+                    final IndexBatch batch = writeQueue.poll(this.commitEveryMillis, TimeUnit.MILLISECONDS);
+                    if (batch == IndexBatch.LAST) {
+                        break;
+                    }
+
+                    if (batch != null) {
+                        try {
+                            writeBatch(iw, name, batch, counts);
+                            uncommitted += batch.add.size();
+                            currentIndexingCount.addAndGet(batch.remove.size());
+                        } finally {
+                            inFlight.release();
+                        }
+                    }
+
+                    final long now = System.currentTimeMillis();
+                    if (uncommitted >= this.commitEveryDocuments || (uncommitted > 0L && now - lastCommit >= this.commitEveryMillis)) {
+                        iw.commit();  //apply changes to indexes
+                        indexProvider.markDirty(); // make changes visible
+                        commitPartitions();
+                        lastCommit = now;
+                        uncommitted = 0L;
+                        if (LOGFTQ.isInfoEnabled()) {
+                            LOGFTQ.info("Indexed {} items of {} class", currentIndexingCount.get(), name);
+                        }
+                    }
+
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                LOGFTQ.error("Interrupted {} reindex writer", name);
+            } catch (IOException ioe) {
+                LOGFTQ.error("Error during indexing", ioe);
+                throw new IllegalStateException(ioe);
+            }
+        };
+    }
+
+    private void writeBatch(final IndexWriter iw,
+                            final String name,
+                            final IndexBatch batch,
+                            final AtomicLongArray counts) throws IOException {
+
+        if (batch.remove.isEmpty()) {
+            return;
+        }
+
+        iw.deleteDocuments(batch.remove.toArray(new Term[batch.remove.size()]));
+        counts.addAndGet(1, batch.remove.size());
+
+        List<Document> added = batch.add;
+        try {
+            iw.addDocuments(batch.add);
+            counts.addAndGet(0, batch.add.size());
+        } catch (IllegalArgumentException iae) {
+            // one of the documents is invalid, fall back to adding one by one so that we only skip invalid ones
+            added = new ArrayList<>(batch.add.size());
+            for (final Document document : batch.add) {
+                try {
+                    iw.addDocument(document);
+                    added.add(document);
+                    counts.incrementAndGet(0);
+                } catch (IllegalArgumentException sde) {
+                    LOGFTQ.error("Updating {} document _PK:{} failed ... cause: {}", name, document.get(AdapterUtils.FIELD_PK), sde.getMessage());
+                    counts.incrementAndGet(2);
+                }
+            }
+        }
+
+        writePartitions(batch.remove, added);
+
+    }
+
+    /**
+     * Apply changes made to the main index to the shop partitions. Documents are added to partitions of all
+     * master shops listed in {@link AdapterUtils#FIELD_PARTITION}, removals are applied to all partitions.
+     * This is noop unless index provider is partitioned.
+     *
+     * @param remove PK terms removed from main index
+     * @param add    documents added to main index
+     *
+     * @throws IOException error
+     */
+    private void writePartitions(final List<Term> remove, final List<Document> add) throws IOException {
+
+        final Map<LuceneIndexProvider, List<Document>> routed = new HashMap<>();
+        for (final Document document : add) {
+            for (final long shopId : LuceneDocumentAdapterUtils.readPartitionFields(document)) {
+                final LuceneIndexProvider partition = indexProvider.provideShopPartition(shopId);
+                if (partition != indexProvider) {
+                    routed.computeIfAbsent(partition, key -> new ArrayList<>()).add(document);
+                }
+            }
+        }
+
+        for (final LuceneIndexProvider partition : indexProvider.provideShopPartitions()) {
+            final IndexWriter piw = partition.provideIndexWriter();
+            piw.deleteDocuments(remove.toArray(new Term[remove.size()]));
+            final List<Document> documents = routed.get(partition);
+            if (documents != null) {
+                piw.addDocuments(documents);
+            }
+        }
+
+    }
+
+    /**
+     * Make partition changes visible, waiting for them if required.
+     */
+    private void markPartitionsDirty() {
+        for (final LuceneIndexProvider partition : indexProvider.provideShopPartitions()) {
+            final long generation = partition.markDirty();
+            if (waitForRefreshMillis > 0L && !partition.waitForGeneration(generation, waitForRefreshMillis)) {
+                LOGFTQ.debug("Change of {} is not visible after {}ms", partition.getName(), waitForRefreshMillis);
+            }
+        }
+    }
+
+    /**
+     * Commit partitions during full reindex.
+     *
+     * @throws IOException error
+     */
+    private void commitPartitions() throws IOException {
+        for (final LuceneIndexProvider partition : indexProvider.provideShopPartitions()) {
+            partition.provideIndexWriter().commit();
+            partition.markDirty();
+        }
+    }
+
+    /**
+     * Remove documents that were not reindexed during full reindex from partitions and optimise them.
+     *
+     * @param indexTime time of this index
+     *
+     * @throws IOException error
+     */
+    private void completePartitions(final long indexTime) throws IOException {
+        for (final LuceneIndexProvider partition : indexProvider.provideShopPartitions()) {
+            final IndexWriter piw = partition.provideIndexWriter();
+            piw.deleteDocuments(LongPoint.newRangeQuery(AdapterUtils.FIELD_INDEXTIME, 0, indexTime - 1));
+            piw.commit();
+            partition.refreshIfNecessary();
+            piw.forceMerge(1, true);
+        }
+    }
+
+    /**
+     * Converted page of entities, which is passed from reindex workers to the writer.
+     */
+    static class IndexBatch {
+
+        static final IndexBatch LAST = new IndexBatch(0);
+
+        private final List<Term> remove;
+        private final List<Document> add;
+
+        IndexBatch(final int size) {
+            this.remove = new ArrayList<>(size);
+            this.add = new ArrayList<>(size);
+        }
+    }
+
+    /**
+     * Reindex threads factory, which ensures that thread locals are cleaned up.
+     */
+    static class ReindexThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        ReindexThreadFactory(final String name, final String role) {
+            this.prefix = "[" + name + "-reindex-" + role + "]-";
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(() -> {
+                try {
+                    runnable.run();
+                } finally {
+                    LuceneSearchUtil.destroy(); // ensure analysers are unloaded
+                    TimeContext.destroy();
+                }
+            }, prefix + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
     long now() {
         return TimeContext.getMillis();
     }
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.impl;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Copies files of index commit between directories.
+ *
+ * Segment files are immutable, so only files that are missing in target (or have different checksum, which
+ * is only possible if index has been recreated from scratch) are copied. Segments file of the commit is copied
+ * last under temporary name and then renamed, so that readers opened on target directory either see previous
+ * commit or complete new one.
+ */
+final class IndexSnapshotReplication {
+
+    private static final String PENDING = "pending_";
+
+    private IndexSnapshotReplication() {
+        // no instance
+    }
+
+    /**
+     * Copy commit files from source to target directory.
+     *
+     * @param source source directory
+     * @param files  all files of the commit (including segments file)
+     * @param target target directory
+     *
+     * @return number of copied files, zero means that target is already at this commit
+     *
+     * @throws IOException on copy error
+     */
+    static int copy(final Directory source, final Collection<String> files, final Directory target) throws IOException {
+
+        final Set<String> existing = new HashSet<>(Arrays.asList(target.listAll()));
+
+        String segments = null;
+        final List<String> copied = new ArrayList<>();
+        for (final String file : files) {
+            if (file.startsWith(IndexFileNames.SEGMENTS)) {
+                segments = file;
+            } else if (!isSame(source, target, existing, file)) {
+                deleteIfExists(target, existing, file);
+                target.copyFrom(source, file, file, IOContext.READONCE);
+                copied.add(file);
+            }
+        }
+        target.sync(copied);
+
+        if (segments != null && !isSame(source, target, existing, segments)) {
+            final String pending = PENDING + segments;
+            deleteIfExists(target, existing, pending);
+            target.copyFrom(source, segments, pending, IOContext.READONCE);
+            target.sync(Collections.singleton(pending));
+            deleteIfExists(target, existing, segments);
+            target.rename(pending, segments);
+            target.syncMetaData();
+            copied.add(segments);
+        }
+
+        return copied.size();
+    }
+
+    /**
+     * Remove files that do not belong to any of the commits that must be kept. Files that are still
+     * in use and cannot be removed are left for the next attempt.
+     *
+     * @param directory directory
+     * @param keep      files to keep
+     */
+    static void deleteUnused(final Directory directory, final Collection<String> keep) {
+
+        try {
+            for (final String file : directory.listAll()) {
+                if (!keep.contains(file) && !IndexWriter.WRITE_LOCK_NAME.equals(file)) {
+                    try {
+                        directory.deleteFile(file);
+                    } catch (IOException ioe) {
+                        // still in use, will be removed next time
+                    }
+                }
+            }
+        } catch (IOException ioe) {
+            // will be removed next time
+        }
+
+    }
+
+    private static boolean isSame(final Directory source,
+                                  final Directory target,
+                                  final Set<String> existing,
+                                  final String file) {
+
+        if (!existing.contains(file)) {
+            return false;
+        }
+
+        try (IndexInput src = source.openInput(file, IOContext.READONCE);
+             IndexInput trg = target.openInput(file, IOContext.READONCE)) {
+            return src.length() == trg.length() && CodecUtil.retrieveChecksum(src) == CodecUtil.retrieveChecksum(trg);
+        } catch (IOException ioe) {
+            return false; // corrupt or incomplete copy
+        }
+
+    }
+
+    private static void deleteIfExists(final Directory target, final Set<String> existing, final String file) throws IOException {
+        if (existing.remove(file)) {
+            target.deleteFile(file);
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram of latencies with log-linear buckets (same layout as HdrHistogram with one
+ * significant digit): each power of two range is split into 8 linear sub buckets, so recorded values
+ * are accurate to within 12.5%, for any magnitude and with fixed memory footprint.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param value value to record (negative values are recorded as zero)
+     */
+    void record(final long value) {
+        final long val = Math.max(0L, value);
+        counts.incrementAndGet(index(val));
+        total.incrementAndGet();
+        sum.addAndGet(val);
+        max.accumulateAndGet(val, Math::max);
+    }
+
+    /**
+     * @return number of recorded values
+     */
+    long getCount() {
+        return total.get();
+    }
+
+    /**
+     * @return mean of recorded values
+     */
+    long getMean() {
+        final long count = total.get();
+        return count == 0L ? 0L : sum.get() / count;
+    }
+
+    /**
+     * @return max recorded value
+     */
+    long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile percentile (0-100)
+     *
+     * @return value at given percentile (highest value equivalent to the bucket)
+     */
+    long getValueAtPercentile(final double percentile) {
+
+        final long count = total.get();
+        if (count == 0L) {
+            return 0L;
+        }
+
+        final long target = Math.max(1L, (long) Math.ceil(count * Math.min(100d, percentile) / 100d));
+        long seen = 0L;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestEquivalentValue(i), getMax());
+            }
+        }
+        return getMax();
+
+    }
+
+    static int index(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        final int top = (int) (value >>> shift);
+        return (shift + 1) * SUB_BUCKETS + top - SUB_BUCKETS;
+    }
+
+    static long highestEquivalentValue(final int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKETS - 1;
+        final long top = SUB_BUCKETS + index % SUB_BUCKETS;
+        return ((top + 1L) << shift) - 1L;
+    }
+
+}
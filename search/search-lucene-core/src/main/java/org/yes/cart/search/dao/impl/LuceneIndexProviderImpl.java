@@ -16,12 +16,17 @@
 
 package org.yes.cart.search.dao.impl;
 
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
 import org.apache.lucene.facet.taxonomy.SearcherTaxonomyManager;
 import org.apache.lucene.facet.taxonomy.directory.DirectoryTaxonomyWriter;
-import org.apache.lucene.index.IndexWriter;
-import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.ControlledRealTimeReopenThread;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ReferenceManager;
+import org.apache.lucene.search.SearcherFactory;
 import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.store.*;
 import org.slf4j.Logger;
@@ -35,6 +40,8 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Lucene index provider.
@@ -47,14 +54,42 @@ public class LuceneIndexProviderImpl implements LuceneIndexProvider, Initializin
 
     private final Logger LOGFTQ = LoggerFactory.getLogger("FTQ");
 
+    private static final String PARTITION_SEPARATOR = "_";
+
     private Directory index = null;
+    private SnapshotDeletionPolicy indexSnapshots;
     private SearcherManager indexReaderManager;
+    private SortedSetFacetsStateCache facetsStateCache;
+    private SearcherWarmer warmer;
     private IndexWriter indexWriter;
 
     private Directory facets = null;
     private SearcherTaxonomyManager facetsReaderManager;
     private DirectoryTaxonomyWriter facetsWriter;
 
+    private ControlledRealTimeReopenThread<IndexSearcher> indexReopenThread;
+    private ControlledRealTimeReopenThread<SearcherTaxonomyManager.SearcherAndTaxonomy> facetsReopenThread;
+    private long nrtMaxStaleMillis = 0L;
+    private long nrtMinStaleMillis = 25L;
+
+    private int warmUpMaxQueries = 0;
+    private long warmUpMaxMillis = 250L;
+
+    private int searchThreads = 0;
+    private long searchParallelMinCost = 100000L;
+    private int searchMaxDocsPerSlice = 100000;
+    private int searchMaxSegmentsPerSlice = 5;
+    private ParallelSearcherFactory parallelSearch;
+    private boolean parallelSearchShared = false;
+
+    private boolean partitioned = false;
+    private final Map<Long, LuceneIndexProviderImpl> partitions = new ConcurrentHashMap<>();
+
+    private String replicationUri;
+    private boolean replica = false;
+    private Directory replication = null;
+    private Set<String> lastPublished = Collections.emptySet();
+
     private final String name;
     private final String configKey;
     private String uri;
@@ -95,6 +130,118 @@ public class LuceneIndexProviderImpl implements LuceneIndexProvider, Initializin
         this.uri = uri;
     }
 
+    /**
+     * Enable near real time mode. Writers only mark index as dirty and readers are refreshed by background
+     * thread, so that changes become visible at most after max stale time. Zero (default) disables near
+     * real time mode, in which case each change refreshes readers immediately.
+     *
+     * @param nrtMaxStaleMillis max time before changes become visible
+     */
+    public void setNrtMaxStaleMillis(final long nrtMaxStaleMillis) {
+        this.nrtMaxStaleMillis = nrtMaxStaleMillis;
+    }
+
+    /**
+     * Near real time mode refresh interval when there are callers waiting for their changes to become visible.
+     *
+     * @param nrtMinStaleMillis refresh interval for waiting callers
+     */
+    public void setNrtMinStaleMillis(final long nrtMinStaleMillis) {
+        this.nrtMinStaleMillis = nrtMinStaleMillis;
+    }
+
+    /**
+     * Enable warm up of new searchers. Sample of most recent distinct searches (up to this number) is replayed
+     * on the new searcher before it replaces the current one, so that requests after refresh do not pay for
+     * loading data of new segments. Zero (default) disables warm up.
+     *
+     * @param warmUpMaxQueries max number of searches to replay
+     */
+    public void setWarmUpMaxQueries(final int warmUpMaxQueries) {
+        this.warmUpMaxQueries = warmUpMaxQueries;
+    }
+
+    /**
+     * Time budget for single warm up, changes are not visible until warm up is finished. Keep it well below
+     * {@link #setNrtMaxStaleMillis(long)}, otherwise warm up rather than refresh interval defines staleness.
+     *
+     * @param warmUpMaxMillis max warm up time
+     */
+    public void setWarmUpMaxMillis(final long warmUpMaxMillis) {
+        this.warmUpMaxMillis = warmUpMaxMillis;
+    }
+
+    /**
+     * Enable parallel search of index segments. Searches that are expected to visit many documents are split into
+     * slices of segments, which are searched in parallel by bounded pool of this many threads (partitions share
+     * the same pool). Zero (default) disables parallel search.
+     *
+     * @param searchThreads number of threads for parallel search
+     */
+    public void setSearchThreads(final int searchThreads) {
+        this.searchThreads = searchThreads;
+    }
+
+    /**
+     * Min estimated number of documents that query may match for it to be searched in parallel, cheaper
+     * queries are searched on the request thread.
+     *
+     * @param searchParallelMinCost min estimated cost of the query
+     */
+    public void setSearchParallelMinCost(final long searchParallelMinCost) {
+        this.searchParallelMinCost = searchParallelMinCost;
+    }
+
+    /**
+     * Max number of documents in single slice, larger segments are searched as slice on their own.
+     *
+     * @param searchMaxDocsPerSlice max number of documents in slice
+     */
+    public void setSearchMaxDocsPerSlice(final int searchMaxDocsPerSlice) {
+        this.searchMaxDocsPerSlice = searchMaxDocsPerSlice;
+    }
+
+    /**
+     * Max number of segments in single slice.
+     *
+     * @param searchMaxSegmentsPerSlice max number of segments in slice
+     */
+    public void setSearchMaxSegmentsPerSlice(final int searchMaxSegmentsPerSlice) {
+        this.searchMaxSegmentsPerSlice = searchMaxSegmentsPerSlice;
+    }
+
+    /**
+     * Enable partitioned layout. Partitioned index additionally keeps documents of each master shop in
+     * a dedicated index (with own index and taxonomy directories named "{name}_{shopId}"), so that storefront
+     * searches and facet counts only run over documents of single shop. Default is false.
+     *
+     * @param partitioned true to keep partition per master shop
+     */
+    public void setPartitioned(final boolean partitioned) {
+        this.partitioned = partitioned;
+    }
+
+    /**
+     * Location to which snapshots of this index are published and from which replicas copy them. Format is
+     * the same as for {@link #setUri(String)}, but location must be shared by all nodes (e.g. network drive).
+     * Replication is disabled if this is not set.
+     *
+     * @param replicationUri uri to define location of published index
+     */
+    public void setReplicationUri(final String replicationUri) {
+        this.replicationUri = StringUtils.isBlank(replicationUri) ? null : replicationUri;
+    }
+
+    /**
+     * Make this index a read only replica of the index published to replication URI. Replica does not
+     * open a writer, so it can only be updated by {@link #replicateSnapshot()}. Default is false.
+     *
+     * @param replica true if this is a replica
+     */
+    public void setReplica(final boolean replica) {
+        this.replica = replica;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -103,6 +250,62 @@ public class LuceneIndexProviderImpl implements LuceneIndexProvider, Initializin
         return name;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LuceneIndexProvider provideShopPartition(final long shopId) {
+        if (!partitioned) {
+            return this;
+        }
+        return partitions.computeIfAbsent(shopId, this::createShopPartition);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<LuceneIndexProvider> provideShopPartitions() {
+        return new ArrayList<>(partitions.values());
+    }
+
+    private LuceneIndexProviderImpl createShopPartition(final Long shopId) {
+        final LuceneIndexProviderImpl partition = new LuceneIndexProviderImpl(name + PARTITION_SEPARATOR + shopId);
+        partition.setUri(uri);
+        partition.setNrtMaxStaleMillis(nrtMaxStaleMillis);
+        partition.setNrtMinStaleMillis(nrtMinStaleMillis);
+        partition.setWarmUpMaxQueries(warmUpMaxQueries);
+        partition.setWarmUpMaxMillis(warmUpMaxMillis);
+        partition.setReplicationUri(replicationUri);
+        partition.setReplica(replica);
+        partition.parallelSearch = parallelSearch;
+        partition.parallelSearchShared = true;
+        try {
+            partition.afterPropertiesSet();
+        } catch (Exception e) {
+            LOGFTQ.error("Unable to open partition " + partition.getName() + ", cause: " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+        return partition;
+    }
+
+    private void openShopPartitions(final String baseUri) {
+        if (baseUri == null || !baseUri.contains("://")) {
+            return; // in memory partitions do not survive restart
+        }
+        final File[] dirs = fromString(baseUri.substring(0, baseUri.indexOf("://") + 3), baseUri).toFile().listFiles(File::isDirectory);
+        if (dirs != null) {
+            final String prefix = name + PARTITION_SEPARATOR;
+            for (final File dir : dirs) {
+                final String dirName = dir.getName();
+                if (dirName.startsWith(prefix) && NumberUtils.isDigits(dirName.substring(prefix.length()))) {
+                    provideShopPartition(NumberUtils.toLong(dirName.substring(prefix.length())));
+                }
+            }
+        }
+        LOGFTQ.debug("Opened {} partitions for {}", partitions.size(), name);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -134,9 +337,14 @@ public class LuceneIndexProviderImpl implements LuceneIndexProvider, Initializin
      */
     @Override
     public IndexWriter provideIndexWriter() {
+        if (replica) {
+            throw new IllegalStateException("Index " + name + " is a read only replica");
+        }
         if (indexWriter == null) {
             final IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer());
             config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+            indexSnapshots = new SnapshotDeletionPolicy(new KeepOnlyLastCommitDeletionPolicy());
+            config.setIndexDeletionPolicy(indexSnapshots);
             try {
                 return indexWriter = new IndexWriter(index, config);
             } catch (IOException e) {
@@ -147,6 +355,32 @@ public class LuceneIndexProviderImpl implements LuceneIndexProvider, Initializin
         return indexWriter;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SortedSetDocValuesReaderState provideFacetsReaderState(final IndexSearcher searcher, final String field) throws IOException {
+        return facetsStateCache.getState(searcher, field);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordWarmUpQuery(final Object key, final WarmUpQuery query) {
+        if (warmer != null) {
+            warmer.record(key, query);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addRefreshListener(final ReferenceManager.RefreshListener listener) {
+        indexReaderManager.addListener(listener);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -160,6 +394,38 @@ public class LuceneIndexProviderImpl implements LuceneIndexProvider, Initializin
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long markDirty() {
+        if (replica) {
+            return -1L; // replica has no writer, it is only refreshed by replicateSnapshot()
+        }
+        final long generation = indexWriter.getMaxCompletedSequenceNumber();
+        if (indexReopenThread == null) {
+            refreshIfNecessary();
+        }
+        return generation;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean waitForGeneration(final long generation, final long maxWaitMillis) {
+        if (indexReopenThread == null) {
+            return true; // refreshed by markDirty()
+        }
+        try {
+            return indexReopenThread.waitForGeneration(generation, (int) Math.min(maxWaitMillis, Integer.MAX_VALUE));
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -223,6 +489,104 @@ public class LuceneIndexProviderImpl implements LuceneIndexProvider, Initializin
         this.refreshFacetsIfNecessary();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isReplica() {
+        return replica;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized long publishSnapshot() {
+
+        if (replica || replication == null) {
+            return -1L;
+        }
+
+        for (final LuceneIndexProviderImpl partition : partitions.values()) {
+            partition.publishSnapshot();
+        }
+
+        IndexCommit commit = null;
+        try {
+            if (indexWriter.hasUncommittedChanges()) {
+                // near real time changes (e.g. inventory deltas) are only visible to local readers until committed
+                indexWriter.commit();
+            }
+            // snapshot ensures that writer does not delete files of the commit while they are copied
+            commit = indexSnapshots.snapshot();
+            final Collection<String> files = commit.getFileNames();
+            final int copied = IndexSnapshotReplication.copy(index, files, replication);
+
+            // files of previous commit are kept, so that replicas which are copying it now can finish
+            final Set<String> keep = new HashSet<>(files);
+            keep.addAll(lastPublished);
+            IndexSnapshotReplication.deleteUnused(replication, keep);
+            lastPublished = new HashSet<>(files);
+
+            LOGFTQ.info("Published {} generation {}, copied {} files", name, commit.getGeneration(), copied);
+            return commit.getGeneration();
+        } catch (IllegalStateException ise) {
+            LOGFTQ.warn("Unable to publish {}, cause: {}", name, ise.getMessage()); // no commits yet
+        } catch (IOException e) {
+            LOGFTQ.error("Unable to publish " + name + ", cause: " + e.getMessage());
+        } finally {
+            if (commit != null) {
+                try {
+                    indexSnapshots.release(commit);
+                    indexWriter.deleteUnusedFiles();
+                } catch (IOException e) {
+                    LOGFTQ.error("Unable to release snapshot " + name + ", cause: " + e.getMessage());
+                }
+            }
+        }
+        return -1L;
+
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized long replicateSnapshot() {
+
+        if (!replica || replication == null) {
+            return -1L;
+        }
+
+        if (partitioned) {
+            openShopPartitions(replicationUri);
+            for (final LuceneIndexProviderImpl partition : partitions.values()) {
+                partition.replicateSnapshot();
+            }
+        }
+
+        try {
+            final SegmentInfos published = SegmentInfos.readLatestCommit(replication);
+            final Collection<String> files = published.files(true);
+            final int copied = IndexSnapshotReplication.copy(replication, files, index);
+            if (copied > 0) {
+                // new segments file is in place, so readers switch to the new commit as a whole
+                indexReaderManager.maybeRefreshBlocking();
+                facetsReaderManager.maybeRefreshBlocking();
+                IndexSnapshotReplication.deleteUnused(index, files);
+            }
+
+            LOGFTQ.info("Replicated {} generation {}, copied {} files", name, published.getGeneration(), copied);
+            return published.getGeneration();
+        } catch (IndexNotFoundException infe) {
+            LOGFTQ.debug("Nothing is published for {}", name);
+        } catch (IOException e) {
+            LOGFTQ.error("Unable to replicate " + name + ", cause: " + e.getMessage());
+        }
+        return -1L;
+
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -230,12 +594,68 @@ public class LuceneIndexProviderImpl implements LuceneIndexProvider, Initializin
     public void afterPropertiesSet() throws Exception {
 
         index = getInstance(uri + File.separatorChar + name + File.separatorChar + "index");
-        provideIndexWriter();
-        indexReaderManager = new SearcherManager(indexWriter, null);
-
         facets = getInstance(uri + File.separatorChar + name + File.separatorChar + "taxonomy");
-        provideFacetsWriter();
-        facetsReaderManager = new SearcherTaxonomyManager(indexWriter, null, facetsWriter);
+
+        if (parallelSearch == null && searchThreads > 0) {
+            parallelSearch = new ParallelSearcherFactory(name, searchThreads, searchParallelMinCost, searchMaxDocsPerSlice, searchMaxSegmentsPerSlice);
+            LOGFTQ.info("Parallel search for {} with {} threads for queries over {} documents", name, searchThreads, searchParallelMinCost);
+        }
+
+        final SearcherFactory searcherFactory;
+        if (warmUpMaxQueries > 0) {
+            warmer = new SearcherWarmer(name, warmUpMaxQueries, warmUpMaxMillis);
+            if (parallelSearch != null) {
+                warmer.setSearcherFactory(parallelSearch);
+            }
+            searcherFactory = warmer;
+        } else {
+            searcherFactory = parallelSearch;
+        }
+
+        if (replica) {
+            // replica reads commits copied from published index, ensure there is one to open initially
+            if (!DirectoryReader.indexExists(index)) {
+                try (IndexWriter empty = new IndexWriter(index, new IndexWriterConfig(new StandardAnalyzer()))) {
+                    empty.commit();
+                }
+            }
+            new DirectoryTaxonomyWriter(facets, IndexWriterConfig.OpenMode.CREATE_OR_APPEND).close();
+            indexReaderManager = new SearcherManager(index, searcherFactory);
+            facetsReaderManager = new SearcherTaxonomyManager(index, facets, null);
+        } else {
+            provideIndexWriter();
+            indexReaderManager = new SearcherManager(indexWriter, searcherFactory);
+            provideFacetsWriter();
+            facetsReaderManager = new SearcherTaxonomyManager(indexWriter, null, facetsWriter);
+        }
+        facetsStateCache = new SortedSetFacetsStateCache(indexReaderManager);
+        indexReaderManager.addListener(facetsStateCache);
+        if (warmer != null) {
+            warmer.setFacetsStateCache(facetsStateCache);
+        }
+
+        if (replicationUri != null) {
+            replication = getInstance(replicationUri + File.separatorChar + name + File.separatorChar + "index");
+            LOGFTQ.info("Index {} is {} at {}", name, replica ? "replicated from" : "published to", replicationUri);
+        }
+
+        if (nrtMaxStaleMillis > 0L && !replica) {
+            final double maxStaleSec = nrtMaxStaleMillis / 1000d;
+            final double minStaleSec = Math.min(nrtMinStaleMillis, nrtMaxStaleMillis) / 1000d;
+            indexReopenThread = new ControlledRealTimeReopenThread<>(indexWriter, indexReaderManager, maxStaleSec, minStaleSec);
+            indexReopenThread.setName("[ft-nrt-" + name + "-index]");
+            indexReopenThread.setDaemon(true);
+            indexReopenThread.start();
+            facetsReopenThread = new ControlledRealTimeReopenThread<>(indexWriter, facetsReaderManager, maxStaleSec, minStaleSec);
+            facetsReopenThread.setName("[ft-nrt-" + name + "-taxonomy]");
+            facetsReopenThread.setDaemon(true);
+            facetsReopenThread.start();
+            LOGFTQ.info("Started near real time refresh for {}, max stale {}ms", name, nrtMaxStaleMillis);
+        }
+
+        if (partitioned) {
+            openShopPartitions(uri);
+        }
 
     }
 
@@ -273,7 +693,18 @@ public class LuceneIndexProviderImpl implements LuceneIndexProvider, Initializin
     @Override
     public void destroy() throws Exception {
 
+        for (final LuceneIndexProviderImpl partition : partitions.values()) {
+            partition.destroy();
+        }
+        partitions.clear();
+
         LOGFTQ.info("Closing directory for {}", name);
+        if (indexReopenThread != null) {
+            indexReopenThread.close();
+        }
+        if (facetsReopenThread != null) {
+            facetsReopenThread.close();
+        }
         try {
             indexReaderManager.close();
         } catch (IOException e) {
@@ -308,5 +739,15 @@ public class LuceneIndexProviderImpl implements LuceneIndexProvider, Initializin
         } catch (IOException e) {
             LOGFTQ.error("Unable to release facet directory " + name + ", cause: " + e.getMessage());
         }
+        try {
+            if (replication != null) {
+                replication.close();
+            }
+        } catch (IOException e) {
+            LOGFTQ.error("Unable to release replication directory " + name + ", cause: " + e.getMessage());
+        }
+        if (parallelSearch != null && !parallelSearchShared) {
+            parallelSearch.shutdown();
+        }
     }
 }
@@ -0,0 +1,321 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.impl;
+
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.facet.TopOrdAndIntQueue;
+import org.apache.lucene.facet.range.LongRange;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LongValues;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Facet counts for multiple dimensions, which are all counted in a single pass over the matching documents.
+ *
+ * Each dimension is counted into a primitive int array. Sorted set dimensions produce the same results as
+ * {@link org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts} and range dimensions produce the
+ * same results as {@link org.apache.lucene.facet.range.LongRangeFacetCounts}, however instead of walking the
+ * hits once per dimension all dimensions are advanced together for each matching document.
+ *
+ * Usage: register all dimensions, call {@link #count(FacetsCollector)} once and then read results from
+ * each dimension.
+ */
+class MultiFacetCounts {
+
+    private final Map<String, SortedSetDim> sortedSetDims = new LinkedHashMap<>();
+    private final List<RangeDim> rangeDims = new ArrayList<>();
+
+    /**
+     * Register sorted set facet dimension. Dimensions are de-duplicated by field, so requests for the same
+     * field share the counts.
+     *
+     * @param state reader state for the field (field name is assumed to be the dimension name)
+     *
+     * @return dimension handle
+     */
+    Dim addSortedSetDim(final SortedSetDocValuesReaderState state) {
+        return sortedSetDims.computeIfAbsent(state.getField(), field -> new SortedSetDim(state));
+    }
+
+    /**
+     * Register range facet dimension.
+     *
+     * @param field  numeric doc values field
+     * @param ranges ranges
+     *
+     * @return dimension handle
+     */
+    Dim addRangeDim(final String field, final LongRange[] ranges) {
+        final RangeDim dim = new RangeDim(field, ranges);
+        rangeDims.add(dim);
+        return dim;
+    }
+
+    /**
+     * Count all registered dimensions in single pass over the hits.
+     *
+     * @param hits hits collected by facets collector
+     *
+     * @throws IOException error
+     */
+    void count(final FacetsCollector hits) throws IOException {
+
+        if (sortedSetDims.isEmpty() && rangeDims.isEmpty()) {
+            return;
+        }
+
+        for (final SortedSetDim dim : sortedSetDims.values()) {
+            dim.init();
+        }
+
+        final List<LeafCounter> leafCounters = new ArrayList<>(sortedSetDims.size() + rangeDims.size());
+
+        for (final FacetsCollector.MatchingDocs matchingDocs : hits.getMatchingDocs()) {
+
+            if (matchingDocs.totalHits == 0) {
+                continue;
+            }
+
+            final DocIdSetIterator docs = matchingDocs.bits.iterator();
+            if (docs == null) {
+                continue;
+            }
+
+            leafCounters.clear();
+            for (final SortedSetDim dim : sortedSetDims.values()) {
+                final LeafCounter counter = dim.leaf(matchingDocs.context);
+                if (counter != null) {
+                    leafCounters.add(counter);
+                }
+            }
+            for (final RangeDim dim : rangeDims) {
+                final LeafCounter counter = dim.leaf(matchingDocs.context);
+                if (counter != null) {
+                    leafCounters.add(counter);
+                }
+            }
+
+            if (leafCounters.isEmpty()) {
+                continue;
+            }
+
+            final LeafCounter[] counters = leafCounters.toArray(new LeafCounter[leafCounters.size()]);
+            for (int doc = docs.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = docs.nextDoc()) {
+                for (final LeafCounter counter : counters) {
+                    counter.count(doc);
+                }
+            }
+
+        }
+
+    }
+
+    /**
+     * Counted dimension.
+     */
+    interface Dim {
+
+        /**
+         * Top children for this dimension.
+         *
+         * @param topN max number of children
+         *
+         * @return result or null if dimension has no values
+         *
+         * @throws IOException error
+         */
+        FacetResult getTopChildren(int topN) throws IOException;
+
+    }
+
+    private interface LeafCounter {
+
+        void count(int doc) throws IOException;
+
+    }
+
+    private static class SortedSetDim implements Dim {
+
+        private final SortedSetDocValuesReaderState state;
+        private final SortedSetDocValuesReaderState.OrdRange ordRange;
+        private SortedSetDocValues dv;
+        private OrdinalMap ordinalMap;
+        private int[] counts;
+
+        private SortedSetDim(final SortedSetDocValuesReaderState state) {
+            this.state = state;
+            this.ordRange = state.getOrdRange(state.getField());
+        }
+
+        private void init() throws IOException {
+            this.dv = state.getDocValues();
+            this.ordinalMap = dv instanceof MultiDocValues.MultiSortedSetDocValues ? ((MultiDocValues.MultiSortedSetDocValues) dv).mapping : null;
+            this.counts = new int[state.getSize()];
+        }
+
+        private LeafCounter leaf(final LeafReaderContext context) throws IOException {
+
+            if (ordRange == null) {
+                return null;
+            }
+
+            final SortedSetDocValues segValues = context.reader().getSortedSetDocValues(state.getField());
+            if (segValues == null) {
+                return null;
+            }
+
+            final int[] counts = this.counts;
+            if (ordinalMap != null) {
+                final LongValues ordMap = ordinalMap.getGlobalOrds(context.ord);
+                return doc -> {
+                    if (segValues.advanceExact(doc)) {
+                        long term = segValues.nextOrd();
+                        while (term != SortedSetDocValues.NO_MORE_ORDS) {
+                            counts[(int) ordMap.get(term)]++;
+                            term = segValues.nextOrd();
+                        }
+                    }
+                };
+            }
+            return doc -> {
+                if (segValues.advanceExact(doc)) {
+                    long term = segValues.nextOrd();
+                    while (term != SortedSetDocValues.NO_MORE_ORDS) {
+                        counts[(int) term]++;
+                        term = segValues.nextOrd();
+                    }
+                }
+            };
+
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public FacetResult getTopChildren(final int topN) throws IOException {
+
+            if (ordRange == null || counts == null) {
+                return null;
+            }
+
+            TopOrdAndIntQueue q = null;
+            int bottomCount = 0;
+            int dimCount = 0;
+            int childCount = 0;
+
+            TopOrdAndIntQueue.OrdAndValue reuse = null;
+            for (int ord = ordRange.start; ord <= ordRange.end; ord++) {
+                if (counts[ord] > 0) {
+                    dimCount += counts[ord];
+                    childCount++;
+                    if (counts[ord] > bottomCount) {
+                        if (reuse == null) {
+                            reuse = new TopOrdAndIntQueue.OrdAndValue();
+                        }
+                        reuse.ord = ord;
+                        reuse.value = counts[ord];
+                        if (q == null) {
+                            q = new TopOrdAndIntQueue(topN);
+                        }
+                        reuse = q.insertWithOverflow(reuse);
+                        if (q.size() == topN) {
+                            bottomCount = q.top().value;
+                        }
+                    }
+                }
+            }
+
+            if (q == null) {
+                return null;
+            }
+
+            final LabelAndValue[] labelValues = new LabelAndValue[q.size()];
+            for (int i = labelValues.length - 1; i >= 0; i--) {
+                final TopOrdAndIntQueue.OrdAndValue ordAndValue = q.pop();
+                final BytesRef term = dv.lookupOrd(ordAndValue.ord);
+                final String[] parts = FacetsConfig.stringToPath(term.utf8ToString());
+                labelValues[i] = new LabelAndValue(parts[1], ordAndValue.value);
+            }
+
+            return new FacetResult(state.getField(), new String[0], dimCount, labelValues, childCount);
+        }
+    }
+
+    private static class RangeDim implements Dim {
+
+        private final String field;
+        private final LongRange[] ranges;
+        private final int[] counts;
+        private int totCount;
+
+        private RangeDim(final String field, final LongRange[] ranges) {
+            this.field = field;
+            this.ranges = ranges;
+            this.counts = new int[ranges.length];
+        }
+
+        private LeafCounter leaf(final LeafReaderContext context) throws IOException {
+
+            final NumericDocValues values = context.reader().getNumericDocValues(field);
+            if (values == null) {
+                return null;
+            }
+
+            final LongRange[] ranges = this.ranges;
+            final int[] counts = this.counts;
+            return doc -> {
+                if (values.advanceExact(doc)) {
+                    final long value = values.longValue();
+                    boolean matched = false;
+                    for (int i = 0; i < ranges.length; i++) {
+                        if (ranges[i].accept(value)) {
+                            counts[i]++;
+                            matched = true;
+                        }
+                    }
+                    if (matched) {
+                        totCount++;
+                    }
+                }
+            };
+
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public FacetResult getTopChildren(final int topN) {
+
+            final LabelAndValue[] labelValues = new LabelAndValue[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                labelValues[i] = new LabelAndValue(ranges[i].label, counts[i]);
+            }
+            return new FacetResult(field, new String[0], totCount, labelValues, labelValues.length);
+
+        }
+    }
+
+}
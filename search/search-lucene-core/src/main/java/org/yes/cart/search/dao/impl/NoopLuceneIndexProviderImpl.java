@@ -16,12 +16,17 @@
 
 package org.yes.cart.search.dao.impl;
 
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
 import org.apache.lucene.facet.taxonomy.SearcherTaxonomyManager;
 import org.apache.lucene.facet.taxonomy.directory.DirectoryTaxonomyWriter;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ReferenceManager;
 import org.yes.cart.search.dao.LuceneIndexProvider;
 
+import java.util.Collection;
+import java.util.Collections;
+
 /**
  * User: denispavlov
  * Date: 08/08/2017
@@ -34,6 +39,41 @@ public class NoopLuceneIndexProviderImpl implements LuceneIndexProvider {
         return "noop";
     }
 
+    @Override
+    public boolean isReplica() {
+        return false;
+    }
+
+    @Override
+    public void recordWarmUpQuery(final Object key, final WarmUpQuery query) {
+        // noop
+    }
+
+    @Override
+    public void addRefreshListener(final ReferenceManager.RefreshListener listener) {
+        // noop
+    }
+
+    @Override
+    public long publishSnapshot() {
+        return -1L;
+    }
+
+    @Override
+    public long replicateSnapshot() {
+        return -1L;
+    }
+
+    @Override
+    public LuceneIndexProvider provideShopPartition(final long shopId) {
+        return this;
+    }
+
+    @Override
+    public Collection<LuceneIndexProvider> provideShopPartitions() {
+        return Collections.emptyList();
+    }
+
     @Override
     public IndexSearcher provideIndexReader() {
         throw new UnsupportedOperationException();
@@ -49,11 +89,26 @@ public class NoopLuceneIndexProviderImpl implements LuceneIndexProvider {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public SortedSetDocValuesReaderState provideFacetsReaderState(final IndexSearcher searcher, final String field) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public void refreshIndexIfNecessary() {
 
     }
 
+    @Override
+    public long markDirty() {
+        return 0L;
+    }
+
+    @Override
+    public boolean waitForGeneration(final long generation, final long maxWaitMillis) {
+        return true;
+    }
+
     @Override
     public SearcherTaxonomyManager.SearcherAndTaxonomy provideFacetsReader() {
         throw new UnsupportedOperationException();
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.impl;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Searcher factory for searchers that search slices of index segments in parallel.
+ *
+ * Only searches that are expected to visit many documents fan out: estimated cost of the query (sum of
+ * the number of documents its scorers may match in each segment) must reach the threshold, all other
+ * searches run on the request thread as usual, since for them scheduling costs more than it saves.
+ * Note that only searches with collector managers (top docs, sorted top docs and counts) can fan out,
+ * searches with single collector (e.g. facets and primary keys) always run on request thread.
+ *
+ * Pool is bounded, when all threads are busy and queue is full slices are searched on request thread,
+ * so under load this degrades to sequential search rather than queuing up requests.
+ */
+class ParallelSearcherFactory extends SearcherFactory {
+
+    private final ThreadPoolExecutor executor;
+    private final long minCost;
+    private final int maxDocsPerSlice;
+    private final int maxSegmentsPerSlice;
+
+    /**
+     * @param name                index name
+     * @param threads             number of search threads
+     * @param minCost             min estimated cost of the query to search in parallel
+     * @param maxDocsPerSlice     max number of documents in single slice (larger segments are slice on their own)
+     * @param maxSegmentsPerSlice max number of segments in single slice
+     */
+    ParallelSearcherFactory(final String name,
+                            final int threads,
+                            final long minCost,
+                            final int maxDocsPerSlice,
+                            final int maxSegmentsPerSlice) {
+        this.minCost = minCost;
+        this.maxDocsPerSlice = maxDocsPerSlice;
+        this.maxSegmentsPerSlice = maxSegmentsPerSlice;
+        final AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * 4),
+                task -> {
+                    final Thread thread = new Thread(task, "[ft-search-" + name + "-" + count.incrementAndGet() + "]");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public IndexSearcher newSearcher(final IndexReader reader, final IndexReader previousReader) throws IOException {
+        return new ParallelSearcher(reader);
+    }
+
+    /**
+     * Stop search threads.
+     */
+    void shutdown() {
+        this.executor.shutdown();
+    }
+
+    /**
+     * Group segments into slices. Segments are taken largest first, segments with at least max documents
+     * are slices on their own, smaller segments are grouped until slice reaches max documents or max segments.
+     *
+     * @param leaves              segments
+     * @param maxDocsPerSlice     max number of documents in single slice
+     * @param maxSegmentsPerSlice max number of segments in single slice
+     *
+     * @return slices
+     */
+    static IndexSearcher.LeafSlice[] slices(final List<LeafReaderContext> leaves,
+                                            final int maxDocsPerSlice,
+                                            final int maxSegmentsPerSlice) {
+
+        final List<LeafReaderContext> sorted = new ArrayList<>(leaves);
+        sorted.sort((a, b) -> Integer.compare(b.reader().maxDoc(), a.reader().maxDoc()));
+
+        final List<IndexSearcher.LeafSlice> slices = new ArrayList<>();
+        final List<LeafReaderContext> group = new ArrayList<>();
+        long docs = 0L;
+        for (final LeafReaderContext leaf : sorted) {
+            if (leaf.reader().maxDoc() >= maxDocsPerSlice) {
+                slices.add(new IndexSearcher.LeafSlice(leaf));
+                continue;
+            }
+            group.add(leaf);
+            docs += leaf.reader().maxDoc();
+            if (docs >= maxDocsPerSlice || group.size() >= maxSegmentsPerSlice) {
+                slices.add(new IndexSearcher.LeafSlice(group.toArray(new LeafReaderContext[0])));
+                group.clear();
+                docs = 0L;
+            }
+        }
+        if (!group.isEmpty()) {
+            slices.add(new IndexSearcher.LeafSlice(group.toArray(new LeafReaderContext[0])));
+        }
+        return slices.toArray(new IndexSearcher.LeafSlice[0]);
+
+    }
+
+    /*
+     * Inner class so that slice settings are available in slices(), which is called from the constructor
+     * of IndexSearcher (reference to the factory is set before super constructor is invoked).
+     */
+    class ParallelSearcher extends IndexSearcher {
+
+        ParallelSearcher(final IndexReader reader) {
+            super(reader, executor);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected LeafSlice[] slices(final List<LeafReaderContext> leaves) {
+            return ParallelSearcherFactory.slices(leaves, maxDocsPerSlice, maxSegmentsPerSlice);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public <C extends Collector, T> T search(final Query query, final CollectorManager<C, T> collectorManager) throws IOException {
+
+            if (getSlices().length > 1 && isExpensive(query)) {
+                return super.search(query, collectorManager);
+            }
+
+            final C collector = collectorManager.newCollector();
+            search(query, collector);
+            return collectorManager.reduce(Collections.singletonList(collector));
+
+        }
+
+        /**
+         * @param query query
+         *
+         * @return true if estimated number of documents the query visits reaches threshold
+         *
+         * @throws IOException in case index cannot be read
+         */
+        boolean isExpensive(final Query query) throws IOException {
+
+            if (getIndexReader().maxDoc() < minCost) {
+                return false; // cannot be expensive without looking at the query
+            }
+
+            final Weight weight = createWeight(rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
+            long cost = 0L;
+            for (final LeafReaderContext leaf : getIndexReader().leaves()) {
+                final ScorerSupplier scorer = weight.scorerSupplier(leaf);
+                if (scorer != null) {
+                    cost += scorer.cost();
+                    if (cost >= minCost) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+
+        }
+
+    }
+
+}
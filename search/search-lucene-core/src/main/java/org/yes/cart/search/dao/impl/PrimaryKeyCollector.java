@@ -0,0 +1,187 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.impl;
+
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.search.Scorable;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SimpleCollector;
+import org.yes.cart.search.dao.entity.AdapterUtils;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Collector that streams primary keys of all matching documents into a primitive array.
+ *
+ * Primary key is read from the numeric doc values of {@link AdapterUtils#FIELD_PK}. Segments written before
+ * the doc values were introduced fall back to stored field, so old indexes remain searchable until reindexed.
+ *
+ * Unranked collector does not compute scores and returns primary keys in index order. Ranked collector keeps
+ * the score of each hit and returns primary keys in the same order as {@link org.apache.lucene.search.TopDocs}
+ * would, i.e. by score descending and then by document id.
+ */
+class PrimaryKeyCollector extends SimpleCollector {
+
+    private static final Set<String> PKS = Collections.singleton(AdapterUtils.FIELD_PK);
+
+    private final boolean ranked;
+
+    private long[] pks = new long[64];
+    private int[] docs = new int[64];
+    private float[] scores;
+    private int size = 0;
+
+    private int[] order;
+
+    private LeafReader reader;
+    private NumericDocValues values;
+    private int docBase;
+    private Scorable scorer;
+
+    /**
+     * @param ranked true to order primary keys by relevance, false to collect them in index order without scoring
+     */
+    PrimaryKeyCollector(final boolean ranked) {
+        this.ranked = ranked;
+        this.scores = ranked ? new float[64] : null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void doSetNextReader(final LeafReaderContext context) throws IOException {
+        this.reader = context.reader();
+        this.values = this.reader.getNumericDocValues(AdapterUtils.FIELD_PK);
+        this.docBase = context.docBase;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setScorer(final Scorable scorer) {
+        this.scorer = scorer;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void collect(final int doc) throws IOException {
+
+        final long pk = primaryKey(this.reader, this.values, doc);
+
+        if (this.size == this.pks.length) {
+            this.pks = Arrays.copyOf(this.pks, this.size << 1);
+            this.docs = Arrays.copyOf(this.docs, this.size << 1);
+            if (this.ranked) {
+                this.scores = Arrays.copyOf(this.scores, this.size << 1);
+            }
+        }
+        if (this.ranked) {
+            this.scores[this.size] = this.scorer.score();
+        }
+        this.docs[this.size] = this.docBase + doc;
+        this.pks[this.size++] = pk;
+
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ScoreMode scoreMode() {
+        return this.ranked ? ScoreMode.COMPLETE : ScoreMode.COMPLETE_NO_SCORES;
+    }
+
+    /**
+     * Read primary key of single document.
+     *
+     * @param leaf segment
+     * @param doc  document id within segment
+     *
+     * @return primary key
+     *
+     * @throws IOException in case index cannot be read
+     */
+    static long primaryKey(final LeafReaderContext leaf, final int doc) throws IOException {
+        return primaryKey(leaf.reader(), leaf.reader().getNumericDocValues(AdapterUtils.FIELD_PK), doc);
+    }
+
+    private static long primaryKey(final LeafReader reader, final NumericDocValues values, final int doc) throws IOException {
+        if (values != null && values.advanceExact(doc)) {
+            return values.longValue();
+        }
+        return Long.parseLong(reader.document(doc, PKS).get(AdapterUtils.FIELD_PK));
+    }
+
+    /**
+     * @return primary keys of all collected documents
+     */
+    long[] getPrimaryKeys() {
+
+        if (!this.ranked) {
+            return Arrays.copyOf(this.pks, this.size);
+        }
+
+        final int[] order = order();
+        final long[] sorted = new long[this.size];
+        for (int i = 0; i < this.size; i++) {
+            sorted[i] = this.pks[order[i]];
+        }
+        return sorted;
+    }
+
+    /**
+     * @return top level document id's of all collected documents, in the same order as {@link #getPrimaryKeys()}
+     */
+    int[] getDocs() {
+
+        if (!this.ranked) {
+            return Arrays.copyOf(this.docs, this.size);
+        }
+
+        final int[] order = order();
+        final int[] sorted = new int[this.size];
+        for (int i = 0; i < this.size; i++) {
+            sorted[i] = this.docs[order[i]];
+        }
+        return sorted;
+    }
+
+    private int[] order() {
+
+        if (this.order == null) {
+
+            /*
+                Scores are non negative, so their int bits preserve the order. Packing inverted score
+                bits with collection position allows to sort by score descending and then by position
+                (i.e. document id) using primitive sort.
+             */
+            final long[] packed = new long[this.size];
+            for (int i = 0; i < this.size; i++) {
+                packed[i] = ((long) (Integer.MAX_VALUE - Float.floatToIntBits(this.scores[i])) << 32) | i;
+            }
+            Arrays.sort(packed);
+
+            this.order = new int[this.size];
+            for (int i = 0; i < this.size; i++) {
+                this.order[i] = (int) packed[i];
+            }
+        }
+        return this.order;
+    }
+
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.impl;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.*;
+import org.apache.lucene.util.Bits;
+import org.yes.cart.utils.cache.LocalCache;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded weighted LRU cache of search results stamped by the reader they were computed on.
+ *
+ * Each entry remembers reader version and number of live documents matching the query in every segment. When
+ * reader is refreshed entry is not dropped straight away, instead on next lookup it is checked against the new
+ * reader: segments that were not touched by refresh (same live docs) are skipped, segments with new deletions and
+ * new segments are counted again. Entry is only dropped if count of matching documents changed in any of them,
+ * so that inventory and price updates of few products do not invalidate results of unrelated queries.
+ *
+ * Relevance ranked results are revalidated more strictly: entry is kept only if none of the segments with matches
+ * has been touched by refresh and new segments have no matches. Scores also depend on term statistics of the whole
+ * index, which do change with unrelated documents, but order of the same hits is only affected marginally, so
+ * ranked result is considered valid until any of its matching documents changes.
+ *
+ * Cached values are shared between all callers and must be treated as read only.
+ */
+public class QueryResultCacheImpl implements LocalCache {
+
+    private final String name;
+    private final long maxWeight;
+
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long weight = 0L;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private volatile boolean disabled = false;
+
+    /**
+     * @param name      cache name
+     * @param maxWeight max total weight of all entries
+     */
+    public QueryResultCacheImpl(final String name, final long maxWeight) {
+        this.name = name;
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Get cached result, which is still valid for given searcher.
+     *
+     * @param key      result key (must include query and all other parameters that affect result)
+     * @param searcher current searcher
+     * @param query    query of the result
+     * @param ranked   true if result is sorted by relevance
+     *
+     * @return cached result or null
+     */
+    public Object get(final Object key, final IndexSearcher searcher, final Query query, final boolean ranked) {
+
+        if (disabled) {
+            return null;
+        }
+
+        final Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        final long version = SearchAfterCursor.version(searcher.getIndexReader());
+        if (version >= 0L && version == entry.version) {
+            hits.incrementAndGet();
+            return entry.value;
+        }
+
+        final Map<IndexReader.CacheKey, Segment> segments = revalidate(entry, searcher, query, ranked);
+        synchronized (entries) {
+            if (entries.get(key) == entry) {
+                if (segments != null) {
+                    // stamp with new reader, so that next lookup takes the fast path
+                    entries.put(key, new Entry(version, segments, entry.value, entry.weight));
+                } else {
+                    entries.remove(key);
+                    this.weight -= entry.weight;
+                }
+            }
+        }
+        if (segments == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+
+    }
+
+    /**
+     * Put result into cache.
+     *
+     * @param key      result key
+     * @param searcher searcher that was used to compute the result
+     * @param query    query of the result
+     * @param value    result
+     * @param weight   weight of the result
+     */
+    public void put(final Object key, final IndexSearcher searcher, final Query query, final Object value, final int weight) {
+
+        if (disabled || value == null || weight > maxWeight) {
+            return;
+        }
+
+        final Map<IndexReader.CacheKey, Segment> segments;
+        try {
+            segments = new HashMap<>();
+            Weight matcher = null;
+            for (final LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+                final IndexReader.CacheHelper core = leaf.reader().getCoreCacheHelper();
+                final IndexReader.CacheHelper live = leaf.reader().getReaderCacheHelper();
+                if (core == null || live == null) {
+                    return; // not a segment reader, changes cannot be tracked
+                }
+                if (matcher == null) {
+                    matcher = matcher(searcher, query);
+                }
+                segments.put(core.getKey(), new Segment(live.getKey(), count(matcher, leaf)));
+            }
+        } catch (IOException ioe) {
+            return;
+        }
+
+        final Entry entry = new Entry(SearchAfterCursor.version(searcher.getIndexReader()), segments, value, weight);
+        synchronized (entries) {
+            final Entry old = entries.put(key, entry);
+            if (old != null) {
+                this.weight -= old.weight;
+            }
+            this.weight += weight;
+            evict();
+        }
+
+    }
+
+    /*
+     * Segments of the entry mapped to the segments of the current reader, or null if result is no longer valid.
+     */
+    private Map<IndexReader.CacheKey, Segment> revalidate(final Entry entry, final IndexSearcher searcher, final Query query, final boolean ranked) {
+
+        try {
+            final Map<IndexReader.CacheKey, Segment> segments = new HashMap<>();
+            Weight matcher = null;
+            int matchingSegments = 0;
+            for (final LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+                final IndexReader.CacheHelper core = leaf.reader().getCoreCacheHelper();
+                final IndexReader.CacheHelper live = leaf.reader().getReaderCacheHelper();
+                if (core == null || live == null) {
+                    return null;
+                }
+                final Segment previous = entry.segments.get(core.getKey());
+                if (previous != null && previous.matches > 0) {
+                    matchingSegments++;
+                }
+                if (previous != null && previous.live == live.getKey()) {
+                    // segment is not touched by refresh
+                    segments.put(core.getKey(), previous);
+                    continue;
+                }
+                if (ranked && previous != null && previous.matches > 0) {
+                    // deletions in segment with matches may change relative order of remaining hits
+                    return null;
+                }
+                if (matcher == null) {
+                    matcher = matcher(searcher, query);
+                }
+                final int matches = count(matcher, leaf);
+                if (matches != (previous != null ? previous.matches : 0)) {
+                    return null;
+                }
+                segments.put(core.getKey(), new Segment(live.getKey(), matches));
+            }
+            for (final Segment previous : entry.segments.values()) {
+                if (previous.matches > 0) {
+                    matchingSegments--;
+                }
+            }
+            // segment with matches has been dropped (e.g. all its documents deleted, or merged into new segment)
+            return matchingSegments == 0 ? segments : null;
+        } catch (IOException ioe) {
+            return null;
+        }
+
+    }
+
+    private static Weight matcher(final IndexSearcher searcher, final Query query) throws IOException {
+        return searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
+    }
+
+    private static int count(final Weight matcher, final LeafReaderContext leaf) throws IOException {
+        final Scorer scorer = matcher.scorer(leaf);
+        if (scorer == null) {
+            return 0;
+        }
+        final Bits liveDocs = leaf.reader().getLiveDocs();
+        final DocIdSetIterator it = scorer.iterator();
+        int count = 0;
+        for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+            if (liveDocs == null || liveDocs.get(doc)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void evict() {
+        final Iterator<Entry> it = entries.values().iterator();
+        while (this.weight > maxWeight && it.hasNext()) {
+            this.weight -= it.next().weight;
+            it.remove();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getWeight() {
+        synchronized (entries) {
+            return weight;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getHits() {
+        return hits.get();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isDisabled() {
+        return disabled;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setDisabled(final boolean disabled) {
+        this.disabled = disabled;
+        if (disabled) {
+            clear();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            weight = 0L;
+        }
+    }
+
+    private static final class Segment {
+
+        private final IndexReader.CacheKey live;
+        private final int matches;
+
+        private Segment(final IndexReader.CacheKey live, final int matches) {
+            this.live = live;
+            this.matches = matches;
+        }
+    }
+
+    private static final class Entry {
+
+        private final long version;
+        private final Map<IndexReader.CacheKey, Segment> segments;
+        private final Object value;
+        private final int weight;
+
+        private Entry(final long version, final Map<IndexReader.CacheKey, Segment> segments, final Object value, final int weight) {
+            this.version = version;
+            this.segments = segments;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.impl;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.*;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Opaque cursor for deep paging with {@link org.apache.lucene.search.IndexSearcher#searchAfter}.
+ *
+ * Cursor holds last hit of the previous page (document id, score and sort value) together with the offset
+ * of the next page. Document ids are only meaningful for the reader that produced them, therefore cursor is
+ * also bound to reader version and to the query and sort it was created for. Cursor that does not match
+ * current reader, query, sort or requested offset is not usable and the page has to be found by offset.
+ */
+final class SearchAfterCursor {
+
+    private static final byte FORMAT = 1;
+
+    private static final byte NO_SORT = 0;
+    private static final byte SORT_MISSING = 1;
+    private static final byte SORT_VALUE = 2;
+
+    private SearchAfterCursor() {
+        // no instance
+    }
+
+    /**
+     * @param reader reader for current search
+     *
+     * @return version of the reader or -1 if reader is not versioned (cursors are not supported)
+     */
+    static long version(final IndexReader reader) {
+        return reader instanceof DirectoryReader ? ((DirectoryReader) reader).getVersion() : -1L;
+    }
+
+    /**
+     * Create cursor for the next page.
+     *
+     * @param version     reader version
+     * @param query       query
+     * @param sort        sort (or null for relevance)
+     * @param nextFirst   offset of the next page
+     * @param last        last hit of the current page
+     *
+     * @return cursor token
+     *
+     * @throws IOException on encoding error
+     */
+    static String encode(final long version, final Query query, final Sort sort, final int nextFirst, final ScoreDoc last) throws IOException {
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        final DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeByte(FORMAT);
+        out.writeLong(version);
+        out.writeInt(fingerprint(query, sort));
+        out.writeInt(nextFirst);
+        out.writeInt(last.doc);
+        out.writeFloat(last.score);
+        if (sort == null) {
+            out.writeByte(NO_SORT);
+        } else {
+            final Object value = ((FieldDoc) last).fields[0];
+            if (value instanceof BytesRef) {
+                final BytesRef ref = (BytesRef) value;
+                out.writeByte(SORT_VALUE);
+                out.writeInt(ref.length);
+                out.write(ref.bytes, ref.offset, ref.length);
+            } else {
+                out.writeByte(SORT_MISSING);
+            }
+        }
+        out.flush();
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Restore last hit of the previous page from cursor.
+     *
+     * @param cursor      cursor token (optional)
+     * @param version     current reader version
+     * @param query       query
+     * @param sort        sort (or null for relevance)
+     * @param first       requested offset
+     *
+     * @return hit to search after, or null if cursor is not usable for this search
+     */
+    static ScoreDoc decode(final String cursor, final long version, final Query query, final Sort sort, final int first) {
+
+        if (StringUtils.isBlank(cursor) || version < 0L) {
+            return null;
+        }
+
+        try {
+
+            final DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)));
+
+            if (in.readByte() != FORMAT
+                    || in.readLong() != version
+                    || in.readInt() != fingerprint(query, sort)
+                    || in.readInt() != first) {
+                return null;
+            }
+
+            final int doc = in.readInt();
+            final float score = in.readFloat();
+            final byte sortValue = in.readByte();
+
+            if (sort == null) {
+                return sortValue == NO_SORT ? new ScoreDoc(doc, score) : null;
+            } else if (sortValue == SORT_VALUE) {
+                final int length = in.readInt();
+                if (length < 0 || length > in.available()) {
+                    return null;
+                }
+                final byte[] value = new byte[length];
+                in.readFully(value);
+                return new FieldDoc(doc, score, new Object[] { new BytesRef(value) });
+            } else if (sortValue == SORT_MISSING) {
+                return new FieldDoc(doc, score, new Object[] { null });
+            }
+            return null;
+
+        } catch (IllegalArgumentException | IOException exp) {
+            return null; // malformed cursor, which is possible as it comes from the client
+        }
+
+    }
+
+    private static int fingerprint(final Query query, final Sort sort) {
+        return 31 * query.hashCode() + Objects.hashCode(sort);
+    }
+
+}
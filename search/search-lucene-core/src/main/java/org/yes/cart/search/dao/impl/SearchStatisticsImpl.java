@@ -0,0 +1,382 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.impl;
+
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Search instrumentation for single index. Latency, hits and facets are recorded per query shape, which is
+ * search operation and set of fields the query runs against. Each search query builder contributes clauses
+ * on its own fields, so shape identifies which builders made up the query (e.g. category listing with price
+ * filter) without keeping the values.
+ *
+ * Searches that take longer than threshold are logged to "FTQ.SLOW" logger with full query and explanation
+ * of the top hit (only for searches that retrieve hits, counts and facets are not explained as that would
+ * require running them again), last slow searches are also kept in memory.
+ */
+public class SearchStatisticsImpl {
+
+    private static final Logger LOGSLOW = LoggerFactory.getLogger("FTQ.SLOW");
+
+    private static final String OTHER = "*";
+
+    private final String name;
+
+    private final Map<String, Shape> shapes = new ConcurrentHashMap<>();
+    private int maxShapes = 500;
+
+    private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+    private int maxSlowQueries = 50;
+    private volatile long slowQueryThresholdNanos = 0L;
+
+    /**
+     * @param name index name
+     */
+    public SearchStatisticsImpl(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return index name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Record search.
+     *
+     * @param operation search operation (e.g. "count")
+     * @param query     query
+     * @param nanos     time taken
+     * @param hits      total hits
+     * @param facets    number of facet values returned
+     */
+    public void record(final String operation, final Query query, final long nanos, final long hits, final int facets) {
+
+        final String key = shape(operation, query);
+        Shape shape = shapes.get(key);
+        if (shape == null) {
+            if (shapes.size() >= maxShapes) {
+                shape = shapes.computeIfAbsent(operation + " " + OTHER, k -> new Shape(operation, OTHER));
+            } else {
+                shape = shapes.computeIfAbsent(key, k -> new Shape(operation, k.substring(operation.length() + 1)));
+            }
+        }
+        shape.latency.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+        shape.hits.addAndGet(hits);
+        shape.facets.addAndGet(facets);
+
+    }
+
+    /**
+     * @param nanos time taken by search
+     *
+     * @return true if search is slow and should be recorded by {@link #recordSlow(String, Query, long, long, String)}
+     */
+    public boolean isSlow(final long nanos) {
+        final long threshold = this.slowQueryThresholdNanos;
+        return threshold > 0L && nanos >= threshold;
+    }
+
+    /**
+     * Record slow search.
+     *
+     * @param operation   search operation
+     * @param query       query
+     * @param nanos       time taken
+     * @param hits        total hits
+     * @param explanation explanation of the top hit (optional)
+     */
+    public void recordSlow(final String operation, final Query query, final long nanos, final long hits, final String explanation) {
+
+        final SlowQuery slow = new SlowQuery(System.currentTimeMillis(), operation, shape(operation, query).substring(operation.length() + 1),
+                String.valueOf(query), TimeUnit.NANOSECONDS.toMillis(nanos), hits, explanation);
+
+        synchronized (slowQueries) {
+            slowQueries.addFirst(slow);
+            while (slowQueries.size() > maxSlowQueries) {
+                slowQueries.removeLast();
+            }
+        }
+
+        if (explanation != null) {
+            LOGSLOW.warn("Slow {} on {} took {}ms, {} hits, query {}\n{}", operation, name, slow.getMillis(), hits, slow.getQuery(), explanation);
+        } else {
+            LOGSLOW.warn("Slow {} on {} took {}ms, {} hits, query {}", operation, name, slow.getMillis(), hits, slow.getQuery());
+        }
+
+    }
+
+    /**
+     * @return statistics per query shape
+     */
+    public List<Shape> getShapes() {
+        final List<Shape> all = new ArrayList<>(shapes.values());
+        all.sort(Comparator.comparing(Shape::getOperation).thenComparing(Shape::getFields));
+        return all;
+    }
+
+    /**
+     * @return most recent slow searches (most recent first)
+     */
+    public List<SlowQuery> getSlowQueries() {
+        synchronized (slowQueries) {
+            return new ArrayList<>(slowQueries);
+        }
+    }
+
+    /**
+     * Remove all recorded statistics and slow searches.
+     */
+    public void reset() {
+        shapes.clear();
+        synchronized (slowQueries) {
+            slowQueries.clear();
+        }
+    }
+
+    /**
+     * @return slow query threshold in milliseconds (zero means slow searches are not recorded)
+     */
+    public long getSlowQueryThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowQueryThresholdNanos);
+    }
+
+    /**
+     * Spring IoC.
+     *
+     * @param slowQueryThresholdMillis slow query threshold in milliseconds, zero disables slow query log
+     */
+    public void setSlowQueryThresholdMillis(final long slowQueryThresholdMillis) {
+        this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, slowQueryThresholdMillis));
+    }
+
+    /**
+     * Spring IoC.
+     *
+     * @param maxShapes max number of distinct shapes, searches of other shapes are recorded under "*"
+     */
+    public void setMaxShapes(final int maxShapes) {
+        this.maxShapes = maxShapes;
+    }
+
+    /**
+     * Spring IoC.
+     *
+     * @param maxSlowQueries max number of slow searches kept in memory
+     */
+    public void setMaxSlowQueries(final int maxSlowQueries) {
+        this.maxSlowQueries = maxSlowQueries;
+    }
+
+    static String shape(final String operation, final Query query) {
+
+        final Set<String> fields = new TreeSet<>();
+        if (query != null) {
+            query.visit(new QueryVisitor() {
+                @Override
+                public boolean acceptField(final String field) {
+                    fields.add(field);
+                    return false; // no need to look at the terms
+                }
+
+                @Override
+                public QueryVisitor getSubVisitor(final BooleanClause.Occur occur, final Query parent) {
+                    return this;
+                }
+            });
+        }
+        final StringBuilder shape = new StringBuilder(operation).append(' ');
+        if (fields.isEmpty()) {
+            shape.append(query != null ? query.getClass().getSimpleName() : OTHER);
+        } else {
+            for (final String field : fields) {
+                if (shape.length() > operation.length() + 1) {
+                    shape.append('+');
+                }
+                shape.append(field);
+            }
+        }
+        return shape.toString();
+
+    }
+
+    /**
+     * Statistics of single query shape.
+     */
+    public static final class Shape {
+
+        private final String operation;
+        private final String fields;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong facets = new AtomicLong();
+
+        private Shape(final String operation, final String fields) {
+            this.operation = operation;
+            this.fields = fields;
+        }
+
+        /**
+         * @return search operation
+         */
+        public String getOperation() {
+            return operation;
+        }
+
+        /**
+         * @return fields of the query separated by "+"
+         */
+        public String getFields() {
+            return fields;
+        }
+
+        /**
+         * @return number of searches
+         */
+        public long getCount() {
+            return latency.getCount();
+        }
+
+        /**
+         * @return mean latency in microseconds
+         */
+        public long getMeanMicros() {
+            return latency.getMean();
+        }
+
+        /**
+         * @param percentile percentile (0-100)
+         *
+         * @return latency at given percentile in microseconds
+         */
+        public long getPercentileMicros(final double percentile) {
+            return latency.getValueAtPercentile(percentile);
+        }
+
+        /**
+         * @return max latency in microseconds
+         */
+        public long getMaxMicros() {
+            return latency.getMax();
+        }
+
+        /**
+         * @return total number of hits of all searches
+         */
+        public long getHits() {
+            return hits.get();
+        }
+
+        /**
+         * @return total number of facet values of all searches
+         */
+        public long getFacets() {
+            return facets.get();
+        }
+    }
+
+    /**
+     * Slow search.
+     */
+    public static final class SlowQuery {
+
+        private final long timestamp;
+        private final String operation;
+        private final String fields;
+        private final String query;
+        private final long millis;
+        private final long hits;
+        private final String explanation;
+
+        private SlowQuery(final long timestamp,
+                          final String operation,
+                          final String fields,
+                          final String query,
+                          final long millis,
+                          final long hits,
+                          final String explanation) {
+            this.timestamp = timestamp;
+            this.operation = operation;
+            this.fields = fields;
+            this.query = query;
+            this.millis = millis;
+            this.hits = hits;
+            this.explanation = explanation;
+        }
+
+        /**
+         * @return time when search was run
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * @return search operation
+         */
+        public String getOperation() {
+            return operation;
+        }
+
+        /**
+         * @return fields of the query separated by "+"
+         */
+        public String getFields() {
+            return fields;
+        }
+
+        /**
+         * @return full query
+         */
+        public String getQuery() {
+            return query;
+        }
+
+        /**
+         * @return time taken in milliseconds
+         */
+        public long getMillis() {
+            return millis;
+        }
+
+        /**
+         * @return total hits
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * @return explanation of the top hit (or null)
+         */
+        public String getExplanation() {
+            return explanation;
+        }
+    }
+
+}
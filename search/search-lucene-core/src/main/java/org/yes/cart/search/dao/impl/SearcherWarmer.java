@@ -0,0 +1,161 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.impl;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yes.cart.search.dao.LuceneIndexProvider;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Searcher factory that replays sample of recent searches on the new searcher before searcher manager
+ * publishes it, so that doc values, norms, facet ordinals and stored objects of new segments are loaded
+ * by the refresh rather than by the first requests after it.
+ *
+ * Sample is the most recently used distinct searches (e.g. category listings with their default sort,
+ * filtered navigation including price ranges), which are recorded by {@link GenericFTSLuceneImpl}.
+ * Warm up stops once time budget is exhausted, since refresh is blocked while warming. Warm up is skipped for
+ * refresh that comes back to back with previous one (within time budget after it), new segments are small then
+ * and blocking every refresh would only delay visibility of changes further.
+ */
+class SearcherWarmer extends SearcherFactory {
+
+    private static final Logger LOGFTQ = LoggerFactory.getLogger("FTQ");
+
+    private final String name;
+    private final long maxMillis;
+
+    private final Map<Object, LuceneIndexProvider.WarmUpQuery> sample;
+
+    private volatile SortedSetFacetsStateCache facetsStateCache;
+
+    private volatile long lastWarmUp = 0L;
+
+    private SearcherFactory searcherFactory = new SearcherFactory();
+
+    /**
+     * @param name       index name
+     * @param maxQueries max number of searches to replay
+     * @param maxMillis  time budget for single warm up
+     */
+    SearcherWarmer(final String name, final int maxQueries, final long maxMillis) {
+        this.name = name;
+        this.maxMillis = maxMillis;
+        this.sample = new LinkedHashMap<Object, LuceneIndexProvider.WarmUpQuery>(maxQueries * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Object, LuceneIndexProvider.WarmUpQuery> eldest) {
+                return size() > maxQueries;
+            }
+        };
+    }
+
+    /**
+     * @param facetsStateCache facet states cache, which states for new reader are built into while warming
+     */
+    void setFacetsStateCache(final SortedSetFacetsStateCache facetsStateCache) {
+        this.facetsStateCache = facetsStateCache;
+    }
+
+    /**
+     * @param searcherFactory factory that creates searchers before they are warmed up (e.g. parallel searchers)
+     */
+    void setSearcherFactory(final SearcherFactory searcherFactory) {
+        this.searcherFactory = searcherFactory;
+    }
+
+    /**
+     * Record search.
+     *
+     * @param key   search key (same search must have same key)
+     * @param query search to replay
+     */
+    void record(final Object key, final LuceneIndexProvider.WarmUpQuery query) {
+        synchronized (sample) {
+            sample.put(key, query);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public IndexSearcher newSearcher(final IndexReader reader, final IndexReader previousReader) throws IOException {
+        final IndexSearcher searcher = searcherFactory.newSearcher(reader, previousReader);
+        if (previousReader != null) {
+            warm(searcher);
+        }
+        return searcher;
+    }
+
+    /**
+     * Replay recorded searches, most recent first.
+     *
+     * @param searcher new searcher
+     *
+     * @return number of replayed searches
+     */
+    int warm(final IndexSearcher searcher) {
+
+        if (System.currentTimeMillis() - lastWarmUp < maxMillis) {
+            LOGFTQ.debug("Skipped warm up of {}, refresh is back to back with previous", name);
+            return 0;
+        }
+
+        final List<LuceneIndexProvider.WarmUpQuery> queries;
+        synchronized (sample) {
+            queries = new ArrayList<>(sample.values());
+        }
+        if (queries.isEmpty()) {
+            return 0;
+        }
+        Collections.reverse(queries);
+
+        final SortedSetFacetsStateCache states = this.facetsStateCache;
+        if (states != null) {
+            states.prepare(searcher.getIndexReader());
+        }
+
+        final long start = System.currentTimeMillis();
+        int count = 0;
+        for (final LuceneIndexProvider.WarmUpQuery query : queries) {
+            if (System.currentTimeMillis() - start > maxMillis) {
+                break;
+            }
+            try {
+                query.run(searcher);
+                count++;
+            } catch (Exception exp) {
+                LOGFTQ.debug("Failed to warm up {}, caused: {}", name, exp.getMessage());
+            }
+        }
+
+        lastWarmUp = System.currentTimeMillis();
+
+        LOGFTQ.debug("Warmed up {} with {} of {} searches in {}ms", name, count, queries.size(), lastWarmUp - start);
+
+        return count;
+
+    }
+
+}
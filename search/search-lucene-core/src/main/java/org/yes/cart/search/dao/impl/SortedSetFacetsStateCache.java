@@ -0,0 +1,134 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.impl;
+
+import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ReferenceManager;
+import org.apache.lucene.search.SearcherManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of {@link SortedSetDocValuesReaderState} per facet field. Building reader state requires walking
+ * the ordinals of the whole index, so states are built once per reader and shared by all concurrent facet
+ * requests. Cache is bound to the current reader of the {@link SearcherManager} and is replaced every time
+ * the manager refreshes the reader. Requests that still hold the previous searcher get uncached state.
+ * States of the new reader can be built before it is published (see {@link SearcherWarmer}), in which case
+ * they are adopted on refresh.
+ */
+class SortedSetFacetsStateCache implements ReferenceManager.RefreshListener {
+
+    private final SearcherManager searcherManager;
+
+    private volatile ReaderStates current;
+    private volatile ReaderStates pending;
+
+    SortedSetFacetsStateCache(final SearcherManager searcherManager) throws IOException {
+        this.searcherManager = searcherManager;
+        this.current = currentReaderStates();
+    }
+
+    /**
+     * Get facet reader state for given field.
+     *
+     * @param searcher searcher acquired from the searcher manager
+     * @param field    facet field
+     *
+     * @return reader state
+     *
+     * @throws IOException error
+     */
+    SortedSetDocValuesReaderState getState(final IndexSearcher searcher, final String field) throws IOException {
+
+        final IndexReader reader = searcher.getIndexReader();
+        ReaderStates states = this.current;
+        if (states.reader != reader) {
+            states = this.pending;
+            if (states == null || states.reader != reader) {
+                // stale searcher, do not pollute the cache
+                return new DefaultSortedSetDocValuesReaderState(reader, field);
+            }
+        }
+
+        try {
+            return states.states.computeIfAbsent(field, key -> {
+                try {
+                    return new DefaultSortedSetDocValuesReaderState(reader, key);
+                } catch (IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                }
+            });
+        } catch (UncheckedIOException uioe) {
+            throw uioe.getCause();
+        }
+
+    }
+
+    /**
+     * Cache states of the reader that is about to be published.
+     *
+     * @param reader new reader
+     */
+    void prepare(final IndexReader reader) {
+        this.pending = new ReaderStates(reader);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void beforeRefresh() {
+        // nothing to do
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void afterRefresh(final boolean didRefresh) throws IOException {
+        if (didRefresh) {
+            this.current = currentReaderStates();
+            this.pending = null;
+        }
+    }
+
+    private ReaderStates currentReaderStates() throws IOException {
+        final IndexSearcher searcher = this.searcherManager.acquire();
+        try {
+            final ReaderStates prepared = this.pending;
+            if (prepared != null && prepared.reader == searcher.getIndexReader()) {
+                return prepared;
+            }
+            return new ReaderStates(searcher.getIndexReader());
+        } finally {
+            this.searcherManager.release(searcher);
+        }
+    }
+
+    private static class ReaderStates {
+
+        private final IndexReader reader;
+        private final Map<String, SortedSetDocValuesReaderState> states = new ConcurrentHashMap<>();
+
+        private ReaderStates(final IndexReader reader) {
+            this.reader = reader;
+        }
+    }
+
+}
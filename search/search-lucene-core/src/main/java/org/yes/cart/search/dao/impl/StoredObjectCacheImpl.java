@@ -0,0 +1,240 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.impl;
+
+import org.apache.lucene.index.IndexReader;
+import org.yes.cart.utils.cache.LocalCache;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded weighted LRU cache of objects decoded from stored fields.
+ *
+ * Entries are keyed by segment core key and segment doc id. Segment documents never change (updates are
+ * delete + add into a new segment), so entries never go stale. When segment is closed (e.g. after merge and
+ * reader swap by {@link LuceneIndexProviderImpl#refreshIndexIfNecessary()}) all its entries are removed.
+ *
+ * Weight of each entry is supplied by the caller (e.g. size of the stored value in bytes), when total weight
+ * exceeds max weight least recently used entries are evicted.
+ *
+ * Cached objects are shared between all callers and must be treated as read only.
+ */
+public class StoredObjectCacheImpl implements LocalCache {
+
+    private final String name;
+    private final long maxWeight;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Set<IndexReader.CacheKey> segments = new HashSet<>();
+    private long weight = 0L;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private volatile boolean disabled = false;
+
+    /**
+     * @param name      cache name
+     * @param maxWeight max total weight of all entries
+     */
+    public StoredObjectCacheImpl(final String name, final long maxWeight) {
+        this.name = name;
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Get cached object.
+     *
+     * @param segment segment core key
+     * @param doc     segment doc id
+     *
+     * @return cached object or null
+     */
+    public Object get(final IndexReader.CacheKey segment, final int doc) {
+
+        if (disabled) {
+            return null;
+        }
+
+        final Entry entry;
+        synchronized (entries) {
+            entry = entries.get(new Key(segment, doc));
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+
+    }
+
+    /**
+     * Put object into cache.
+     *
+     * @param segment segment core cache helper
+     * @param doc     segment doc id
+     * @param value   value
+     * @param weight  weight of the value
+     */
+    public void put(final IndexReader.CacheHelper segment, final int doc, final Object value, final int weight) {
+
+        if (disabled || value == null || weight > maxWeight) {
+            return;
+        }
+
+        final IndexReader.CacheKey segmentKey = segment.getKey();
+        final boolean register;
+        synchronized (entries) {
+            register = segments.add(segmentKey);
+            final Entry old = entries.put(new Key(segmentKey, doc), new Entry(value, weight));
+            if (old != null) {
+                this.weight -= old.weight;
+            }
+            this.weight += weight;
+            evict();
+        }
+        if (register) {
+            segment.addClosedListener(this::removeSegment);
+        }
+
+    }
+
+    private void evict() {
+        final Iterator<Entry> it = entries.values().iterator();
+        while (this.weight > maxWeight && it.hasNext()) {
+            this.weight -= it.next().weight;
+            it.remove();
+        }
+    }
+
+    void removeSegment(final IndexReader.CacheKey segment) {
+        synchronized (entries) {
+            if (segments.remove(segment)) {
+                final Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+                while (it.hasNext()) {
+                    final Map.Entry<Key, Entry> entry = it.next();
+                    if (entry.getKey().segment == segment) {
+                        this.weight -= entry.getValue().weight;
+                        it.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getWeight() {
+        synchronized (entries) {
+            return weight;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getHits() {
+        return hits.get();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isDisabled() {
+        return disabled;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setDisabled(final boolean disabled) {
+        this.disabled = disabled;
+        if (disabled) {
+            clear();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            weight = 0L;
+        }
+    }
+
+    private static final class Key {
+
+        private final IndexReader.CacheKey segment;
+        private final int doc;
+
+        private Key(final IndexReader.CacheKey segment, final int doc) {
+            this.segment = segment;
+            this.doc = doc;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            final Key key = (Key) o;
+            return doc == key.doc && segment == key.segment;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(segment) + doc;
+        }
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+        private final int weight;
+
+        private Entry(final Object value, final int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+}
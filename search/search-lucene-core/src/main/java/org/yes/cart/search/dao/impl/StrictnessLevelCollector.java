@@ -0,0 +1,114 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.impl;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.*;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Collector that determines the strictest of several queries that matches at least one document.
+ *
+ * Collector is meant to be used with disjunction of all levels, so that each matching document is visited
+ * once. For every hit only the levels stricter than the best one found so far are checked, and collection is
+ * terminated as soon as the strictest level matches. Each level iterator only moves forward within segment,
+ * so overall cost is a single pass over postings of all levels.
+ */
+class StrictnessLevelCollector extends SimpleCollector {
+
+    private final Weight[] levels;
+    private final DocIdSetIterator[] iterators;
+
+    private int best;
+
+    /**
+     * @param searcher searcher that is used to run the disjunction
+     * @param queries  queries ordered by strictness (strictest first)
+     *
+     * @throws IOException on error creating weights
+     */
+    StrictnessLevelCollector(final IndexSearcher searcher, final List<Query> queries) throws IOException {
+        this.levels = new Weight[queries.size()];
+        for (int i = 0; i < this.levels.length; i++) {
+            this.levels[i] = searcher.createWeight(searcher.rewrite(queries.get(i)), ScoreMode.COMPLETE_NO_SCORES, 1f);
+        }
+        this.iterators = new DocIdSetIterator[this.levels.length];
+        this.best = this.levels.length;
+    }
+
+    /**
+     * @param queries queries ordered by strictness (strictest first)
+     *
+     * @return disjunction of all levels
+     */
+    static Query disjunction(final List<Query> queries) {
+        final BooleanQuery.Builder any = new BooleanQuery.Builder();
+        for (final Query query : queries) {
+            any.add(query, BooleanClause.Occur.SHOULD);
+        }
+        return any.build();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void doSetNextReader(final LeafReaderContext context) throws IOException {
+        if (this.best == 0) {
+            throw new CollectionTerminatedException(); // strictest level already matched, skip remaining segments
+        }
+        for (int i = 0; i < this.best; i++) {
+            final Scorer scorer = this.levels[i].scorer(context);
+            this.iterators[i] = scorer != null ? scorer.iterator() : null;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void collect(final int doc) throws IOException {
+
+        for (int i = 0; i < this.best; i++) {
+            final DocIdSetIterator iterator = this.iterators[i];
+            if (iterator != null) {
+                final int current = iterator.docID() < doc ? iterator.advance(doc) : iterator.docID();
+                if (current == doc) {
+                    this.best = i;
+                    break;
+                }
+            }
+        }
+
+        if (this.best == 0) {
+            throw new CollectionTerminatedException();
+        }
+
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ScoreMode scoreMode() {
+        return ScoreMode.COMPLETE_NO_SCORES;
+    }
+
+    /**
+     * @return index of the strictest matching level, or -1 if none matched
+     */
+    int getStrictestLevel() {
+        return this.best == this.levels.length ? -1 : this.best;
+    }
+
+}
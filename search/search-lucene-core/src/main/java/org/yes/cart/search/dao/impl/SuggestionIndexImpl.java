@@ -0,0 +1,444 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.impl;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ReferenceManager;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IntsRef;
+import org.apache.lucene.util.IntsRefBuilder;
+import org.apache.lucene.util.fst.Builder;
+import org.apache.lucene.util.fst.FST;
+import org.apache.lucene.util.fst.PositiveIntOutputs;
+import org.apache.lucene.util.fst.Util;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.yes.cart.search.dao.LuceneIndexProvider;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.yes.cart.search.dao.entity.LuceneDocumentAdapterUtils.*;
+
+/**
+ * Type-ahead suggestions per shop and language, answered from in memory FSTs without running any query on the
+ * index. Suggestion sources (product names, brands and categories) together with shops and weight are written to
+ * doc values of the documents during indexing (see {@link org.yes.cart.search.dao.entity.ProductLuceneDocumentAdapter}).
+ *
+ * After index refresh FSTs are rebuilt in the background from the doc values, but not more often than
+ * {@link #setRebuildMinIntervalMillis(long)}, and swapped in once ready. Every word of the suggestion is a start
+ * point, so "mouse" suggests "Mini Mouse M187". Weight of the suggestion is the sum of weights of all documents
+ * it comes from, so popular brands and categories are ranked above single products. Weights are summed per
+ * source ordinal of each segment, so every distinct source (e.g. brand) is only decoded once per segment.
+ */
+public class SuggestionIndexImpl implements ReferenceManager.RefreshListener, InitializingBean, DisposableBean {
+
+    private static final Logger LOGFTQ = LoggerFactory.getLogger("FTQ");
+
+    private static final String DEFAULT = "";
+    private static final byte SEPARATOR = 0;
+
+    private final LuceneIndexProvider indexProvider;
+
+    private long rebuildMinIntervalMillis = 60000L;
+    private int maxWords = 5;
+
+    private volatile Map<Long, Map<String, FST<Long>>> suggesters = Collections.emptyMap();
+
+    private ScheduledExecutorService executor;
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private volatile long lastBuild = 0L;
+
+    /**
+     * @param indexProvider index with suggestion fields
+     */
+    public SuggestionIndexImpl(final LuceneIndexProvider indexProvider) {
+        this.indexProvider = indexProvider;
+    }
+
+    /**
+     * Suggestions for prefix typed into search box.
+     *
+     * @param shopId     shop PK
+     * @param language   language
+     * @param prefix     prefix
+     * @param maxResults max number of suggestions
+     *
+     * @return suggestions, best first
+     */
+    public List<String> suggest(final long shopId, final String language, final String prefix, final int maxResults) {
+
+        final Map<String, FST<Long>> shop = this.suggesters.get(shopId);
+        if (shop == null || maxResults <= 0) {
+            return Collections.emptyList();
+        }
+
+        FST<Long> fst = shop.get(language);
+        if (fst == null) {
+            fst = shop.get(DEFAULT);
+        }
+        final String normalised = normalise(prefix, true);
+        if (fst == null || normalised.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        try {
+
+            final BytesRef key = new BytesRef(normalised);
+            final FST.BytesReader in = fst.getBytesReader();
+            final FST.Arc<Long> arc = fst.getFirstArc(new FST.Arc<>());
+            Long output = fst.outputs.getNoOutput();
+            for (int i = key.offset; i < key.offset + key.length; i++) {
+                if (fst.findTargetArc(key.bytes[i] & 0xFF, arc, arc, in) == null) {
+                    return Collections.emptyList();
+                }
+                output = fst.outputs.add(output, arc.output());
+            }
+
+            // same suggestion can be reached from several words, so ask for more and remove duplicates
+            final Util.TopResults<Long> top = Util.shortestPaths(fst, arc, output, Comparator.naturalOrder(), maxResults * maxWords, false);
+
+            final Set<String> suggestions = new LinkedHashSet<>();
+            for (final Util.Result<Long> result : top) {
+                suggestions.add(display(result.input));
+                if (suggestions.size() == maxResults) {
+                    break;
+                }
+            }
+            return new ArrayList<>(suggestions);
+
+        } catch (IOException ioe) {
+            LOGFTQ.warn("Unable to suggest for {}, caused: {}", prefix, ioe.getMessage());
+            return Collections.emptyList();
+        }
+
+    }
+
+    /*
+     * Suggestion is the part of the key after separator.
+     */
+    private String display(final IntsRef input) {
+        int start = input.offset;
+        final int end = input.offset + input.length;
+        while (start < end && input.ints[start] != SEPARATOR) {
+            start++;
+        }
+        final byte[] bytes = new byte[Math.max(0, end - start - 1)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) input.ints[start + 1 + i];
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Build suggestions from the current searcher.
+     *
+     * @return number of suggestions
+     */
+    int build() {
+
+        final long start = System.currentTimeMillis();
+
+        // source > shop > weight
+        final Map<String, Source> sources = new HashMap<>();
+        final Set<String> languages = new HashSet<>();
+        languages.add(DEFAULT);
+
+        final IndexSearcher searcher = this.indexProvider.provideIndexReader();
+        try {
+            for (final LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+                for (final Map.Entry<BytesRef, Map<Long, Long>> source : readLeaf(leaf).entrySet()) {
+                    final String value = source.getKey().utf8ToString();
+                    final Source merged = sources.computeIfAbsent(value, Source::parse);
+                    source.getValue().forEach((shopId, weight) -> merged.weights.merge(shopId, weight, Long::sum));
+                    languages.addAll(merged.translations.keySet());
+                }
+            }
+        } catch (Exception exp) {
+            LOGFTQ.error("Unable to build suggestions for " + this.indexProvider.getName() + ", caused: " + exp.getMessage(), exp);
+            return -1;
+        } finally {
+            this.indexProvider.releaseIndexReader(searcher);
+        }
+
+        // shop > language > normalised > suggestion and weight
+        final Map<Long, Map<String, Map<String, Suggestion>>> all = new HashMap<>();
+        for (final Source source : sources.values()) {
+            for (final Map.Entry<Long, Long> shopWeight : source.weights.entrySet()) {
+                final Map<String, Map<String, Suggestion>> shop = all.computeIfAbsent(shopWeight.getKey(), k -> new HashMap<>());
+                for (final String language : languages) {
+                    final Map<String, Suggestion> suggestions = shop.computeIfAbsent(language, k -> new HashMap<>());
+                    final String text = source.translations.getOrDefault(language, source.translations.get(DEFAULT));
+                    final String normalised = normalise(text, false);
+                    if (!normalised.isEmpty()) {
+                        suggestions.computeIfAbsent(normalised, k -> new Suggestion(text)).weight += shopWeight.getValue();
+                    }
+                }
+            }
+        }
+
+        int count = 0;
+        final Map<Long, Map<String, FST<Long>>> built = new HashMap<>();
+        try {
+            for (final Map.Entry<Long, Map<String, Map<String, Suggestion>>> shop : all.entrySet()) {
+                final Map<String, FST<Long>> byLanguage = new HashMap<>();
+                for (final Map.Entry<String, Map<String, Suggestion>> language : shop.getValue().entrySet()) {
+                    final FST<Long> fst = buildFst(language.getValue());
+                    if (fst != null) {
+                        byLanguage.put(language.getKey(), fst);
+                        count += language.getValue().size();
+                    }
+                }
+                built.put(shop.getKey(), byLanguage);
+            }
+        } catch (IOException ioe) {
+            LOGFTQ.error("Unable to build suggestions for " + this.indexProvider.getName() + ", caused: " + ioe.getMessage(), ioe);
+            return -1;
+        }
+
+        this.suggesters = built;
+        this.lastBuild = start;
+
+        LOGFTQ.info("Built {} suggestions for {} shops of {} in {}ms", count, built.size(), this.indexProvider.getName(), System.currentTimeMillis() - start);
+
+        return count;
+
+    }
+
+    /*
+     * Weight per shop of every source in the segment, summed over live documents by source ordinal.
+     */
+    private Map<BytesRef, Map<Long, Long>> readLeaf(final LeafReaderContext leaf) throws IOException {
+
+        final LeafReader reader = leaf.reader();
+        final SortedSetDocValues values = DocValues.getSortedSet(reader, FIELD_SUGGEST);
+        final SortedNumericDocValues shops = DocValues.getSortedNumeric(reader, FIELD_SUGGEST_SHOP);
+        final NumericDocValues weights = DocValues.getNumeric(reader, FIELD_SUGGEST_WEIGHT);
+        final Bits liveDocs = reader.getLiveDocs();
+
+        final Map<Long, Map<Long, Long>> byOrd = new HashMap<>();
+        for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+            if (liveDocs != null && !liveDocs.get(doc) || !shops.advanceExact(doc)) {
+                continue;
+            }
+            final long weight = weights.advanceExact(doc) ? Math.max(1L, weights.longValue()) : 1L;
+            final int shopCount = shops.docValueCount();
+            final long[] shopIds = new long[shopCount];
+            for (int i = 0; i < shopCount; i++) {
+                shopIds[i] = shops.nextValue();
+            }
+            for (long ord = values.nextOrd(); ord != SortedSetDocValues.NO_MORE_ORDS; ord = values.nextOrd()) {
+                final Map<Long, Long> shopWeights = byOrd.computeIfAbsent(ord, k -> new HashMap<>());
+                for (final long shopId : shopIds) {
+                    shopWeights.merge(shopId, weight, Long::sum);
+                }
+            }
+        }
+
+        final Map<BytesRef, Map<Long, Long>> bySource = new HashMap<>(byOrd.size() * 2);
+        for (final Map.Entry<Long, Map<Long, Long>> ord : byOrd.entrySet()) {
+            bySource.put(BytesRef.deepCopyOf(values.lookupOrd(ord.getKey())), ord.getValue());
+        }
+        return bySource;
+
+    }
+
+    private FST<Long> buildFst(final Map<String, Suggestion> suggestions) throws IOException {
+
+        // keys must be added in sorted order, key is normalised text from every word start followed by suggestion
+        final TreeMap<BytesRef, Long> keys = new TreeMap<>();
+        for (final Map.Entry<String, Suggestion> suggestion : suggestions.entrySet()) {
+            final byte[] display = suggestion.getValue().text.getBytes(StandardCharsets.UTF_8);
+            // cost is inverse of weight as FST finds paths with lowest output
+            final long cost = Integer.MAX_VALUE - Math.min(suggestion.getValue().weight, Integer.MAX_VALUE);
+            final String normalised = suggestion.getKey();
+            int words = 0;
+            for (int i = 0; i < normalised.length() && words < maxWords; i++) {
+                if (i == 0 || normalised.charAt(i - 1) == ' ') {
+                    final byte[] word = normalised.substring(i).getBytes(StandardCharsets.UTF_8);
+                    final byte[] key = Arrays.copyOf(word, word.length + 1 + display.length);
+                    key[word.length] = SEPARATOR;
+                    System.arraycopy(display, 0, key, word.length + 1, display.length);
+                    keys.merge(new BytesRef(key), cost, Math::min);
+                    words++;
+                }
+            }
+        }
+
+        if (keys.isEmpty()) {
+            return null;
+        }
+
+        final Builder<Long> builder = new Builder<>(FST.INPUT_TYPE.BYTE1, PositiveIntOutputs.getSingleton());
+        final IntsRefBuilder scratch = new IntsRefBuilder();
+        for (final Map.Entry<BytesRef, Long> key : keys.entrySet()) {
+            builder.add(Util.toIntsRef(key.getKey(), scratch), key.getValue());
+        }
+        return builder.finish();
+
+    }
+
+    /*
+     * Lower case words of letters and digits without accents separated by single space.
+     */
+    static String normalise(final String text, final boolean prefix) {
+
+        if (StringUtils.isBlank(text)) {
+            return "";
+        }
+
+        final String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        final StringBuilder normalised = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            final char ch = decomposed.charAt(i);
+            if (Character.getType(ch) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(ch)) {
+                normalised.append(Character.toLowerCase(ch));
+            } else if (normalised.length() > 0 && normalised.charAt(normalised.length() - 1) != ' ') {
+                normalised.append(' ');
+            }
+        }
+        // keep trailing space of the prefix, so that completed word only matches whole words
+        if (!prefix && normalised.length() > 0 && normalised.charAt(normalised.length() - 1) == ' ') {
+            normalised.setLength(normalised.length() - 1);
+        }
+        return normalised.toString();
+
+    }
+
+    /**
+     * Schedule rebuild of suggestions.
+     */
+    void scheduleBuild() {
+        final ScheduledExecutorService executor = this.executor;
+        if (executor != null && scheduled.compareAndSet(false, true)) {
+            final long delay = Math.max(0L, lastBuild + rebuildMinIntervalMillis - System.currentTimeMillis());
+            executor.schedule(() -> {
+                scheduled.set(false); // changes made while building are picked up by the next build
+                build();
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void beforeRefresh() {
+        // nothing to do
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void afterRefresh(final boolean didRefresh) {
+        if (didRefresh) {
+            scheduleBuild();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        this.executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            final Thread thread = new Thread(task, "[ft-suggest-" + this.indexProvider.getName() + "]");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.indexProvider.addRefreshListener(this);
+        scheduleBuild();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void destroy() throws Exception {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Spring IoC.
+     *
+     * @param rebuildMinIntervalMillis min interval between rebuilds
+     */
+    public void setRebuildMinIntervalMillis(final long rebuildMinIntervalMillis) {
+        this.rebuildMinIntervalMillis = rebuildMinIntervalMillis;
+    }
+
+    /**
+     * Spring IoC.
+     *
+     * @param maxWords max number of words of single suggestion that prefix is matched against
+     */
+    public void setMaxWords(final int maxWords) {
+        this.maxWords = maxWords;
+    }
+
+    private static final class Suggestion {
+
+        private final String text;
+        private long weight;
+
+        private Suggestion(final String text) {
+            this.text = text;
+        }
+    }
+
+    /*
+     * Distinct suggestion source with its translations and total weight per shop.
+     */
+    private static final class Source {
+
+        private final Map<String, String> translations;
+        private final Map<Long, Long> weights = new HashMap<>();
+
+        private Source(final Map<String, String> translations) {
+            this.translations = translations;
+        }
+
+        private static Source parse(final String source) {
+
+            final Map<String, String> byLanguage = new HashMap<>();
+            final String[] translations = StringUtils.split(source, SUGGEST_LANGUAGE_SEPARATOR);
+            if (translations.length > 0) {
+                byLanguage.put(DEFAULT, translations[0]);
+                for (int i = 1; i < translations.length; i++) {
+                    final int pos = translations[i].indexOf(SUGGEST_VALUE_SEPARATOR);
+                    if (pos > 0) {
+                        byLanguage.put(translations[i].substring(0, pos), translations[i].substring(pos + 1));
+                    }
+                }
+            }
+            return new Source(byLanguage);
+
+        }
+
+    }
+
+}
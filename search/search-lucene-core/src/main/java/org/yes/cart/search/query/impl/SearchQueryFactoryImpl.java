@@ -404,23 +404,38 @@ public class SearchQueryFactoryImpl implements SearchQueryFactory<Query> {
         } else {
             // keyword search
 
-            int strictnessLevel = 0;
+            // all levels are probed in single search, so that relaxation costs one pass over the index
+            final List<Integer> levels = new ArrayList<>(productQueryRelaxedClause.size());
+            final List<NavigationContext> testProds = new ArrayList<>(productQueryRelaxedClause.size());
             for (int level = 0; level < productQueryRelaxedClause.size(); level++) {
 
                 final Query extra = productQueryRelaxedClause.get(level);
 
                 if (extra != null) {
 
-                    strictnessLevel = level;
-                    prod = join(productQueryStrictClauses, extra, BooleanClause.Occur.MUST);
-                    final NavigationContext<Query> testProd = new NavigationContextImpl<>(shopId, customerShopId, customerLanguage, categories, includeSubCategories, navigationParameters, prod, null);
+                    levels.add(level);
+                    testProds.add(new NavigationContextImpl<>(shopId, customerShopId, customerLanguage, categories, includeSubCategories, navigationParameters,
+                            join(productQueryStrictClauses, extra, BooleanClause.Occur.MUST), null));
 
-                    if (productService.getProductQty(testProd) > 0) {
+                }
 
-                        prod = productBoost(prod);
-                        break;
+            }
+
+            int strictnessLevel = 0;
+            if (!testProds.isEmpty()) {
+
+                final int match = productService.findFirstNavigationContextWithProducts(testProds);
+                if (match >= 0) {
+
+                    strictnessLevel = levels.get(match);
+                    prod = productBoost((Query) testProds.get(match).getProductQuery());
+
+                } else {
+
+                    // nothing matches, so use most relaxed level
+                    strictnessLevel = levels.get(levels.size() - 1);
+                    prod = (Query) testProds.get(testProds.size() - 1).getProductQuery();
 
-                    }
                 }
 
             }
@@ -21,6 +21,9 @@ import org.apache.lucene.document.Document;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.facet.FacetsConfig;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
 import org.apache.lucene.search.FuzzyQuery;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.TermQuery;
@@ -92,6 +95,11 @@ public class FTSLuceneImplTest {
 
                 for (final String strValue : strValues) {
 
+                    if (AdapterUtils.FIELD_PARTITION.equals(fieldName)) {
+                        LuceneDocumentAdapterUtils.addPartitionFields(ldoc, Collections.singletonList(NumberUtils.toLong(strValue)));
+                        continue;
+                    }
+
                     if (AdapterUtils.FIELD_PK.equals(fieldName)) {
                         pk = NumberUtils.toLong(strValue);
                         LuceneDocumentAdapterUtils.addPkField(ldoc, Object.class, strValue);
@@ -281,6 +289,18 @@ public class FTSLuceneImplTest {
         assertTrue(pks.contains(100001L));
         assertTrue(pks.contains(111111L));
 
+        // All documents, PK's only
+        final long[] allPks = genericFTSLucene.fullTextSearchPrimaryKeys(new MatchAllDocsQuery());
+        assertNotNull(allPks);
+        assertArrayEquals(new long[] { 100000L, 100001L, 111111L }, allPks);
+
+        // Ranked search orders by relevance, PK's only search keeps index order
+        final BooleanQuery.Builder boosted = new BooleanQuery.Builder();
+        boosted.add(new TermQuery(new Term("_PK", "100000")), BooleanClause.Occur.SHOULD);
+        boosted.add(new BoostQuery(new TermQuery(new Term("_PK", "111111")), 10f), BooleanClause.Occur.SHOULD);
+        assertEquals(Arrays.asList(111111L, 100000L), genericFTSLucene.fullTextSearch(boosted.build()));
+        assertArrayEquals(new long[] { 100000L, 111111L }, genericFTSLucene.fullTextSearchPrimaryKeys(boosted.build()));
+
         // Simple Criteria
         assertEquals(1, genericFTSLucene.fullTextSearchCount(new TermQuery(new Term("_PK", "100000"))));
         pks = genericFTSLucene.fullTextSearch(new TermQuery(new Term("_PK", "100000")));
@@ -354,6 +374,16 @@ public class FTSLuceneImplTest {
         assertEquals(1, pks.size());
         assertTrue(pks.contains(100000L));
 
+        // All documents pagination, sorted, last page is not full
+        assertEquals(Arrays.asList(111111L, 100001L), genericFTSLucene.fullTextSearch(new MatchAllDocsQuery(), 0, 2, "_PK_sort", true));
+        assertEquals(Arrays.asList(100000L), genericFTSLucene.fullTextSearch(new MatchAllDocsQuery(), 2, 2, "_PK_sort", true));
+        assertEquals(Collections.emptyList(), genericFTSLucene.fullTextSearch(new MatchAllDocsQuery(), 3, 2, "_PK_sort", true));
+
+        // All documents pagination, PK's only
+        assertArrayEquals(new long[] { 111111L, 100001L }, genericFTSLucene.fullTextSearchPrimaryKeys(new MatchAllDocsQuery(), 0, 2, "_PK_sort", true));
+        assertArrayEquals(new long[] { 100000L }, genericFTSLucene.fullTextSearchPrimaryKeys(new MatchAllDocsQuery(), 2, 2, "_PK_sort", true));
+        assertArrayEquals(new long[0], genericFTSLucene.fullTextSearchPrimaryKeys(new MatchAllDocsQuery(), 3, 2, "_PK_sort", true));
+
 
         // Specific field, page 2, sorted
         rez = genericFTSLucene.fullTextSearch(new MatchAllDocsQuery(), 1, 1, "_PK_sort", true, "_PK", "_OBJECT");
@@ -367,6 +397,243 @@ public class FTSLuceneImplTest {
 
     }
 
+    @Test
+    public void testFullTextSearchFirstMatch() throws Exception {
+
+        indexBuilderLucene.setDocs(
+                (List) Arrays.asList(
+                        new HashMap<String, String>() {{
+                            put("_PK", "100000");
+                            put("name", "item one");
+                            put("desc", "some desc");
+                        }},
+                        new HashMap<String, String>() {{
+                            put("_PK", "100001");
+                            put("name", "item two");
+                            put("desc", "other desc");
+                        }},
+                        new HashMap<String, String>() {{
+                            put("_PK", "111111");
+                            put("name", "element three");
+                            put("desc", "other desc");
+                        }}
+                )
+        );
+
+        indexBuilderLucene.fullTextSearchReindex(false, 2);
+
+        final BooleanQuery strict = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term("name", "element")), BooleanClause.Occur.MUST)
+                .add(new TermQuery(new Term("desc", "some")), BooleanClause.Occur.MUST)
+                .build();
+        final TermQuery relaxed = new TermQuery(new Term("desc", "other"));
+        final TermQuery none = new TermQuery(new Term("name", "four"));
+
+        assertEquals(-1, genericFTSLucene.fullTextSearchFirstMatch(Collections.emptyList()));
+        assertEquals(-1, genericFTSLucene.fullTextSearchFirstMatch(Arrays.asList(strict, none)));
+        assertEquals(0, genericFTSLucene.fullTextSearchFirstMatch(Arrays.asList(relaxed, strict)));
+        assertEquals(1, genericFTSLucene.fullTextSearchFirstMatch(Arrays.asList(strict, relaxed, new MatchAllDocsQuery())));
+        assertEquals(2, genericFTSLucene.fullTextSearchFirstMatch(Arrays.asList(strict, none, new MatchAllDocsQuery())));
+
+    }
+
+    @Test
+    public void testFullTextSearchStoredObjectsCursor() throws Exception {
+
+        final List<Map<String, String>> docs = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            final String pk = String.valueOf(100000 + i);
+            final String name = i % 3 == 0 ? "item item " + pk : "item " + pk;
+            docs.add(new HashMap<String, String>() {{
+                put("_PK", pk);
+                put("name", name);
+            }});
+        }
+        indexBuilderLucene.setDocs((List) docs);
+
+        indexBuilderLucene.fullTextSearchReindex(false, 10);
+
+        for (final String sort : new String[] { null, "_PK_sort" }) {
+
+            final TermQuery query = new TermQuery(new Term("name", "item"));
+
+            // first page has no cursor
+            Pair<Pair<List<Map>, Integer>, String> page = genericFTSLucene.fullTextSearchStoredObjects(query, null, 0, 10, sort, true, Map.class);
+            assertEquals(Integer.valueOf(25), page.getFirst().getSecond());
+            assertEquals(pks(genericFTSLucene.fullTextSearchStoredObjects(query, 0, 10, sort, true, Map.class).getFirst()), pks(page.getFirst().getFirst()));
+            final String page2 = page.getSecond();
+            assertNotNull(page2);
+
+            page = genericFTSLucene.fullTextSearchStoredObjects(query, page2, 10, 10, sort, true, Map.class);
+            assertEquals(Integer.valueOf(25), page.getFirst().getSecond());
+            assertEquals(pks(genericFTSLucene.fullTextSearchStoredObjects(query, 10, 10, sort, true, Map.class).getFirst()), pks(page.getFirst().getFirst()));
+            final String page3 = page.getSecond();
+            assertNotNull(page3);
+
+            // last page
+            page = genericFTSLucene.fullTextSearchStoredObjects(query, page3, 20, 10, sort, true, Map.class);
+            assertEquals(pks(genericFTSLucene.fullTextSearchStoredObjects(query, 20, 10, sort, true, Map.class).getFirst()), pks(page.getFirst().getFirst()));
+            assertEquals(5, page.getFirst().getFirst().size());
+            assertNull(page.getSecond());
+
+            // cursor for different page, different sort or malformed cursor fall back to offset
+            page = genericFTSLucene.fullTextSearchStoredObjects(query, page2, 20, 10, sort, true, Map.class);
+            assertEquals(pks(genericFTSLucene.fullTextSearchStoredObjects(query, 20, 10, sort, true, Map.class).getFirst()), pks(page.getFirst().getFirst()));
+            page = genericFTSLucene.fullTextSearchStoredObjects(query, page2, 10, 10, sort, false, Map.class);
+            assertEquals(pks(genericFTSLucene.fullTextSearchStoredObjects(query, 10, 10, sort, false, Map.class).getFirst()), pks(page.getFirst().getFirst()));
+            page = genericFTSLucene.fullTextSearchStoredObjects(query, "not-a-cursor", 10, 10, sort, true, Map.class);
+            assertEquals(pks(genericFTSLucene.fullTextSearchStoredObjects(query, 10, 10, sort, true, Map.class).getFirst()), pks(page.getFirst().getFirst()));
+
+        }
+
+        final TermQuery query = new TermQuery(new Term("name", "item"));
+        final String stale = genericFTSLucene.fullTextSearchStoredObjects(query, null, 0, 10, "_PK_sort", false, Map.class).getSecond();
+
+        // index changes invalidate cursor
+        indexBuilderLucene.setDocs((List) docs.subList(5, 25));
+        indexBuilderLucene.fullTextSearchReindex(false, 10);
+
+        final Pair<Pair<List<Map>, Integer>, String> page = genericFTSLucene.fullTextSearchStoredObjects(query, stale, 10, 10, "_PK_sort", false, Map.class);
+        assertEquals(Integer.valueOf(20), page.getFirst().getSecond());
+        assertEquals(Arrays.asList("100015", "100016", "100017", "100018", "100019", "100020", "100021", "100022", "100023", "100024"), pks(page.getFirst().getFirst()));
+        assertNull(page.getSecond());
+
+    }
+
+    @Test
+    public void testSlowSearchExplainsTopHit() throws Exception {
+
+        final SearchStatisticsImpl statistics = new SearchStatisticsImpl("test") {
+            @Override
+            public boolean isSlow(final long nanos) {
+                return true;
+            }
+        };
+        genericFTSLucene.setStatistics(statistics);
+
+        indexBuilderLucene.setDocs(
+                (List) Arrays.asList(
+                        new HashMap<String, String>() {{
+                            put("_PK", "100000");
+                            put("name", "item one");
+                        }},
+                        new HashMap<String, String>() {{
+                            put("_PK", "100001");
+                            put("name", "item item two");
+                        }}
+                )
+        );
+
+        indexBuilderLucene.fullTextSearchReindex(false, 2);
+
+        final TermQuery query = new TermQuery(new Term("name", "item"));
+
+        genericFTSLucene.fullTextSearch(query);
+        genericFTSLucene.fullTextSearchStoredObjects(query, null, 0, 10, null, false, Map.class);
+        genericFTSLucene.fullTextSearchCount(query);
+        genericFTSLucene.fullTextSearch(new TermQuery(new Term("name", "none")));
+
+        final List<SearchStatisticsImpl.SlowQuery> slow = statistics.getSlowQueries();
+        assertEquals(4, slow.size());
+        // no hits to explain
+        assertEquals("search", slow.get(0).getOperation());
+        assertNull(slow.get(0).getExplanation());
+        // count does not find top hit and is not run again to explain it
+        assertEquals("count", slow.get(1).getOperation());
+        assertNull(slow.get(1).getExplanation());
+        assertEquals("storedObjects", slow.get(2).getOperation());
+        assertTrue(slow.get(2).getExplanation().contains("name:item"));
+        assertEquals("search", slow.get(3).getOperation());
+        assertTrue(slow.get(3).getExplanation().contains("name:item"));
+        assertEquals(slow.get(3).getExplanation(), slow.get(2).getExplanation());
+
+    }
+
+    @Test
+    public void testFullTextSearchStoredObjectsCachedCursor() throws Exception {
+
+        final QueryResultCacheImpl cache = new QueryResultCacheImpl("test", 1000L);
+        genericFTSLucene.setResultCache(cache);
+        indexBuilderLucene.setWaitForRefreshMillis(5000L);
+
+        final List<Map<String, String>> docs = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            final String pk = String.valueOf(100000 + i);
+            docs.add(new HashMap<String, String>() {{
+                put("_PK", pk);
+                put("name", "item " + pk);
+            }});
+        }
+        docs.add(new HashMap<String, String>() {{
+            put("_PK", "200000");
+            put("name", "element 200000");
+        }});
+        indexBuilderLucene.setDocs((List) docs);
+
+        indexBuilderLucene.fullTextSearchReindex(false, 100);
+
+        final TermQuery query = new TermQuery(new Term("name", "item"));
+        final String sorted = genericFTSLucene.fullTextSearchStoredObjects(query, null, 0, 10, "_PK_sort", false, Map.class).getSecond();
+        assertNotNull(sorted);
+
+        // refresh with change of document that does not match keeps cached first page
+        indexBuilderLucene.fullTextSearchReindex(200000L);
+
+        Pair<Pair<List<Map>, Integer>, String> page = genericFTSLucene.fullTextSearchStoredObjects(query, null, 0, 10, "_PK_sort", false, Map.class);
+        assertEquals(Integer.valueOf(25), page.getFirst().getSecond());
+        assertEquals(1L, cache.getHits());
+        final String moved = page.getSecond();
+        assertNotNull(moved);
+        assertFalse(sorted.equals(moved)); // cursor of cached page is moved to the current reader
+
+        page = genericFTSLucene.fullTextSearchStoredObjects(query, moved, 10, 10, "_PK_sort", false, Map.class);
+        assertEquals(Arrays.asList("100010", "100011", "100012", "100013", "100014", "100015", "100016", "100017", "100018", "100019"), pks(page.getFirst().getFirst()));
+
+    }
+
+    private List<Object> pks(final List<Map> objects) {
+        final List<Object> pks = new ArrayList<>();
+        for (final Map object : objects) {
+            pks.add(object.get("_PK"));
+        }
+        return pks;
+    }
+
+    @Test
+    public void testFullTextSearchReindexPipelined() throws Exception {
+
+        indexBuilderLucene.setReindexWorkers(2);
+        indexBuilderLucene.setCommitEveryDocuments(1);
+
+        final List<Map<String, String>> docs = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            final String pk = String.valueOf(100000 + i);
+            docs.add(new HashMap<String, String>() {{
+                put("_PK", pk);
+                put("name", "item " + pk);
+            }});
+        }
+        indexBuilderLucene.setDocs((List) docs);
+
+        indexBuilderLucene.fullTextSearchReindex(false, 2);
+
+        assertTrue(indexBuilderLucene.getFullTextIndexState().isFullTextSearchReindexCompleted());
+        assertEquals(25L, indexBuilderLucene.getFullTextIndexState().getLastIndexCount());
+        assertEquals(25, genericFTSLucene.fullTextSearchCount(new MatchAllDocsQuery()));
+
+        // reindex again with fewer entities, old documents must be removed
+        indexBuilderLucene.setDocs((List) docs.subList(0, 10));
+
+        indexBuilderLucene.fullTextSearchReindex(false, 3);
+
+        assertEquals(10L, indexBuilderLucene.getFullTextIndexState().getLastIndexCount());
+        assertEquals(10, genericFTSLucene.fullTextSearchCount(new MatchAllDocsQuery()));
+        final List<Long> pks = genericFTSLucene.fullTextSearch(new TermQuery(new Term("_PK", "100009")));
+        assertEquals(1, pks.size());
+        assertTrue(pks.contains(100009L));
+
+    }
+
     @Test
     public void testFullTextSearchNavigation() throws Exception {
 
@@ -488,6 +755,112 @@ public class FTSLuceneImplTest {
         checkFacetValue(facets, "desc", 2);
 
 
+        // Same facet name requested twice, last request wins
+        final FilteredNavigationRecordRequest f1desc = new FilteredNavigationRecordRequestImpl("Names", "desc_facet", false);
+
+        rez = genericFTSLucene.fullTextSearchNavigation(new MatchAllDocsQuery(), Arrays.asList(f1, f1desc));
+
+        assertNotNull(rez);
+        assertEquals(1, rez.size());
+
+        facets = rez.get("Names");
+        assertEquals(3, facets.size());
+        checkFacetValue(facets, "some desc", 2);
+        checkFacetValue(facets, "other desc", 3);
+        checkFacetValue(facets, "desc", 2);
+
+        rez = genericFTSLucene.fullTextSearchNavigation(new MatchAllDocsQuery(), Arrays.asList(f1desc, f1));
+
+        assertNotNull(rez);
+        assertEquals(1, rez.size());
+
+        facets = rez.get("Names");
+        assertEquals(3, facets.size());
+        checkFacetValue(facets, "item one", 1);
+        checkFacetValue(facets, "item two", 1);
+        checkFacetValue(facets, "element", 4);
+
+
+    }
+
+    @Test
+    public void testShopPartitions() throws Exception {
+
+        assertSame(genericFTSLucene, genericFTSLucene.getShopPartition(10L));
+
+        final LuceneIndexProviderImpl partitioned = new LuceneIndexProviderImpl("partitioned");
+        partitioned.setUri("ram");
+        partitioned.setPartitioned(true);
+        partitioned.afterPropertiesSet();
+
+        try {
+
+            final GenericFTSLuceneImpl fts = new GenericFTSLuceneImpl();
+            fts.setLuceneIndexProvider(partitioned);
+            final MapIndexBuilderLucene builder = new MapIndexBuilderLucene(documentAdapter, partitioned);
+
+            final Map<String, Object> one = new HashMap<>();
+            one.put("_PK", "100000");
+            one.put("name", "item one");
+            one.put("_PARTITION", "10");
+            final Map<String, Object> two = new HashMap<>();
+            two.put("_PK", "100001");
+            two.put("name", "item two");
+            two.put("_PARTITION", Arrays.asList("10", "20"));
+            final Map<String, Object> three = new HashMap<>();
+            three.put("_PK", "100002");
+            three.put("name", "item three");
+            three.put("_PARTITION", "20");
+            builder.setDocs(new ArrayList<>(Arrays.asList(one, two, three)));
+
+            builder.fullTextSearchReindex(false, 2);
+
+            final TermQuery query = new TermQuery(new Term("name", "item"));
+            final GenericFTSLuceneImpl shop10 = (GenericFTSLuceneImpl) fts.getShopPartition(10L);
+            final GenericFTSLuceneImpl shop20 = (GenericFTSLuceneImpl) fts.getShopPartition(20L);
+            assertNotSame(fts, shop10);
+            assertSame(shop10, fts.getShopPartition(10L));
+            assertEquals(2, partitioned.provideShopPartitions().size());
+
+            // main index has all documents, partitions only documents of their shop
+            assertEquals(3, fts.fullTextSearchCount(query));
+            assertEquals(Arrays.asList(100000L, 100001L), sorted(shop10.fullTextSearchPrimaryKeys(query)));
+            assertEquals(Arrays.asList(100001L, 100002L), sorted(shop20.fullTextSearchPrimaryKeys(query)));
+
+            // move product to other shop
+            one.put("_PARTITION", "20");
+            builder.fullTextSearchReindex(100000L);
+            assertEquals(Arrays.asList(100001L), sorted(shop10.fullTextSearchPrimaryKeys(query)));
+            assertEquals(Arrays.asList(100000L, 100001L, 100002L), sorted(shop20.fullTextSearchPrimaryKeys(query)));
+
+            // shop reindex only rebuilds partition of that shop
+            two.put("_PARTITION", "20");
+            builder.fullTextSearchReindexShop(10L, false, 2);
+            assertEquals(0, shop10.fullTextSearchCount(query));
+            assertEquals(Arrays.asList(100000L, 100001L, 100002L), sorted(shop20.fullTextSearchPrimaryKeys(query)));
+            assertEquals(3, fts.fullTextSearchCount(query));
+            two.put("_PARTITION", Arrays.asList("10", "20"));
+
+            // full reindex removes stale documents from partitions
+            builder.setDocs(new ArrayList<>(Arrays.asList(one, two)));
+            builder.fullTextSearchReindex(false, 2);
+            assertEquals(Arrays.asList(100001L), sorted(shop10.fullTextSearchPrimaryKeys(query)));
+            assertEquals(Arrays.asList(100000L, 100001L), sorted(shop20.fullTextSearchPrimaryKeys(query)));
+            assertEquals(2, fts.fullTextSearchCount(query));
+
+        } finally {
+            partitioned.destroy();
+        }
+
+    }
+
+    private List<Long> sorted(final long[] pks) {
+        final List<Long> out = new ArrayList<>();
+        for (final long pk : pks) {
+            out.add(pk);
+        }
+        Collections.sort(out);
+        return out;
     }
 
     private void checkFacetValue(List<Pair<Pair<String, I18NModel>, Integer>> facets, String expectedValue, Integer expectedCount) {
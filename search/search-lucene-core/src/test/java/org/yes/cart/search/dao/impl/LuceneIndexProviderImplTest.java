@@ -0,0 +1,227 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.impl;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexCommit;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.yes.cart.search.dao.entity.LuceneDocumentAdapterUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LuceneIndexProviderImplTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private LuceneIndexProviderImpl provider;
+
+    @After
+    public void tearDown() throws Exception {
+        provider.destroy();
+    }
+
+    @Test
+    public void testMarkDirtyRefreshesImmediatelyWhenNrtDisabled() throws Exception {
+
+        provider = new LuceneIndexProviderImpl("test");
+        provider.setUri("ram");
+        provider.afterPropertiesSet();
+
+        addDocument("1");
+        provider.markDirty();
+
+        assertEquals(1, countDocuments());
+        assertTrue(provider.waitForGeneration(Long.MAX_VALUE, 0L));
+
+    }
+
+    @Test
+    public void testMarkDirtyDefersRefreshWhenNrtEnabled() throws Exception {
+
+        provider = new LuceneIndexProviderImpl("test");
+        provider.setUri("ram");
+        provider.setNrtMaxStaleMillis(60000L);
+        provider.setNrtMinStaleMillis(10L);
+        provider.afterPropertiesSet();
+
+        addDocument("1");
+        final long generation = provider.markDirty();
+
+        // nobody waits for this generation, so reader is refreshed only after max stale interval
+        assertEquals(0, countDocuments());
+
+        assertTrue(provider.waitForGeneration(generation, 5000L));
+        assertEquals(1, countDocuments());
+
+    }
+
+    @Test
+    public void testReplicateSnapshot() throws Exception {
+
+        final String published = "simple://" + folder.newFolder("published").getAbsolutePath();
+
+        provider = new LuceneIndexProviderImpl("test");
+        provider.setUri("ram");
+        provider.setReplicationUri(published);
+        provider.afterPropertiesSet();
+
+        final LuceneIndexProviderImpl replica = new LuceneIndexProviderImpl("test");
+        replica.setUri("simple://" + folder.newFolder("replica").getAbsolutePath());
+        replica.setReplicationUri(published);
+        replica.setReplica(true);
+        replica.afterPropertiesSet();
+
+        try {
+
+            assertTrue(replica.isReplica());
+            assertEquals(-1L, replica.replicateSnapshot()); // nothing published yet
+            assertEquals(0, countDocuments(replica));
+
+            addDocument("1");
+            addDocument("2");
+
+            final long first = provider.publishSnapshot();
+            assertTrue(first > 0L);
+            assertEquals(-1L, replica.publishSnapshot());
+
+            assertEquals(first, replica.replicateSnapshot());
+            assertEquals(2, countDocuments(replica));
+
+            addDocument("3");
+
+            final long second = provider.publishSnapshot();
+            assertTrue(second > first);
+
+            assertEquals(second, replica.replicateSnapshot());
+            assertEquals(3, countDocuments(replica));
+
+            // near real time change that is not committed yet
+            final Document delta = new Document();
+            LuceneDocumentAdapterUtils.addPkField(delta, Object.class, "4");
+            provider.provideIndexWriter().addDocument(delta);
+            provider.markDirty();
+
+            final long third = provider.publishSnapshot();
+            assertTrue(third > second);
+
+            assertEquals(-1L, replica.markDirty());
+            assertEquals(third, replica.replicateSnapshot());
+            assertEquals(4, countDocuments(replica));
+
+        } finally {
+            replica.destroy();
+        }
+
+    }
+
+    @Test
+    public void testSnapshotCopiesOnlyMissingFiles() throws Exception {
+
+        provider = new LuceneIndexProviderImpl("test");
+        provider.setUri("ram");
+        provider.afterPropertiesSet();
+
+        final Directory source = provider.provideIndexWriter().getDirectory();
+        final Directory target = new RAMDirectory();
+
+        addDocument("1");
+
+        final IndexCommit first = lastCommit(source);
+        assertEquals(first.getFileNames().size(), IndexSnapshotReplication.copy(source, first.getFileNames(), target));
+        assertEquals(0, IndexSnapshotReplication.copy(source, first.getFileNames(), target));
+
+        addDocument("2");
+
+        // first segment is already in target
+        final IndexCommit second = lastCommit(source);
+        final int copied = IndexSnapshotReplication.copy(source, second.getFileNames(), target);
+        assertTrue(copied > 0);
+        assertTrue(copied < second.getFileNames().size());
+
+        try (DirectoryReader reader = DirectoryReader.open(target)) {
+            assertEquals(2, reader.numDocs());
+        }
+
+    }
+
+    @Test
+    public void testWarmUpReplaysRecentSearchesBeforePublish() throws Exception {
+
+        provider = new LuceneIndexProviderImpl("test");
+        provider.setUri("ram");
+        provider.setWarmUpMaxQueries(2);
+        provider.afterPropertiesSet();
+
+        addDocument("1");
+        provider.refreshIndexIfNecessary();
+
+        final List<String> replayed = new ArrayList<>();
+        for (final String key : Arrays.asList("a", "b", "c")) {
+            provider.recordWarmUpQuery(key, searcher ->
+                    replayed.add(key + searcher.getIndexReader().numDocs() + countDocuments()));
+        }
+
+        addDocument("2");
+        provider.refreshIndexIfNecessary();
+
+        // most recent first, "a" is out of the sample, new searcher is not yet published while warming
+        assertEquals(Arrays.asList("c21", "b21"), replayed);
+        assertEquals(2, countDocuments());
+
+    }
+
+    private IndexCommit lastCommit(final Directory directory) throws Exception {
+        final List<IndexCommit> commits = DirectoryReader.listCommits(directory);
+        return commits.get(commits.size() - 1);
+    }
+
+    private int countDocuments() throws Exception {
+        return countDocuments(provider);
+    }
+
+    private int countDocuments(final LuceneIndexProviderImpl provider) throws Exception {
+        final IndexSearcher searcher = provider.provideIndexReader();
+        try {
+            return searcher.getIndexReader().numDocs();
+        } finally {
+            provider.releaseIndexReader(searcher);
+        }
+    }
+
+    private void addDocument(final String pk) throws Exception {
+        final Document document = new Document();
+        LuceneDocumentAdapterUtils.addPkField(document, Object.class, pk);
+        final IndexWriter iw = provider.provideIndexWriter();
+        iw.addDocument(document);
+        iw.commit();
+    }
+
+}
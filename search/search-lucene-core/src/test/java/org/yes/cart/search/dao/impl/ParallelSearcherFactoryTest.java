@@ -0,0 +1,105 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.impl;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.yes.cart.search.dao.entity.LuceneDocumentAdapterUtils;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ParallelSearcherFactoryTest {
+
+    private LuceneIndexProviderImpl provider;
+
+    @Before
+    public void setUp() throws Exception {
+        provider = new LuceneIndexProviderImpl("test");
+        provider.setUri("ram");
+        provider.setSearchThreads(2);
+        provider.setSearchParallelMinCost(20L);
+        provider.setSearchMaxDocsPerSlice(10);
+        provider.setSearchMaxSegmentsPerSlice(2);
+        provider.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        provider.destroy();
+    }
+
+    @Test
+    public void testParallelSearchSameAsSequential() throws Exception {
+
+        // segment per commit: 10, 5, 3, 2 documents
+        int pk = 0;
+        for (final int size : new int[] { 10, 5, 3, 2 }) {
+            final IndexWriter iw = provider.provideIndexWriter();
+            for (int i = 0; i < size; i++) {
+                final Document document = new Document();
+                LuceneDocumentAdapterUtils.addPkField(document, Object.class, String.valueOf(++pk));
+                document.add(new StringField("colour", pk == 1 ? "red" : "blue", Field.Store.NO));
+                iw.addDocument(document);
+            }
+            iw.commit();
+        }
+        provider.refreshIndexIfNecessary();
+
+        final IndexSearcher searcher = provider.provideIndexReader();
+        try {
+            assertTrue(searcher instanceof ParallelSearcherFactory.ParallelSearcher);
+            assertEquals(4, searcher.getIndexReader().leaves().size());
+            // 10 | 5 + 3 | 2
+            assertEquals(3, searcher.getSlices().length);
+
+            final ParallelSearcherFactory.ParallelSearcher parallel = (ParallelSearcherFactory.ParallelSearcher) searcher;
+            assertTrue(parallel.isExpensive(new MatchAllDocsQuery()));
+            assertFalse(parallel.isExpensive(new TermQuery(new Term("colour", "red"))));
+
+            final IndexSearcher sequential = new IndexSearcher(searcher.getIndexReader());
+
+            final TopDocs all = searcher.search(new MatchAllDocsQuery(), 100);
+            assertEquals(20L, all.totalHits.value);
+            assertEquals(sequential.search(new MatchAllDocsQuery(), 100).scoreDocs.length, all.scoreDocs.length);
+            final Set<Integer> docs = new HashSet<>();
+            for (int i = 0; i < all.scoreDocs.length; i++) {
+                docs.add(all.scoreDocs[i].doc);
+            }
+            assertEquals(20, docs.size());
+
+            assertEquals(19, searcher.count(new TermQuery(new Term("colour", "blue"))));
+            assertEquals(1, searcher.search(new TermQuery(new Term("colour", "red")), 10).totalHits.value);
+        } finally {
+            provider.releaseIndexReader(searcher);
+        }
+
+    }
+
+}
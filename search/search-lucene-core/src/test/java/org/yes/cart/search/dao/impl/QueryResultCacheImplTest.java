@@ -0,0 +1,196 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.impl;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.yes.cart.search.dao.entity.LuceneDocumentAdapterUtils;
+
+import static org.junit.Assert.*;
+
+public class QueryResultCacheImplTest {
+
+    private static final Query RED = new TermQuery(new Term("colour", "red"));
+
+    private LuceneIndexProviderImpl provider;
+
+    @Before
+    public void setUp() throws Exception {
+        provider = new LuceneIndexProviderImpl("test");
+        provider.setUri("ram");
+        provider.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        provider.destroy();
+    }
+
+    @Test
+    public void testEntrySurvivesUnrelatedChanges() throws Exception {
+
+        addDocument("1", "red");
+        addDocument("2", "blue");
+        provider.refreshIndexIfNecessary();
+
+        final QueryResultCacheImpl cache = new QueryResultCacheImpl("test", 100L);
+
+        put(cache, "red", RED);
+        assertEquals("red", get(cache, "red", RED, false));
+
+        // new segment without matches
+        addDocument("3", "blue");
+        provider.refreshIndexIfNecessary();
+        assertEquals("red", get(cache, "red", RED, false));
+
+        // deletion of document that does not match
+        deleteDocument("2");
+        provider.refreshIndexIfNecessary();
+        assertEquals("red", get(cache, "red", RED, false));
+
+        // new matching document
+        addDocument("4", "red");
+        provider.refreshIndexIfNecessary();
+        assertNull(get(cache, "red", RED, false));
+        assertEquals(0L, cache.getSize());
+
+        put(cache, "red", RED);
+        assertEquals("red", get(cache, "red", RED, false));
+
+        // deletion of matching document
+        deleteDocument("1");
+        provider.refreshIndexIfNecessary();
+        assertNull(get(cache, "red", RED, false));
+
+        assertEquals(4L, cache.getHits());
+        assertEquals(2L, cache.getMisses());
+
+    }
+
+    @Test
+    public void testRankedEntryIsBoundToMatchingSegments() throws Exception {
+
+        // both documents in one segment
+        final IndexWriter iw = provider.provideIndexWriter();
+        iw.addDocument(document("1", "red"));
+        iw.addDocument(document("2", "blue"));
+        iw.commit();
+        provider.refreshIndexIfNecessary();
+
+        final QueryResultCacheImpl cache = new QueryResultCacheImpl("test", 100L);
+
+        put(cache, "red", RED);
+        put(cache, "red unranked", RED);
+        assertEquals("red", get(cache, "red", RED, true));
+
+        // new segment without matches
+        addDocument("3", "blue");
+        provider.refreshIndexIfNecessary();
+        assertEquals("red", get(cache, "red", RED, true));
+
+        // deletion of document that does not match, but in segment with matches
+        deleteDocument("2");
+        provider.refreshIndexIfNecessary();
+        assertEquals("red unranked", get(cache, "red unranked", RED, false));
+        assertNull(get(cache, "red", RED, true));
+
+        put(cache, "red", RED);
+        assertEquals("red", get(cache, "red", RED, true));
+
+        // new matching document
+        addDocument("4", "red");
+        provider.refreshIndexIfNecessary();
+        assertNull(get(cache, "red", RED, true));
+
+    }
+
+    @Test
+    public void testWeightedLru() throws Exception {
+
+        addDocument("1", "red");
+        provider.refreshIndexIfNecessary();
+
+        final QueryResultCacheImpl cache = new QueryResultCacheImpl("test", 100L);
+
+        final IndexSearcher searcher = provider.provideIndexReader();
+        try {
+            cache.put("A", searcher, RED, "A", 40);
+            cache.put("B", searcher, RED, "B", 40);
+            assertEquals("A", cache.get("A", searcher, RED, false));
+            cache.put("C", searcher, RED, "C", 40);
+
+            // B is least recently used
+            assertEquals(2L, cache.getSize());
+            assertEquals(80L, cache.getWeight());
+            assertNull(cache.get("B", searcher, RED, false));
+
+            cache.setDisabled(true);
+            assertEquals(0L, cache.getSize());
+            assertNull(cache.get("A", searcher, RED, false));
+        } finally {
+            provider.releaseIndexReader(searcher);
+        }
+
+    }
+
+    private void put(final QueryResultCacheImpl cache, final Object key, final Query query) {
+        final IndexSearcher searcher = provider.provideIndexReader();
+        try {
+            cache.put(key, searcher, query, key, 1);
+        } finally {
+            provider.releaseIndexReader(searcher);
+        }
+    }
+
+    private Object get(final QueryResultCacheImpl cache, final Object key, final Query query, final boolean ranked) {
+        final IndexSearcher searcher = provider.provideIndexReader();
+        try {
+            return cache.get(key, searcher, query, ranked);
+        } finally {
+            provider.releaseIndexReader(searcher);
+        }
+    }
+
+    private void addDocument(final String pk, final String colour) throws Exception {
+        final IndexWriter iw = provider.provideIndexWriter();
+        iw.addDocument(document(pk, colour));
+        iw.commit();
+    }
+
+    private Document document(final String pk, final String colour) {
+        final Document document = new Document();
+        LuceneDocumentAdapterUtils.addPkField(document, Object.class, pk);
+        document.add(new StringField("colour", colour, Field.Store.NO));
+        return document;
+    }
+
+    private void deleteDocument(final String pk) throws Exception {
+        final IndexWriter iw = provider.provideIndexWriter();
+        iw.deleteDocuments(new Term("_PK", pk));
+        iw.commit();
+    }
+
+}
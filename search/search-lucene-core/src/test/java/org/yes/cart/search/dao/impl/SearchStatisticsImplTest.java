@@ -0,0 +1,142 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.impl;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SearchStatisticsImplTest {
+
+    @Test
+    public void testHistogramBuckets() throws Exception {
+
+        for (long value = 0L; value < 100000L; value++) {
+            final long highest = LatencyHistogram.highestEquivalentValue(LatencyHistogram.index(value));
+            assertTrue(value + " <= " + highest, value <= highest);
+            assertTrue(value + " within 12.5% of " + highest, highest - value <= value / 8L);
+        }
+        assertEquals(LatencyHistogram.index(Long.MAX_VALUE), LatencyHistogram.index(Long.MAX_VALUE - 1L));
+
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1L; value <= 1000L; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(1000L, histogram.getCount());
+        assertEquals(500L, histogram.getMean());
+        assertEquals(1000L, histogram.getMax());
+        assertEquals(500L, histogram.getValueAtPercentile(50d), 500L / 8L);
+        assertEquals(990L, histogram.getValueAtPercentile(99d), 990L / 8L);
+        assertEquals(1000L, histogram.getValueAtPercentile(100d));
+
+    }
+
+    @Test
+    public void testStatisticsPerShape() throws Exception {
+
+        final SearchStatisticsImpl stats = new SearchStatisticsImpl("test");
+
+        stats.record("count", category("1"), TimeUnit.MILLISECONDS.toNanos(2L), 10L, 0);
+        stats.record("count", category("2"), TimeUnit.MILLISECONDS.toNanos(4L), 20L, 0);
+        stats.record("navigation", category("1"), TimeUnit.MILLISECONDS.toNanos(8L), 10L, 5);
+        stats.record("count", new MatchAllDocsQuery(), TimeUnit.MILLISECONDS.toNanos(1L), 100L, 0);
+
+        final List<SearchStatisticsImpl.Shape> shapes = stats.getShapes();
+        assertEquals(3, shapes.size());
+
+        assertEquals("count", shapes.get(0).getOperation());
+        assertEquals("MatchAllDocsQuery", shapes.get(0).getFields());
+
+        final SearchStatisticsImpl.Shape count = shapes.get(1);
+        assertEquals("count", count.getOperation());
+        assertEquals("category+shop", count.getFields());
+        assertEquals(2L, count.getCount());
+        assertEquals(3000L, count.getMeanMicros());
+        assertEquals(4000L, count.getMaxMicros());
+        assertEquals(30L, count.getHits());
+
+        final SearchStatisticsImpl.Shape navigation = shapes.get(2);
+        assertEquals("navigation", navigation.getOperation());
+        assertEquals(1L, navigation.getCount());
+        assertEquals(5L, navigation.getFacets());
+
+        stats.reset();
+        assertTrue(stats.getShapes().isEmpty());
+
+    }
+
+    @Test
+    public void testMaxShapes() throws Exception {
+
+        final SearchStatisticsImpl stats = new SearchStatisticsImpl("test");
+        stats.setMaxShapes(1);
+
+        stats.record("count", category("1"), 1000L, 1L, 0);
+        stats.record("count", new TermQuery(new Term("brand", "x")), 1000L, 1L, 0);
+        stats.record("count", new TermQuery(new Term("sku", "x")), 1000L, 1L, 0);
+
+        final List<SearchStatisticsImpl.Shape> shapes = stats.getShapes();
+        assertEquals(2, shapes.size());
+        assertEquals("*", shapes.get(0).getFields());
+        assertEquals(2L, shapes.get(0).getCount());
+
+    }
+
+    @Test
+    public void testSlowQueries() throws Exception {
+
+        final SearchStatisticsImpl stats = new SearchStatisticsImpl("test");
+
+        assertFalse(stats.isSlow(TimeUnit.SECONDS.toNanos(10L)));
+
+        stats.setSlowQueryThresholdMillis(100L);
+        stats.setMaxSlowQueries(2);
+
+        assertFalse(stats.isSlow(TimeUnit.MILLISECONDS.toNanos(99L)));
+        assertTrue(stats.isSlow(TimeUnit.MILLISECONDS.toNanos(100L)));
+
+        stats.recordSlow("count", category("1"), TimeUnit.MILLISECONDS.toNanos(150L), 10L, null);
+        stats.recordSlow("count", category("2"), TimeUnit.MILLISECONDS.toNanos(200L), 10L, "explained");
+        stats.recordSlow("count", category("3"), TimeUnit.MILLISECONDS.toNanos(250L), 10L, null);
+
+        final List<SearchStatisticsImpl.SlowQuery> slow = stats.getSlowQueries();
+        assertEquals(2, slow.size());
+        assertEquals(250L, slow.get(0).getMillis());
+        assertEquals("category+shop", slow.get(0).getFields());
+        assertEquals(category("3").toString(), slow.get(0).getQuery());
+        assertEquals("explained", slow.get(1).getExplanation());
+
+    }
+
+    private Query category(final String category) {
+        final BooleanQuery.Builder query = new BooleanQuery.Builder();
+        query.add(new TermQuery(new Term("shop", "10")), BooleanClause.Occur.FILTER);
+        query.add(new TermQuery(new Term("category", category)), BooleanClause.Occur.MUST);
+        return query.build();
+    }
+
+}
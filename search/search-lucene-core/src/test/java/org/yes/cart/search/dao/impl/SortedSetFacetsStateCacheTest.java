@@ -0,0 +1,110 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.impl;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.yes.cart.search.dao.entity.LuceneDocumentAdapterUtils;
+
+import static org.junit.Assert.*;
+
+public class SortedSetFacetsStateCacheTest {
+
+    private LuceneIndexProviderImpl provider;
+
+    @Before
+    public void setUp() throws Exception {
+        provider = new LuceneIndexProviderImpl("test");
+        provider.setUri("ram");
+        provider.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        provider.destroy();
+    }
+
+    @Test
+    public void testStateIsReusedUntilRefresh() throws Exception {
+
+        addDocument("red");
+        provider.refreshIndexIfNecessary();
+
+        final IndexSearcher first = provider.provideIndexReader();
+        final SortedSetDocValuesReaderState state1;
+        try {
+            state1 = provider.provideFacetsReaderState(first, "colour_facet");
+            assertSame(state1, provider.provideFacetsReaderState(first, "colour_facet"));
+            assertEquals(1, state1.getSize());
+        } finally {
+            provider.releaseIndexReader(first);
+        }
+
+        // no changes, reader is not refreshed
+        provider.refreshIndexIfNecessary();
+
+        final IndexSearcher same = provider.provideIndexReader();
+        try {
+            assertSame(state1, provider.provideFacetsReaderState(same, "colour_facet"));
+        } finally {
+            provider.releaseIndexReader(same);
+        }
+
+        addDocument("blue");
+
+        final IndexSearcher stale = provider.provideIndexReader();
+        provider.refreshIndexIfNecessary();
+
+        try {
+            // stale searcher gets state of its own reader, which is not cached
+            final SortedSetDocValuesReaderState staleState = provider.provideFacetsReaderState(stale, "colour_facet");
+            assertNotSame(state1, staleState);
+            assertEquals(1, staleState.getSize());
+        } finally {
+            provider.releaseIndexReader(stale);
+        }
+
+        final IndexSearcher refreshed = provider.provideIndexReader();
+        try {
+            final SortedSetDocValuesReaderState state2 = provider.provideFacetsReaderState(refreshed, "colour_facet");
+            assertNotSame(state1, state2);
+            assertSame(state2, provider.provideFacetsReaderState(refreshed, "colour_facet"));
+            assertEquals(2, state2.getSize());
+        } finally {
+            provider.releaseIndexReader(refreshed);
+        }
+
+    }
+
+    private void addDocument(final String colour) throws Exception {
+        final Document document = new Document();
+        LuceneDocumentAdapterUtils.addFacetField(document, "colour_facet", colour);
+        final FacetsConfig config = new FacetsConfig();
+        config.setIndexFieldName("colour_facet", "colour_facet");
+        config.setMultiValued("colour_facet", true);
+        final IndexWriter iw = provider.provideIndexWriter();
+        iw.addDocument(config.build(document));
+        iw.commit();
+    }
+
+}
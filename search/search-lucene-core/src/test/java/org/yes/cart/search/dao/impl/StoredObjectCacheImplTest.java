@@ -0,0 +1,134 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.impl;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.IndexSearcher;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.yes.cart.search.dao.entity.LuceneDocumentAdapterUtils;
+
+import static org.junit.Assert.*;
+
+public class StoredObjectCacheImplTest {
+
+    private LuceneIndexProviderImpl provider;
+
+    @Before
+    public void setUp() throws Exception {
+        provider = new LuceneIndexProviderImpl("test");
+        provider.setUri("ram");
+        provider.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        provider.destroy();
+    }
+
+    @Test
+    public void testWeightedLru() throws Exception {
+
+        addDocument("1");
+        addDocument("2");
+        addDocument("3");
+        provider.refreshIndexIfNecessary();
+
+        final StoredObjectCacheImpl cache = new StoredObjectCacheImpl("test", 100L);
+
+        final IndexSearcher searcher = provider.provideIndexReader();
+        try {
+            final LeafReaderContext leaf = searcher.getIndexReader().leaves().get(0);
+            final IndexReader.CacheHelper segment = leaf.reader().getCoreCacheHelper();
+
+            assertNull(cache.get(segment.getKey(), 0));
+
+            cache.put(segment, 0, "A", 40);
+            cache.put(segment, 1, "B", 40);
+            assertEquals("A", cache.get(segment.getKey(), 0));
+
+            cache.put(segment, 2, "C", 40);
+
+            // B is least recently used
+            assertEquals(2L, cache.getSize());
+            assertEquals(80L, cache.getWeight());
+            assertEquals("A", cache.get(segment.getKey(), 0));
+            assertNull(cache.get(segment.getKey(), 1));
+            assertEquals("C", cache.get(segment.getKey(), 2));
+
+            // too heavy
+            cache.put(segment, 1, "B", 101);
+            assertNull(cache.get(segment.getKey(), 1));
+
+            assertEquals(3L, cache.getHits());
+            assertEquals(3L, cache.getMisses());
+
+            cache.setDisabled(true);
+            assertEquals(0L, cache.getSize());
+            assertNull(cache.get(segment.getKey(), 0));
+            cache.put(segment, 0, "A", 40);
+            assertEquals(0L, cache.getSize());
+
+        } finally {
+            provider.releaseIndexReader(searcher);
+        }
+
+    }
+
+    @Test
+    public void testSegmentCloseRemovesEntries() throws Exception {
+
+        addDocument("1");
+        provider.refreshIndexIfNecessary();
+
+        final StoredObjectCacheImpl cache = new StoredObjectCacheImpl("test", 1000L);
+
+        final IndexSearcher searcher = provider.provideIndexReader();
+        final IndexReader.CacheHelper segment;
+        try {
+            segment = searcher.getIndexReader().leaves().get(0).reader().getCoreCacheHelper();
+            cache.put(segment, 0, "A", 10);
+            assertEquals(1L, cache.getSize());
+        } finally {
+            provider.releaseIndexReader(searcher);
+        }
+
+        // deleting all documents drops the segment on refresh
+        final IndexWriter iw = provider.provideIndexWriter();
+        iw.deleteAll();
+        iw.commit();
+        provider.refreshIndexIfNecessary();
+
+        assertEquals(0L, cache.getSize());
+        assertEquals(0L, cache.getWeight());
+        assertNull(cache.get(segment.getKey(), 0));
+
+    }
+
+    private void addDocument(final String pk) throws Exception {
+        final Document document = new Document();
+        LuceneDocumentAdapterUtils.addPkField(document, Object.class, pk);
+        final IndexWriter iw = provider.provideIndexWriter();
+        iw.addDocument(document);
+        iw.commit();
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.impl;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.yes.cart.domain.i18n.impl.StringI18NModel;
+import org.yes.cart.search.dao.entity.LuceneDocumentAdapterUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SuggestionIndexImplTest {
+
+    private LuceneIndexProviderImpl provider;
+
+    @Before
+    public void setUp() throws Exception {
+        provider = new LuceneIndexProviderImpl("test");
+        provider.setUri("ram");
+        provider.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        provider.destroy();
+    }
+
+    @Test
+    public void testSuggestWordStartsRankedByWeight() throws Exception {
+
+        addDocument("1", "Mini Mouse M187", "Logitech", 10L, 10L);
+        addDocument("2", "Wireless Mouse", "Logitech", 100L, 10L);
+        addDocument("3", "Optical Mouse", "Genius", 50L, 10L, 20L);
+        provider.refreshIndexIfNecessary();
+
+        final SuggestionIndexImpl index = new SuggestionIndexImpl(provider);
+        assertEquals(7, index.build());
+
+        assertEquals(Arrays.asList("Wireless Mouse", "Optical Mouse", "Mini Mouse M187"), index.suggest(10L, "en", "mou", 10));
+        assertEquals(Arrays.asList("Wireless Mouse", "Optical Mouse"), index.suggest(10L, "en", "MOUSE", 2));
+        // brand is suggested by all its products
+        assertEquals(Arrays.asList("Logitech"), index.suggest(10L, "en", "log", 10));
+        assertEquals(Arrays.asList("Mini Mouse M187"), index.suggest(10L, "en", "mouse m1", 10));
+        // completed word only matches whole words
+        assertEquals(Arrays.asList("Mini Mouse M187"), index.suggest(10L, "en", "mini ", 10));
+        assertEquals(Collections.emptyList(), index.suggest(10L, "en", "mi ", 10));
+
+        assertEquals(Arrays.asList("Optical Mouse"), index.suggest(20L, "en", "mou", 10));
+        assertTrue(index.suggest(30L, "en", "mou", 10).isEmpty());
+        assertTrue(index.suggest(10L, "en", "", 10).isEmpty());
+
+    }
+
+    @Test
+    public void testSuggestTranslations() throws Exception {
+
+        addDocument("1", "Mouse", "Genius", 1L, 10L);
+        provider.refreshIndexIfNecessary();
+
+        final SuggestionIndexImpl index = new SuggestionIndexImpl(provider);
+        index.build();
+
+        assertEquals(Arrays.asList("Миша"), index.suggest(10L, "uk", "ми", 10));
+        assertEquals(Arrays.asList("Mouse"), index.suggest(10L, "en", "mo", 10));
+        // unknown language uses default
+        assertEquals(Arrays.asList("Mouse"), index.suggest(10L, "de", "mo", 10));
+        // accents are ignored
+        assertEquals(Arrays.asList("Mouse"), index.suggest(10L, "en", "Mó", 10));
+
+    }
+
+    @Test
+    public void testRebuildAfterRefresh() throws Exception {
+
+        addDocument("1", "Mouse", "Genius", 1L, 10L);
+        provider.refreshIndexIfNecessary();
+
+        final SuggestionIndexImpl index = new SuggestionIndexImpl(provider);
+        index.setRebuildMinIntervalMillis(0L);
+        index.afterPropertiesSet();
+        try {
+            waitFor(index, "mo", 1);
+
+            addDocument("2", "Monitor", "Genius", 1L, 10L);
+            provider.refreshIndexIfNecessary();
+            waitFor(index, "mo", 2);
+
+            final IndexWriter iw = provider.provideIndexWriter();
+            iw.deleteDocuments(new Term("_PK", "1"));
+            iw.commit();
+            provider.refreshIndexIfNecessary();
+            waitFor(index, "mo", 1);
+
+            assertEquals(Arrays.asList("Monitor"), index.suggest(10L, "en", "mo", 10));
+        } finally {
+            index.destroy();
+        }
+
+    }
+
+    private void waitFor(final SuggestionIndexImpl index, final String prefix, final int expected) throws InterruptedException {
+        for (int i = 0; i < 100 && index.suggest(10L, "en", prefix, 10).size() != expected; i++) {
+            Thread.sleep(50L);
+        }
+        assertEquals(expected, index.suggest(10L, "en", prefix, 10).size());
+    }
+
+    private void addDocument(final String pk, final String name, final String brand, final long weight, final Long... shops) throws Exception {
+        final Document document = new Document();
+        LuceneDocumentAdapterUtils.addPkField(document, Object.class, pk);
+        final StringI18NModel displayName = new StringI18NModel();
+        if ("Mouse".equals(name)) {
+            displayName.putValue("uk", "Миша");
+        }
+        LuceneDocumentAdapterUtils.addSuggestField(document, name, displayName);
+        LuceneDocumentAdapterUtils.addSuggestField(document, brand, null);
+        LuceneDocumentAdapterUtils.addSuggestShopFields(document, Arrays.asList(shops), weight);
+        final IndexWriter iw = provider.provideIndexWriter();
+        iw.addDocument(document);
+        iw.commit();
+    }
+
+}
@@ -25,6 +25,7 @@ import org.yes.cart.cluster.node.NodeService;
 import org.yes.cart.domain.entity.Job;
 import org.yes.cart.domain.entity.JobDefinition;
 import org.yes.cart.domain.misc.Pair;
+import org.yes.cart.search.dao.LuceneIndexProvider;
 import org.yes.cart.service.async.JobStatusAware;
 import org.yes.cart.service.async.JobStatusListener;
 import org.yes.cart.service.async.impl.JobStatusListenerImpl;
@@ -32,19 +33,34 @@ import org.yes.cart.service.async.impl.JobStatusListenerWithLoggerImpl;
 import org.yes.cart.service.async.model.JobStatus;
 import org.yes.cart.service.domain.ProductService;
 import org.yes.cart.service.domain.SkuWarehouseService;
-import org.yes.cart.utils.DateUtils;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
 /**
- * Processor that scrolls though all modified inventory and re-indexes products so that
- * all latest information is propagated to all nodes.
+ * Processor that consumes inventory changes from the entity change log (written by persistence layer in the same
+ * transaction as the inventory change) and re-indexes affected products so that all latest information is
+ * propagated to all nodes.
  *
- * Last time this job runs is stored in system preferences: JOB_PRODINVUP_LR_[NODEID]
- * So that next run we only scan orders that have changed since last job run.
+ * Checkpoint position of the job holds last consumed change log id, so that each node's index consumes the change
+ * log in order and moves past each change only once it has been indexed. Change log ids are allocated before
+ * transactions commit, so a record with lower id may become visible after a record with higher id. To avoid skipping
+ * such records the position only advances up to the first missing id in the log, changes after it are reindexed
+ * eagerly and read again on the next run. Missing id is skipped once the record following it is older than
+ * change-gap-timeout-seconds, which should be longer than any transaction writing inventory may stay open, since
+ * by then the transaction that allocated it must have been rolled back.
+ *
+ * Checkpoint date of the job is the time of the last run that consumed changes. Change log records older than
+ * retention period (change-retention-hours) are purged on each run, and if checkpoint falls behind the retention
+ * period full reindex is performed, since the changes may have been purged before they were consumed.
+ *
+ * If indexes are replicated the publishing node publishes snapshot of the indexes after reindexing the changes and
+ * replica nodes copy the last published snapshot instead, so that inventory changes reach replicas on the schedule
+ * of this job rather than of the full reindex.
  *
  * User: denispavlov
  * Date: 27/04/2015
@@ -59,6 +75,7 @@ public class ProductInventoryChangedProcessorImpl extends AbstractCronJobProcess
     private ProductService productService;
     private NodeService nodeService;
     private CacheBundleHelper productCacheHelper;
+    private List<LuceneIndexProvider> indexProviders = Collections.emptyList();
 
     private final JobStatusListener listener = new JobStatusListenerWithLoggerImpl(new JobStatusListenerImpl(), LOG);
 
@@ -74,7 +91,6 @@ public class ProductInventoryChangedProcessorImpl extends AbstractCronJobProcess
 
         final Properties properties = readContextAsProperties(context, job, definition);
         final Instant lastCheckpoint = job.getCheckpoint();
-        final Instant newCheckpoint = Instant.now();
 
         listener.reset();
 
@@ -89,90 +105,119 @@ public class ProductInventoryChangedProcessorImpl extends AbstractCronJobProcess
         if (isFullIndexInProgress()) {
             listener.notifyInfo("Reindexing inventory updates on {}, reindex ALL is already in progress", nodeId);
             listener.notifyCompleted();
-            return new Pair<>(listener.getLatestStatus(), newCheckpoint);
+            return new Pair<>(listener.getLatestStatus(), lastCheckpoint);
         }
 
-        int batchSize = NumberUtils.toInt(properties.getProperty("reindex-batch-size"), 100);
+        if (isReplica()) {
+            for (final LuceneIndexProvider indexProvider : indexProviders) {
+                final long generation = indexProvider.replicateSnapshot();
+                listener.notifyInfo("Replicated {} index generation {} on {}", indexProvider.getName(), generation, nodeId);
+            }
+            flushCaches();
+            listener.notifyCompleted();
+            return new Pair<>(listener.getLatestStatus(), lastCheckpoint);
+        }
 
-        listener.notifyInfo("Check changed orders products to be reindexed on {}, batch {}", nodeId, batchSize);
+        final int batchSize = NumberUtils.toInt(properties.getProperty("reindex-batch-size"), 100);
+        final int changesBatchSize = NumberUtils.toInt(properties.getProperty("change-batch-size"), 10000);
+        final long gapTimeoutSeconds = NumberUtils.toLong(properties.getProperty("change-gap-timeout-seconds"), 600L);
+        final long retentionHours = NumberUtils.toLong(properties.getProperty("change-retention-hours"), 168L);
 
-        List<String> productSkus = skuWarehouseService.findProductSkuForWhichInventoryChangedAfter(lastCheckpoint);
+        final Instant now = Instant.now();
+        final Instant gapsClosedBefore = now.minusSeconds(gapTimeoutSeconds);
+        final Instant retainedAfter = now.minus(retentionHours, ChronoUnit.HOURS);
 
-        if (productSkus != null && !productSkus.isEmpty()) {
+        final Long lastPosition = job.getCheckpointPosition();
+        final long maxChangeId = skuWarehouseService.findLastInventoryChangeId();
 
-            // Check again to see if we do not have bulk updates
-            int count = productSkus.size();
-            int full = NumberUtils.toInt(properties.getProperty("inventory-full-threshold"), 1000);
-            int checkDelay = NumberUtils.toInt(properties.getProperty("inventory-delta-seconds"), 15) * 1000;
-            int checkDelta = NumberUtils.toInt(properties.getProperty("inventory-update-delta"), 100);
+        if (lastPosition != null && lastCheckpoint != null && lastCheckpoint.isBefore(retainedAfter)) {
 
-            boolean runBatch = count < full;
+            listener.notifyWarning("Inventory changes on {} were not consumed since {}, change log retains only {} hours, reindexing ALL",
+                    nodeId, lastCheckpoint, retentionHours);
 
-            if (runBatch) {
-                try {
-                    Thread.sleep(checkDelay);
-                } catch (InterruptedException e) {
-                    // OK
-                }
-                productSkus = skuWarehouseService.findProductSkuForWhichInventoryChangedAfter(lastCheckpoint);
-                int delta = productSkus.size() - count;
-                int maxDelta = checkDelta;
-                if (delta > maxDelta) {
-                    listener.notifyInfo("Detected bulking operation ... {} inventory records changed in past {} seconds (max: {}). Postponing check until next run.",
-                            delta, checkDelay / 1000, maxDelta);
-                    listener.notifyCompleted();
-                    return new Pair<>(listener.getLatestStatus(), lastCheckpoint);
-                }
-            }
+            self().reindexBatch(null, batchSize);
+            flushCaches();
+            publishSnapshots();
 
-            // Check whether we need batch or full
-            count = productSkus.size();
-            runBatch = count < full;
+            // ids of records older than retention are not gaps, they are purged
+            final long retainedFrom = Math.max(lastPosition, skuWarehouseService.findLastInventoryChangeIdBefore(retainedAfter));
+            job.setCheckpointPosition(skuWarehouseService.findLastVisibleInventoryChangeId(
+                    retainedFrom, maxChangeId, gapsClosedBefore, changesBatchSize));
+            skuWarehouseService.removeInventoryChangesBefore(retainedAfter);
 
-            listener.notifyInfo("Last change detected {}, indexing will run {}", count, (runBatch ? "batch" : "full"));
+            listener.notifyCompleted();
+            return new Pair<>(listener.getLatestStatus(), now);
+        }
 
-            listener.notifyInfo("Inventory changed for {} since {}", count, DateUtils.formatSDT(lastCheckpoint));
+        long lastChangeId = lastPosition != null ? lastPosition : 0L;
 
-            if (runBatch) {
-                int fromIndex = 0;
-                int toIndex;
-                while (fromIndex < productSkus.size()) {
+        listener.notifyInfo("Check inventory changes to be reindexed on {} after change {}, batch {}", nodeId, lastChangeId, batchSize);
 
-                    if (isFullIndexInProgress()) {
-                        listener.notifyInfo("Reindexing inventory updates on {}, reindex ALL is already in progress", nodeId);
-                        listener.notifyCompleted();
-                        return new Pair<>(listener.getLatestStatus(), newCheckpoint);
-                    }
+        final long initialChangeId = lastChangeId;
 
-                    toIndex = fromIndex + batchSize > productSkus.size() ? productSkus.size() : fromIndex + batchSize;
-                    final List<String> skuBatch = productSkus.subList(fromIndex, toIndex);
-                    LOG.debug("Reindexing SKU {}  ... so far reindexed {}", skuBatch, fromIndex);
-                    listener.notifyInfo("Reindexing on {}, batch from {} to {} of {}", nodeId, fromIndex, toIndex, productSkus.size());
+        while (lastChangeId < maxChangeId) {
 
-                    self().reindexBatch(skuBatch, batchSize);
+            final Pair<Long, List<String>> changes = skuWarehouseService.findProductSkuForWhichInventoryChangedAfter(lastChangeId, changesBatchSize);
+            final List<String> productSkus = changes.getSecond();
+            if (productSkus.isEmpty()) {
+                break;
+            }
 
-                    fromIndex = toIndex;
+            listener.notifyInfo("Inventory changed for {} since change {}", productSkus.size(), lastChangeId);
 
-                }
-                listener.count("Reindexed on " + nodeId, count);
-            } else {
+            int fromIndex = 0;
+            int toIndex;
+            while (fromIndex < productSkus.size()) {
 
                 if (isFullIndexInProgress()) {
                     listener.notifyInfo("Reindexing inventory updates on {}, reindex ALL is already in progress", nodeId);
+                    if (lastChangeId != initialChangeId) {
+                        publishSnapshots();
+                    }
+                    job.setCheckpointPosition(skuWarehouseService.findLastVisibleInventoryChangeId(
+                            initialChangeId, lastChangeId, gapsClosedBefore, changesBatchSize));
                     listener.notifyCompleted();
-                    return new Pair<>(listener.getLatestStatus(), newCheckpoint);
+                    return new Pair<>(listener.getLatestStatus(), lastCheckpoint);
                 }
 
-                self().reindexBatch(null, batchSize);
-                listener.notifyInfo("Reindexing inventory updates on {}, reindexed ALL", nodeId);
+                toIndex = fromIndex + batchSize > productSkus.size() ? productSkus.size() : fromIndex + batchSize;
+                final List<String> skuBatch = productSkus.subList(fromIndex, toIndex);
+                LOG.debug("Reindexing SKU {}  ... so far reindexed {}", skuBatch, fromIndex);
+                listener.notifyInfo("Reindexing on {}, batch from {} to {} of {}", nodeId, fromIndex, toIndex, productSkus.size());
+
+                self().reindexBatch(skuBatch, batchSize);
+
+                fromIndex = toIndex;
+
             }
+            listener.count("Reindexed on " + nodeId, productSkus.size());
+
+            // all changes up to this one are now in the index
+            lastChangeId = changes.getFirst();
 
             flushCaches();
         }
 
+        if (lastChangeId != initialChangeId) {
+            publishSnapshots();
+        }
+
+        // changes after the first missing id may still have uncommitted predecessors, so they are read again on the next run
+        final long visibleChangeId = skuWarehouseService.findLastVisibleInventoryChangeId(
+                initialChangeId, lastChangeId, gapsClosedBefore, changesBatchSize);
+        if (visibleChangeId < lastChangeId) {
+            listener.notifyInfo("Inventory changes after {} may not be committed yet, they will be read again on next run", visibleChangeId);
+        }
+        job.setCheckpointPosition(visibleChangeId);
+
+        final int purged = skuWarehouseService.removeInventoryChangesBefore(retainedAfter);
+        if (purged > 0) {
+            listener.notifyInfo("Purged {} inventory changes recorded before {}", purged, retainedAfter);
+        }
+
         listener.notifyCompleted();
 
-        return new Pair<>(listener.getLatestStatus(), newCheckpoint);
+        return new Pair<>(listener.getLatestStatus(), now);
     }
 
     protected void flushCaches() {
@@ -181,6 +226,24 @@ public class ProductInventoryChangedProcessorImpl extends AbstractCronJobProcess
 
     }
 
+    protected void publishSnapshots() {
+        for (final LuceneIndexProvider indexProvider : indexProviders) {
+            final long generation = indexProvider.publishSnapshot();
+            if (generation >= 0L) {
+                listener.notifyInfo("Published {} index generation {}", indexProvider.getName(), generation);
+            }
+        }
+    }
+
+    protected boolean isReplica() {
+        for (final LuceneIndexProvider indexProvider : indexProviders) {
+            if (indexProvider.isReplica()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     protected boolean isFullIndexInProgress() {
         return productService.getProductsFullTextIndexState().isFullTextSearchReindexInProgress() ||
                 productService.getProductsSkuFullTextIndexState().isFullTextSearchReindexInProgress();
@@ -198,10 +261,8 @@ public class ProductInventoryChangedProcessorImpl extends AbstractCronJobProcess
             productService.reindexProductsSku(batchSize, true);
 
         } else {
-            for (final String sku : skuCodes) {
-                // batch only
-                productService.reindexProductSku(sku);
-            }
+            // batch only
+            productService.reindexProductSkus(skuCodes);
         }
 
     }
@@ -263,4 +324,13 @@ public class ProductInventoryChangedProcessorImpl extends AbstractCronJobProcess
     public void setProductCacheHelper(final CacheBundleHelper productCacheHelper) {
         this.productCacheHelper = productCacheHelper;
     }
+
+    /**
+     * Spring IoC.
+     *
+     * @param indexProviders product indexes that are published or replicated by this job
+     */
+    public void setIndexProviders(final List<LuceneIndexProvider> indexProviders) {
+        this.indexProviders = indexProviders;
+    }
 }
@@ -26,6 +26,7 @@ import org.yes.cart.domain.entity.Job;
 import org.yes.cart.domain.entity.JobDefinition;
 import org.yes.cart.domain.misc.Pair;
 import org.yes.cart.search.dao.IndexBuilder;
+import org.yes.cart.search.dao.LuceneIndexProvider;
 import org.yes.cart.service.async.JobStatusAware;
 import org.yes.cart.service.async.JobStatusListener;
 import org.yes.cart.service.async.impl.JobStatusListenerImpl;
@@ -34,6 +35,8 @@ import org.yes.cart.service.async.model.JobStatus;
 import org.yes.cart.service.domain.ProductService;
 
 import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -44,6 +47,10 @@ import java.util.Properties;
  *
  * This is especially useful in clustered environments.
  *
+ * If indexes are replicated only the publishing node reindexes products and publishes snapshot of the
+ * indexes when done. Replica nodes do not touch the database and only copy segments of the last published
+ * snapshot, so that the cron expression of this job on replicas defines how often they catch up.
+ *
  * User: denispavlov
  * Date: 13/11/2013
  * Time: 15:30
@@ -55,6 +62,7 @@ public class ProductsGlobalIndexProcessorImpl extends AbstractCronJobProcessorIm
     private ProductService productService;
     private NodeService nodeService;
     private CacheBundleHelper productCacheHelper;
+    private List<LuceneIndexProvider> indexProviders = Collections.emptyList();
 
     private final JobStatusListener listener = new JobStatusListenerWithLoggerImpl(new JobStatusListenerImpl(), LOG);
 
@@ -78,6 +86,27 @@ public class ProductsGlobalIndexProcessorImpl extends AbstractCronJobProcessorIm
             return new Pair<>(listener.getLatestStatus(), null);
         }
 
+        if (isReplica()) {
+
+            LOG.info("Replicating product indexes on {}", nodeId);
+            listener.notifyPing("Replicating indexes");
+
+            for (final LuceneIndexProvider indexProvider : indexProviders) {
+                final long generation = indexProvider.replicateSnapshot();
+                listener.notifyInfo("Replicated {} index generation {}", indexProvider.getName(), generation);
+            }
+
+            LOG.info("Flushing product caches {}", nodeId);
+
+            productCacheHelper.flushBundleCaches();
+            listener.notifyPing(null); // clear message
+
+            listener.notifyCompleted();
+
+            return new Pair<>(listener.getLatestStatus(), null);
+
+        }
+
         final IndexBuilder.FTIndexState state = productService.getProductsFullTextIndexState();
         if (!state.isFullTextSearchReindexInProgress()) {
 
@@ -103,6 +132,14 @@ public class ProductsGlobalIndexProcessorImpl extends AbstractCronJobProcessorIm
             LOG.info("Flushing product caches {}", nodeId);
 
             productCacheHelper.flushBundleCaches();
+
+            for (final LuceneIndexProvider indexProvider : indexProviders) {
+                final long generation = indexProvider.publishSnapshot();
+                if (generation >= 0L) {
+                    listener.notifyInfo("Published {} index generation {}", indexProvider.getName(), generation);
+                }
+            }
+
             listener.notifyPing(null); // clear message
 
         } else {
@@ -128,6 +165,15 @@ public class ProductsGlobalIndexProcessorImpl extends AbstractCronJobProcessorIm
         return nodeService.getCurrentNode().isFtIndexDisabled();
     }
 
+    protected boolean isReplica() {
+        for (final LuceneIndexProvider indexProvider : indexProviders) {
+            if (indexProvider.isReplica()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Spring IoC.
      *
@@ -154,4 +200,13 @@ public class ProductsGlobalIndexProcessorImpl extends AbstractCronJobProcessorIm
     public void setProductCacheHelper(final CacheBundleHelper productCacheHelper) {
         this.productCacheHelper = productCacheHelper;
     }
+
+    /**
+     * Spring IoC.
+     *
+     * @param indexProviders product indexes that are published or replicated by this job
+     */
+    public void setIndexProviders(final List<LuceneIndexProvider> indexProviders) {
+        this.indexProviders = indexProviders;
+    }
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.cluster.service.impl;
+
+import org.yes.cart.cluster.node.NodeService;
+import org.yes.cart.cluster.service.SearchStatisticsDirector;
+import org.yes.cart.domain.dto.impl.SearchStatisticsDTO;
+import org.yes.cart.domain.dto.impl.SlowSearchQueryDTO;
+import org.yes.cart.search.dao.impl.SearchStatisticsImpl;
+import org.yes.cart.utils.DateUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Exposes statistics of Lucene indexes on this node to the cluster.
+ */
+public class SearchStatisticsDirectorImpl implements SearchStatisticsDirector {
+
+    private final List<SearchStatisticsImpl> statistics;
+
+    private NodeService nodeService;
+
+    /**
+     * @param statistics statistics of all indexes
+     */
+    public SearchStatisticsDirectorImpl(final List<SearchStatisticsImpl> statistics) {
+        this.statistics = statistics;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<SearchStatisticsDTO> getSearchStatistics() {
+
+        final String nodeId = nodeService.getCurrentNodeId();
+        final String nodeUri = nodeService.getCurrentNode().getChannel();
+
+        final List<SearchStatisticsDTO> all = new ArrayList<>();
+        for (final SearchStatisticsImpl index : this.statistics) {
+            for (final SearchStatisticsImpl.Shape shape : index.getShapes()) {
+                final SearchStatisticsDTO dto = new SearchStatisticsDTO();
+                dto.setNodeId(nodeId);
+                dto.setNodeUri(nodeUri);
+                dto.setIndex(index.getName());
+                dto.setOperation(shape.getOperation());
+                dto.setFields(shape.getFields());
+                dto.setCount(shape.getCount());
+                dto.setMeanMicros(shape.getMeanMicros());
+                dto.setP50Micros(shape.getPercentileMicros(50d));
+                dto.setP90Micros(shape.getPercentileMicros(90d));
+                dto.setP99Micros(shape.getPercentileMicros(99d));
+                dto.setMaxMicros(shape.getMaxMicros());
+                dto.setHits(shape.getHits());
+                dto.setFacets(shape.getFacets());
+                all.add(dto);
+            }
+        }
+        return all;
+
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<SlowSearchQueryDTO> getSlowQueries() {
+
+        final String nodeId = nodeService.getCurrentNodeId();
+        final String nodeUri = nodeService.getCurrentNode().getChannel();
+
+        final List<SlowSearchQueryDTO> all = new ArrayList<>();
+        for (final SearchStatisticsImpl index : this.statistics) {
+            for (final SearchStatisticsImpl.SlowQuery slow : index.getSlowQueries()) {
+                final SlowSearchQueryDTO dto = new SlowSearchQueryDTO();
+                dto.setNodeId(nodeId);
+                dto.setNodeUri(nodeUri);
+                dto.setIndex(index.getName());
+                dto.setOperation(slow.getOperation());
+                dto.setFields(slow.getFields());
+                dto.setTimestamp(DateUtils.ldtFrom(slow.getTimestamp()));
+                dto.setQuery(slow.getQuery());
+                dto.setMillis(slow.getMillis());
+                dto.setHits(slow.getHits());
+                dto.setExplanation(slow.getExplanation());
+                all.add(dto);
+            }
+        }
+        all.sort(Comparator.comparing(SlowSearchQueryDTO::getTimestamp).reversed());
+        return all;
+
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void resetSearchStatistics() {
+        for (final SearchStatisticsImpl index : this.statistics) {
+            index.reset();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setSlowQueryThreshold(final long millis) {
+        for (final SearchStatisticsImpl index : this.statistics) {
+            index.setSlowQueryThresholdMillis(millis);
+        }
+    }
+
+    /**
+     * Spring IoC.
+     *
+     * @param nodeService node service
+     */
+    public void setNodeService(final NodeService nodeService) {
+
+        this.nodeService = nodeService;
+
+        nodeService.subscribe("SearchStatisticsDirector.getSearchStatistics", message -> new ArrayList<>(SearchStatisticsDirectorImpl.this.getSearchStatistics()));
+        nodeService.subscribe("SearchStatisticsDirector.getSlowQueries", message -> new ArrayList<>(SearchStatisticsDirectorImpl.this.getSlowQueries()));
+        nodeService.subscribe("SearchStatisticsDirector.resetSearchStatistics", message -> {
+            SearchStatisticsDirectorImpl.this.resetSearchStatistics();
+            return "OK";
+        });
+        nodeService.subscribe("SearchStatisticsDirector.setSlowQueryThreshold", message -> {
+            SearchStatisticsDirectorImpl.this.setSlowQueryThreshold((Long) message.getPayload());
+            return "OK";
+        });
+
+    }
+
+}
@@ -22,6 +22,7 @@ import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionCallbackWithoutResult;
 import org.yes.cart.BaseCoreDBTestCase;
 import org.yes.cart.bulkjob.cron.CronJobProcessor;
+import org.yes.cart.dao.GenericDAO;
 import org.yes.cart.domain.dto.ProductSearchResultDTO;
 import org.yes.cart.domain.entity.SkuWarehouse;
 import org.yes.cart.domain.entity.Warehouse;
@@ -30,11 +31,13 @@ import org.yes.cart.search.dto.NavigationContext;
 import org.yes.cart.search.query.ProductSearchQueryBuilder;
 import org.yes.cart.service.async.JobStatusAware;
 import org.yes.cart.service.async.model.JobStatus;
+import org.yes.cart.service.domain.JobService;
 import org.yes.cart.service.domain.ProductService;
 import org.yes.cart.service.domain.SkuWarehouseService;
 import org.yes.cart.service.domain.WarehouseService;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
@@ -57,12 +60,10 @@ public class ProductInventoryChangedProcessorImplTest extends BaseCoreDBTestCase
         final SkuWarehouseService skuWarehouseService = ctx().getBean("skuWarehouseService", SkuWarehouseService.class);
         final SearchQueryFactory searchQueryFactory = ctx().getBean("ftQueryFactory", SearchQueryFactory.class);
         final CronJobProcessor productInventoryChangedProcessor = ctx().getBean("productInventoryChangedProcessor", CronJobProcessor.class);
+        final JobService jobService = ctx().getBean("jobService", JobService.class);
 
         final Map<String, Object> ctx = configureJobContext("productInventoryChangedProcessor", null);
 
-        final Instant checkpoint = Instant.now();
-        configureJob(ctx, job -> job.setCheckpoint(checkpoint));
-
         final long warehouseId = 2L;
         final String skuCode = "BENDER-ua";
         final Warehouse warehouse = warehouseService.findById(warehouseId);
@@ -90,10 +91,10 @@ public class ProductInventoryChangedProcessorImplTest extends BaseCoreDBTestCase
         getTx().execute(new TransactionCallbackWithoutResult() {
             @Override
             protected void doInTransactionWithoutResult(final TransactionStatus transactionStatus) {
-                // native update to bypass indexing on save!!
-                productService.getGenericDao().executeNativeUpdate("update TSKUWAREHOUSE set QUANTITY = 0"
-                        + ", UPDATED_TIMESTAMP = '2099-01-01 00:00:00' where WAREHOUSE_ID = "
-                        + warehouseId + " and SKU_CODE = '" + skuCode + "'");
+                // update via persistence layer, so that change is captured in the change log
+                final SkuWarehouse update = skuWarehouseService.findByWarehouseSku(warehouse, skuCode);
+                update.setQuantity(BigDecimal.ZERO);
+                skuWarehouseService.update(update);
             }
         });
 
@@ -102,6 +103,10 @@ public class ProductInventoryChangedProcessorImplTest extends BaseCoreDBTestCase
         assertTrue(inventory.getQuantity().compareTo(BigDecimal.ZERO) == 0);
         assertTrue(inventory.getQuantity().compareTo(inventory.getReserved()) <= 0);
 
+        // checkpoint position is the last consumed change log record, start just before the change
+        final long change = skuWarehouseService.findLastInventoryChangeId();
+        configureJob(ctx, job -> job.setCheckpointPosition(change - 1L));
+
         // Run job
         productInventoryChangedProcessor.process(ctx);
 
@@ -110,10 +115,12 @@ public class ProductInventoryChangedProcessorImplTest extends BaseCoreDBTestCase
         assertTrue(status1.getReport(),
                 status1.getReport().contains("Inventory changed for 1 since "));
 
+        // no gaps in the change log, so position moves to the end of the change log
+        assertEquals(Long.valueOf(change), jobService.findById((Long) ctx.get("jobId")).getCheckpointPosition());
+
 
         final CacheManager mgr = ctx().getBean("cacheManager", CacheManager.class);
 
-        mgr.getCache("productService-productSearchResultDTOByQuery").clear();
         mgr.getCache("productSkuService-productSkuSearchResultDTOByQuery").clear();
 
         rez = productService.getProductSearchResultDTOByQuery(context, 0, 1, null, false).getResults();
@@ -124,10 +131,10 @@ public class ProductInventoryChangedProcessorImplTest extends BaseCoreDBTestCase
         getTx().execute(new TransactionCallbackWithoutResult() {
             @Override
             protected void doInTransactionWithoutResult(final TransactionStatus transactionStatus) {
-                // native update to bypass indexing on save!!
-                productService.getGenericDao().executeNativeUpdate("update TSKUWAREHOUSE set QUANTITY = " + oldQuantity.toPlainString()
-                        + ", UPDATED_TIMESTAMP = '2099-01-01 00:00:00' where WAREHOUSE_ID = "
-                        + warehouseId + " and SKU_CODE = '" + skuCode + "'");
+                // update via persistence layer, so that change is captured in the change log
+                final SkuWarehouse update = skuWarehouseService.findByWarehouseSku(warehouse, skuCode);
+                update.setQuantity(oldQuantity);
+                skuWarehouseService.update(update);
             }
         });
 
@@ -144,14 +151,81 @@ public class ProductInventoryChangedProcessorImplTest extends BaseCoreDBTestCase
         assertTrue(status2.getReport(),
                 status2.getReport().contains("Inventory changed for 1 since "));
 
-        mgr.getCache("productService-productSearchResultDTOByQuery").clear();
         mgr.getCache("productSkuService-productSkuSearchResultDTOByQuery").clear();
 
         rez = productService.getProductSearchResultDTOByQuery(context, 0, 1, null, false).getResults();
         assertNotNull(rez);
         assertEquals(1, rez.size());
 
+        assertEquals(Long.valueOf(skuWarehouseService.findLastInventoryChangeId()),
+                jobService.findById((Long) ctx.get("jobId")).getCheckpointPosition());
 
+    }
+
+    @Test
+    public void testRunLateCommit() throws Exception {
+
+        final SkuWarehouseService skuWarehouseService = ctx().getBean("skuWarehouseService", SkuWarehouseService.class);
+        final CronJobProcessor productInventoryChangedProcessor = ctx().getBean("productInventoryChangedProcessor", CronJobProcessor.class);
+        final JobService jobService = ctx().getBean("jobService", JobService.class);
+
+        final Map<String, Object> ctx = configureJobContext("productInventoryChangedProcessor", null);
+
+        final long position = skuWarehouseService.findLastInventoryChangeId() + 10L;
+        configureJob(ctx, job -> job.setCheckpointPosition(position));
+
+        // T1 flushes change (position + 1) and stays open, T2 flushes change (position + 2) later and commits first
+        final Instant t1Flushed = Instant.now().minusSeconds(2L);
+        final Instant t2Flushed = Instant.now().minusSeconds(1L);
+        insertChange(position + 2L, "BENDER-ua", t2Flushed);
+
+        productInventoryChangedProcessor.process(ctx);
+
+        final JobStatus status1 = ((JobStatusAware) productInventoryChangedProcessor).getStatus(null);
+        assertTrue(status1.getReport(), status1.getReport().contains("Inventory changed for 1 since change " + position));
+
+        // T1 may still commit, so position stays before its change
+        assertEquals(Long.valueOf(position), jobService.findById((Long) ctx.get("jobId")).getCheckpointPosition());
+
+        // T1 commits after T2 has been consumed
+        insertChange(position + 1L, "BENDER", t1Flushed);
+
+        productInventoryChangedProcessor.process(ctx);
+
+        final JobStatus status2 = ((JobStatusAware) productInventoryChangedProcessor).getStatus(null);
+        assertTrue(status2.getReport(), status2.getReport().contains("Inventory changed for 2 since change " + position));
+
+        assertEquals(Long.valueOf(position + 2L), jobService.findById((Long) ctx.get("jobId")).getCheckpointPosition());
+
+        // T3 never commits (rolled back), T4 is after it
+        insertChange(position + 4L, "BENDER-ua", Instant.now().minusSeconds(5L));
+
+        productInventoryChangedProcessor.process(ctx);
+
+        assertEquals(Long.valueOf(position + 2L), jobService.findById((Long) ctx.get("jobId")).getCheckpointPosition());
+
+        // once change after the gap is older than gap timeout the transaction is considered rolled back
+        final Map<String, Object> timeoutCtx = configureJobContext("productInventoryChangedProcessor", "change-gap-timeout-seconds=3");
+        configureJob(timeoutCtx, job -> job.setCheckpointPosition(position + 2L));
+
+        productInventoryChangedProcessor.process(timeoutCtx);
+
+        assertEquals(Long.valueOf(position + 4L), jobService.findById((Long) timeoutCtx.get("jobId")).getCheckpointPosition());
+
+    }
+
+    private void insertChange(final long changeId, final String skuCode, final Instant created) {
+
+        final GenericDAO<Object, Long> changeLogDao = ctx().getBean("skuWarehouseDao", GenericDAO.class);
+
+        getTx().execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(final TransactionStatus transactionStatus) {
+                changeLogDao.executeNativeUpdate(
+                        "insert into TENTITYCHANGE (ENTITYCHANGE_ID, ENTITY_TYPE, ENTITY_CODE, CREATED_TIMESTAMP) values (:1, :2, :3, :4)",
+                        changeId, "SkuWarehouseEntity", skuCode, Timestamp.from(created));
+            }
+        });
 
     }
 
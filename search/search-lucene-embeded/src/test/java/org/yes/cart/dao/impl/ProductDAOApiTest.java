@@ -0,0 +1,75 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.dao.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.yes.cart.dao.GenericFTSCapableDAO;
+import org.yes.cart.dao.constants.DaoServiceBeanKeys;
+import org.yes.cart.domain.entity.Product;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Product DAO as wired for REST API by dao-index-api.xml.
+ */
+public class ProductDAOApiTest extends AbstractTestDAO {
+
+    private GenericFTSCapableDAO<Product, Long, Object> productDao;
+
+    @Override
+    @Before
+    public void setUp()  {
+        productDao = (GenericFTSCapableDAO<Product, Long, Object>) ctx().getBean(DaoServiceBeanKeys.PRODUCT_DAO);
+
+        super.setUp();
+    }
+
+    @Override
+    protected String getApplicationContextFilename() {
+        return "testApiApplicationContext.xml";
+    }
+
+    @Test
+    public void testSuggest() throws Exception {
+
+        getTxReadOnly().execute(new TransactionCallbackWithoutResult() {
+            @Override
+            public void doInTransactionWithoutResult(TransactionStatus status) {
+                productDao.fullTextSearchReindex(false, 1000);
+            }
+        });
+
+        // suggestions are built in background after refresh
+        List<String> suggestions = Collections.emptyList();
+        for (int i = 0; i < 100 && suggestions.isEmpty(); i++) {
+            Thread.sleep(50L);
+            suggestions = productDao.suggest(10L, "en", "bend", 10);
+        }
+
+        assertTrue(suggestions.contains("Bender Bending Rodriguez"));
+        assertTrue(productDao.suggest(10L, "ru", "згиб", 10).contains("Бендер Згибатель Родригес"));
+        assertTrue(productDao.suggest(10L, "en", "xyzzy", 10).isEmpty());
+
+    }
+
+}
@@ -41,6 +41,7 @@ public class SearchRO implements Serializable {
 
     private int pageNumber;
     private int pageSize;
+    private String cursor;
 
     private String sortField;
     private boolean sortDescending;
@@ -83,6 +84,15 @@ public class SearchRO implements Serializable {
         this.pageSize = pageSize;
     }
 
+    @XmlElement(name = "cursor")
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(final String cursor) {
+        this.cursor = cursor;
+    }
+
     @XmlElement(name = "sort-field")
     public String getSortField() {
         return sortField;
@@ -34,6 +34,8 @@ public class SearchResultProductRO extends AbstractSearchResultRO implements Ser
 
     private List<ProductSearchResultRO> items;
 
+    private String nextCursor;
+
     @XmlElementWrapper(name = "products")
     @XmlElement(name = "product")
     public List<ProductSearchResultRO> getItems() {
@@ -44,4 +46,13 @@ public class SearchResultProductRO extends AbstractSearchResultRO implements Ser
         this.items = items;
     }
 
+    @XmlElement(name = "next-cursor")
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(final String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
 }
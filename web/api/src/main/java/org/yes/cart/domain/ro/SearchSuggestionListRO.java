@@ -0,0 +1,47 @@
+/*
+ * Copyright 2009 Inspire-Software.com
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.domain.ro;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+import java.util.List;
+
+@XmlRootElement(name = "suggestions")
+public class SearchSuggestionListRO implements Serializable {
+
+    private static final long serialVersionUID = 20261017L;
+
+    private List<String> suggestions;
+
+    public SearchSuggestionListRO() {
+
+    }
+
+    public SearchSuggestionListRO(final List<String> suggestions) {
+        this.suggestions = suggestions;
+    }
+
+    @XmlElement(name = "suggestion")
+    public List<String> getSuggestions() {
+        return suggestions;
+    }
+
+    public void setSuggestions(final List<String> suggestions) {
+        this.suggestions = suggestions;
+    }
+}
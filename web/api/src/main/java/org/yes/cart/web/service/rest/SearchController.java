@@ -146,6 +146,10 @@ public class SearchController {
      * <p>
      * Note that if category is not specified and/or includeNavigation is false no filtered navigation will be generated in response. This is useful for simple searches such as "search suggest".
      * <p>
+     * For deep paging pass "nextCursor" from the response as "cursor" together with the next "pageNumber". Cursor lets the
+     * search continue from the last product of the previous page instead of re-reading all preceding pages. Cursor becomes
+     * stale when the index is updated, in which case the page is found by page number as usual.
+     * <p>
      * <h3>Output</h3><p>
      * <table border="1">
      *     <tr><td>JSON object SearchResultRO</td><td>
@@ -550,6 +554,125 @@ public class SearchController {
 
     }
 
+    /**
+     * Interface: GET /api/rest/search/suggest
+     * <p>
+     * <p>
+     * Type-ahead suggestions (product names, brands and categories) for search box.
+     * <p>
+     * <p>
+     * <h3>Headers for operation</h3><p>
+     * <table border="1">
+     *     <tr><td>Accept</td><td>application/json</td></tr>
+     *     <tr><td>X-CW-TOKEN</td><td>token uuid (optional)</td></tr>
+     * </table>
+     * <p>
+     * <p>
+     * <h3>Parameters for operation</h3><p>
+     * <table border="1">
+     *     <tr><td>query</td><td>text typed so far</td></tr>
+     *     <tr><td>limit</td><td>max number of suggestions (optional, default 10)</td></tr>
+     * </table>
+     * <p>
+     * <p>
+     * <h3>Output</h3><p>
+     * <table border="1">
+     *     <tr><td>JSON array</td><td>
+     * <pre><code>
+     * [ "Mini Mouse M187", "Mouse" ]
+     * </code></pre>
+     *     </td></tr>
+     * </table>
+     *
+     * @param query text typed so far
+     * @param limit max number of suggestions
+     * @param request request
+     * @param response response
+     *
+     * @return suggestions
+     */
+    @ApiOperation(value = "Type-ahead suggestions for search box.")
+    @RequestMapping(
+            value = "/suggest",
+            method = RequestMethod.GET,
+            produces = { MediaType.APPLICATION_JSON_VALUE }
+    )
+    public @ResponseBody List<String> suggest(final @ApiParam(value = "Text typed so far") @RequestParam(value = "query") String query,
+                                              final @ApiParam(value = "Max number of suggestions") @RequestParam(value = "limit", required = false) Integer limit,
+                                              final HttpServletRequest request,
+                                              final HttpServletResponse response) {
+
+        cartMixin.throwSecurityExceptionIfRequireLoggedIn();
+        return suggestInternal(query, limit);
+
+    }
+
+    /**
+     * Interface: GET /api/rest/search/suggest
+     * <p>
+     * <p>
+     * Type-ahead suggestions (product names, brands and categories) for search box.
+     * <p>
+     * <p>
+     * <h3>Headers for operation</h3><p>
+     * <table border="1">
+     *     <tr><td>Accept</td><td>application/xml</td></tr>
+     *     <tr><td>X-CW-TOKEN</td><td>token uuid (optional)</td></tr>
+     * </table>
+     * <p>
+     * <p>
+     * <h3>Parameters for operation</h3><p>
+     * <table border="1">
+     *     <tr><td>query</td><td>text typed so far</td></tr>
+     *     <tr><td>limit</td><td>max number of suggestions (optional, default 10)</td></tr>
+     * </table>
+     * <p>
+     * <p>
+     * <h3>Output</h3><p>
+     * <table border="1">
+     *     <tr><td>XML array</td><td>
+     * <pre><code>
+     * &lt;suggestions&gt;
+     *     &lt;suggestion&gt;Mini Mouse M187&lt;/suggestion&gt;
+     *     &lt;suggestion&gt;Mouse&lt;/suggestion&gt;
+     * &lt;/suggestions&gt;
+     * </code></pre>
+     *     </td></tr>
+     * </table>
+     *
+     * @param query text typed so far
+     * @param limit max number of suggestions
+     * @param request request
+     * @param response response
+     *
+     * @return suggestions
+     */
+    @ApiOperation(value = "Type-ahead suggestions for search box.")
+    @RequestMapping(
+            value = "/suggest",
+            method = RequestMethod.GET,
+            produces = { MediaType.APPLICATION_XML_VALUE }
+    )
+    public @ResponseBody SearchSuggestionListRO suggestXML(final @ApiParam(value = "Text typed so far") @RequestParam(value = "query") String query,
+                                                           final @ApiParam(value = "Max number of suggestions") @RequestParam(value = "limit", required = false) Integer limit,
+                                                           final HttpServletRequest request,
+                                                           final HttpServletResponse response) {
+
+        cartMixin.throwSecurityExceptionIfRequireLoggedIn();
+        return new SearchSuggestionListRO(suggestInternal(query, limit));
+
+    }
+
+    private List<String> suggestInternal(final String query, final Integer limit) {
+
+        final ShoppingCart cart = cartMixin.getCurrentCart();
+        final long browsingShopId = cart.getShoppingContext().getCustomerShopId();
+        final int max = limit == null || limit <= 0 ? 10 : Math.min(limit, 50);
+
+        return productServiceFacade.getSuggestions(browsingShopId, cart.getCurrentLocale(), query, max);
+
+    }
+
 
     private Pair<String, String> resolveTemplate(final long categoryId) {
         final Map params = new HashMap();
@@ -733,10 +856,12 @@ public class SearchController {
                                        final ShoppingCart cart) {
 
         ProductSearchResultPageDTO products = productServiceFacade.getListProducts(
-                context, result.getSearch().getPageNumber() * result.getSearch().getPageSize(), result.getSearch().getPageSize(),
+                context, result.getSearch().getCursor(),
+                result.getSearch().getPageNumber() * result.getSearch().getPageSize(), result.getSearch().getPageSize(),
                 result.getSearch().getSortField(), result.getSearch().getSortDescending());
 
         result.setTotalResults(products.getTotalHits());
+        result.setNextCursor(products.getCursor());
 
         result.setItems(searchSupportMixin.map(products.getResults(), cart));
 
@@ -243,6 +243,39 @@ public interface ProductServiceFacade {
                                                String sortFieldName,
                                                boolean descendingSort);
 
+    /**
+     * Get the all products , that match the given query continuing from the previous page.
+     *
+     * @param context       navigation context
+     * @param cursor        cursor returned with previous page (optional)
+     * @param firstResult   index of first result
+     * @param maxResults    quantity results to return
+     * @param sortFieldName sort field name (specify null for no sorting)
+     * @param descendingSort sort the search result in reverse if true
+     * @return list of products
+     */
+    ProductSearchResultPageDTO getListProducts(NavigationContext context,
+                                               String cursor,
+                                               int firstResult,
+                                               int maxResults,
+                                               String sortFieldName,
+                                               boolean descendingSort);
+
+    /**
+     * Get type-ahead suggestions for search box.
+     *
+     * @param customerShopId current shop
+     * @param language       current language
+     * @param prefix         text typed so far
+     * @param maxResults     max number of suggestions
+     *
+     * @return suggestions, best first
+     */
+    List<String> getSuggestions(long customerShopId,
+                                String language,
+                                String prefix,
+                                int maxResults);
+
     /**
      * Get product availability.
      *
@@ -306,9 +306,22 @@ public class ProductServiceFacadeImpl implements ProductServiceFacade {
                                                       final int maxResults,
                                                       final String sortFieldName,
                                                       final boolean descendingSort) {
+        return getListProducts(context, null, firstResult, maxResults, sortFieldName, descendingSort);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ProductSearchResultPageDTO getListProducts(final NavigationContext context,
+                                                      final String cursor,
+                                                      final int firstResult,
+                                                      final int maxResults,
+                                                      final String sortFieldName,
+                                                      final boolean descendingSort) {
 
         final ProductSearchResultPageDTO result = productService.getProductSearchResultDTOByQuery(
-                context, firstResult, maxResults, sortFieldName, descendingSort
+                context, cursor, firstResult, maxResults, sortFieldName, descendingSort
         ).copy(); // MUST BE COPY for each search as we are setting relevant SKU list
 
         if (!result.getResults().isEmpty()) {
@@ -345,6 +358,19 @@ public class ProductServiceFacadeImpl implements ProductServiceFacade {
 
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> getSuggestions(final long customerShopId,
+                                       final String language,
+                                       final String prefix,
+                                       final int maxResults) {
+
+        return productService.getSuggestions(customerShopId, language, prefix, maxResults);
+
+    }
+
     /**
      * {@inheritDoc}
      */